@@ -0,0 +1,65 @@
+package com.testplatform.controller;
+
+import com.testplatform.model.LoadTestRun;
+import com.testplatform.service.LoadTestService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/load-tests")
+@CrossOrigin(origins = "http://localhost:5173")
+public class LoadTestController {
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestController.class);
+    
+    @Autowired
+    private LoadTestService loadTestService;
+    
+    /**
+     * 发起压测（API用例按RPS或并发，业务流程用例按虚拟用户），压测在后台运行，通过GET /{id}查看结果
+     */
+    @PostMapping
+    public ResponseEntity<?> startLoadTest(@RequestBody LoadTestRun request) {
+        try {
+            LoadTestRun run = loadTestService.startRun(request);
+            return new ResponseEntity<>(run, HttpStatus.ACCEPTED);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("启动压测失败", e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+    
+    /**
+     * 压测记录列表，可按用例过滤
+     */
+    @GetMapping
+    public ResponseEntity<List<LoadTestRun>> getLoadTests(@RequestParam(required = false) String testCaseId) {
+        return ResponseEntity.ok(loadTestService.getRuns(testCaseId));
+    }
+    
+    @GetMapping("/{id}")
+    public ResponseEntity<LoadTestRun> getLoadTest(@PathVariable String id) {
+        return loadTestService.getRun(id).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * 停止正在运行的压测
+     */
+    @PostMapping("/{id}/stop")
+    public ResponseEntity<?> stopLoadTest(@PathVariable String id) {
+        if (loadTestService.stopRun(id)) {
+            return new ResponseEntity<>(HttpStatus.OK);
+        }
+        return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+}
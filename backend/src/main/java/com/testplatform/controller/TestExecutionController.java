@@ -2,10 +2,20 @@ package com.testplatform.controller;
 
 import com.testplatform.model.TestExecution;
 import com.testplatform.model.TestExecutionLog;
+import com.testplatform.service.AuthTokenCache;
 import com.testplatform.service.TestExecutionService;
 import com.testplatform.repository.TestExecutionRepository;
 import com.testplatform.repository.TestExecutionLogRepository;
+import com.testplatform.testing.TestCaseConfigCache;
+import com.testplatform.testing.api.EnvironmentRateLimiter;
+import com.testplatform.testing.api.HttpClientRegistry;
+import com.testplatform.testing.engine.DistributedCaseWorker;
+import com.testplatform.testing.engine.ExecutionQueue;
+import com.testplatform.testing.engine.ExecutionQueueFullException;
+import com.testplatform.testing.engine.FairCaseScheduler;
+import com.testplatform.testing.retry.RetryRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -14,6 +24,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -36,6 +47,30 @@ public class TestExecutionController {
     @Autowired
     private TestExecutionLogRepository testExecutionLogRepository;
     
+    @Autowired
+    private ExecutionQueue executionQueue;
+    
+    @Autowired
+    private FairCaseScheduler caseScheduler;
+    
+    @Autowired
+    private DistributedCaseWorker distributedCaseWorker;
+    
+    @Autowired
+    private EnvironmentRateLimiter environmentRateLimiter;
+    
+    @Autowired
+    private TestCaseConfigCache testCaseConfigCache;
+    
+    @Autowired
+    private HttpClientRegistry httpClientRegistry;
+    
+    @Autowired
+    private RetryRegistry retryRegistry;
+    
+    @Autowired
+    private AuthTokenCache authTokenCache;
+    
     // 存储活跃的SSE连接
     private final Map<String, SseEmitter> activeConnections = new ConcurrentHashMap<>();
     private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
@@ -44,7 +79,7 @@ public class TestExecutionController {
      * 执行测试套件
      */
     @PostMapping("/execute")
-    public ResponseEntity<TestExecution> executeTestSuite(@RequestBody ExecuteTestSuiteRequest request) {
+    public ResponseEntity<?> executeTestSuite(@RequestBody ExecuteTestSuiteRequest request) {
         try {
             logger.info("开始执行测试套件: {}, 环境: {}", request.getSuiteId(), request.getEnvironmentId());
             
@@ -54,6 +89,11 @@ public class TestExecutionController {
             ).get();
             
             return new ResponseEntity<>(execution, HttpStatus.CREATED);
+        } catch (ExecutionQueueFullException e) {
+            logger.warn("执行队列已满，拒绝执行测试套件: {}", request.getSuiteId());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("error", e.getMessage(), "retryAfterSeconds", e.getRetryAfterSeconds()));
         } catch (Exception e) {
             logger.error("执行测试套件失败", e);
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
@@ -68,6 +108,9 @@ public class TestExecutionController {
         try {
             TestExecution execution = testExecutionRepository.findById(id).orElse(null);
             if (execution != null) {
+                if (execution.getStatus() == TestExecution.ExecutionStatus.PENDING) {
+                    execution.setQueuePosition(executionQueue.getQueuePosition(id));
+                }
                 return new ResponseEntity<>(execution, HttpStatus.OK);
             } else {
                 return new ResponseEntity<>(HttpStatus.NOT_FOUND);
@@ -129,11 +172,9 @@ public class TestExecutionController {
     public ResponseEntity<?> stopTestExecution(@PathVariable String id) {
         try {
             TestExecution execution = testExecutionRepository.findById(id).orElse(null);
-            if (execution != null && execution.getStatus() == TestExecution.ExecutionStatus.RUNNING) {
-                execution.setStatus(TestExecution.ExecutionStatus.CANCELLED);
-                execution.setResult("用户手动停止");
-                execution.setEndTime(java.time.LocalDateTime.now());
-                testExecutionRepository.save(execution);
+            if (execution != null && (execution.getStatus() == TestExecution.ExecutionStatus.RUNNING
+                    || execution.getStatus() == TestExecution.ExecutionStatus.PENDING)) {
+                testExecutionService.stopExecution(id);
                 
                 logger.info("测试执行已停止: {}", id);
                 return new ResponseEntity<>(HttpStatus.OK);
@@ -146,6 +187,46 @@ public class TestExecutionController {
         }
     }
     
+    /**
+     * 恢复未完成的测试执行（进程崩溃、重启或手动停止后），已完成的用例不再执行
+     */
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<?> resumeTestExecution(@PathVariable String id) {
+        try {
+            if (!testExecutionRepository.existsById(id)) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            TestExecution execution = testExecutionService.resumeExecution(id);
+            return new ResponseEntity<>(execution, HttpStatus.ACCEPTED);
+        } catch (ExecutionQueueFullException e) {
+            logger.warn("执行队列已满，拒绝恢复测试执行: {}", id);
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("error", e.getMessage(), "retryAfterSeconds", e.getRetryAfterSeconds()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("恢复测试执行失败", e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+    
+    /**
+     * 获取执行队列状态（运行数、排队数、等待时间统计）、用例调度器、分布式工作线程、各环境限流及用例配置缓存状态
+     */
+    @GetMapping("/queue")
+    public ResponseEntity<Map<String, Object>> getQueueStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(executionQueue.getStats());
+        stats.put("caseScheduler", caseScheduler.getStats());
+        stats.put("distributedWorker", distributedCaseWorker.getStats());
+        stats.put("environmentRateLimits", environmentRateLimiter.getStats());
+        stats.put("configCache", testCaseConfigCache.getStats());
+        stats.put("httpClients", httpClientRegistry.getStats());
+        stats.put("retry", retryRegistry.getStats());
+        stats.put("authTokens", authTokenCache.getStats());
+        return ResponseEntity.ok(stats);
+    }
+    
     /**
      * 获取所有测试执行记录
      */
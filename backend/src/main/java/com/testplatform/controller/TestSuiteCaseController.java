@@ -4,6 +4,7 @@ import com.testplatform.model.TestSuiteCase;
 import com.testplatform.model.TestCase;
 import com.testplatform.repository.TestSuiteCaseRepository;
 import com.testplatform.repository.TestCaseRepository;
+import com.testplatform.testing.engine.CaseDependencyGraph;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -11,7 +12,10 @@ import org.springframework.web.bind.annotation.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import java.time.LocalDateTime;
 
@@ -137,6 +141,44 @@ public class TestSuiteCaseController {
         }
     }
     
+    /**
+     * 更新测试套件用例的依赖（依赖的用例通过后才会执行）
+     */
+    @PutMapping("/{id}/dependencies")
+    public ResponseEntity<?> updateDependencies(@PathVariable String id, @RequestBody UpdateDependenciesRequest request) {
+        logger.info("Updating dependencies for test suite case {}", id);
+        try {
+            TestSuiteCase suiteCase = testSuiteCaseRepository.findById(id).orElse(null);
+            if (suiteCase == null) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            
+            List<String> dependsOn = request.getDependsOn() != null ? request.getDependsOn() : new ArrayList<>();
+            List<TestSuiteCase> suiteCases = testSuiteCaseRepository.findBySuiteIdOrderByExecutionOrder(suiteCase.getSuiteId());
+            List<String> caseIds = new ArrayList<>();
+            Map<String, List<String>> dependencies = new HashMap<>();
+            for (TestSuiteCase sc : suiteCases) {
+                caseIds.add(sc.getTestCaseId());
+                dependencies.put(sc.getTestCaseId(), sc.getId().equals(id) ? dependsOn : sc.getDependsOn());
+            }
+            try {
+                CaseDependencyGraph.validate(caseIds, dependencies);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Invalid dependencies for test suite case {}: {}", id, e.getMessage());
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            }
+            
+            suiteCase.setDependsOn(dependsOn);
+            suiteCase.setUpdatedAt(LocalDateTime.now());
+            TestSuiteCase updated = testSuiteCaseRepository.save(suiteCase);
+            logger.info("Successfully updated dependencies for test suite case {}", id);
+            return new ResponseEntity<>(updated, HttpStatus.OK);
+        } catch (Exception e) {
+            logger.error("Error updating dependencies for test suite case {}", id, e);
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+    
     /**
      * 切换测试套件用例的启用状态
      */
@@ -186,6 +228,7 @@ public class TestSuiteCaseController {
         private TestCase testCase;
         private Integer executionOrder;
         private Boolean isEnabled;
+        private List<String> dependsOn;
         private String createdAt;
         private String updatedAt;
         
@@ -196,6 +239,7 @@ public class TestSuiteCaseController {
             this.testCase = testCase;
             this.executionOrder = suiteCase.getExecutionOrder();
             this.isEnabled = suiteCase.getIsEnabled();
+            this.dependsOn = suiteCase.getDependsOn();
             this.createdAt = suiteCase.getCreatedAt().toString();
             this.updatedAt = suiteCase.getUpdatedAt() != null ? suiteCase.getUpdatedAt().toString() : null;
         }
@@ -219,6 +263,9 @@ public class TestSuiteCaseController {
         public Boolean getIsEnabled() { return isEnabled; }
         public void setIsEnabled(Boolean isEnabled) { this.isEnabled = isEnabled; }
         
+        public List<String> getDependsOn() { return dependsOn; }
+        public void setDependsOn(List<String> dependsOn) { this.dependsOn = dependsOn; }
+        
         public String getCreatedAt() { return createdAt; }
         public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
         
@@ -249,4 +296,14 @@ public class TestSuiteCaseController {
         public Integer getExecutionOrder() { return executionOrder; }
         public void setExecutionOrder(Integer executionOrder) { this.executionOrder = executionOrder; }
     }
+    
+    /**
+     * 更新依赖的请求DTO
+     */
+    public static class UpdateDependenciesRequest {
+        private List<String> dependsOn;
+        
+        public List<String> getDependsOn() { return dependsOn; }
+        public void setDependsOn(List<String> dependsOn) { this.dependsOn = dependsOn; }
+    }
 }
@@ -2,6 +2,7 @@ package com.testplatform.controller;
 
 import com.testplatform.model.TestSuite;
 import com.testplatform.service.TestSuiteService;
+import com.testplatform.testing.engine.ShardPlanner;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -10,6 +11,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -21,6 +23,9 @@ public class TestSuiteController {
     @Autowired
     private TestSuiteService testSuiteService;
     
+    @Autowired
+    private ShardPlanner shardPlanner;
+    
     @GetMapping
     public ResponseEntity<List<TestSuite>> getAllTestSuites() {
         logger.info("Getting all test suites");
@@ -81,4 +86,20 @@ public class TestSuiteController {
         int count = testSuiteService.getTestCaseCount(id);
         return new ResponseEntity<>(count, HttpStatus.OK);
     }
-}
\ No newline at end of file
+    
+    /**
+     * 按历史耗时把套件用例分成count个耗时接近的分片，供外部CI并行运行
+     * count超过用例数时返回400
+     */
+    @GetMapping("/{id}/shards")
+    public ResponseEntity<?> getShards(@PathVariable String id, @RequestParam(defaultValue = "2") int count) {
+        if (!testSuiteService.getTestSuiteById(id).isPresent()) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        try {
+            return new ResponseEntity<>(shardPlanner.plan(id, count), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
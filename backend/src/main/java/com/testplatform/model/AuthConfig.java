@@ -19,6 +19,12 @@ public class AuthConfig {
     private String apiKey;
     private String apiKeyHeader;
     private String apiKeyValue;
+    // OAuth2客户端凭据模式
+    private String tokenUrl;
+    private String clientId;
+    private String clientSecret;
+    private String scope;
+    private String clientAuthMethod;
     
     // Constructors
     public AuthConfig() {}
@@ -152,6 +158,46 @@ public class AuthConfig {
         this.apiKeyValue = apiKeyValue;
     }
     
+    public String getTokenUrl() {
+        return tokenUrl;
+    }
+    
+    public void setTokenUrl(String tokenUrl) {
+        this.tokenUrl = tokenUrl;
+    }
+    
+    public String getClientId() {
+        return clientId;
+    }
+    
+    public void setClientId(String clientId) {
+        this.clientId = clientId;
+    }
+    
+    public String getClientSecret() {
+        return clientSecret;
+    }
+    
+    public void setClientSecret(String clientSecret) {
+        this.clientSecret = clientSecret;
+    }
+    
+    public String getScope() {
+        return scope;
+    }
+    
+    public void setScope(String scope) {
+        this.scope = scope;
+    }
+    
+    public String getClientAuthMethod() {
+        return clientAuthMethod;
+    }
+    
+    public void setClientAuthMethod(String clientAuthMethod) {
+        this.clientAuthMethod = clientAuthMethod;
+    }
+    
     // 内部类：认证凭据
     public static class Credentials {
         private String username;
@@ -0,0 +1,263 @@
+package com.testplatform.model;
+
+import com.testplatform.util.StringListConverter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分布式执行的用例工作项
+ * 每次套件执行的每个用例对应一行，由任意后端副本租用执行，租约过期后重新投递
+ */
+@Entity
+@Table(name = "execution_work_items")
+public class ExecutionWorkItem {
+
+    @Id
+    private String id;
+
+    @Column(name = "execution_id", nullable = false)
+    private String executionId;
+
+    @Column(name = "suite_id", nullable = false)
+    private String suiteId;
+
+    @Column(name = "environment_id")
+    private String environmentId;
+
+    @Column(name = "test_case_id", nullable = false)
+    private String testCaseId;
+
+    @Column(name = "test_case_name")
+    private String testCaseName;
+
+    /**
+     * 用例在套件中的顺序
+     */
+    @Column(name = "case_index", nullable = false)
+    private Integer caseIndex;
+
+    /**
+     * 是否进入紧急队列（CRITICAL/HIGH用例或手动触发的执行）
+     */
+    @Column(name = "urgent", nullable = false)
+    private Boolean urgent = false;
+
+    /**
+     * 同一执行同时租出的工作项上限（套件并行度）
+     */
+    @Column(name = "max_parallelism", nullable = false)
+    private Integer maxParallelism;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private WorkStatus status = WorkStatus.PENDING;
+
+    /**
+     * 尚未通过的依赖用例数，为0时才可被租用
+     */
+    @Column(name = "blocked_by", nullable = false)
+    private Integer blockedBy = 0;
+
+    /**
+     * 依赖本用例的用例ID
+     */
+    @Column(name = "dependents", columnDefinition = "TEXT")
+    @Convert(converter = StringListConverter.class)
+    private List<String> dependents = new ArrayList<>();
+
+    @Column(name = "lease_owner")
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    /**
+     * 被租用的次数，超过上限后不再重新投递
+     */
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "duration_ms")
+    private Long durationMs;
+
+    /**
+     * 用例执行结果（TestExecutionResult的JSON）
+     */
+    @Column(name = "result", columnDefinition = "TEXT")
+    private String result;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public ExecutionWorkItem() {
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getExecutionId() {
+        return executionId;
+    }
+
+    public void setExecutionId(String executionId) {
+        this.executionId = executionId;
+    }
+
+    public String getSuiteId() {
+        return suiteId;
+    }
+
+    public void setSuiteId(String suiteId) {
+        this.suiteId = suiteId;
+    }
+
+    public String getEnvironmentId() {
+        return environmentId;
+    }
+
+    public void setEnvironmentId(String environmentId) {
+        this.environmentId = environmentId;
+    }
+
+    public String getTestCaseId() {
+        return testCaseId;
+    }
+
+    public void setTestCaseId(String testCaseId) {
+        this.testCaseId = testCaseId;
+    }
+
+    public String getTestCaseName() {
+        return testCaseName;
+    }
+
+    public void setTestCaseName(String testCaseName) {
+        this.testCaseName = testCaseName;
+    }
+
+    public Integer getCaseIndex() {
+        return caseIndex;
+    }
+
+    public void setCaseIndex(Integer caseIndex) {
+        this.caseIndex = caseIndex;
+    }
+
+    public Boolean getUrgent() {
+        return urgent;
+    }
+
+    public void setUrgent(Boolean urgent) {
+        this.urgent = urgent;
+    }
+
+    public Integer getMaxParallelism() {
+        return maxParallelism;
+    }
+
+    public void setMaxParallelism(Integer maxParallelism) {
+        this.maxParallelism = maxParallelism;
+    }
+
+    public WorkStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(WorkStatus status) {
+        this.status = status;
+    }
+
+    public Integer getBlockedBy() {
+        return blockedBy;
+    }
+
+    public void setBlockedBy(Integer blockedBy) {
+        this.blockedBy = blockedBy;
+    }
+
+    public List<String> getDependents() {
+        return dependents;
+    }
+
+    public void setDependents(List<String> dependents) {
+        this.dependents = dependents;
+    }
+
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+
+    public LocalDateTime getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public void setLeaseExpiresAt(LocalDateTime leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public Long getDurationMs() {
+        return durationMs;
+    }
+
+    public void setDurationMs(Long durationMs) {
+        this.durationMs = durationMs;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    public void setResult(String result) {
+        this.result = result;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * 工作项状态：PENDING/LEASED为未完成，其余为终态
+     */
+    public enum WorkStatus {
+        PENDING, LEASED, PASSED, FAILED, SKIPPED
+    }
+}
@@ -0,0 +1,420 @@
+package com.testplatform.model;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 压测运行记录
+ * API用例以目标RPS（开环）或固定并发（闭环）在指定时长内反复发送同一请求，
+ * 延迟从请求的计划发出时间开始计算（修正协调遗漏）；业务流程用例以虚拟用户按负载曲线反复执行，
+ * 一次"请求"对应一次完整流程。结果保存百分位分布、吞吐量和错误率
+ */
+@Entity
+@Table(name = "load_test_runs")
+public class LoadTestRun {
+
+    @Id
+    private String id;
+
+    @Column(name = "test_case_id", nullable = false)
+    private String testCaseId;
+
+    @Column(name = "test_case_name")
+    private String testCaseName;
+
+    @Column(name = "environment_id", nullable = false)
+    private String environmentId;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private LoadMode mode = LoadMode.RATE;
+
+    /**
+     * 目标每秒请求数；RATE模式必填，CONCURRENCY模式下可选，用于控制每个并发的发送节奏
+     */
+    @Column(name = "target_rps")
+    private Double targetRps;
+
+    /**
+     * CONCURRENCY模式的并发数
+     */
+    @Column(name = "concurrency")
+    private Integer concurrency;
+
+    /**
+     * 压测时长；SCENARIO模式下为稳定阶段的时长，不含爬坡和下降
+     */
+    @Column(name = "duration_seconds", nullable = false)
+    private Integer durationSeconds;
+
+    /**
+     * SCENARIO模式的虚拟用户数
+     */
+    @Column(name = "virtual_users")
+    private Integer virtualUsers;
+
+    @Column(name = "ramp_up_seconds")
+    private Integer rampUpSeconds;
+
+    @Column(name = "ramp_down_seconds")
+    private Integer rampDownSeconds;
+
+    /**
+     * SCENARIO模式下步骤之间的默认思考时间，步骤配置了thinkTime时以步骤为准
+     */
+    @Column(name = "think_time_ms")
+    private Long thinkTimeMs;
+
+    /**
+     * SCENARIO模式下同时在线的虚拟用户数峰值
+     */
+    @Column(name = "peak_virtual_users")
+    private Integer peakVirtualUsers;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private RunStatus status = RunStatus.PENDING;
+
+    @Column(name = "total_requests")
+    private Long totalRequests;
+
+    @Column(name = "success_count")
+    private Long successCount;
+
+    @Column(name = "error_count")
+    private Long errorCount;
+
+    /**
+     * 错误率（0-1）
+     */
+    @Column(name = "error_rate")
+    private Double errorRate;
+
+    /**
+     * 实际吞吐量（完成请求数/秒）
+     */
+    @Column(name = "throughput_rps")
+    private Double throughputRps;
+
+    @Column(name = "latency_min_ms")
+    private Double latencyMinMs;
+
+    @Column(name = "latency_mean_ms")
+    private Double latencyMeanMs;
+
+    @Column(name = "latency_p50_ms")
+    private Double latencyP50Ms;
+
+    @Column(name = "latency_p95_ms")
+    private Double latencyP95Ms;
+
+    @Column(name = "latency_p99_ms")
+    private Double latencyP99Ms;
+
+    @Column(name = "latency_p999_ms")
+    private Double latencyP999Ms;
+
+    @Column(name = "latency_max_ms")
+    private Double latencyMaxMs;
+
+    /**
+     * 完整的延迟分布JSON：{"latency":{...},"serviceTime":{...},"errors":{...},"steps":{...}}，
+     * latency从计划发出时间计算，serviceTime从实际发出时间计算；SCENARIO模式下latency为流程耗时，
+     * steps为各步骤的耗时分布
+     */
+    @Column(name = "distribution", columnDefinition = "TEXT")
+    private String distribution;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @Column(name = "created_by")
+    private String createdBy;
+
+    @Column(name = "start_time")
+    private LocalDateTime startTime;
+
+    @Column(name = "end_time")
+    private LocalDateTime endTime;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public LoadTestRun() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getTestCaseId() {
+        return testCaseId;
+    }
+
+    public void setTestCaseId(String testCaseId) {
+        this.testCaseId = testCaseId;
+    }
+
+    public String getTestCaseName() {
+        return testCaseName;
+    }
+
+    public void setTestCaseName(String testCaseName) {
+        this.testCaseName = testCaseName;
+    }
+
+    public String getEnvironmentId() {
+        return environmentId;
+    }
+
+    public void setEnvironmentId(String environmentId) {
+        this.environmentId = environmentId;
+    }
+
+    public LoadMode getMode() {
+        return mode;
+    }
+
+    public void setMode(LoadMode mode) {
+        this.mode = mode;
+    }
+
+    public Double getTargetRps() {
+        return targetRps;
+    }
+
+    public void setTargetRps(Double targetRps) {
+        this.targetRps = targetRps;
+    }
+
+    public Integer getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(Integer concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public Integer getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public void setDurationSeconds(Integer durationSeconds) {
+        this.durationSeconds = durationSeconds;
+    }
+
+    public Integer getVirtualUsers() {
+        return virtualUsers;
+    }
+
+    public void setVirtualUsers(Integer virtualUsers) {
+        this.virtualUsers = virtualUsers;
+    }
+
+    public Integer getRampUpSeconds() {
+        return rampUpSeconds;
+    }
+
+    public void setRampUpSeconds(Integer rampUpSeconds) {
+        this.rampUpSeconds = rampUpSeconds;
+    }
+
+    public Integer getRampDownSeconds() {
+        return rampDownSeconds;
+    }
+
+    public void setRampDownSeconds(Integer rampDownSeconds) {
+        this.rampDownSeconds = rampDownSeconds;
+    }
+
+    public Long getThinkTimeMs() {
+        return thinkTimeMs;
+    }
+
+    public void setThinkTimeMs(Long thinkTimeMs) {
+        this.thinkTimeMs = thinkTimeMs;
+    }
+
+    public Integer getPeakVirtualUsers() {
+        return peakVirtualUsers;
+    }
+
+    public void setPeakVirtualUsers(Integer peakVirtualUsers) {
+        this.peakVirtualUsers = peakVirtualUsers;
+    }
+
+    public RunStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(RunStatus status) {
+        this.status = status;
+    }
+
+    public Long getTotalRequests() {
+        return totalRequests;
+    }
+
+    public void setTotalRequests(Long totalRequests) {
+        this.totalRequests = totalRequests;
+    }
+
+    public Long getSuccessCount() {
+        return successCount;
+    }
+
+    public void setSuccessCount(Long successCount) {
+        this.successCount = successCount;
+    }
+
+    public Long getErrorCount() {
+        return errorCount;
+    }
+
+    public void setErrorCount(Long errorCount) {
+        this.errorCount = errorCount;
+    }
+
+    public Double getErrorRate() {
+        return errorRate;
+    }
+
+    public void setErrorRate(Double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    public Double getThroughputRps() {
+        return throughputRps;
+    }
+
+    public void setThroughputRps(Double throughputRps) {
+        this.throughputRps = throughputRps;
+    }
+
+    public Double getLatencyMinMs() {
+        return latencyMinMs;
+    }
+
+    public void setLatencyMinMs(Double latencyMinMs) {
+        this.latencyMinMs = latencyMinMs;
+    }
+
+    public Double getLatencyMeanMs() {
+        return latencyMeanMs;
+    }
+
+    public void setLatencyMeanMs(Double latencyMeanMs) {
+        this.latencyMeanMs = latencyMeanMs;
+    }
+
+    public Double getLatencyP50Ms() {
+        return latencyP50Ms;
+    }
+
+    public void setLatencyP50Ms(Double latencyP50Ms) {
+        this.latencyP50Ms = latencyP50Ms;
+    }
+
+    public Double getLatencyP95Ms() {
+        return latencyP95Ms;
+    }
+
+    public void setLatencyP95Ms(Double latencyP95Ms) {
+        this.latencyP95Ms = latencyP95Ms;
+    }
+
+    public Double getLatencyP99Ms() {
+        return latencyP99Ms;
+    }
+
+    public void setLatencyP99Ms(Double latencyP99Ms) {
+        this.latencyP99Ms = latencyP99Ms;
+    }
+
+    public Double getLatencyP999Ms() {
+        return latencyP999Ms;
+    }
+
+    public void setLatencyP999Ms(Double latencyP999Ms) {
+        this.latencyP999Ms = latencyP999Ms;
+    }
+
+    public Double getLatencyMaxMs() {
+        return latencyMaxMs;
+    }
+
+    public void setLatencyMaxMs(Double latencyMaxMs) {
+        this.latencyMaxMs = latencyMaxMs;
+    }
+
+    public String getDistribution() {
+        return distribution;
+    }
+
+    public void setDistribution(String distribution) {
+        this.distribution = distribution;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public String getCreatedBy() {
+        return createdBy;
+    }
+
+    public void setCreatedBy(String createdBy) {
+        this.createdBy = createdBy;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(LocalDateTime endTime) {
+        this.endTime = endTime;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * 压测模式
+     */
+    public enum LoadMode {
+        /** 开环：按目标RPS发出请求，不等待前一个请求完成 */
+        RATE,
+        /** 闭环：固定数量的并发各自顺序发送请求 */
+        CONCURRENCY,
+        /** 虚拟用户：按爬坡/稳定/下降曲线反复执行业务流程 */
+        SCENARIO
+    }
+
+    public enum RunStatus {
+        PENDING, RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+}
@@ -34,6 +34,37 @@ public class TestEnvironment {
     @Column(name = "is_active", nullable = false)
     private Boolean isActive;
 
+    /**
+     * 该环境同时执行的用例数上限（所有执行合计），为空时使用全局配置
+     */
+    @Column(name = "max_concurrency")
+    private Integer maxConcurrency;
+
+    /**
+     * 对该环境发起API请求的速率上限（次/秒），为空或不大于0表示不限制
+     */
+    @Column(name = "rate_limit_rps")
+    private Double rateLimitRps;
+
+    /**
+     * 令牌桶容量，允许的瞬时突发请求数，为空时等于速率上限
+     */
+    @Column(name = "rate_limit_burst")
+    private Integer rateLimitBurst;
+
+    /**
+     * HTTP客户端配置（JSON）：httpVersion、connectTimeoutMs、maxConnections、executorThreads、proxy、trustAllCertificates等，
+     * 为空时使用默认配置
+     */
+    @Column(name = "http_config", columnDefinition = "TEXT")
+    private String httpConfig;
+
+    /**
+     * 存储的JSON Schema（JSON对象：名称 -> schema），jsonSchema断言可通过$ref按名称引用
+     */
+    @Column(name = "schemas", columnDefinition = "TEXT")
+    private String schemas;
+
     @Column(name = "created_by", nullable = false)
     private String createdBy;
 
@@ -103,6 +134,46 @@ public class TestEnvironment {
         this.databaseConfig = databaseConfig;
     }
 
+    public Integer getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public void setMaxConcurrency(Integer maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public Double getRateLimitRps() {
+        return rateLimitRps;
+    }
+
+    public void setRateLimitRps(Double rateLimitRps) {
+        this.rateLimitRps = rateLimitRps;
+    }
+
+    public Integer getRateLimitBurst() {
+        return rateLimitBurst;
+    }
+
+    public void setRateLimitBurst(Integer rateLimitBurst) {
+        this.rateLimitBurst = rateLimitBurst;
+    }
+
+    public String getHttpConfig() {
+        return httpConfig;
+    }
+
+    public void setHttpConfig(String httpConfig) {
+        this.httpConfig = httpConfig;
+    }
+
+    public String getSchemas() {
+        return schemas;
+    }
+
+    public void setSchemas(String schemas) {
+        this.schemas = schemas;
+    }
+
     public String getAuthConfig() {
         return authConfig;
     }
@@ -1,5 +1,7 @@
 package com.testplatform.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import javax.persistence.*;
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -72,6 +74,40 @@ public class TestExecution {
     @Column(name = "duration")
     private Long duration;
     
+    /**
+     * 执行检查点（JSON），保存恢复执行所需的变量状态，包含认证令牌等敏感值，不对外输出。
+     * 只由TestExecutionRepository.updateCheckpoint写入，保存整个实体时不覆盖
+     */
+    @JsonIgnore
+    @Column(name = "checkpoint", columnDefinition = "TEXT", updatable = false)
+    private String checkpoint;
+    
+    /**
+     * 分布式执行中已结束的用例写入的变量（JSON），各副本领取工作项时加载，包含认证令牌等敏感值，不对外输出。
+     * 只由TestExecutionRepository.updateVariables写入，保存整个实体时不覆盖
+     */
+    @JsonIgnore
+    @Column(name = "variables", columnDefinition = "TEXT", updatable = false)
+    private String variables;
+    
+    /**
+     * 持有该执行的后端进程，及其最近一次心跳时间；心跳过期的未结束执行由其他进程接管恢复。
+     * 只由仓库中的条件更新写入，保存整个实体时不覆盖
+     */
+    @JsonIgnore
+    @Column(name = "owner_node", updatable = false)
+    private String ownerNode;
+    
+    @JsonIgnore
+    @Column(name = "heartbeat_at", updatable = false)
+    private LocalDateTime heartbeatAt;
+    
+    /**
+     * 在执行队列中的位置（从1开始），仅排队中的执行有值
+     */
+    @Transient
+    private Integer queuePosition;
+    
     // Constructors
     public TestExecution() {
         this.id = UUID.randomUUID().toString();
@@ -230,6 +266,46 @@ public class TestExecution {
         this.result = result;
     }
     
+    public String getCheckpoint() {
+        return checkpoint;
+    }
+    
+    public void setCheckpoint(String checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+    
+    public String getVariables() {
+        return variables;
+    }
+    
+    public void setVariables(String variables) {
+        this.variables = variables;
+    }
+    
+    public String getOwnerNode() {
+        return ownerNode;
+    }
+    
+    public void setOwnerNode(String ownerNode) {
+        this.ownerNode = ownerNode;
+    }
+    
+    public LocalDateTime getHeartbeatAt() {
+        return heartbeatAt;
+    }
+    
+    public void setHeartbeatAt(LocalDateTime heartbeatAt) {
+        this.heartbeatAt = heartbeatAt;
+    }
+    
+    public Integer getQueuePosition() {
+        return queuePosition;
+    }
+    
+    public void setQueuePosition(Integer queuePosition) {
+        this.queuePosition = queuePosition;
+    }
+    
     public Integer getProgress() {
         return progress;
     }
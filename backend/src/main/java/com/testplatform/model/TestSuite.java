@@ -25,6 +25,25 @@ public class TestSuite {
     @Enumerated(EnumType.STRING)
     private TestSuiteType type;
     
+    /**
+     * 套件内用例的最大并行度，为空时使用全局默认值
+     */
+    @Column(name = "parallelism")
+    private Integer parallelism;
+    
+    /**
+     * 存储的JSON Schema（JSON对象：名称 -> schema），同名时覆盖环境中的schema
+     */
+    @Column(name = "schemas", columnDefinition = "TEXT")
+    private String schemas;
+    
+    /**
+     * 套件内用例的重试策略（JSON）：maxRetries、initialDelayMs、maxDelayMs、multiplier、jitter、retryOn，
+     * 用例配置中的retry覆盖同名字段，为空时使用执行器的默认策略
+     */
+    @Column(name = "retry_policy", columnDefinition = "TEXT")
+    private String retryPolicy;
+    
     @Column(name = "created_by", nullable = false)
     private String createdBy;
     
@@ -83,6 +102,30 @@ public class TestSuite {
         this.type = type;
     }
     
+    public Integer getParallelism() {
+        return parallelism;
+    }
+    
+    public void setParallelism(Integer parallelism) {
+        this.parallelism = parallelism;
+    }
+    
+    public String getSchemas() {
+        return schemas;
+    }
+    
+    public void setSchemas(String schemas) {
+        this.schemas = schemas;
+    }
+    
+    public String getRetryPolicy() {
+        return retryPolicy;
+    }
+    
+    public void setRetryPolicy(String retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+    
     public String getCreatedBy() {
         return createdBy;
     }
@@ -1,7 +1,11 @@
 package com.testplatform.model;
 
+import com.testplatform.util.StringListConverter;
+
 import javax.persistence.*;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
 @Table(name = "test_suite_cases")
@@ -23,6 +27,13 @@ public class TestSuiteCase {
     @Column(name = "is_enabled", nullable = false)
     private Boolean isEnabled = true;
     
+    /**
+     * 依赖的测试用例ID（同一套件内），依赖全部通过后才会执行
+     */
+    @Column(name = "depends_on", columnDefinition = "TEXT")
+    @Convert(converter = StringListConverter.class)
+    private List<String> dependsOn = new ArrayList<>();
+    
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
     
@@ -82,6 +93,14 @@ public class TestSuiteCase {
         this.isEnabled = isEnabled;
     }
     
+    public List<String> getDependsOn() {
+        return dependsOn;
+    }
+    
+    public void setDependsOn(List<String> dependsOn) {
+        this.dependsOn = dependsOn;
+    }
+    
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
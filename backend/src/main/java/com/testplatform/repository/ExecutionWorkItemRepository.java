@@ -0,0 +1,101 @@
+package com.testplatform.repository;
+
+import com.testplatform.model.ExecutionWorkItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ExecutionWorkItemRepository extends JpaRepository<ExecutionWorkItem, String> {
+
+    /**
+     * 根据执行ID查找所有工作项
+     */
+    List<ExecutionWorkItem> findByExecutionIdOrderByCaseIndex(String executionId);
+
+    /**
+     * 根据执行ID和用例ID查找工作项
+     */
+    List<ExecutionWorkItem> findByExecutionIdAndTestCaseIdIn(String executionId, Collection<String> testCaseIds);
+
+    /**
+     * 有可租用工作项的执行，按紧急程度和创建时间排序，返回 [execution_id, max_parallelism]
+     */
+    @Query(value = "SELECT w.execution_id, MAX(w.max_parallelism) FROM execution_work_items w " +
+                   "WHERE w.status = 'PENDING' AND w.blocked_by = 0 GROUP BY w.execution_id " +
+                   "ORDER BY BOOL_OR(w.urgent) DESC, MIN(w.created_at) LIMIT :limit", nativeQuery = true)
+    List<Object[]> findLeasableExecutions(@Param("limit") int limit);
+
+    /**
+     * 锁定执行的可租用工作项：依赖已满足，已被其他副本锁定的行直接跳过
+     * 需要在事务中调用
+     */
+    @Query(value = "SELECT * FROM execution_work_items WHERE execution_id = :executionId AND status = 'PENDING' " +
+                   "AND blocked_by = 0 ORDER BY urgent DESC, created_at, case_index LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<ExecutionWorkItem> lockLeasable(@Param("executionId") String executionId, @Param("limit") int limit);
+
+    /**
+     * 统计执行中指定状态的工作项数
+     */
+    int countByExecutionIdAndStatus(String executionId, ExecutionWorkItem.WorkStatus status);
+
+    /**
+     * 锁定租约已过期的工作项，需要在事务中调用
+     */
+    @Query(value = "SELECT * FROM execution_work_items WHERE status = 'LEASED' AND lease_expires_at < :now " +
+                   "LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<ExecutionWorkItem> lockExpired(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * 锁定单个工作项，需要在事务中调用
+     */
+    @Query(value = "SELECT * FROM execution_work_items WHERE id = :id FOR UPDATE", nativeQuery = true)
+    ExecutionWorkItem lockById(@Param("id") String id);
+
+    /**
+     * 锁定执行记录，串行化同一执行的工作项完成处理，需要在事务中调用
+     */
+    @Query(value = "SELECT id FROM test_executions WHERE id = :executionId FOR UPDATE", nativeQuery = true)
+    String lockExecution(@Param("executionId") String executionId);
+
+    /**
+     * 尝试锁定执行记录，已被其他事务锁定时返回null，需要在事务中调用
+     */
+    @Query(value = "SELECT id FROM test_executions WHERE id = :executionId FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    String tryLockExecution(@Param("executionId") String executionId);
+
+    /**
+     * 续租本副本持有的工作项
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ExecutionWorkItem w SET w.leaseExpiresAt = :expiresAt, w.updatedAt = :now " +
+           "WHERE w.id IN :ids AND w.leaseOwner = :owner AND w.status = :status")
+    int renewLeases(@Param("ids") Collection<String> ids,
+                    @Param("owner") String owner,
+                    @Param("status") ExecutionWorkItem.WorkStatus status,
+                    @Param("expiresAt") LocalDateTime expiresAt,
+                    @Param("now") LocalDateTime now);
+
+    /**
+     * 按状态统计执行的工作项数，返回 [status, count]
+     */
+    @Query("SELECT w.status, COUNT(w) FROM ExecutionWorkItem w WHERE w.executionId = :executionId GROUP BY w.status")
+    List<Object[]> countByStatus(@Param("executionId") String executionId);
+
+    /**
+     * 根据执行ID删除所有工作项
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ExecutionWorkItem w WHERE w.executionId = :executionId")
+    void deleteByExecutionId(@Param("executionId") String executionId);
+}
@@ -0,0 +1,17 @@
+package com.testplatform.repository;
+
+import com.testplatform.model.LoadTestRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LoadTestRunRepository extends JpaRepository<LoadTestRun, String> {
+    List<LoadTestRun> findAllByOrderByCreatedAtDesc();
+    List<LoadTestRun> findByTestCaseIdOrderByCreatedAtDesc(String testCaseId);
+    List<LoadTestRun> findByStatusIn(List<LoadTestRun.RunStatus> statuses);
+    List<LoadTestRun> findByTestCaseIdInAndCreatedAtAfterOrderByCreatedAtDesc(Collection<String> testCaseIds, LocalDateTime after);
+}
@@ -8,6 +8,8 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -39,6 +41,29 @@ public interface TestCaseExecutionRepository extends JpaRepository<TestCaseExecu
     @Query("DELETE FROM TestCaseExecution tce WHERE tce.executionId = :executionId")
     void deleteByExecutionId(@Param("executionId") String executionId);
     
+    /**
+     * 删除执行中指定状态的用例执行记录
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM TestCaseExecution tce WHERE tce.executionId = :executionId AND tce.status = :status")
+    void deleteByExecutionIdAndStatus(@Param("executionId") String executionId,
+                                      @Param("status") TestCaseExecution.ExecutionStatus status);
+    
+    /**
+     * 查询用例的历史执行耗时（最近的在前），每个用例最多返回 window 条，返回 [testCaseId, durationMs]
+     */
+    @Query(value = "SELECT r.test_case_id, r.duration_ms FROM (" +
+                   "SELECT tce.test_case_id, tce.duration_ms, tce.created_at, " +
+                   "ROW_NUMBER() OVER (PARTITION BY tce.test_case_id ORDER BY tce.created_at DESC) AS rn " +
+                   "FROM test_case_executions tce WHERE tce.test_case_id IN (:testCaseIds) AND tce.status IN (:statuses) " +
+                   "AND tce.duration_ms IS NOT NULL AND tce.created_at >= :since) r " +
+                   "WHERE r.rn <= :window ORDER BY r.created_at DESC", nativeQuery = true)
+    List<Object[]> findRecentDurations(@Param("testCaseIds") Collection<String> testCaseIds,
+                                       @Param("statuses") Collection<String> statuses,
+                                       @Param("since") LocalDateTime since,
+                                       @Param("window") int window);
+    
     /**
      * 根据状态查找测试用例执行记录
      */
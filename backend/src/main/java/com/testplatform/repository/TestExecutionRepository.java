@@ -8,6 +8,8 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -22,4 +24,128 @@ public interface TestExecutionRepository extends JpaRepository<TestExecution, St
     @Transactional
     @Query("DELETE FROM TestExecution te WHERE te.suiteId = :suiteId")
     void deleteBySuiteId(@Param("suiteId") String suiteId);
-}
\ No newline at end of file
+    
+    /**
+     * 更新执行进度与统计（只更新计数字段，避免覆盖并发修改的状态）
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE TestExecution te SET te.totalTests = :total, te.passedTests = :passed, te.failedTests = :failed, " +
+           "te.skippedTests = :skipped, te.progress = :progress, te.updatedAt = :updatedAt WHERE te.id = :id")
+    int updateProgress(@Param("id") String id,
+                       @Param("total") Integer total,
+                       @Param("passed") Integer passed,
+                       @Param("failed") Integer failed,
+                       @Param("skipped") Integer skipped,
+                       @Param("progress") Integer progress,
+                       @Param("updatedAt") LocalDateTime updatedAt);
+    
+    /**
+     * 更新执行状态，状态为excluded时不更新（条件更新，不覆盖并发写入的取消状态）
+     * @return 0表示执行不存在或状态为excluded
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE TestExecution te SET te.status = :status, te.result = :result, te.endTime = :endTime, " +
+           "te.updatedAt = :updatedAt WHERE te.id = :id AND te.status <> :excluded")
+    int updateStatusUnless(@Param("id") String id,
+                           @Param("status") TestExecution.ExecutionStatus status,
+                           @Param("result") String result,
+                           @Param("endTime") LocalDateTime endTime,
+                           @Param("updatedAt") LocalDateTime updatedAt,
+                           @Param("excluded") TestExecution.ExecutionStatus excluded);
+    
+    /**
+     * 更新执行状态，只有当前状态在statuses中时更新（如只取消运行或排队中的执行）
+     * @return 0表示执行不存在或当前状态不在statuses中
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE TestExecution te SET te.status = :status, te.result = :result, te.endTime = :endTime, " +
+           "te.updatedAt = :updatedAt WHERE te.id = :id AND te.status IN :statuses")
+    int updateStatusIfIn(@Param("id") String id,
+                         @Param("status") TestExecution.ExecutionStatus status,
+                         @Param("result") String result,
+                         @Param("endTime") LocalDateTime endTime,
+                         @Param("updatedAt") LocalDateTime updatedAt,
+                         @Param("statuses") Collection<TestExecution.ExecutionStatus> statuses);
+    
+    /**
+     * 写入执行结束时的统计和执行日志（不改写状态）
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE TestExecution te SET te.executionLog = :executionLog, te.totalTests = :total, te.passedTests = :passed, " +
+           "te.failedTests = :failed, te.skippedTests = :skipped, te.progress = 100, te.duration = :duration, " +
+           "te.durationSeconds = :durationSeconds, te.endTime = :endTime, te.updatedAt = :endTime WHERE te.id = :id")
+    int updateResults(@Param("id") String id,
+                      @Param("executionLog") String executionLog,
+                      @Param("total") Integer total,
+                      @Param("passed") Integer passed,
+                      @Param("failed") Integer failed,
+                      @Param("skipped") Integer skipped,
+                      @Param("duration") Long duration,
+                      @Param("durationSeconds") Integer durationSeconds,
+                      @Param("endTime") LocalDateTime endTime);
+    
+    /**
+     * 保存执行检查点（恢复执行所需的变量状态）
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE TestExecution te SET te.checkpoint = :checkpoint, te.updatedAt = :updatedAt WHERE te.id = :id")
+    int updateCheckpoint(@Param("id") String id,
+                         @Param("checkpoint") String checkpoint,
+                         @Param("updatedAt") LocalDateTime updatedAt);
+    
+    /**
+     * 读取分布式执行的变量
+     */
+    @Query("SELECT te.variables FROM TestExecution te WHERE te.id = :id")
+    String findVariables(@Param("id") String id);
+    
+    /**
+     * 保存分布式执行的变量，调用方需先锁定执行记录
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE TestExecution te SET te.variables = :variables WHERE te.id = :id")
+    int updateVariables(@Param("id") String id, @Param("variables") String variables);
+    
+    /**
+     * 查找心跳已过期（或从未有心跳）的指定状态的执行，即持有进程已退出的执行
+     */
+    @Query("SELECT te FROM TestExecution te WHERE te.status IN :statuses " +
+           "AND (te.heartbeatAt IS NULL OR te.heartbeatAt < :staleBefore)")
+    List<TestExecution> findOrphaned(@Param("statuses") Collection<TestExecution.ExecutionStatus> statuses,
+                                     @Param("staleBefore") LocalDateTime staleBefore);
+    
+    /**
+     * 接管执行：只有心跳已过期或已释放时才成功，多个进程同时接管时只有一个成功
+     * @return 1表示接管成功
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE TestExecution te SET te.ownerNode = :owner, te.heartbeatAt = :now " +
+           "WHERE te.id = :id AND (te.heartbeatAt IS NULL OR te.heartbeatAt < :staleBefore)")
+    int claim(@Param("id") String id,
+              @Param("owner") String owner,
+              @Param("now") LocalDateTime now,
+              @Param("staleBefore") LocalDateTime staleBefore);
+    
+    /**
+     * 持有进程定期刷新心跳
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE TestExecution te SET te.heartbeatAt = :now WHERE te.id IN :ids AND te.ownerNode = :owner")
+    int heartbeat(@Param("ids") Collection<String> ids, @Param("owner") String owner, @Param("now") LocalDateTime now);
+    
+    /**
+     * 执行结束后释放持有，之后可以立即被手动恢复
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE TestExecution te SET te.heartbeatAt = NULL WHERE te.id = :id AND te.ownerNode = :owner")
+    int release(@Param("id") String id, @Param("owner") String owner);
+}
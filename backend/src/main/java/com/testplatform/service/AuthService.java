@@ -2,37 +2,55 @@ package com.testplatform.service;
 
 import com.testplatform.model.TestEnvironment;
 import com.testplatform.model.AuthConfig;
+import com.testplatform.testing.api.EnvironmentHttpClient;
+import com.testplatform.testing.api.HttpClientRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
 
 @Service
 public class AuthService {
     private static final Logger logger = LoggerFactory.getLogger(AuthService.class);
     
     @Autowired
-    private RestTemplate restTemplate;
+    private HttpClientRegistry httpClientRegistry;
     
     @Autowired
     private ObjectMapper objectMapper;
     
     /**
-     * 执行认证流程
+     * 执行认证流程（每次调用都重新登录，执行中获取token请使用 {@link AuthTokenCache}）
      */
     public AuthResult authenticate(TestEnvironment environment) {
+        return authenticateAsync(environment).join();
+    }
+    
+    /**
+     * 异步执行认证流程，登录请求通过环境共享的HTTP客户端发送，不占用调用线程
+     */
+    public CompletableFuture<AuthResult> authenticateAsync(TestEnvironment environment) {
         try {
             // 解析认证配置
             AuthConfig authConfig = parseAuthConfig(environment.getAuthConfig());
             if (authConfig == null) {
                 logger.warn("环境 {} 没有配置认证信息", environment.getName());
-                return new AuthResult(false, "环境未配置认证信息", null, null, null);
+                return CompletableFuture.completedFuture(new AuthResult(false, "环境未配置认证信息", null, null, null));
             }
             
             // 根据认证类型执行不同的认证流程
@@ -40,57 +58,38 @@ public class AuthService {
                 case "jwt":
                     return authenticateJWT(environment, authConfig);
                 case "basic":
-                    return authenticateBasic(environment, authConfig);
+                    return CompletableFuture.completedFuture(authenticateBasic(environment, authConfig));
                 case "apiKey":
-                    return authenticateApiKey(environment, authConfig);
+                    return CompletableFuture.completedFuture(authenticateApiKey(environment, authConfig));
                 case "oauth2":
                     return authenticateOAuth2(environment, authConfig);
                 case "none":
-                    return new AuthResult(true, "无需认证", null, null, null);
+                    return CompletableFuture.completedFuture(new AuthResult(true, "无需认证", null, null, null));
                 default:
-                    return new AuthResult(false, "不支持的认证类型: " + authConfig.getType(), null, null, null);
+                    return CompletableFuture.completedFuture(
+                        new AuthResult(false, "不支持的认证类型: " + authConfig.getType(), null, null, null));
             }
         } catch (Exception e) {
             logger.error("认证失败", e);
-            return new AuthResult(false, "认证失败: " + e.getMessage(), null, null, null);
+            return CompletableFuture.completedFuture(new AuthResult(false, "认证失败: " + e.getMessage(), null, null, null));
         }
     }
     
     /**
      * JWT认证
      */
-    private AuthResult authenticateJWT(TestEnvironment environment, AuthConfig authConfig) {
-        try {
-            // 构建登录请求
-            String loginUrl = environment.getApiBaseUrl() + authConfig.getLoginUrl();
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            
-            Map<String, Object> loginRequest = new HashMap<>();
-            loginRequest.put("username", authConfig.getCredentials().getUsername());
-            loginRequest.put("password", authConfig.getCredentials().getPassword());
-            
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(loginRequest, headers);
-            
-            // 发送登录请求
-            ResponseEntity<Map> response = restTemplate.postForEntity(loginUrl, request, Map.class);
-            
-            if (response.getStatusCode() == HttpStatus.OK) {
-                Map<String, Object> responseBody = response.getBody();
-                String token = (String) responseBody.get(authConfig.getTokenField());
-                String refreshToken = (String) responseBody.get(authConfig.getRefreshTokenField());
-                String tokenVersion = (String) responseBody.get(authConfig.getTokenVersionField());
-                
-                logger.info("JWT认证成功，获取到token");
-                return new AuthResult(true, "认证成功", token, refreshToken, tokenVersion);
-            } else {
-                logger.error("JWT认证失败，状态码: {}", response.getStatusCode());
-                return new AuthResult(false, "认证失败，状态码: " + response.getStatusCode(), null, null, null);
-            }
-        } catch (Exception e) {
-            logger.error("JWT认证异常", e);
-            return new AuthResult(false, "JWT认证异常: " + e.getMessage(), null, null, null);
-        }
+    private CompletableFuture<AuthResult> authenticateJWT(TestEnvironment environment, AuthConfig authConfig) throws IOException {
+        // 构建登录请求
+        String loginUrl = resolveUrl(environment, authConfig.getLoginUrl());
+        
+        Map<String, Object> loginRequest = new HashMap<>();
+        loginRequest.put("username", authConfig.getCredentials().getUsername());
+        loginRequest.put("password", authConfig.getCredentials().getPassword());
+        
+        // 发送登录请求
+        return postJson(environment, loginUrl, loginRequest)
+            .thenApply(response -> readTokenResponse(response, authConfig, authConfig.getTokenField(), "JWT认证", false))
+            .exceptionally(e -> failed("JWT认证", e));
     }
     
     /**
@@ -112,27 +111,63 @@ public class AuthService {
     }
     
     /**
-     * OAuth2认证
+     * OAuth2认证（客户端凭据模式）
+     * 客户端凭据默认以HTTP Basic方式发送，clientAuthMethod为post时放在表单中；
+     * 令牌默认取响应的access_token字段，有效期取expires_in
      */
-    private AuthResult authenticateOAuth2(TestEnvironment environment, AuthConfig authConfig) {
-        // TODO: 实现OAuth2认证流程
-        logger.info("OAuth2认证暂未实现");
-        return new AuthResult(false, "OAuth2认证暂未实现", null, null, null);
+    private CompletableFuture<AuthResult> authenticateOAuth2(TestEnvironment environment, AuthConfig authConfig) {
+        if (authConfig.getTokenUrl() == null || authConfig.getClientId() == null) {
+            return CompletableFuture.completedFuture(new AuthResult(false, "OAuth2认证未配置tokenUrl或clientId", null, null, null));
+        }
+        String clientSecret = authConfig.getClientSecret() != null ? authConfig.getClientSecret() : "";
+        
+        Map<String, String> form = new LinkedHashMap<>();
+        form.put("grant_type", "client_credentials");
+        if (authConfig.getScope() != null && !authConfig.getScope().isEmpty()) {
+            form.put("scope", authConfig.getScope());
+        }
+        EnvironmentHttpClient client = httpClientRegistry.getClient(environment);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(resolveUrl(environment, authConfig.getTokenUrl())))
+            .timeout(client.getRequestTimeout())
+            .header("Content-Type", "application/x-www-form-urlencoded")
+            .header("Accept", "application/json");
+        if ("post".equalsIgnoreCase(authConfig.getClientAuthMethod())) {
+            form.put("client_id", authConfig.getClientId());
+            form.put("client_secret", clientSecret);
+        } else {
+            String credentials = formEncode(authConfig.getClientId()) + ":" + formEncode(clientSecret);
+            builder.header("Authorization", "Basic "
+                + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+        }
+        String body = form.entrySet().stream()
+            .map(entry -> formEncode(entry.getKey()) + "=" + formEncode(entry.getValue()))
+            .collect(Collectors.joining("&"));
+        HttpRequest request = builder.POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        
+        String tokenField = authConfig.getTokenField() != null ? authConfig.getTokenField() : "access_token";
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+            .thenApply(response -> readTokenResponse(response, authConfig, tokenField, "OAuth2认证", true))
+            .exceptionally(e -> failed("OAuth2认证", e));
     }
     
     /**
      * 刷新Token
      */
     public AuthResult refreshToken(TestEnvironment environment, String refreshToken, String tokenVersion) {
+        return refreshTokenAsync(environment, refreshToken, tokenVersion).join();
+    }
+    
+    /**
+     * 异步刷新Token，未配置refreshUrl时返回失败结果
+     */
+    public CompletableFuture<AuthResult> refreshTokenAsync(TestEnvironment environment, String refreshToken, String tokenVersion) {
         try {
             AuthConfig authConfig = parseAuthConfig(environment.getAuthConfig());
             if (authConfig == null || authConfig.getRefreshUrl() == null) {
-                return new AuthResult(false, "未配置刷新Token的URL", null, null, null);
+                return CompletableFuture.completedFuture(new AuthResult(false, "未配置刷新Token的URL", null, null, null));
             }
             
-            String refreshUrl = environment.getApiBaseUrl() + authConfig.getRefreshUrl();
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
+            String refreshUrl = resolveUrl(environment, authConfig.getRefreshUrl());
             
             Map<String, Object> refreshRequest = new HashMap<>();
             if (authConfig.getRefreshParams() != null) {
@@ -140,34 +175,124 @@ public class AuthService {
                     String key = entry.getKey();
                     String value = entry.getValue();
                     // 替换变量
-                    value = value.replace("{refreshToken}", refreshToken);
-                    value = value.replace("{tokenVersion}", tokenVersion);
+                    value = value.replace("{refreshToken}", refreshToken != null ? refreshToken : "");
+                    value = value.replace("{tokenVersion}", tokenVersion != null ? tokenVersion : "");
                     refreshRequest.put(key, value);
                 }
             }
             
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(refreshRequest, headers);
-            
-            ResponseEntity<Map> response = restTemplate.postForEntity(refreshUrl, request, Map.class);
-            
-            if (response.getStatusCode() == HttpStatus.OK) {
-                Map<String, Object> responseBody = response.getBody();
-                String newToken = (String) responseBody.get(authConfig.getTokenField());
-                String newRefreshToken = (String) responseBody.get(authConfig.getRefreshTokenField());
-                String newTokenVersion = (String) responseBody.get(authConfig.getTokenVersionField());
-                
-                logger.info("Token刷新成功");
-                return new AuthResult(true, "Token刷新成功", newToken, newRefreshToken, newTokenVersion);
-            } else {
-                logger.error("Token刷新失败，状态码: {}", response.getStatusCode());
-                return new AuthResult(false, "Token刷新失败，状态码: " + response.getStatusCode(), null, null, null);
-            }
+            return postJson(environment, refreshUrl, refreshRequest)
+                .thenApply(response -> readTokenResponse(response, authConfig, authConfig.getTokenField(), "Token刷新", false))
+                .exceptionally(e -> failed("Token刷新", e));
         } catch (Exception e) {
             logger.error("Token刷新异常", e);
-            return new AuthResult(false, "Token刷新异常: " + e.getMessage(), null, null, null);
+            return CompletableFuture.completedFuture(new AuthResult(false, "Token刷新异常: " + e.getMessage(), null, null, null));
         }
     }
     
+    /**
+     * 是否配置了刷新Token的URL
+     */
+    public boolean supportsRefresh(TestEnvironment environment) {
+        AuthConfig authConfig = parseAuthConfig(environment.getAuthConfig());
+        return authConfig != null && authConfig.getRefreshUrl() != null;
+    }
+    
+    /**
+     * 从登录或刷新的响应中读取token、refreshToken、tokenVersion和有效期
+     * @param tokenRequired 响应中没有token时是否认为失败
+     */
+    private AuthResult readTokenResponse(HttpResponse<String> response, AuthConfig authConfig, String tokenField,
+                                         String action, boolean tokenRequired) {
+        if (response.statusCode() != 200) {
+            logger.error("{}失败，状态码: {}", action, response.statusCode());
+            return new AuthResult(false, action + "失败，状态码: " + response.statusCode(), null, null, null);
+        }
+        Map<String, Object> responseBody;
+        try {
+            responseBody = readBody(response);
+        } catch (IOException e) {
+            logger.error("{}响应不是合法的JSON", action, e);
+            return new AuthResult(false, action + "响应不是合法的JSON: " + e.getMessage(), null, null, null);
+        }
+        String token = stringValue(responseBody.get(tokenField));
+        String refreshToken = stringValue(responseBody.get(authConfig.getRefreshTokenField() != null
+            ? authConfig.getRefreshTokenField() : "refresh_token"));
+        String tokenVersion = stringValue(responseBody.get(authConfig.getTokenVersionField()));
+        if (token == null && tokenRequired) {
+            return new AuthResult(false, action + "响应中没有" + tokenField, null, null, null);
+        }
+        
+        logger.info("{}成功，获取到token", action);
+        AuthResult result = new AuthResult(true, action + "成功", token, refreshToken, tokenVersion);
+        result.setExpiresIn(expiresIn(responseBody, authConfig));
+        return result;
+    }
+    
+    /**
+     * token有效期（秒）：响应的expires_in/expiresIn优先，其次为认证配置的expiresIn，都没有时为null
+     */
+    private static Long expiresIn(Map<String, Object> responseBody, AuthConfig authConfig) {
+        Object value = responseBody.containsKey("expires_in") ? responseBody.get("expires_in") : responseBody.get("expiresIn");
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof String) {
+            try {
+                return Long.parseLong(((String) value).trim());
+            } catch (NumberFormatException ignored) {
+                // 按认证配置的有效期处理
+            }
+        }
+        return authConfig.getExpiresIn() != null ? authConfig.getExpiresIn().longValue() : null;
+    }
+    
+    private static String stringValue(Object value) {
+        return value != null ? String.valueOf(value) : null;
+    }
+    
+    private AuthResult failed(String action, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        logger.error("{}异常", action, cause);
+        return new AuthResult(false, action + "异常: " + cause.getMessage(), null, null, null);
+    }
+    
+    /**
+     * 相对地址拼接环境的API基础地址
+     */
+    private static String resolveUrl(TestEnvironment environment, String url) {
+        if (url.startsWith("http://") || url.startsWith("https://")) {
+            return url;
+        }
+        return environment.getApiBaseUrl() + url;
+    }
+    
+    private static String formEncode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * 通过环境共享的HTTP客户端发送JSON请求
+     */
+    private CompletableFuture<HttpResponse<String>> postJson(TestEnvironment environment, String url, Map<String, Object> body)
+            throws IOException {
+        EnvironmentHttpClient client = httpClientRegistry.getClient(environment);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+            .timeout(client.getRequestTimeout())
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+            .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> readBody(HttpResponse<String> response) throws IOException {
+        if (response.body() == null || response.body().trim().isEmpty()) {
+            return new HashMap<>();
+        }
+        return objectMapper.readValue(response.body(), Map.class);
+    }
+    
     /**
      * 解析认证配置
      */
@@ -192,6 +317,7 @@ public class AuthService {
         private String token;
         private String refreshToken;
         private String tokenVersion;
+        private Long expiresIn;
         
         public AuthResult(boolean success, String message, String token, String refreshToken, String tokenVersion) {
             this.success = success;
@@ -216,5 +342,11 @@ public class AuthService {
         
         public String getTokenVersion() { return tokenVersion; }
         public void setTokenVersion(String tokenVersion) { this.tokenVersion = tokenVersion; }
+        
+        /**
+         * token有效期（秒），未知时为null
+         */
+        public Long getExpiresIn() { return expiresIn; }
+        public void setExpiresIn(Long expiresIn) { this.expiresIn = expiresIn; }
     }
 }
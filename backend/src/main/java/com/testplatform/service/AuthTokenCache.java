@@ -0,0 +1,250 @@
+package com.testplatform.service;
+
+import com.testplatform.model.TestEnvironment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 按环境缓存认证token
+ * 同一环境的并发调用共享一次在途的登录；token临近过期时在后台刷新（配置了refreshUrl时用refreshToken刷新，
+ * 失败或未配置时重新登录），刷新期间调用方继续使用旧token；环境的认证配置或API地址变化后重新登录
+ */
+@Component
+public class AuthTokenCache {
+    private static final Logger logger = LoggerFactory.getLogger(AuthTokenCache.class);
+
+    /**
+     * 每个环境记住最近签发的token数，用于识别执行变量中的token是否由本缓存签发
+     */
+    private static final int ISSUED_HISTORY = 8;
+
+    /**
+     * 后台刷新失败后再次刷新的间隔
+     */
+    private static final long REFRESH_RETRY_MILLIS = 5000;
+
+    private final Map<String, TokenEntry> entries = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<AuthService.AuthResult>> inFlight = new ConcurrentHashMap<>();
+
+    @Autowired
+    private AuthService authService;
+
+    /**
+     * token过期前多久开始后台刷新（秒），有效期较短时最多提前有效期的一半
+     */
+    @Value("${test-platform.auth.refresh-before-expiry-seconds:60}")
+    private int refreshBeforeExpirySeconds = 60;
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    /**
+     * 获取环境的认证结果，缓存的token有效时直接返回
+     */
+    public AuthService.AuthResult getToken(TestEnvironment environment) {
+        return getTokenAsync(environment).join();
+    }
+
+    public CompletableFuture<AuthService.AuthResult> getTokenAsync(TestEnvironment environment) {
+        if (environment.getId() == null) {
+            return authService.authenticateAsync(environment);
+        }
+        TokenEntry entry = current(environment);
+        long now = clock.getAsLong();
+        if (entry != null && now < entry.expiresAt) {
+            if (now >= entry.refreshAt) {
+                // 临近过期，后台刷新，本次仍返回当前token
+                load(environment, entry);
+            }
+            return CompletableFuture.completedFuture(entry.result);
+        }
+        return load(environment, entry);
+    }
+
+    /**
+     * 发送请求前调用，不阻塞：token由本缓存签发且已有更新的token时返回新的认证结果，否则返回null；
+     * 临近过期时触发后台刷新
+     */
+    public AuthService.AuthResult updatedToken(TestEnvironment environment, String token) {
+        if (environment.getId() == null || token == null) {
+            return null;
+        }
+        TokenEntry entry = current(environment);
+        if (entry == null) {
+            return null;
+        }
+        if (clock.getAsLong() >= entry.refreshAt) {
+            load(environment, entry);
+        }
+        return !token.equals(entry.result.getToken()) && entry.issued.contains(token) ? entry.result : null;
+    }
+
+    /**
+     * token是否由本缓存为该环境签发（用例自己登录获得的token不由本缓存刷新）
+     */
+    public boolean isIssued(TestEnvironment environment, String token) {
+        TokenEntry entry = environment.getId() != null ? current(environment) : null;
+        return entry != null && token != null && entry.issued.contains(token);
+    }
+
+    /**
+     * 请求因token失效被拒绝（401）后调用：token已被其他调用更新时直接返回新token，否则刷新，
+     * 同时被拒绝的请求共享一次刷新
+     */
+    public CompletableFuture<AuthService.AuthResult> refreshAfterUnauthorized(TestEnvironment environment, String rejectedToken) {
+        if (environment.getId() == null) {
+            return authService.authenticateAsync(environment);
+        }
+        TokenEntry entry = current(environment);
+        if (entry != null && entry.result.getToken() != null && !entry.result.getToken().equals(rejectedToken)) {
+            return CompletableFuture.completedFuture(entry.result);
+        }
+        return load(environment, entry);
+    }
+
+    /**
+     * 环境更新或删除后丢弃其token
+     */
+    public void invalidate(String environmentId) {
+        if (environmentId != null) {
+            entries.remove(environmentId);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long now = clock.getAsLong();
+        entries.forEach((environmentId, entry) -> {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("expiresInSeconds", entry.expiresAt == Long.MAX_VALUE ? null : (entry.expiresAt - now) / 1000);
+            item.put("refreshing", inFlight.containsKey(environmentId));
+            stats.put(environmentId, item);
+        });
+        return stats;
+    }
+
+    private TokenEntry current(TestEnvironment environment) {
+        TokenEntry entry = entries.get(environment.getId());
+        if (entry != null && !Objects.equals(entry.source, source(environment))) {
+            entries.remove(environment.getId(), entry);
+            return null;
+        }
+        return entry;
+    }
+
+    private static String source(TestEnvironment environment) {
+        return environment.getAuthConfig() + "\n" + environment.getApiBaseUrl();
+    }
+
+    /**
+     * 登录或刷新，同一环境同时只有一个在途请求
+     * @param previous 调用方看到的缓存项，已被其他调用更新时直接返回更新后的结果
+     */
+    private CompletableFuture<AuthService.AuthResult> load(TestEnvironment environment, TokenEntry previous) {
+        String key = environment.getId();
+        CompletableFuture<AuthService.AuthResult> pending = new CompletableFuture<>();
+        CompletableFuture<AuthService.AuthResult> existing = inFlight.putIfAbsent(key, pending);
+        if (existing != null) {
+            return existing;
+        }
+        TokenEntry latest = current(environment);
+        if (latest != null && latest != previous) {
+            inFlight.remove(key, pending);
+            pending.complete(latest.result);
+            return pending;
+        }
+
+        String source = source(environment);
+        CompletableFuture<AuthService.AuthResult> obtained;
+        try {
+            obtained = obtain(environment, previous);
+        } catch (RuntimeException e) {
+            obtained = CompletableFuture.failedFuture(e);
+        }
+        obtained.whenComplete((result, error) -> {
+            AuthService.AuthResult outcome = result;
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                logger.error("环境 {} 认证失败", environment.getName(), cause);
+                outcome = new AuthService.AuthResult(false, "认证失败: " + cause.getMessage(), null, null, null);
+            }
+            // 失败结果不缓存，下次调用重新登录；后台刷新失败时旧token继续使用，稍后再刷新
+            if (outcome.isSuccess()) {
+                entries.put(key, new TokenEntry(outcome, source, previous, clock.getAsLong()));
+            } else if (previous != null) {
+                previous.refreshAt = Math.min(previous.expiresAt, clock.getAsLong() + REFRESH_RETRY_MILLIS);
+            }
+            inFlight.remove(key, pending);
+            pending.complete(outcome);
+        });
+        return pending;
+    }
+
+    private CompletableFuture<AuthService.AuthResult> obtain(TestEnvironment environment, TokenEntry previous) {
+        if (previous == null || previous.result.getRefreshToken() == null || !authService.supportsRefresh(environment)) {
+            return authService.authenticateAsync(environment);
+        }
+        AuthService.AuthResult old = previous.result;
+        return authService.refreshTokenAsync(environment, old.getRefreshToken(), old.getTokenVersion())
+            .thenCompose(refreshed -> {
+                if (refreshed.isSuccess() && refreshed.getToken() != null) {
+                    logger.info("环境 {} 的token已刷新", environment.getName());
+                    // 刷新响应中没有的refreshToken、tokenVersion沿用原值
+                    if (refreshed.getRefreshToken() == null) {
+                        refreshed.setRefreshToken(old.getRefreshToken());
+                    }
+                    if (refreshed.getTokenVersion() == null) {
+                        refreshed.setTokenVersion(old.getTokenVersion());
+                    }
+                    return CompletableFuture.completedFuture(refreshed);
+                }
+                logger.warn("环境 {} 刷新token失败，重新登录: {}", environment.getName(), refreshed.getMessage());
+                return authService.authenticateAsync(environment);
+            });
+    }
+
+    private final class TokenEntry {
+        private final AuthService.AuthResult result;
+        private final String source;
+        private volatile long refreshAt;
+        private final long expiresAt;
+        private final List<String> issued;
+
+        TokenEntry(AuthService.AuthResult result, String source, TokenEntry previous, long now) {
+            this.result = result;
+            this.source = source;
+            Long expiresIn = result.getExpiresIn();
+            if (expiresIn == null || expiresIn <= 0) {
+                // 有效期未知时一直使用，直到请求返回401
+                expiresAt = Long.MAX_VALUE;
+                refreshAt = Long.MAX_VALUE;
+            } else {
+                long ttl = expiresIn * 1000;
+                expiresAt = now + ttl;
+                refreshAt = expiresAt - Math.min(refreshBeforeExpirySeconds * 1000L, ttl / 2);
+            }
+            List<String> history = new ArrayList<>();
+            if (previous != null && previous.source.equals(source)) {
+                history.addAll(previous.issued);
+            }
+            if (result.getToken() != null) {
+                history.add(result.getToken());
+            }
+            int from = Math.max(0, history.size() - ISSUED_HISTORY);
+            this.issued = List.copyOf(history.subList(from, history.size()));
+        }
+    }
+
+}
@@ -0,0 +1,417 @@
+package com.testplatform.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.testplatform.model.ExecutionWorkItem;
+import com.testplatform.model.TestCase;
+import com.testplatform.model.TestCaseExecution;
+import com.testplatform.repository.ExecutionWorkItemRepository;
+import com.testplatform.repository.TestCaseExecutionRepository;
+import com.testplatform.repository.TestExecutionRepository;
+import com.testplatform.testing.TestExecutionResult;
+import com.testplatform.testing.engine.CaseDependencyGraph;
+import com.testplatform.testing.engine.SuiteRun;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 分布式执行的工作项管理
+ * 工作项通过 SELECT ... FOR UPDATE SKIP LOCKED 被各副本租用，持有者定期续租，
+ * 租约过期的工作项重新投递给其他副本。同一执行的完成处理通过锁定执行记录串行化，
+ * 最后一个完成的工作项负责触发执行的汇总。用例写入的变量随结果合并到执行记录，
+ * 依赖它的用例无论在哪个副本上执行都能引用
+ */
+@Service
+public class ExecutionWorkItemService {
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionWorkItemService.class);
+
+    @Autowired
+    private ExecutionWorkItemRepository workItemRepository;
+
+    @Autowired
+    private TestExecutionRepository testExecutionRepository;
+
+    @Autowired
+    private TestCaseExecutionRepository testCaseExecutionRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 写入一次执行的全部工作项
+     */
+    @Transactional
+    public void enqueue(String executionId, List<ExecutionWorkItem> items) {
+        workItemRepository.saveAll(items);
+        testExecutionRepository.updateProgress(executionId, items.size(), 0, 0, 0, items.isEmpty() ? 100 : 0, LocalDateTime.now());
+    }
+
+    /**
+     * 租用最多limit个可执行的工作项，每个执行租出的工作项不超过其并行度
+     * 逐个锁定执行记录后再统计在途数并租用，同一执行的租用在各副本间串行化；
+     * 执行记录已被其他事务锁定时本轮跳过该执行，避免副本之间互相等待
+     */
+    @Transactional
+    public List<ExecutionWorkItem> lease(String owner, int limit, long leaseMillis) {
+        List<ExecutionWorkItem> items = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (Object[] row : workItemRepository.findLeasableExecutions(limit)) {
+            if (items.size() >= limit) {
+                break;
+            }
+            String executionId = (String) row[0];
+            int maxParallelism = ((Number) row[1]).intValue();
+            if (workItemRepository.tryLockExecution(executionId) == null) {
+                continue;
+            }
+            int leased = workItemRepository.countByExecutionIdAndStatus(executionId, ExecutionWorkItem.WorkStatus.LEASED);
+            int capacity = Math.min(maxParallelism - leased, limit - items.size());
+            if (capacity <= 0) {
+                continue;
+            }
+            for (ExecutionWorkItem item : workItemRepository.lockLeasable(executionId, capacity)) {
+                item.setStatus(ExecutionWorkItem.WorkStatus.LEASED);
+                item.setLeaseOwner(owner);
+                item.setLeaseExpiresAt(now.plus(Duration.ofMillis(leaseMillis)));
+                item.setAttempts(item.getAttempts() + 1);
+                item.setUpdatedAt(now);
+                items.add(item);
+            }
+        }
+        return workItemRepository.saveAll(items);
+    }
+
+    /**
+     * 续租本副本持有的工作项
+     * @return 续租成功的工作项数，小于ids数量时说明部分租约已被重新投递
+     */
+    public int renew(String owner, Collection<String> ids, long leaseMillis) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return workItemRepository.renewLeases(ids, owner, ExecutionWorkItem.WorkStatus.LEASED,
+            now.plus(Duration.ofMillis(leaseMillis)), now);
+    }
+
+    /**
+     * 把租约过期的工作项重新投递
+     * @return 已达到最大租用次数、需要按失败处理的工作项
+     */
+    @Transactional
+    public List<ExecutionWorkItem> requeueExpired(int maxAttempts, int limit) {
+        List<ExecutionWorkItem> exhausted = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (ExecutionWorkItem item : workItemRepository.lockExpired(now, limit)) {
+            if (item.getAttempts() >= maxAttempts) {
+                exhausted.add(item);
+                continue;
+            }
+            logger.warn("工作项租约已过期，重新投递: {} (执行 {}，原持有者 {})", item.getTestCaseName(),
+                item.getExecutionId(), item.getLeaseOwner());
+            item.setStatus(ExecutionWorkItem.WorkStatus.PENDING);
+            item.setLeaseOwner(null);
+            item.setLeaseExpiresAt(null);
+            item.setUpdatedAt(now);
+            workItemRepository.save(item);
+        }
+        return exhausted;
+    }
+
+    /**
+     * 记录工作项的执行结果
+     * @param owner 租约持有者，结果只在租约仍属于该副本时生效
+     * @param variables 用例写入的变量，合并到执行记录中
+     * @return 该执行的所有工作项都已结束时返回true，调用方负责汇总执行
+     */
+    @Transactional
+    public boolean complete(String executionId, String itemId, String owner, TestExecutionResult result,
+                            ExecutionWorkItem.WorkStatus status, Map<String, Object> variables) {
+        workItemRepository.lockExecution(executionId);
+        ExecutionWorkItem item = workItemRepository.lockById(itemId);
+        if (item == null || item.getStatus() != ExecutionWorkItem.WorkStatus.LEASED || !owner.equals(item.getLeaseOwner())) {
+            logger.warn("工作项租约已失效，丢弃执行结果: {}", itemId);
+            return false;
+        }
+        if (variables != null && !variables.isEmpty()) {
+            // 已持有执行记录的锁，并发完成的用例依次合并
+            Map<String, Object> merged = new LinkedHashMap<>(loadVariables(executionId));
+            merged.putAll(variables);
+            String json = writeVariables(merged);
+            if (json != null) {
+                testExecutionRepository.updateVariables(executionId, json);
+            }
+        }
+        return finish(item, result, status);
+    }
+
+    /**
+     * 读取执行中已结束的用例写入的变量
+     */
+    public Map<String, Object> loadVariables(String executionId) {
+        String json = testExecutionRepository.findVariables(executionId);
+        if (json == null || json.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        try {
+            return objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {});
+        } catch (Exception e) {
+            logger.error("解析执行变量失败: {}", executionId, e);
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * 把多次租约过期的工作项按失败处理
+     * @return 该执行的所有工作项都已结束时返回true
+     */
+    @Transactional
+    public boolean failExpired(ExecutionWorkItem expired) {
+        workItemRepository.lockExecution(expired.getExecutionId());
+        ExecutionWorkItem item = workItemRepository.lockById(expired.getId());
+        if (item == null || item.getStatus() != ExecutionWorkItem.WorkStatus.LEASED
+                || item.getLeaseExpiresAt() == null || item.getLeaseExpiresAt().isAfter(LocalDateTime.now())) {
+            return false;
+        }
+        logger.error("工作项租约过期 {} 次，按失败处理: {} (执行 {})", item.getAttempts(), item.getTestCaseName(), item.getExecutionId());
+        TestExecutionResult result = new TestExecutionResult(false,
+            "用例租约多次过期，执行节点可能已崩溃（已尝试 " + item.getAttempts() + " 次）", 0,
+            item.getTestCaseId(), item.getTestCaseName(), null);
+        saveCaseExecution(item, TestCaseExecution.ExecutionStatus.ERROR, result);
+        return finish(item, result, ExecutionWorkItem.WorkStatus.FAILED);
+    }
+
+    /**
+     * 取消执行：尚未租出的工作项全部跳过，已租出的由持有者在发现执行已取消后结束
+     * @return 本次跳过了工作项且已没有租出的工作项时返回true，调用方负责汇总执行
+     */
+    @Transactional
+    public boolean cancelPending(String executionId) {
+        workItemRepository.lockExecution(executionId);
+        LocalDateTime now = LocalDateTime.now();
+        int cancelled = 0;
+        int leased = 0;
+        for (ExecutionWorkItem item : workItemRepository.findByExecutionIdOrderByCaseIndex(executionId)) {
+            if (item.getStatus() == ExecutionWorkItem.WorkStatus.LEASED) {
+                leased++;
+            } else if (item.getStatus() == ExecutionWorkItem.WorkStatus.PENDING) {
+                // 未开始的用例不写用例执行记录，与单机执行一致
+                item.setStatus(ExecutionWorkItem.WorkStatus.SKIPPED);
+                item.setResult(toJson(new TestExecutionResult(false, "执行已取消，用例未运行", 0,
+                    item.getTestCaseId(), item.getTestCaseName(), null)));
+                item.setUpdatedAt(now);
+                workItemRepository.save(item);
+                cancelled++;
+            }
+        }
+        logger.info("执行 {} 已取消 {} 个未开始的工作项，仍有 {} 个在执行中", executionId, cancelled, leased);
+        return cancelled > 0 && leased == 0;
+    }
+
+    /**
+     * 写入工作项结果：通过时解除后继用例的依赖，未通过时跳过所有后代用例，并更新执行进度
+     */
+    private boolean finish(ExecutionWorkItem item, TestExecutionResult result, ExecutionWorkItem.WorkStatus status) {
+        LocalDateTime now = LocalDateTime.now();
+        item.setStatus(status);
+        item.setResult(toJson(result));
+        item.setDurationMs(result.getExecutionTime());
+        item.setLeaseOwner(null);
+        item.setLeaseExpiresAt(null);
+        item.setUpdatedAt(now);
+        workItemRepository.save(item);
+
+        if (!item.getDependents().isEmpty()) {
+            if (status == ExecutionWorkItem.WorkStatus.PASSED) {
+                for (ExecutionWorkItem child : workItemRepository.findByExecutionIdAndTestCaseIdIn(item.getExecutionId(), item.getDependents())) {
+                    if (child.getStatus() == ExecutionWorkItem.WorkStatus.PENDING && child.getBlockedBy() > 0) {
+                        child.setBlockedBy(child.getBlockedBy() - 1);
+                        child.setUpdatedAt(now);
+                        workItemRepository.save(child);
+                    }
+                }
+            } else {
+                skipDescendants(item, now);
+            }
+        }
+        return updateProgress(item.getExecutionId());
+    }
+
+    private void skipDescendants(ExecutionWorkItem failed, LocalDateTime now) {
+        Deque<ExecutionWorkItem> queue = new ArrayDeque<>();
+        queue.add(failed);
+        while (!queue.isEmpty()) {
+            ExecutionWorkItem current = queue.poll();
+            if (current.getDependents().isEmpty()) {
+                continue;
+            }
+            for (ExecutionWorkItem child : workItemRepository.findByExecutionIdAndTestCaseIdIn(current.getExecutionId(), current.getDependents())) {
+                if (child.getStatus() != ExecutionWorkItem.WorkStatus.PENDING) {
+                    continue;
+                }
+                TestExecutionResult result = new TestExecutionResult(false, "依赖的用例未通过，已跳过: " + failed.getTestCaseName(), 0,
+                    child.getTestCaseId(), child.getTestCaseName(), null);
+                child.setStatus(ExecutionWorkItem.WorkStatus.SKIPPED);
+                child.setResult(toJson(result));
+                child.setUpdatedAt(now);
+                workItemRepository.save(child);
+                saveCaseExecution(child, TestCaseExecution.ExecutionStatus.SKIPPED, result);
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * 删除执行的所有工作项，需在执行结果汇总落库之后调用
+     * 之后才结束的过期租约在complete时找不到工作项，结果会被丢弃
+     */
+    public void purge(String executionId) {
+        workItemRepository.deleteByExecutionId(executionId);
+        logger.info("已清理执行的工作项: {}", executionId);
+    }
+
+    /**
+     * 按工作项状态更新执行进度
+     * @return 没有未结束的工作项时返回true
+     */
+    private boolean updateProgress(String executionId) {
+        Map<ExecutionWorkItem.WorkStatus, Integer> counts = countByStatus(executionId);
+        int total = 0;
+        for (int count : counts.values()) {
+            total += count;
+        }
+        int passed = counts.getOrDefault(ExecutionWorkItem.WorkStatus.PASSED, 0);
+        int failed = counts.getOrDefault(ExecutionWorkItem.WorkStatus.FAILED, 0);
+        int skipped = counts.getOrDefault(ExecutionWorkItem.WorkStatus.SKIPPED, 0);
+        int progress = total == 0 ? 100 : (int) ((passed + failed + skipped) * 100L / total);
+        testExecutionRepository.updateProgress(executionId, total, passed, failed, skipped, progress, LocalDateTime.now());
+        return passed + failed + skipped == total;
+    }
+
+    private Map<ExecutionWorkItem.WorkStatus, Integer> countByStatus(String executionId) {
+        Map<ExecutionWorkItem.WorkStatus, Integer> counts = new EnumMap<>(ExecutionWorkItem.WorkStatus.class);
+        for (Object[] row : workItemRepository.countByStatus(executionId)) {
+            counts.put((ExecutionWorkItem.WorkStatus) row[0], ((Number) row[1]).intValue());
+        }
+        return counts;
+    }
+
+    /**
+     * 由工作项汇总执行结果，格式与单机执行的SuiteRun一致
+     */
+    public SuiteRun buildRun(String executionId) {
+        List<ExecutionWorkItem> items = workItemRepository.findByExecutionIdOrderByCaseIndex(executionId);
+        SuiteRun run = new SuiteRun(executionId, items.size());
+        LocalDateTime firstCreated = null;
+        LocalDateTime lastUpdated = null;
+        long[] durations = new long[items.size()];
+        List<TestCase> testCases = new ArrayList<>();
+        Map<String, List<String>> dependencies = new HashMap<>();
+        boolean hasDependencies = false;
+
+        for (int i = 0; i < items.size(); i++) {
+            ExecutionWorkItem item = items.get(i);
+            TestExecutionResult result = fromJson(item.getResult());
+            if (item.getStatus() == ExecutionWorkItem.WorkStatus.PENDING || item.getStatus() == ExecutionWorkItem.WorkStatus.LEASED) {
+                run.recordSkipped(new TestExecutionResult(false, "执行已取消，用例未运行", 0,
+                    item.getTestCaseId(), item.getTestCaseName(), null));
+            } else if (result == null) {
+                run.recordSkipped(new TestExecutionResult(false, "用例结果缺失", 0,
+                    item.getTestCaseId(), item.getTestCaseName(), null));
+            } else if (item.getStatus() == ExecutionWorkItem.WorkStatus.SKIPPED) {
+                run.recordSkipped(result);
+            } else {
+                run.record(result);
+            }
+            durations[i] = item.getDurationMs() != null ? item.getDurationMs() : 0;
+            if (firstCreated == null || item.getCreatedAt().isBefore(firstCreated)) {
+                firstCreated = item.getCreatedAt();
+            }
+            if (item.getUpdatedAt() != null && (lastUpdated == null || item.getUpdatedAt().isAfter(lastUpdated))) {
+                lastUpdated = item.getUpdatedAt();
+            }
+
+            TestCase testCase = new TestCase();
+            testCase.setId(item.getTestCaseId());
+            testCase.setName(item.getTestCaseName());
+            testCases.add(testCase);
+            for (String dependent : item.getDependents()) {
+                dependencies.computeIfAbsent(dependent, key -> new ArrayList<>()).add(item.getTestCaseId());
+                hasDependencies = true;
+            }
+        }
+
+        if (firstCreated != null && lastUpdated != null) {
+            run.setElapsedMillis(Math.max(0, Duration.between(firstCreated, lastUpdated).toMillis()));
+        }
+        if (hasDependencies) {
+            try {
+                run.setCriticalPath(CaseDependencyGraph.build(testCases, dependencies).criticalPath(durations));
+            } catch (IllegalArgumentException e) {
+                logger.warn("计算关键路径失败: {}", e.getMessage());
+            }
+        }
+        return run;
+    }
+
+    private void saveCaseExecution(ExecutionWorkItem item, TestCaseExecution.ExecutionStatus status, TestExecutionResult result) {
+        try {
+            TestCaseExecution caseExecution = new TestCaseExecution(UUID.randomUUID().toString(), item.getExecutionId(),
+                item.getTestCaseId(), status);
+            caseExecution.setStartTime(LocalDateTime.now());
+            caseExecution.setEndTime(LocalDateTime.now());
+            caseExecution.setDurationMs(0);
+            caseExecution.setErrorMessage(result.getMessage());
+            testCaseExecutionRepository.save(caseExecution);
+        } catch (Exception e) {
+            logger.error("保存用例执行记录失败: {}", item.getTestCaseId(), e);
+        }
+    }
+
+    private String toJson(TestExecutionResult result) {
+        try {
+            return objectMapper.writeValueAsString(result);
+        } catch (Exception e) {
+            logger.error("序列化用例结果失败", e);
+            return null;
+        }
+    }
+
+    private String writeVariables(Map<String, Object> variables) {
+        try {
+            return objectMapper.writeValueAsString(variables);
+        } catch (Exception e) {
+            logger.error("序列化执行变量失败，用例写入的变量不会传递给其他副本", e);
+            return null;
+        }
+    }
+
+    private TestExecutionResult fromJson(String json) {
+        if (json == null || json.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, TestExecutionResult.class);
+        } catch (Exception e) {
+            logger.error("解析用例结果失败", e);
+            return null;
+        }
+    }
+}
@@ -3,12 +3,22 @@ package com.testplatform.service;
 import com.testplatform.model.GlobalVariable;
 import com.testplatform.repository.GlobalVariableRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 import java.util.regex.Pattern;
 
 /**
@@ -22,6 +32,25 @@ public class GlobalVariableService {
     @Autowired
     private GlobalVariableRepository globalVariableRepository;
 
+    /**
+     * 环境ID -> 变量快照（变量名 -> 已解密的变量值）
+     * 执行中每个变量引用都会查找全局变量，按环境整体加载一次后在内存中查找；变量被修改时清除本进程中所在环境的快照，
+     * 其他副本上的快照在有效期过后重新加载
+     */
+    private final Map<String, Snapshot> environmentSnapshots = new ConcurrentHashMap<>();
+    /**
+     * 每次清除快照时递增，加载期间发生过修改的快照不写入缓存
+     */
+    private final AtomicLong snapshotGeneration = new AtomicLong();
+
+    /**
+     * 变量快照的有效期（毫秒），多副本部署时其他副本上修改的变量最迟在有效期后生效
+     */
+    @Value("${test-platform.global-variables.snapshot-ttl-ms:5000}")
+    private long snapshotTtlMs = 5000;
+
+    LongSupplier clock = System::currentTimeMillis;
+
     /**
      * 创建全局变量
      */
@@ -47,7 +76,9 @@ public class GlobalVariableService {
         variable.setCreatedAt(LocalDateTime.now());
         variable.setUpdatedAt(LocalDateTime.now());
 
-        return globalVariableRepository.save(variable);
+        GlobalVariable saved = globalVariableRepository.save(variable);
+        invalidateSnapshot(saved.getEnvironmentId());
+        return saved;
     }
 
     /**
@@ -76,6 +107,9 @@ public class GlobalVariableService {
             throw new RuntimeException("变量值格式不正确");
         }
 
+        // 变量可能被移到其他环境，原环境的快照也要清除
+        String previousEnvironmentId = existingVariable.getEnvironmentId();
+
         // 更新字段
         existingVariable.setName(variable.getName());
         existingVariable.setValue(variable.getValue());
@@ -85,7 +119,10 @@ public class GlobalVariableService {
         existingVariable.setIsEncrypted(variable.getIsEncrypted());
         existingVariable.setUpdatedAt(LocalDateTime.now());
 
-        return globalVariableRepository.save(existingVariable);
+        GlobalVariable saved = globalVariableRepository.save(existingVariable);
+        invalidateSnapshot(previousEnvironmentId);
+        invalidateSnapshot(saved.getEnvironmentId());
+        return saved;
     }
 
     /**
@@ -98,6 +135,7 @@ public class GlobalVariableService {
         }
 
         globalVariableRepository.delete(variable);
+        invalidateSnapshot(variable.getEnvironmentId());
     }
 
     /**
@@ -114,6 +152,70 @@ public class GlobalVariableService {
         return globalVariableRepository.findByNameAndEnvironmentId(name, environmentId).orElse(null);
     }
 
+    /**
+     * 获取指定环境的变量快照（变量名 -> 已解密的值），执行期间查找变量使用
+     * 首次访问时从数据库加载，之后直到该环境的变量被修改前不再查询数据库。
+     * 每个变量引用都会调用，不开启事务：命中快照时不占用数据库连接，未命中时由仓库查询自己的只读事务加载
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Map<String, String> getEnvironmentSnapshot(String environmentId) {
+        if (environmentId == null) {
+            return Collections.emptyMap();
+        }
+        long now = clock.getAsLong();
+        Snapshot cached = environmentSnapshots.get(environmentId);
+        if (cached != null && now - cached.loadedAt < snapshotTtlMs) {
+            return cached.values;
+        }
+        long generation = snapshotGeneration.get();
+        Map<String, String> values = new HashMap<>();
+        for (GlobalVariable variable : globalVariableRepository.findByEnvironmentId(environmentId)) {
+            if (variable.getValue() != null) {
+                values.put(variable.getName(), Boolean.TRUE.equals(variable.getIsEncrypted())
+                    ? decryptValue(variable.getValue()) : variable.getValue());
+            }
+        }
+        Snapshot snapshot = new Snapshot(Collections.unmodifiableMap(values), now);
+        if (snapshotGeneration.get() == generation) {
+            environmentSnapshots.put(environmentId, snapshot);
+            // 写入后再次检查，避免覆盖刚被清除的快照
+            if (snapshotGeneration.get() != generation) {
+                environmentSnapshots.remove(environmentId, snapshot);
+            }
+        }
+        return snapshot.values;
+    }
+
+    private static final class Snapshot {
+        private final Map<String, String> values;
+        private final long loadedAt;
+
+        Snapshot(Map<String, String> values, long loadedAt) {
+            this.values = values;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * 清除环境的变量快照；事务中修改时提交后再清除一次，避免并发加载读到未提交前的旧值
+     */
+    private void invalidateSnapshot(String environmentId) {
+        if (environmentId == null) {
+            return;
+        }
+        snapshotGeneration.incrementAndGet();
+        environmentSnapshots.remove(environmentId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    snapshotGeneration.incrementAndGet();
+                    environmentSnapshots.remove(environmentId);
+                }
+            });
+        }
+    }
+
     /**
      * 获取指定环境的所有变量
      */
@@ -178,23 +280,41 @@ public class GlobalVariableService {
 
     /**
      * 替换字符串中的变量
+     * 从左到右扫描一次，每个 ${name} 在环境变量快照中查找，不存在的保持原样；替换进来的值不会再次展开
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public String replaceVariables(String text, String environmentId) {
         if (text == null || text.isEmpty()) {
             return text;
         }
-
-        List<GlobalVariable> variables = getVariablesByEnvironmentId(environmentId);
-        String result = text;
-
-        for (GlobalVariable variable : variables) {
-            String placeholder = "${" + variable.getName() + "}";
-            String value = variable.getIsEncrypted() ? 
-                decryptValue(variable.getValue()) : variable.getValue();
-            result = result.replace(placeholder, value);
+        int start = text.indexOf("${");
+        if (start < 0) {
+            return text;
         }
 
-        return result;
+        Map<String, String> variables = getEnvironmentSnapshot(environmentId);
+        StringBuilder result = new StringBuilder(text.length() + 16);
+        int copied = 0;
+        while (start >= 0) {
+            int end = text.indexOf('}', start + 2);
+            if (end < 0) {
+                break;
+            }
+            String value = variables.get(text.substring(start + 2, end));
+            if (value != null) {
+                result.append(text, copied, start).append(value);
+                copied = end + 1;
+                start = text.indexOf("${", copied);
+            } else {
+                // 不是已知变量时从下一个字符继续查找，如 ${a${b} 中的 ${b}
+                start = text.indexOf("${", start + 2);
+            }
+        }
+        if (copied == 0) {
+            return text;
+        }
+        result.append(text, copied, text.length());
+        return result.toString();
     }
 
     /**
@@ -0,0 +1,405 @@
+package com.testplatform.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.testplatform.model.LoadTestRun;
+import com.testplatform.model.TestCase;
+import com.testplatform.model.TestEnvironment;
+import com.testplatform.repository.LoadTestRunRepository;
+import com.testplatform.repository.TestCaseRepository;
+import com.testplatform.repository.TestEnvironmentRepository;
+import com.testplatform.testing.VariableManager;
+import com.testplatform.testing.VariableScope;
+import com.testplatform.testing.api.ApiTestExecutor;
+import com.testplatform.testing.api.HttpClientRegistry;
+import com.testplatform.testing.business.BusinessTestExecutor;
+import com.testplatform.testing.engine.CancellationToken;
+import com.testplatform.testing.engine.ExecutionContext;
+import com.testplatform.testing.engine.ExecutionThreads;
+import com.testplatform.testing.load.LatencyHistogram;
+import com.testplatform.testing.load.LoadTestResult;
+import com.testplatform.testing.load.LoadTestRunner;
+import com.testplatform.testing.load.ScenarioLoadRunner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 压测服务：API用例的请求压测和业务流程用例的虚拟用户压测
+ * 压测在独立的线程中运行，不占用套件执行队列；压测按自身的目标速率发送请求，不受环境的请求速率限制
+ */
+@Service
+public class LoadTestService {
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestService.class);
+
+    /**
+     * 同时运行的压测数上限
+     */
+    @Value("${test-platform.load.max-concurrent-runs:2}")
+    private int maxConcurrentRuns;
+
+    /**
+     * 单次压测的在途请求上限
+     */
+    @Value("${test-platform.load.max-in-flight:10000}")
+    private int maxInFlight;
+
+    /**
+     * 单次压测的最长时长
+     */
+    @Value("${test-platform.load.max-duration-seconds:3600}")
+    private int maxDurationSeconds;
+
+    /**
+     * 单次虚拟用户压测的用户数上限
+     */
+    @Value("${test-platform.load.max-virtual-users:1000}")
+    private int maxVirtualUsers;
+
+    @Autowired
+    private LoadTestRunRepository loadTestRunRepository;
+
+    @Autowired
+    private TestCaseRepository testCaseRepository;
+
+    @Autowired
+    private TestEnvironmentRepository testEnvironmentRepository;
+
+    @Autowired
+    private ApiTestExecutor apiTestExecutor;
+
+    @Autowired
+    private BusinessTestExecutor businessTestExecutor;
+
+    @Autowired
+    private ExecutionThreads executionThreads;
+
+    @Autowired
+    private AuthTokenCache authTokenCache;
+
+    @Autowired
+    private VariableManager variableManager;
+
+    @Autowired
+    private HttpClientRegistry httpClientRegistry;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, CancellationToken> cancellationTokens = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor runPool;
+
+    @PostConstruct
+    public void init() {
+        int threads = Math.max(1, maxConcurrentRuns);
+        AtomicInteger counter = new AtomicInteger();
+        runPool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+            Thread thread = new Thread(r, "load-test-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        runPool.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cancellationTokens.values().forEach(CancellationToken::cancel);
+        runPool.shutdownNow();
+    }
+
+    /**
+     * 创建并启动压测
+     * @throws IllegalArgumentException 用例、环境不存在或参数无效时
+     * @throws IllegalStateException 同时运行的压测数已达上限时
+     */
+    public LoadTestRun startRun(LoadTestRun request) {
+        TestCase testCase = testCaseRepository.findById(request.getTestCaseId())
+            .orElseThrow(() -> new IllegalArgumentException("测试用例不存在: " + request.getTestCaseId()));
+        TestEnvironment environment = testEnvironmentRepository.findById(request.getEnvironmentId())
+            .orElseThrow(() -> new IllegalArgumentException("测试环境不存在: " + request.getEnvironmentId()));
+        validate(request);
+
+        LoadTestRun run = new LoadTestRun();
+        run.setId(UUID.randomUUID().toString());
+        run.setTestCaseId(testCase.getId());
+        run.setTestCaseName(testCase.getName());
+        run.setEnvironmentId(environment.getId());
+        run.setMode(request.getMode());
+        run.setTargetRps(request.getTargetRps());
+        run.setConcurrency(request.getConcurrency());
+        run.setDurationSeconds(request.getDurationSeconds());
+        run.setVirtualUsers(request.getVirtualUsers());
+        run.setRampUpSeconds(request.getRampUpSeconds());
+        run.setRampDownSeconds(request.getRampDownSeconds());
+        run.setThinkTimeMs(request.getThinkTimeMs());
+        run.setCreatedBy(request.getCreatedBy());
+        run.setStatus(LoadTestRun.RunStatus.PENDING);
+
+        CancellationToken cancellationToken = new CancellationToken();
+        cancellationTokens.put(run.getId(), cancellationToken);
+        LoadTestRun saved = loadTestRunRepository.save(run);
+        try {
+            runPool.execute(() -> execute(saved, testCase, environment, cancellationToken));
+        } catch (RejectedExecutionException e) {
+            cancellationTokens.remove(run.getId());
+            loadTestRunRepository.delete(saved);
+            throw new IllegalStateException("同时运行的压测数已达上限: " + maxConcurrentRuns);
+        }
+        logger.info("压测已启动: {}, 用例: {}, 模式: {}", saved.getId(), testCase.getName(), saved.getMode());
+        return saved;
+    }
+
+    private void validate(LoadTestRun request) {
+        if (request.getMode() == null) {
+            request.setMode(LoadTestRun.LoadMode.RATE);
+        }
+        if (request.getDurationSeconds() == null || request.getDurationSeconds() <= 0
+                || request.getDurationSeconds() > maxDurationSeconds) {
+            throw new IllegalArgumentException("压测时长必须在1到" + maxDurationSeconds + "秒之间");
+        }
+        if (request.getMode() == LoadTestRun.LoadMode.RATE
+                && (request.getTargetRps() == null || request.getTargetRps() <= 0)) {
+            throw new IllegalArgumentException("RATE模式必须指定大于0的目标RPS");
+        }
+        if (request.getMode() == LoadTestRun.LoadMode.CONCURRENCY
+                && (request.getConcurrency() == null || request.getConcurrency() <= 0)) {
+            throw new IllegalArgumentException("CONCURRENCY模式必须指定大于0的并发数");
+        }
+        if (request.getMode() == LoadTestRun.LoadMode.SCENARIO) {
+            if (request.getVirtualUsers() == null || request.getVirtualUsers() <= 0 || request.getVirtualUsers() > maxVirtualUsers) {
+                throw new IllegalArgumentException("虚拟用户数必须在1到" + maxVirtualUsers + "之间");
+            }
+            if (request.getRampUpSeconds() == null || request.getRampUpSeconds() < 0) {
+                request.setRampUpSeconds(0);
+            }
+            if (request.getRampDownSeconds() == null || request.getRampDownSeconds() < 0) {
+                request.setRampDownSeconds(0);
+            }
+            if (totalSeconds(request) > maxDurationSeconds) {
+                throw new IllegalArgumentException("爬坡、稳定和下降阶段的总时长不能超过" + maxDurationSeconds + "秒");
+            }
+        }
+    }
+
+    /**
+     * 压测的计划总时长（秒）
+     */
+    private static long totalSeconds(LoadTestRun run) {
+        long total = run.getDurationSeconds();
+        if (run.getMode() == LoadTestRun.LoadMode.SCENARIO) {
+            total += (run.getRampUpSeconds() != null ? run.getRampUpSeconds() : 0)
+                + (run.getRampDownSeconds() != null ? run.getRampDownSeconds() : 0);
+        }
+        return total;
+    }
+
+    /**
+     * 停止压测，已发出的请求的结果仍计入统计
+     * @return 压测正在运行时返回true
+     */
+    public boolean stopRun(String id) {
+        CancellationToken cancellationToken = cancellationTokens.get(id);
+        if (cancellationToken == null) {
+            return false;
+        }
+        cancellationToken.cancel();
+        logger.info("压测已请求停止: {}", id);
+        return true;
+    }
+
+    public Optional<LoadTestRun> getRun(String id) {
+        return loadTestRunRepository.findById(id);
+    }
+
+    public List<LoadTestRun> getRuns(String testCaseId) {
+        if (testCaseId != null && !testCaseId.isEmpty()) {
+            return loadTestRunRepository.findByTestCaseIdOrderByCreatedAtDesc(testCaseId);
+        }
+        return loadTestRunRepository.findAllByOrderByCreatedAtDesc();
+    }
+
+    void execute(LoadTestRun run, TestCase testCase, TestEnvironment environment, CancellationToken cancellationToken) {
+        try {
+            run.setStatus(LoadTestRun.RunStatus.RUNNING);
+            run.setStartTime(LocalDateTime.now());
+            loadTestRunRepository.save(run);
+
+            AuthService.AuthResult authResult = authTokenCache.getToken(environment);
+            if (!authResult.isSuccess()) {
+                throw new RuntimeException("认证失败: " + authResult.getMessage());
+            }
+            // 压测的变量作用域，虚拟用户在其子作用域中读写变量
+            VariableScope variables = variableManager.openExecutionScope(run.getId(), environment.getId());
+            if (authResult.getToken() != null) {
+                variables.put("token", authResult.getToken());
+            }
+            if (authResult.getRefreshToken() != null) {
+                variables.put("refreshToken", authResult.getRefreshToken());
+            }
+            // 压测中的失败请求不重试，如实计入错误率
+            ExecutionContext.bind(new ExecutionContext(run.getId(), cancellationToken, variables).withoutRetries());
+
+            LoadTestResult result = run.getMode() == LoadTestRun.LoadMode.SCENARIO
+                ? runScenario(run, testCase, environment, cancellationToken)
+                : runRequests(run, testCase, environment, cancellationToken);
+
+            applyResult(run, result);
+            run.setStatus(result.isCancelled() ? LoadTestRun.RunStatus.CANCELLED : LoadTestRun.RunStatus.COMPLETED);
+            logger.info("压测结束: {}, 请求数: {}, 吞吐量: {} rps, 错误率: {}, p99: {} ms", run.getId(),
+                run.getTotalRequests(), String.format("%.1f", run.getThroughputRps()),
+                String.format("%.4f", run.getErrorRate()), run.getLatencyP99Ms());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.setStatus(LoadTestRun.RunStatus.CANCELLED);
+        } catch (Exception e) {
+            logger.error("压测执行失败: {}", run.getId(), e);
+            run.setStatus(LoadTestRun.RunStatus.FAILED);
+            run.setErrorMessage(e.getMessage());
+        } finally {
+            ExecutionContext.clear();
+            variableManager.closeExecutionScope(run.getId());
+            cancellationTokens.remove(run.getId());
+            run.setEndTime(LocalDateTime.now());
+            try {
+                loadTestRunRepository.save(run);
+            } catch (Exception e) {
+                logger.error("保存压测结果失败: {}", run.getId(), e);
+            }
+        }
+    }
+
+    private LoadTestResult runRequests(LoadTestRun run, TestCase testCase, TestEnvironment environment,
+                                       CancellationToken cancellationToken) throws Exception {
+        // 变量只替换一次，之后重复发送同一个请求
+        ApiTestExecutor.PreparedRequest prepared = apiTestExecutor.prepareRequest(testCase, environment);
+        // 使用环境共享的客户端（协议版本、代理、证书与用例执行一致），在途请求数由压测自己控制
+        HttpClient httpClient = httpClientRegistry.getClient(environment).getHttpClient();
+        LoadTestRunner runner = new LoadTestRunner(httpClient, prepared.getRequest(),
+            response -> apiTestExecutor.checkAssertions(prepared, response),
+            httpClientRegistry.responseBodyHandler(), maxInFlight);
+        Duration duration = Duration.ofSeconds(run.getDurationSeconds());
+        return run.getMode() == LoadTestRun.LoadMode.CONCURRENCY
+            ? runner.runWithConcurrency(run.getConcurrency(), run.getTargetRps(), duration, cancellationToken)
+            : runner.runAtRate(run.getTargetRps(), duration, cancellationToken);
+    }
+
+    /**
+     * 虚拟用户压测：虚拟线程模式下每个用户一个虚拟线程，否则为本次压测创建同等数量的平台线程
+     */
+    private LoadTestResult runScenario(LoadTestRun run, TestCase testCase, TestEnvironment environment,
+                                       CancellationToken cancellationToken) throws InterruptedException {
+        ExecutorService userExecutor = executionThreads.isVirtual() ? executionThreads.getCaseExecutor() : null;
+        ExecutorService ownExecutor = null;
+        if (userExecutor == null) {
+            AtomicInteger counter = new AtomicInteger();
+            ownExecutor = Executors.newFixedThreadPool(run.getVirtualUsers(), r -> {
+                Thread thread = new Thread(r, "virtual-user-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            userExecutor = ownExecutor;
+        }
+        try {
+            ScenarioLoadRunner runner = new ScenarioLoadRunner(new ScenarioLoadRunner.Scenario() {
+                @Override
+                public boolean runOnce(BusinessTestExecutor.StepListener listener) throws Exception {
+                    return businessTestExecutor.runProcessOnce(testCase, environment, listener);
+                }
+
+                @Override
+                public void validate() throws Exception {
+                    businessTestExecutor.validateProcess(testCase);
+                }
+            }, userExecutor);
+            ScenarioLoadRunner.VirtualUserProfile profile = new ScenarioLoadRunner.VirtualUserProfile(run.getVirtualUsers(),
+                Duration.ofSeconds(run.getRampUpSeconds()), Duration.ofSeconds(run.getDurationSeconds()),
+                Duration.ofSeconds(run.getRampDownSeconds()), run.getThinkTimeMs() != null ? run.getThinkTimeMs() : 0);
+            return runner.run(run.getId(), profile, cancellationToken);
+        } finally {
+            if (ownExecutor != null) {
+                ownExecutor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * 把压测结果写入运行记录，延迟由微秒换算为毫秒
+     */
+    void applyResult(LoadTestRun run, LoadTestResult result) {
+        LatencyHistogram latency = result.getLatency();
+        run.setTotalRequests(result.getTotalRequests());
+        run.setSuccessCount(result.getSuccessCount());
+        run.setErrorCount(result.getErrorCount());
+        run.setErrorRate(result.getErrorRate());
+        run.setThroughputRps(result.getThroughputRps());
+        run.setLatencyMinMs(latency.getMinValue() / 1000.0);
+        run.setLatencyMeanMs(latency.getMean() / 1000.0);
+        run.setLatencyP50Ms(latency.getValueAtPercentile(50) / 1000.0);
+        run.setLatencyP95Ms(latency.getValueAtPercentile(95) / 1000.0);
+        run.setLatencyP99Ms(latency.getValueAtPercentile(99) / 1000.0);
+        run.setLatencyP999Ms(latency.getValueAtPercentile(99.9) / 1000.0);
+        run.setLatencyMaxMs(latency.getMaxValue() / 1000.0);
+
+        Map<String, Object> distribution = new LinkedHashMap<>();
+        distribution.put("latency", latency.getDistribution(1000.0));
+        if (result.getServiceTime() != null) {
+            distribution.put("serviceTime", result.getServiceTime().getDistribution(1000.0));
+        }
+        distribution.put("errors", result.getErrors());
+        if (run.getMode() == LoadTestRun.LoadMode.SCENARIO) {
+            distribution.put("steps", result.getSteps());
+            run.setPeakVirtualUsers(result.getPeakVirtualUsers());
+        }
+        try {
+            run.setDistribution(objectMapper.writeValueAsString(distribution));
+        } catch (Exception e) {
+            logger.warn("序列化压测延迟分布失败: {}", run.getId(), e);
+        }
+    }
+
+    /**
+     * 启动时把计划结束时间已过但仍未结束的压测标记为失败（所在进程已退出）
+     * 多副本部署时其他副本上仍在运行的压测尚未到计划结束时间，不受影响
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void failInterruptedRuns() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            for (LoadTestRun run : loadTestRunRepository.findByStatusIn(
+                    Arrays.asList(LoadTestRun.RunStatus.PENDING, LoadTestRun.RunStatus.RUNNING))) {
+                LocalDateTime startedAt = run.getStartTime() != null ? run.getStartTime() : run.getCreatedAt();
+                // 预留1分钟等待在途请求超时
+                if (startedAt.plusSeconds(totalSeconds(run) + 60L).isBefore(now)) {
+                    run.setStatus(LoadTestRun.RunStatus.FAILED);
+                    run.setErrorMessage("服务重启，压测中断");
+                    run.setEndTime(now);
+                    loadTestRunRepository.save(run);
+                    logger.warn("压测在服务重启时中断: {}", run.getId());
+                }
+            }
+        } catch (Exception e) {
+            logger.error("查找未结束的压测失败", e);
+        }
+    }
+}
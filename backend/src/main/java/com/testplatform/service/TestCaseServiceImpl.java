@@ -7,6 +7,7 @@ import com.testplatform.repository.TestCaseRepository;
 import com.testplatform.repository.TestCaseExecutionRepository;
 import com.testplatform.repository.TestSuiteCaseRepository;
 import com.testplatform.repository.TaskExecutionHistoryRepository;
+import com.testplatform.testing.TestCaseConfigCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Primary;
 import org.springframework.security.core.Authentication;
@@ -35,6 +36,9 @@ public class TestCaseServiceImpl implements TestCaseService {
     @Autowired
     private TestSuiteCaseRepository testSuiteCaseRepository;
     
+    @Autowired
+    private TestCaseConfigCache configCache;
+    
     @Autowired
     private TaskExecutionHistoryRepository taskExecutionHistoryRepository;
     
@@ -100,7 +104,9 @@ public class TestCaseServiceImpl implements TestCaseService {
             testCase.setCreatedBy(existingTestCase.getCreatedBy());
             testCase.setUpdatedAt(LocalDateTime.now());
             
-            return testCaseRepository.save(testCase);
+            TestCase saved = testCaseRepository.save(testCase);
+            configCache.invalidate(id);
+            return saved;
         } else {
             throw new RuntimeException("测试用例不存在: " + id);
         }
@@ -135,6 +141,7 @@ public class TestCaseServiceImpl implements TestCaseService {
         // 3. 最后删除测试用例本身
         logger.info("删除测试用例: {}", id);
         testCaseRepository.deleteById(id);
+        configCache.invalidate(id);
         
         logger.info("测试用例删除完成: {}", id);
     }
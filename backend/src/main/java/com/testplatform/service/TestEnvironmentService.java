@@ -4,12 +4,18 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.testplatform.model.TestConnectionResult;
 import com.testplatform.model.TestEnvironment;
 import com.testplatform.repository.TestEnvironmentRepository;
+import com.testplatform.testing.api.HttpClientRegistry;
 import groovy.util.logging.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -21,10 +27,20 @@ import java.util.Optional;
 @Service
 @Transactional
 public class TestEnvironmentService {
+    /**
+     * 连通性测试的请求超时
+     */
+    private static final Duration CONNECTION_TEST_TIMEOUT = Duration.ofSeconds(5);
 
     @Autowired
     private TestEnvironmentRepository testEnvironmentRepository;
 
+    @Autowired
+    private HttpClientRegistry httpClientRegistry;
+
+    @Autowired
+    private AuthTokenCache authTokenCache;
+
     /**
      * 创建测试环境
      */
@@ -79,6 +95,11 @@ public class TestEnvironmentService {
         existingEnvironment.setUiBaseUrl(environment.getUiBaseUrl());
         existingEnvironment.setDatabaseConfig(environment.getDatabaseConfig());
         existingEnvironment.setAuthConfig(environment.getAuthConfig());
+        existingEnvironment.setMaxConcurrency(environment.getMaxConcurrency());
+        existingEnvironment.setRateLimitRps(environment.getRateLimitRps());
+        existingEnvironment.setRateLimitBurst(environment.getRateLimitBurst());
+        existingEnvironment.setHttpConfig(environment.getHttpConfig());
+        existingEnvironment.setSchemas(environment.getSchemas());
         
         // 处理isActive字段，如果为null则保持原值
         System.out.println("DEBUG: Received isActive value: " + environment.getIsActive());
@@ -95,6 +116,8 @@ public class TestEnvironmentService {
             System.out.println("DEBUG: isActive is null, keeping original value: " + existingEnvironment.getIsActive());
         }
         existingEnvironment.setUpdatedAt(LocalDateTime.now());
+        httpClientRegistry.invalidate(id);
+        authTokenCache.invalidate(id);
 
         return testEnvironmentRepository.save(existingEnvironment);
     }
@@ -112,6 +135,8 @@ public class TestEnvironmentService {
         // TODO: 添加关联检查逻辑
 
         testEnvironmentRepository.delete(environment);
+        httpClientRegistry.invalidate(id);
+        authTokenCache.invalidate(id);
     }
 
     /**
@@ -203,7 +228,7 @@ public class TestEnvironmentService {
             if (environment.getApiBaseUrl() != null && !environment.getApiBaseUrl().isEmpty()) {
                 java.net.URL url = new java.net.URL(environment.getApiBaseUrl());
                 // 测试API连接
-                String apiTestResult = testApiConnection(environment.getApiBaseUrl());
+                String apiTestResult = testApiConnection(environment, environment.getApiBaseUrl());
                 if (!"success".equals(apiTestResult)) {
                     throw new RuntimeException("API连接测试失败: " + apiTestResult);
                 }
@@ -213,7 +238,7 @@ public class TestEnvironmentService {
             if (environment.getUiBaseUrl() != null && !environment.getUiBaseUrl().isEmpty()) {
                 java.net.URL url = new java.net.URL(environment.getUiBaseUrl());
                 // 测试UI连接
-                String uiTestResult = testUiConnection(environment.getUiBaseUrl());
+                String uiTestResult = testUiConnection(environment, environment.getUiBaseUrl());
                 if (!"success".equals(uiTestResult)) {
                     throw new RuntimeException("UI连接测试失败: " + uiTestResult);
                 }
@@ -323,7 +348,7 @@ public class TestEnvironmentService {
                         }
                         
                         // 测试JWT认证连接
-                        String authTestResult = testJwtAuthConnection(authConfig);
+                        String authTestResult = testJwtAuthConnection(environment, authConfig);
                         if (!"success".equals(authTestResult)) {
                             throw new RuntimeException("JWT认证连接测试失败: " + authTestResult);
                         }
@@ -376,13 +401,8 @@ public class TestEnvironmentService {
         try {
             // 测试API连接
             if (environment.getApiBaseUrl() != null && !environment.getApiBaseUrl().isEmpty()) {
-                java.net.URL url = new java.net.URL(environment.getApiBaseUrl());
-                java.net.HttpURLConnection connection = (java.net.HttpURLConnection) url.openConnection();
-                connection.setRequestMethod("GET");
-                connection.setConnectTimeout(5000);
-                connection.setReadTimeout(5000);
-                int responseCode = connection.getResponseCode();
-                connection.disconnect();
+                int responseCode = sendTestRequest(environment,
+                    HttpRequest.newBuilder(URI.create(environment.getApiBaseUrl())).GET());
                 
                 // 认为2xx和3xx状态码都是有效的
                 if (!(responseCode >= 200 && responseCode < 400)) {
@@ -413,7 +433,7 @@ public class TestEnvironmentService {
         try {
             // 测试API连接
             if (environment.getApiBaseUrl() != null && !environment.getApiBaseUrl().isEmpty()) {
-                String apiTestResult = testApiConnection(environment.getApiBaseUrl());
+                String apiTestResult = testApiConnection(environment, environment.getApiBaseUrl());
                 if (!apiTestResult.equals("success")) {
                     result.setSuccess(false);
                     result.setMessage("API连接测试失败: " + apiTestResult);
@@ -423,7 +443,7 @@ public class TestEnvironmentService {
 
             // 测试UI连接
             if (environment.getUiBaseUrl() != null && !environment.getUiBaseUrl().isEmpty()) {
-                String uiTestResult = testUiConnection(environment.getUiBaseUrl());
+                String uiTestResult = testUiConnection(environment, environment.getUiBaseUrl());
                 if (!uiTestResult.equals("success")) {
                     result.setSuccess(false);
                     result.setMessage("UI连接测试失败: " + uiTestResult);
@@ -443,7 +463,7 @@ public class TestEnvironmentService {
 
             // 测试认证配置
             if (environment.getAuthConfig() != null && !environment.getAuthConfig().trim().isEmpty()) {
-                String authTestResult = testAuthConnection(environment.getAuthConfig());
+                String authTestResult = testAuthConnection(environment, environment.getAuthConfig());
                 if (!authTestResult.equals("success")) {
                     result.setSuccess(false);
                     result.setMessage("认证连接测试失败: " + authTestResult);
@@ -461,15 +481,9 @@ public class TestEnvironmentService {
     /**
      * 测试API连接
      */
-    private String testApiConnection(String apiUrl) {
+    private String testApiConnection(TestEnvironment environment, String apiUrl) {
         try {
-            java.net.URL url = new java.net.URL(apiUrl);
-            java.net.HttpURLConnection connection = (java.net.HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setConnectTimeout(5000);
-            connection.setReadTimeout(5000);
-            int responseCode = connection.getResponseCode();
-            connection.disconnect();
+            int responseCode = sendTestRequest(environment, HttpRequest.newBuilder(URI.create(apiUrl)).GET());
             
             // 认为2xx和3xx状态码都是有效的
             if (responseCode >= 200 && responseCode < 400) {
@@ -485,15 +499,9 @@ public class TestEnvironmentService {
     /**
      * 测试UI连接
      */
-    private String testUiConnection(String uiUrl) {
+    private String testUiConnection(TestEnvironment environment, String uiUrl) {
         try {
-            java.net.URL url = new java.net.URL(uiUrl);
-            java.net.HttpURLConnection connection = (java.net.HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setConnectTimeout(5000);
-            connection.setReadTimeout(5000);
-            int responseCode = connection.getResponseCode();
-            connection.disconnect();
+            int responseCode = sendTestRequest(environment, HttpRequest.newBuilder(URI.create(uiUrl)).GET());
             
             // 认为2xx和3xx状态码都是有效的
             if (responseCode >= 200 && responseCode < 400) {
@@ -506,6 +514,20 @@ public class TestEnvironmentService {
         }
     }
 
+    /**
+     * 通过环境共享的HTTP客户端发送连通性测试请求，返回响应码
+     */
+    private int sendTestRequest(TestEnvironment environment, HttpRequest.Builder request) throws IOException {
+        try {
+            return httpClientRegistry.getClient(environment)
+                .send(request.timeout(CONNECTION_TEST_TIMEOUT).build(), HttpResponse.BodyHandlers.discarding())
+                .statusCode();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("连接测试被中断", e);
+        }
+    }
+
     /**
      * 测试数据库连接
      */
@@ -555,7 +577,7 @@ public class TestEnvironmentService {
     /**
      * 测试认证连接
      */
-    private String testAuthConnection(String authConfig) {
+    private String testAuthConnection(TestEnvironment environment, String authConfig) {
         try {
             com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
             com.fasterxml.jackson.databind.JsonNode authConfigNode = mapper.readTree(authConfig);
@@ -563,7 +585,7 @@ public class TestEnvironmentService {
             String authType = authConfigNode.get("type").asText().toLowerCase();
             
             if ("jwt".equals(authType)) {
-                return testJwtAuthConnection(authConfigNode);
+                return testJwtAuthConnection(environment, authConfigNode);
             } else if ("basic".equals(authType)) {
                 return testBasicAuthConnection(authConfigNode);
             } else if ("api_key".equals(authType)) {
@@ -579,31 +601,18 @@ public class TestEnvironmentService {
     /**
      * 测试JWT认证连接
      */
-    private String testJwtAuthConnection(com.fasterxml.jackson.databind.JsonNode authConfig) {
+    private String testJwtAuthConnection(TestEnvironment environment, com.fasterxml.jackson.databind.JsonNode authConfig) {
         try {
             String loginUrl = authConfig.get("loginUrl").asText();
             com.fasterxml.jackson.databind.JsonNode credentials = authConfig.get("credentials");
             String username = credentials.get("username").asText();
             String password = credentials.get("password").asText();
             
-            // 创建登录请求
-            java.net.URL url = new java.net.URL(loginUrl);
-            java.net.HttpURLConnection connection = (java.net.HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("POST");
-            connection.setConnectTimeout(5000);
-            connection.setReadTimeout(5000);
-            connection.setRequestProperty("Content-Type", "application/json");
-            connection.setDoOutput(true);
-            
             // 发送登录凭据
             String requestBody = String.format("{\"username\":\"%s\",\"password\":\"%s\"}", username, password);
-            try (java.io.OutputStream os = connection.getOutputStream()) {
-                byte[] input = requestBody.getBytes("utf-8");
-                os.write(input, 0, input.length);
-            }
-            
-            int responseCode = connection.getResponseCode();
-            connection.disconnect();
+            int responseCode = sendTestRequest(environment, HttpRequest.newBuilder(URI.create(loginUrl))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(requestBody)));
             
             // 2xx状态码表示登录成功
             if (responseCode >= 200 && responseCode < 300) {
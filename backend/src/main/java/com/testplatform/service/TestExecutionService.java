@@ -34,4 +34,17 @@ public interface TestExecutionService {
      * @return 执行状态
      */
     TestExecution getExecutionStatus(String executionId);
+    
+    /**
+     * 恢复未完成的执行：已有结果的用例不再执行，并从检查点恢复变量状态
+     * @param executionId 执行ID
+     * @return 重新进入执行队列的执行
+     */
+    TestExecution resumeExecution(String executionId);
+    
+    /**
+     * 分布式执行的所有工作项结束后汇总执行结果
+     * @param executionId 执行ID
+     */
+    void completeDistributedExecution(String executionId);
 }
\ No newline at end of file
@@ -1,20 +1,44 @@
 package com.testplatform.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.testplatform.model.TestCaseExecution;
 import com.testplatform.model.TestEnvironment;
 import com.testplatform.model.TestExecution;
 import com.testplatform.model.TestSuite;
 import com.testplatform.repository.*;
+import com.testplatform.testing.VariableManager;
+import com.testplatform.testing.VariableScope;
+import com.testplatform.testing.engine.CancellationToken;
+import com.testplatform.testing.engine.ExecutionQueue;
+import com.testplatform.testing.engine.ExecutionQueueFullException;
+import com.testplatform.testing.engine.SuiteExecutionEngine;
+import com.testplatform.testing.engine.SuiteRun;
+import com.testplatform.testing.retry.RetryRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
+import java.net.InetAddress;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class TestExecutionServiceImpl implements TestExecutionService {
@@ -35,6 +59,9 @@ public class TestExecutionServiceImpl implements TestExecutionService {
     @Autowired
     private TestExecutionRepository testExecutionRepository;
     
+    @Autowired
+    private TestCaseExecutionRepository testCaseExecutionRepository;
+    
     @Autowired
     private TestExecutionLogRepository testExecutionLogRepository;
     
@@ -42,57 +69,279 @@ public class TestExecutionServiceImpl implements TestExecutionService {
     private VariableRepository variableRepository;
     
     @Autowired
-    private AuthService authService;
+    private AuthTokenCache authTokenCache;
     
     @Autowired
     private ObjectMapper objectMapper;
     
-    private final ExecutorService executorService = Executors.newFixedThreadPool(10);
+    @Autowired
+    private SuiteExecutionEngine suiteExecutionEngine;
+    
+    @Autowired
+    private VariableManager variableManager;
+    
+    @Autowired
+    private RetryRegistry retryRegistry;
+    
+    @Autowired
+    private ExecutionQueue executionQueue;
+    
+    @Autowired
+    private ExecutionWorkItemService executionWorkItemService;
+    
+    /**
+     * 分布式模式下用例写入工作项表，由所有副本租用执行
+     */
+    @Value("${test-platform.execution.distributed.enabled:false}")
+    private boolean distributedEnabled;
+    
+    /**
+     * 恢复持有进程已退出的未结束执行（启动时及运行期间定期检查）
+     */
+    @Value("${test-platform.execution.resume-on-startup:true}")
+    private boolean resumeOnStartup;
+    
+    /**
+     * 持有执行的进程刷新心跳的间隔，心跳超过3个间隔未刷新的执行视为持有进程已退出
+     */
+    @Value("${test-platform.execution.heartbeat-interval-ms:10000}")
+    private long heartbeatIntervalMs = 10000;
+    
+    /**
+     * 本进程的标识，记录在持有的执行上
+     */
+    private final String nodeId = resolveHostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    
+    private ScheduledExecutorService heartbeatScheduler;
+    
+    /**
+     * 已提交但未结束的执行的取消令牌
+     */
+    private final Map<String, CancellationToken> cancellationTokens = new ConcurrentHashMap<>();
     
     @Override
     public CompletableFuture<TestExecution> executeTestSuite(String suiteId, String environmentId) {
-        return CompletableFuture.supplyAsync(() -> {
+        // 获取测试套件
+        TestSuite testSuite = testSuiteRepository.findById(suiteId)
+            .orElseThrow(() -> new RuntimeException("测试套件不存在: " + suiteId));
+        
+        // 获取环境配置
+        TestEnvironment environment = testEnvironmentRepository.findById(environmentId)
+            .orElseThrow(() -> new RuntimeException("测试环境不存在: " + environmentId));
+        
+        // 队列已满时直接拒绝，不创建执行记录
+        if (executionQueue.isFull()) {
+            throw new ExecutionQueueFullException("执行队列已满，请稍后重试", executionQueue.getRetryAfterSeconds());
+        }
+        
+        // 创建测试执行记录
+        TestExecution execution = new TestExecution();
+        execution.setId(UUID.randomUUID().toString());
+        execution.setSuiteId(suiteId);
+        execution.setTestSuiteName(testSuite.getName());
+        execution.setEnvironmentId(environmentId);
+        execution.setStatus(TestExecution.ExecutionStatus.PENDING);
+        execution.setStartTime(LocalDateTime.now());
+        execution.setCreatedAt(LocalDateTime.now());
+        execution.setUpdatedAt(LocalDateTime.now());
+        execution.setOwnerNode(nodeId);
+        execution.setHeartbeatAt(LocalDateTime.now());
+        
+        execution = testExecutionRepository.save(execution);
+        
+        try {
+            submitExecution(execution, testSuite, environment, false);
+        } catch (ExecutionQueueFullException e) {
+            testExecutionRepository.deleteById(execution.getId());
+            throw e;
+        }
+        return CompletableFuture.completedFuture(execution);
+    }
+    
+    @Override
+    public TestExecution resumeExecution(String executionId) {
+        TestExecution execution = testExecutionRepository.findById(executionId)
+            .orElseThrow(() -> new RuntimeException("测试执行不存在: " + executionId));
+        if (cancellationTokens.containsKey(executionId)) {
+            throw new IllegalStateException("执行仍在运行中，无法恢复: " + executionId);
+        }
+        if (execution.getStatus() == TestExecution.ExecutionStatus.COMPLETED) {
+            throw new IllegalStateException("执行已完成，无需恢复: " + executionId);
+        }
+        if (distributedEnabled) {
+            throw new IllegalStateException("分布式模式下未完成的用例由工作项租约过期后自动重新执行");
+        }
+        if (!claim(executionId)) {
+            throw new IllegalStateException("执行正由其他进程运行，无法恢复: " + executionId);
+        }
+        return resumeClaimed(execution);
+    }
+    
+    /**
+     * 恢复已接管的执行，失败时释放持有
+     * @throws ExecutionQueueFullException 队列已满时，执行恢复为原状态
+     */
+    private TestExecution resumeClaimed(TestExecution execution) {
+        String executionId = execution.getId();
+        try {
+            TestSuite testSuite = testSuiteRepository.findById(execution.getSuiteId())
+                .orElseThrow(() -> new RuntimeException("测试套件不存在: " + execution.getSuiteId()));
+            TestEnvironment environment = testEnvironmentRepository.findById(execution.getEnvironmentId())
+                .orElseThrow(() -> new RuntimeException("测试环境不存在: " + execution.getEnvironmentId()));
+            if (executionQueue.isFull()) {
+                throw new ExecutionQueueFullException("执行队列已满，请稍后重试", executionQueue.getRetryAfterSeconds());
+            }
+            
+            TestExecution.ExecutionStatus previousStatus = execution.getStatus();
+            execution.setStatus(TestExecution.ExecutionStatus.PENDING);
+            execution.setResult("等待恢复执行");
+            execution.setEndTime(null);
+            execution.setUpdatedAt(LocalDateTime.now());
+            TestExecution saved = testExecutionRepository.save(execution);
+            
             try {
-                // 获取测试套件
-                TestSuite testSuite = testSuiteRepository.findById(suiteId)
-                    .orElseThrow(() -> new RuntimeException("测试套件不存在: " + suiteId));
-                
-                // 获取环境配置
-                TestEnvironment environment = testEnvironmentRepository.findById(environmentId)
-                    .orElseThrow(() -> new RuntimeException("测试环境不存在: " + environmentId));
-                
-                // 创建测试执行记录
-                TestExecution execution = new TestExecution();
-                execution.setId(UUID.randomUUID().toString());
-                execution.setSuiteId(suiteId);
-                execution.setTestSuiteName(testSuite.getName());
-                execution.setEnvironmentId(environmentId);
-                execution.setStatus(TestExecution.ExecutionStatus.PENDING);
-                execution.setStartTime(LocalDateTime.now());
-                execution.setCreatedAt(LocalDateTime.now());
-                execution.setUpdatedAt(LocalDateTime.now());
-                
-                execution = testExecutionRepository.save(execution);
-
-                final TestExecution finalExecution = execution;
-                
-                // 异步执行测试
-                executorService.submit(() -> {
-                    try {
-                        executeTestSuiteInternal(finalExecution, testSuite, environment);
-                    } catch (Exception e) {
-                        logger.error("测试执行异常", e);
-                        updateExecutionStatus(finalExecution.getId(), TestExecution.ExecutionStatus.FAILED, 
-                            "测试执行异常: " + e.getMessage());
-                    }
-                });
-                
-                return execution;
-            } catch (Exception e) {
-                logger.error("创建测试执行失败", e);
-                throw new RuntimeException("创建测试执行失败: " + e.getMessage());
+                submitExecution(saved, testSuite, environment, true);
+            } catch (ExecutionQueueFullException e) {
+                updateExecutionStatus(executionId, previousStatus, "执行队列已满，恢复执行失败");
+                throw e;
+            }
+            logger.info("测试执行已提交恢复: {}", executionId);
+            return saved;
+        } catch (RuntimeException e) {
+            testExecutionRepository.release(executionId, nodeId);
+            throw e;
+        }
+    }
+    
+    /**
+     * 接管执行：执行未被其他存活的进程持有（心跳已过期或已释放）时成功
+     */
+    private boolean claim(String executionId) {
+        LocalDateTime now = LocalDateTime.now();
+        return testExecutionRepository.claim(executionId, nodeId, now, now.minusNanos(orphanAfterMillis() * 1_000_000)) > 0;
+    }
+    
+    private long orphanAfterMillis() {
+        return heartbeatIntervalMs * 3;
+    }
+    
+    /**
+     * 启动后定期刷新本进程持有的执行的心跳；开启恢复时定期接管持有进程已退出的执行
+     * 分布式模式下由工作项租约负责恢复，这里不处理
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startHeartbeat() {
+        if (distributedEnabled) {
+            return;
+        }
+        heartbeatScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "execution-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeatScheduler.scheduleWithFixedDelay(this::heartbeat, heartbeatIntervalMs, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+        if (resumeOnStartup) {
+            heartbeatScheduler.scheduleWithFixedDelay(this::resumeInterruptedExecutions, 0, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        // 不释放持有：进程退出后心跳过期，未结束的执行由其他进程接管
+        if (heartbeatScheduler != null) {
+            heartbeatScheduler.shutdownNow();
+        }
+    }
+    
+    void heartbeat() {
+        try {
+            List<String> executionIds = new ArrayList<>(cancellationTokens.keySet());
+            if (!executionIds.isEmpty()) {
+                testExecutionRepository.heartbeat(executionIds, nodeId, LocalDateTime.now());
+            }
+        } catch (Exception e) {
+            logger.warn("刷新执行心跳失败", e);
+        }
+    }
+    
+    /**
+     * 恢复持有进程已退出（心跳过期）时仍在运行或排队的执行
+     * 其他进程上仍在运行的执行心跳未过期，不受影响；多个进程同时发现时只有接管成功的进程恢复
+     */
+    void resumeInterruptedExecutions() {
+        try {
+            LocalDateTime staleBefore = LocalDateTime.now().minusNanos(orphanAfterMillis() * 1_000_000);
+            List<TestExecution> interrupted = testExecutionRepository.findOrphaned(
+                Arrays.asList(TestExecution.ExecutionStatus.RUNNING, TestExecution.ExecutionStatus.PENDING), staleBefore);
+            int resumed = 0;
+            for (TestExecution execution : interrupted) {
+                if (cancellationTokens.containsKey(execution.getId()) || !claim(execution.getId())) {
+                    continue;
+                }
+                try {
+                    resumeClaimed(execution);
+                    resumed++;
+                } catch (ExecutionQueueFullException e) {
+                    logger.warn("执行队列已满，稍后再恢复执行: {}", execution.getId());
+                } catch (Exception e) {
+                    logger.error("恢复测试执行失败: {}", execution.getId(), e);
+                    updateExecutionStatus(execution.getId(), TestExecution.ExecutionStatus.FAILED,
+                        "持有进程退出后恢复执行失败: " + e.getMessage());
+                }
             }
-        }, executorService);
+            if (resumed > 0) {
+                logger.info("发现 {} 个持有进程已退出的执行，已提交恢复", resumed);
+            }
+        } catch (Exception e) {
+            logger.error("查找未结束的执行失败", e);
+        }
+    }
+    
+    private static String resolveHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "node";
+        }
+    }
+    
+    /**
+     * 提交到执行队列，由协调线程异步执行
+     * @throws ExecutionQueueFullException 队列已满时
+     */
+    private void submitExecution(TestExecution execution, TestSuite testSuite, TestEnvironment environment, boolean resume) {
+        CancellationToken cancellationToken = new CancellationToken();
+        cancellationTokens.put(execution.getId(), cancellationToken);
+        
+        try {
+            executionQueue.submit(execution.getId(), () -> {
+                try {
+                    executeTestSuiteInternal(execution, testSuite, environment, cancellationToken, resume);
+                } catch (Exception e) {
+                    logger.error("测试执行异常", e);
+                    updateExecutionStatus(execution.getId(), TestExecution.ExecutionStatus.FAILED, 
+                        "测试执行异常: " + e.getMessage());
+                } finally {
+                    cancellationTokens.remove(execution.getId());
+                    variableManager.closeExecutionScope(execution.getId());
+                    retryRegistry.releaseBudget(execution.getId());
+                    releaseOwnership(execution.getId());
+                }
+            });
+        } catch (ExecutionQueueFullException e) {
+            cancellationTokens.remove(execution.getId());
+            throw e;
+        }
+        
+        execution.setQueuePosition(executionQueue.getQueuePosition(execution.getId()));
+    }
+    
+    private void releaseOwnership(String executionId) {
+        try {
+            testExecutionRepository.release(executionId, nodeId);
+        } catch (Exception e) {
+            logger.warn("释放执行持有失败: {}", executionId, e);
+        }
     }
     
     @Override
@@ -113,13 +362,23 @@ public class TestExecutionServiceImpl implements TestExecutionService {
     @Override
     public void stopExecution(String executionId) {
         try {
-            TestExecution execution = testExecutionRepository.findById(executionId).orElse(null);
-            if (execution != null && execution.getStatus() == TestExecution.ExecutionStatus.RUNNING) {
-                execution.setStatus(TestExecution.ExecutionStatus.CANCELLED);
-                execution.setResult("用户手动停止");
-                execution.setEndTime(LocalDateTime.now());
-                execution.setUpdatedAt(LocalDateTime.now());
-                testExecutionRepository.save(execution);
+            // 先落库CANCELLED（只取消运行或排队中的执行），执行线程结束时会保留该状态
+            LocalDateTime now = LocalDateTime.now();
+            if (testExecutionRepository.updateStatusIfIn(executionId, TestExecution.ExecutionStatus.CANCELLED, "用户手动停止",
+                    now, now, Arrays.asList(TestExecution.ExecutionStatus.RUNNING, TestExecution.ExecutionStatus.PENDING)) > 0) {
+                // 排队中的直接移出队列，执行中的通知取消
+                if (executionQueue.cancel(executionId)) {
+                    cancellationTokens.remove(executionId);
+                    releaseOwnership(executionId);
+                }
+                CancellationToken cancellationToken = cancellationTokens.get(executionId);
+                if (cancellationToken != null) {
+                    cancellationToken.cancel();
+                }
+                // 分布式执行：跳过未租出的工作项，租出的由持有副本在续租时发现取消
+                if (distributedEnabled && executionWorkItemService.cancelPending(executionId)) {
+                    completeDistributedExecution(executionId);
+                }
                 logger.info("测试执行已停止: {}", executionId);
             }
         } catch (Exception e) {
@@ -137,28 +396,75 @@ public class TestExecutionServiceImpl implements TestExecutionService {
         }
     }
     
+    @Override
+    public void completeDistributedExecution(String executionId) {
+        // 汇总结果已落库后工作项不再需要，汇总失败时保留以便排查
+        if (completeExecution(executionId, executionWorkItemService.buildRun(executionId))) {
+            try {
+                executionWorkItemService.purge(executionId);
+            } catch (Exception e) {
+                logger.error("清理执行工作项失败: {}", executionId, e);
+            }
+        }
+    }
+    
     // 其他私有方法实现...
-    private void executeTestSuiteInternal(TestExecution execution, TestSuite testSuite, TestEnvironment environment) {
+    private void executeTestSuiteInternal(TestExecution execution, TestSuite testSuite, TestEnvironment environment,
+                                          CancellationToken cancellationToken, boolean resume) {
         try {
+            if (cancellationToken.isCancelled()) {
+                return;
+            }
+            
             // 更新状态为运行中
             updateExecutionStatus(execution.getId(), TestExecution.ExecutionStatus.RUNNING, "开始执行测试");
             
             // 执行认证
-            AuthService.AuthResult authResult = authService.authenticate(environment);
+            AuthService.AuthResult authResult = authTokenCache.getToken(environment);
             if (!authResult.isSuccess()) {
                 updateExecutionStatus(execution.getId(), TestExecution.ExecutionStatus.FAILED, 
                     "认证失败: " + authResult.getMessage());
                 return;
             }
             
+            if (cancellationToken.isCancelled()) {
+                logger.info("测试执行在开始前已取消: {}", execution.getId());
+                return;
+            }
+            
             logger.info("认证成功，开始执行测试套件: {}", testSuite.getName());
             
-            // TODO: 实现具体的测试用例执行逻辑
-            // 这里可以添加获取测试用例、执行测试用例、记录日志等逻辑
+            // 本次执行的变量作用域，执行结束后释放
+            VariableScope variables = variableManager.openExecutionScope(execution.getId(), environment.getId());
+            if (resume) {
+                restoreCheckpoint(execution, variables);
+            }
+            
+            // 认证结果作为变量提供给用例引用，如 ${token}
+            if (authResult.getToken() != null) {
+                variables.put("token", authResult.getToken());
+            }
+            if (authResult.getRefreshToken() != null) {
+                variables.put("refreshToken", authResult.getRefreshToken());
+            }
+            
+            if (distributedEnabled) {
+                // 协调线程只负责写入工作项，用例由各副本的工作线程租用执行，最后完成的副本负责汇总
+                if (suiteExecutionEngine.enqueue(execution, testSuite, environment) == 0) {
+                    completeDistributedExecution(execution.getId());
+                }
+                return;
+            }
             
-            // 模拟执行完成
-            updateExecutionStatus(execution.getId(), TestExecution.ExecutionStatus.COMPLETED, "测试执行完成");
+            // 并行执行套件中的用例，恢复执行时跳过已完成的用例
+            Map<String, TestCaseExecution> completedCases = resume ? loadCompletedCases(execution.getId()) : Collections.emptyMap();
+            SuiteRun run = suiteExecutionEngine.execute(execution, testSuite, environment, cancellationToken, completedCases);
+            completeExecution(execution.getId(), run);
             
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("测试执行被中断: {}", execution.getId());
+            updateExecutionStatus(execution.getId(), TestExecution.ExecutionStatus.FAILED, "测试执行被中断");
         } catch (Exception e) {
             logger.error("测试执行内部异常", e);
             updateExecutionStatus(execution.getId(), TestExecution.ExecutionStatus.FAILED, 
@@ -166,17 +472,85 @@ public class TestExecutionServiceImpl implements TestExecutionService {
         }
     }
     
+    /**
+     * 加载之前已执行完成的用例：PASSED/FAILED/ERROR视为已完成，SKIPPED记录删除后重新执行或重新跳过
+     * 同一用例有多条记录时取最后结束的一条
+     */
+    private Map<String, TestCaseExecution> loadCompletedCases(String executionId) {
+        testCaseExecutionRepository.deleteByExecutionIdAndStatus(executionId, TestCaseExecution.ExecutionStatus.SKIPPED);
+        Map<String, TestCaseExecution> completedCases = new HashMap<>();
+        for (TestCaseExecution caseExecution : testCaseExecutionRepository.findByExecutionId(executionId)) {
+            if (caseExecution.getStatus() != TestCaseExecution.ExecutionStatus.PASSED
+                    && caseExecution.getStatus() != TestCaseExecution.ExecutionStatus.FAILED
+                    && caseExecution.getStatus() != TestCaseExecution.ExecutionStatus.ERROR) {
+                continue;
+            }
+            TestCaseExecution existing = completedCases.get(caseExecution.getTestCaseId());
+            if (existing == null || (caseExecution.getEndTime() != null && existing.getEndTime() != null
+                    && caseExecution.getEndTime().isAfter(existing.getEndTime()))) {
+                completedCases.put(caseExecution.getTestCaseId(), caseExecution);
+            }
+        }
+        return completedCases;
+    }
+    
+    /**
+     * 从检查点恢复变量状态，认证令牌随后由本次认证结果覆盖
+     */
+    private void restoreCheckpoint(TestExecution execution, VariableScope variables) {
+        if (execution.getCheckpoint() == null || execution.getCheckpoint().isEmpty()) {
+            return;
+        }
+        try {
+            JsonNode checkpoint = objectMapper.readTree(execution.getCheckpoint());
+            TypeReference<Map<String, Object>> mapType = new TypeReference<Map<String, Object>>() {};
+            if (checkpoint.hasNonNull("localVariables")) {
+                Map<String, Object> localVariables = objectMapper.convertValue(checkpoint.get("localVariables"), mapType);
+                variables.putAll(localVariables);
+            }
+            if (checkpoint.hasNonNull("sessionVariables")) {
+                Map<String, Object> sessionVariables = objectMapper.convertValue(checkpoint.get("sessionVariables"), mapType);
+                variables.putAll(sessionVariables);
+            }
+            logger.info("已从检查点恢复变量状态: {}", execution.getId());
+        } catch (Exception e) {
+            logger.warn("解析执行检查点失败，不恢复变量状态: {}", execution.getId(), e);
+        }
+    }
+    
+    /**
+     * 写入套件执行的最终状态：有失败用例时为FAILED，否则为COMPLETED
+     * 状态通过条件更新写入，用户已手动停止（包括读取统计之后才停止）的执行保留CANCELLED状态
+     * @return 结果已落库时返回true
+     */
+    private boolean completeExecution(String executionId, SuiteRun run) {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            TestExecution.ExecutionStatus status = run.getFailedTests() > 0
+                ? TestExecution.ExecutionStatus.FAILED : TestExecution.ExecutionStatus.COMPLETED;
+            int updated = testExecutionRepository.updateStatusUnless(executionId, status, suiteExecutionEngine.buildSummary(run),
+                now, now, TestExecution.ExecutionStatus.CANCELLED);
+            testExecutionRepository.updateResults(executionId, suiteExecutionEngine.buildExecutionLog(run),
+                run.getTotalTests(), run.getPassedTests(), run.getFailedTests(), run.getSkippedTests(),
+                run.getElapsedMillis(), (int) (run.getElapsedMillis() / 1000), now);
+            logger.info("测试执行完成: {} -> {}", executionId, updated > 0 ? status : TestExecution.ExecutionStatus.CANCELLED);
+            return true;
+        } catch (Exception e) {
+            logger.error("保存执行结果失败", e);
+            return false;
+        }
+    }
+    
+    /**
+     * 更新执行状态，已取消的执行不再改写状态（条件更新，不覆盖并发的停止操作）
+     */
     private void updateExecutionStatus(String executionId, TestExecution.ExecutionStatus status, String message) {
         try {
-            TestExecution execution = testExecutionRepository.findById(executionId).orElse(null);
-            if (execution != null) {
-                execution.setStatus(status);
-                execution.setResult(message);
-                execution.setUpdatedAt(LocalDateTime.now());
-                if (status == TestExecution.ExecutionStatus.COMPLETED || status == TestExecution.ExecutionStatus.FAILED) {
-                    execution.setEndTime(LocalDateTime.now());
-                }
-                testExecutionRepository.save(execution);
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime endTime = status == TestExecution.ExecutionStatus.COMPLETED
+                || status == TestExecution.ExecutionStatus.FAILED ? now : null;
+            if (testExecutionRepository.updateStatusUnless(executionId, status, message, endTime, now,
+                    TestExecution.ExecutionStatus.CANCELLED) > 0) {
                 logger.info("更新执行状态: {} -> {}", executionId, status);
             }
         } catch (Exception e) {
@@ -1,10 +1,14 @@
 package com.testplatform.service;
 
+import com.testplatform.model.LoadTestRun;
 import com.testplatform.model.TestExecution;
 import com.testplatform.model.TestReport;
+import com.testplatform.model.TestSuiteCase;
 import com.testplatform.testing.TestExecutionResult;
+import com.testplatform.repository.LoadTestRunRepository;
 import com.testplatform.repository.TestExecutionRepository;
 import com.testplatform.repository.TestReportRepository;
+import com.testplatform.repository.TestSuiteCaseRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -20,6 +24,7 @@ import java.util.regex.Pattern;
 import java.util.ArrayList;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,6 +36,12 @@ public class TestReportGenerationService {
     @Autowired
     private TestExecutionRepository testExecutionRepository;
     
+    @Autowired
+    private TestSuiteCaseRepository testSuiteCaseRepository;
+    
+    @Autowired
+    private LoadTestRunRepository loadTestRunRepository;
+    
     public TestReport generateReport(String executionId) {
         Optional<TestExecution> executionOpt = testExecutionRepository.findById(executionId);
         if (!executionOpt.isPresent()) {
@@ -166,9 +177,43 @@ public class TestReportGenerationService {
             performanceReport.put("totalExecutions", executionTimes.size());
         }
         
+        // 套件中用例在时间范围内的压测结果
+        performanceReport.put("loadTests", summarizeLoadTests(suiteId, startTime));
+        
         return performanceReport;
     }
     
+    /**
+     * 套件用例的压测结果摘要（最新的在前），不含延迟分布
+     */
+    private List<Map<String, Object>> summarizeLoadTests(String suiteId, LocalDateTime since) {
+        List<String> testCaseIds = testSuiteCaseRepository.findBySuiteIdOrderByExecutionOrder(suiteId).stream()
+                .map(TestSuiteCase::getTestCaseId)
+                .collect(Collectors.toList());
+        if (testCaseIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Map<String, Object>> summaries = new ArrayList<>();
+        for (LoadTestRun run : loadTestRunRepository.findByTestCaseIdInAndCreatedAtAfterOrderByCreatedAtDesc(testCaseIds, since)) {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("id", run.getId());
+            summary.put("testCaseId", run.getTestCaseId());
+            summary.put("testCaseName", run.getTestCaseName());
+            summary.put("mode", run.getMode());
+            summary.put("status", run.getStatus());
+            summary.put("totalRequests", run.getTotalRequests());
+            summary.put("errorRate", run.getErrorRate());
+            summary.put("throughputRps", run.getThroughputRps());
+            summary.put("latencyP50Ms", run.getLatencyP50Ms());
+            summary.put("latencyP95Ms", run.getLatencyP95Ms());
+            summary.put("latencyP99Ms", run.getLatencyP99Ms());
+            summary.put("startTime", run.getStartTime());
+            summary.put("endTime", run.getEndTime());
+            summaries.add(summary);
+        }
+        return summaries;
+    }
+    
     private void parseExecutionResult(String result, TestReport.ReportSummary summary, List<TestReport.ReportDetail> details) {
         // 初始化计数器
         int totalTests = 0;
@@ -4,6 +4,7 @@ import com.testplatform.model.TestSuite;
 import com.testplatform.model.TestCase;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface TestSuiteService {
@@ -15,4 +16,5 @@ public interface TestSuiteService {
     List<TestSuite> getTestSuitesByType(TestSuite.TestSuiteType type);
     List<TestCase> getOrderedTestCases(String suiteId);
     int getTestCaseCount(String suiteId);
+    Map<String, List<String>> getCaseDependencies(String suiteId);
 }
\ No newline at end of file
@@ -11,6 +11,9 @@ import com.testplatform.repository.TestExecutionRepository;
 import com.testplatform.repository.TaskExecutionHistoryRepository;
 import com.testplatform.repository.ScheduledTaskRepository;
 import com.testplatform.model.ScheduledTask;
+import com.testplatform.testing.engine.CaseDependencyGraph;
+import com.testplatform.testing.retry.RetryRegistry;
+import com.testplatform.testing.schema.SchemaRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -20,7 +23,9 @@ import org.slf4j.LoggerFactory;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -48,6 +53,12 @@ public class TestSuiteServiceImpl implements TestSuiteService {
     @Autowired
     private ScheduledTaskRepository scheduledTaskRepository;
     
+    @Autowired
+    private SchemaRegistry schemaRegistry;
+    
+    @Autowired
+    private RetryRegistry retryRegistry;
+    
     @Override
     public List<TestSuite> getAllTestSuites() {
         return testSuiteRepository.findAll();
@@ -86,6 +97,8 @@ public class TestSuiteServiceImpl implements TestSuiteService {
         testSuite.setCreatedAt(LocalDateTime.now());
         testSuite.setUpdatedAt(LocalDateTime.now());
         
+        validateCaseDependencies(testSuite.getTestSuiteCases());
+        
         // 处理测试用例关联关系
         if (testSuite.getTestSuiteCases() != null && !testSuite.getTestSuiteCases().isEmpty()) {
             for (TestSuiteCase testSuiteCase : testSuite.getTestSuiteCases()) {
@@ -124,6 +137,8 @@ public class TestSuiteServiceImpl implements TestSuiteService {
         testSuite.setCreatedBy(existingTestSuite.getCreatedBy());
         testSuite.setUpdatedAt(LocalDateTime.now());
         
+        validateCaseDependencies(testSuite.getTestSuiteCases());
+        
         // 先删除现有的关联关系
         testSuiteCaseRepository.deleteBySuiteId(id);
 
@@ -141,6 +156,8 @@ public class TestSuiteServiceImpl implements TestSuiteService {
         TestSuite savedTestSuite = testSuiteRepository.save(testSuite);
 
         testSuiteCaseRepository.saveAll(testSuite.getTestSuiteCases());
+        schemaRegistry.invalidateSuite(id);
+        retryRegistry.invalidateSuite(id);
         
         return savedTestSuite;
     }
@@ -180,6 +197,8 @@ public class TestSuiteServiceImpl implements TestSuiteService {
         // 4. 最后删除测试套件本身
         logger.info("删除测试套件: {}", id);
         testSuiteRepository.deleteById(id);
+        schemaRegistry.invalidateSuite(id);
+        retryRegistry.invalidateSuite(id);
         
         logger.info("测试套件删除完成: {}", id);
     }
@@ -238,6 +257,43 @@ public class TestSuiteServiceImpl implements TestSuiteService {
         return testCases;
     }
     
+    /**
+     * 获取测试套件中已启用用例的依赖声明
+     * @return 用例ID -> 依赖的用例ID列表
+     */
+    @Override
+    public Map<String, List<String>> getCaseDependencies(String suiteId) {
+        Map<String, List<String>> dependencies = new HashMap<>();
+        for (TestSuiteCase suiteCase : testSuiteCaseRepository.findBySuiteIdOrderByExecutionOrder(suiteId)) {
+            if (suiteCase.getIsEnabled() && suiteCase.getDependsOn() != null && !suiteCase.getDependsOn().isEmpty()) {
+                dependencies.put(suiteCase.getTestCaseId(), suiteCase.getDependsOn());
+            }
+        }
+        return dependencies;
+    }
+    
+    /**
+     * 校验套件用例的依赖声明（依赖必须在套件内且不能循环）
+     */
+    private void validateCaseDependencies(List<TestSuiteCase> suiteCases) {
+        if (suiteCases == null || suiteCases.isEmpty()) {
+            return;
+        }
+        List<String> caseIds = new ArrayList<>();
+        Map<String, List<String>> dependencies = new HashMap<>();
+        for (TestSuiteCase suiteCase : suiteCases) {
+            caseIds.add(suiteCase.getTestCaseId());
+            if (suiteCase.getDependsOn() != null && !suiteCase.getDependsOn().isEmpty()) {
+                dependencies.put(suiteCase.getTestCaseId(), suiteCase.getDependsOn());
+            }
+        }
+        try {
+            CaseDependencyGraph.validate(caseIds, dependencies);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("用例依赖配置无效: " + e.getMessage());
+        }
+    }
+    
     /**
      * 获取优先级排序值
      */
@@ -0,0 +1,699 @@
+package com.testplatform.testing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 编译后的JSONPath表达式，编译一次后可被多个线程重复求值
+ * 支持的语法：
+ * <ul>
+ *   <li>$ 根节点，可省略（a.b 等同于 $.a.b）</li>
+ *   <li>.name、['name']、['a','b'] 字段</li>
+ *   <li>[0]、[-1]、[0,2] 下标，[1:5]、[::2] 切片</li>
+ *   <li>.*、[*] 通配，..name、..* 递归查找</li>
+ *   <li>[?(@.price &lt; 10 &amp;&amp; @.tag == 'a')] 过滤，支持 == != &lt; &lt;= &gt; &gt;= ! &amp;&amp; || 和括号，
+ *       只写路径时判断是否存在</li>
+ * </ul>
+ * 只包含字段和下标的路径是确定路径，结果为单个节点；其余路径的结果为所有匹配节点组成的数组
+ */
+public final class JsonPath {
+
+    /**
+     * 最多缓存的编译结果数
+     */
+    private static final int MAX_CACHED = 2000;
+    private static final LruCache<String, JsonPath> CACHE = new LruCache<>(MAX_CACHED);
+
+    private final String expression;
+    private final List<Segment> segments;
+    private final boolean definite;
+    private final int streamablePrefix;
+
+    private JsonPath(String expression, List<Segment> segments) {
+        this.expression = expression;
+        this.segments = segments;
+        int prefix = 0;
+        while (prefix < segments.size() && segments.get(prefix).isStreamable()) {
+            prefix++;
+        }
+        this.definite = segments.stream().allMatch(Segment::isDefinite);
+        this.streamablePrefix = prefix;
+    }
+
+    /**
+     * 获取编译后的表达式，同一表达式只编译一次
+     * @throws IllegalArgumentException 表达式语法错误
+     */
+    public static JsonPath of(String expression) {
+        return CACHE.get(expression, JsonPath::compile);
+    }
+
+    /**
+     * 编译表达式
+     * @throws IllegalArgumentException 表达式语法错误
+     */
+    public static JsonPath compile(String expression) {
+        if (expression == null) {
+            throw new IllegalArgumentException("JSONPath表达式不能为空");
+        }
+        Parser parser = new Parser(expression);
+        List<Segment> segments = parser.parsePath();
+        if (!parser.atEnd()) {
+            throw parser.error("无法识别的字符");
+        }
+        return new JsonPath(expression, Collections.unmodifiableList(segments));
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * 是否为确定路径（只包含单个字段和下标）
+     */
+    public boolean isDefinite() {
+        return definite;
+    }
+
+    /**
+     * 所有匹配的节点
+     */
+    public List<JsonNode> evaluate(JsonNode root) {
+        return evaluateFrom(root, 0);
+    }
+
+    /**
+     * 读取路径的值：确定路径返回匹配的节点，其余路径返回匹配节点组成的数组；没有匹配时返回null
+     */
+    public JsonNode read(JsonNode root) {
+        return readFrom(root, 0);
+    }
+
+    /**
+     * 流式解析时开头可以边解析边匹配的段数（单个字段名或非负下标）
+     */
+    int getStreamablePrefix() {
+        return streamablePrefix;
+    }
+
+    /**
+     * 第index段的字段名，不是单个字段时返回null
+     */
+    String nameAt(int index) {
+        Segment segment = segments.get(index);
+        return segment instanceof NameSegment && ((NameSegment) segment).names.length == 1
+            ? ((NameSegment) segment).names[0] : null;
+    }
+
+    /**
+     * 第index段的下标，不是单个非负下标时返回-1
+     */
+    int indexAt(int index) {
+        Segment segment = segments.get(index);
+        return segment instanceof IndexSegment && segment.isStreamable() ? ((IndexSegment) segment).indices[0] : -1;
+    }
+
+    /**
+     * 从第from段开始在node上求值，结果形式同 {@link #read(JsonNode)}
+     */
+    JsonNode readFrom(JsonNode node, int from) {
+        List<JsonNode> matches = evaluateFrom(node, from);
+        if (definite) {
+            return matches.isEmpty() ? null : matches.get(0);
+        }
+        if (matches.isEmpty()) {
+            return null;
+        }
+        ArrayNode array = JsonNodeFactory.instance.arrayNode(matches.size());
+        array.addAll(matches);
+        return array;
+    }
+
+    private List<JsonNode> evaluateFrom(JsonNode node, int from) {
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        List<JsonNode> current = Collections.singletonList(node);
+        for (int i = from; i < segments.size() && !current.isEmpty(); i++) {
+            List<JsonNode> next = new ArrayList<>();
+            for (JsonNode each : current) {
+                segments.get(i).select(each, next);
+            }
+            current = next;
+        }
+        return current;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    // ---------------------------------------------------------------- 路径段
+
+    private abstract static class Segment {
+        abstract void select(JsonNode node, List<JsonNode> out);
+
+        boolean isDefinite() {
+            return false;
+        }
+
+        boolean isStreamable() {
+            return false;
+        }
+    }
+
+    private static final class NameSegment extends Segment {
+        final String[] names;
+
+        NameSegment(String... names) {
+            this.names = names;
+        }
+
+        @Override
+        void select(JsonNode node, List<JsonNode> out) {
+            if (!node.isObject()) {
+                return;
+            }
+            for (String name : names) {
+                JsonNode value = node.get(name);
+                if (value != null) {
+                    out.add(value);
+                }
+            }
+        }
+
+        @Override
+        boolean isDefinite() {
+            return names.length == 1;
+        }
+
+        @Override
+        boolean isStreamable() {
+            return names.length == 1;
+        }
+    }
+
+    private static final class IndexSegment extends Segment {
+        final int[] indices;
+
+        IndexSegment(int... indices) {
+            this.indices = indices;
+        }
+
+        @Override
+        void select(JsonNode node, List<JsonNode> out) {
+            if (!node.isArray()) {
+                return;
+            }
+            for (int index : indices) {
+                int actual = index < 0 ? node.size() + index : index;
+                if (actual >= 0 && actual < node.size()) {
+                    out.add(node.get(actual));
+                }
+            }
+        }
+
+        @Override
+        boolean isDefinite() {
+            return indices.length == 1;
+        }
+
+        @Override
+        boolean isStreamable() {
+            return indices.length == 1 && indices[0] >= 0;
+        }
+    }
+
+    private static final class SliceSegment extends Segment {
+        final Integer start;
+        final Integer end;
+        final int step;
+
+        SliceSegment(Integer start, Integer end, int step) {
+            this.start = start;
+            this.end = end;
+            this.step = step;
+        }
+
+        @Override
+        void select(JsonNode node, List<JsonNode> out) {
+            if (!node.isArray() || step == 0) {
+                return;
+            }
+            int size = node.size();
+            if (step > 0) {
+                int from = bound(start, size, 0);
+                int to = bound(end, size, size);
+                for (int i = from; i < to; i += step) {
+                    out.add(node.get(i));
+                }
+            } else {
+                int from = start == null ? size - 1 : Math.min(size - 1, normalize(start, size));
+                int to = end == null ? -1 : Math.max(-1, normalize(end, size));
+                for (int i = from; i > to; i += step) {
+                    out.add(node.get(i));
+                }
+            }
+        }
+
+        private static int normalize(int index, int size) {
+            return index < 0 ? size + index : index;
+        }
+
+        private static int bound(Integer index, int size, int defaultValue) {
+            return index == null ? defaultValue : Math.max(0, Math.min(size, normalize(index, size)));
+        }
+    }
+
+    private static final class WildcardSegment extends Segment {
+        @Override
+        void select(JsonNode node, List<JsonNode> out) {
+            if (node.isContainerNode()) {
+                node.elements().forEachRemaining(out::add);
+            }
+        }
+    }
+
+    /**
+     * ..：在节点自身及所有后代上应用内层段
+     */
+    private static final class RecursiveSegment extends Segment {
+        final Segment inner;
+
+        RecursiveSegment(Segment inner) {
+            this.inner = inner;
+        }
+
+        @Override
+        void select(JsonNode node, List<JsonNode> out) {
+            inner.select(node, out);
+            if (node.isContainerNode()) {
+                for (Iterator<JsonNode> it = node.elements(); it.hasNext(); ) {
+                    select(it.next(), out);
+                }
+            }
+        }
+    }
+
+    private static final class FilterSegment extends Segment {
+        final Expression filter;
+
+        FilterSegment(Expression filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        void select(JsonNode node, List<JsonNode> out) {
+            if (node.isContainerNode()) {
+                for (Iterator<JsonNode> it = node.elements(); it.hasNext(); ) {
+                    JsonNode element = it.next();
+                    if (filter.test(element)) {
+                        out.add(element);
+                    }
+                }
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- 过滤表达式
+
+    private interface Expression {
+        boolean test(JsonNode current);
+    }
+
+    /**
+     * 过滤表达式的操作数：相对于被过滤元素的@路径，或字面量
+     */
+    private static final class Operand {
+        final JsonPath path;
+        final JsonNode literal;
+
+        Operand(JsonPath path, JsonNode literal) {
+            this.path = path;
+            this.literal = literal;
+        }
+
+        /**
+         * 操作数的值，路径不存在时返回null
+         */
+        JsonNode value(JsonNode current) {
+            if (path == null) {
+                return literal;
+            }
+            List<JsonNode> matches = path.evaluate(current);
+            return matches.isEmpty() ? null : matches.get(0);
+        }
+    }
+
+    private static int compare(JsonNode left, JsonNode right) {
+        if (left.isNumber() && right.isNumber()) {
+            return left.decimalValue().compareTo(right.decimalValue());
+        }
+        if (left.isTextual() && right.isTextual()) {
+            return left.asText().compareTo(right.asText());
+        }
+        throw new ClassCastException();
+    }
+
+    private static boolean equal(JsonNode left, JsonNode right) {
+        if (left.isNumber() && right.isNumber()) {
+            return left.decimalValue().compareTo(right.decimalValue()) == 0;
+        }
+        return left.equals(right);
+    }
+
+    // ---------------------------------------------------------------- 解析
+
+    private static final class Parser {
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        boolean atEnd() {
+            skipSpaces();
+            return pos >= text.length();
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("JSONPath语法错误（位置" + pos + "）: " + message + ": " + text);
+        }
+
+        private void skipSpaces() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private boolean peek(char c) {
+            return pos < text.length() && text.charAt(pos) == c;
+        }
+
+        private void expect(char c) {
+            skipSpaces();
+            if (!peek(c)) {
+                throw error("缺少 '" + c + "'");
+            }
+            pos++;
+        }
+
+        /**
+         * 顶层路径：$开头，或省略$的点分路径
+         */
+        List<Segment> parsePath() {
+            skipSpaces();
+            List<Segment> segments = new ArrayList<>();
+            if (peek('$')) {
+                pos++;
+            } else if (pos < text.length() && text.charAt(pos) != '.' && text.charAt(pos) != '[') {
+                // 兼容旧的提取表达式：a.b 等同于 $.a.b
+                segments.add(new NameSegment(parseName()));
+            }
+            parseSegments(segments);
+            return segments;
+        }
+
+        private void parseSegments(List<Segment> segments) {
+            while (pos < text.length()) {
+                char c = text.charAt(pos);
+                if (c == '.') {
+                    pos++;
+                    if (peek('.')) {
+                        pos++;
+                        segments.add(new RecursiveSegment(parseAfterDot(true)));
+                    } else {
+                        segments.add(parseAfterDot(false));
+                    }
+                } else if (c == '[') {
+                    segments.add(parseBracket());
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private Segment parseAfterDot(boolean recursive) {
+            if (peek('*')) {
+                pos++;
+                return new WildcardSegment();
+            }
+            if (recursive && peek('[')) {
+                return parseBracket();
+            }
+            return new NameSegment(parseName());
+        }
+
+        private String parseName() {
+            int start = pos;
+            while (pos < text.length() && isNameChar(text.charAt(pos))) {
+                pos++;
+            }
+            if (start == pos) {
+                throw error("缺少字段名");
+            }
+            return text.substring(start, pos);
+        }
+
+        private static boolean isNameChar(char c) {
+            return c != '.' && c != '[' && c != ']' && c != '(' && c != ')' && c != '=' && c != '!'
+                && c != '<' && c != '>' && c != '&' && c != '|' && c != ',' && c != '\'' && c != '"'
+                && !Character.isWhitespace(c);
+        }
+
+        private Segment parseBracket() {
+            expect('[');
+            skipSpaces();
+            Segment segment;
+            if (peek('*')) {
+                pos++;
+                segment = new WildcardSegment();
+            } else if (peek('?')) {
+                pos++;
+                segment = new FilterSegment(parseOr());
+            } else if (peek('\'') || peek('"')) {
+                List<String> names = new ArrayList<>();
+                names.add(parseString());
+                skipSpaces();
+                while (peek(',')) {
+                    pos++;
+                    skipSpaces();
+                    names.add(parseString());
+                    skipSpaces();
+                }
+                segment = new NameSegment(names.toArray(new String[0]));
+            } else {
+                segment = parseIndexOrSlice();
+            }
+            expect(']');
+            return segment;
+        }
+
+        private Segment parseIndexOrSlice() {
+            Integer first = parseOptionalInt();
+            skipSpaces();
+            if (peek(':')) {
+                pos++;
+                Integer end = parseOptionalInt();
+                int step = 1;
+                skipSpaces();
+                if (peek(':')) {
+                    pos++;
+                    Integer parsedStep = parseOptionalInt();
+                    step = parsedStep != null ? parsedStep : 1;
+                }
+                if (step == 0) {
+                    throw error("切片步长不能为0");
+                }
+                return new SliceSegment(first, end, step);
+            }
+            if (first == null) {
+                throw error("缺少下标");
+            }
+            List<Integer> indices = new ArrayList<>();
+            indices.add(first);
+            while (peek(',')) {
+                pos++;
+                Integer next = parseOptionalInt();
+                if (next == null) {
+                    throw error("缺少下标");
+                }
+                indices.add(next);
+                skipSpaces();
+            }
+            return new IndexSegment(indices.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        private Integer parseOptionalInt() {
+            skipSpaces();
+            int start = pos;
+            if (peek('-')) {
+                pos++;
+            }
+            while (pos < text.length() && Character.isDigit(text.charAt(pos))) {
+                pos++;
+            }
+            if (pos == start || (pos == start + 1 && text.charAt(start) == '-')) {
+                pos = start;
+                return null;
+            }
+            try {
+                return Integer.parseInt(text.substring(start, pos));
+            } catch (NumberFormatException e) {
+                throw error("下标超出范围");
+            }
+        }
+
+        private String parseString() {
+            char quote = text.charAt(pos++);
+            StringBuilder value = new StringBuilder();
+            while (pos < text.length() && text.charAt(pos) != quote) {
+                char c = text.charAt(pos++);
+                if (c == '\\' && pos < text.length()) {
+                    c = text.charAt(pos++);
+                }
+                value.append(c);
+            }
+            if (pos >= text.length()) {
+                throw error("字符串缺少结束引号");
+            }
+            pos++;
+            return value.toString();
+        }
+
+        // 过滤表达式：or := and ('||' and)*，and := unary ('&&' unary)*
+
+        private Expression parseOr() {
+            Expression left = parseAnd();
+            skipSpaces();
+            while (text.startsWith("||", pos)) {
+                pos += 2;
+                Expression l = left;
+                Expression r = parseAnd();
+                left = node -> l.test(node) || r.test(node);
+                skipSpaces();
+            }
+            return left;
+        }
+
+        private Expression parseAnd() {
+            Expression left = parseUnary();
+            skipSpaces();
+            while (text.startsWith("&&", pos)) {
+                pos += 2;
+                Expression l = left;
+                Expression r = parseUnary();
+                left = node -> l.test(node) && r.test(node);
+                skipSpaces();
+            }
+            return left;
+        }
+
+        private Expression parseUnary() {
+            skipSpaces();
+            if (peek('!') && !text.startsWith("!=", pos)) {
+                pos++;
+                Expression inner = parseUnary();
+                return node -> !inner.test(node);
+            }
+            if (peek('(')) {
+                pos++;
+                Expression inner = parseOr();
+                expect(')');
+                return inner;
+            }
+            return parseComparison();
+        }
+
+        private Expression parseComparison() {
+            Operand left = parseOperand();
+            skipSpaces();
+            String operator = null;
+            for (String candidate : new String[]{"==", "!=", "<=", ">=", "<", ">"}) {
+                if (text.startsWith(candidate, pos)) {
+                    operator = candidate;
+                    pos += candidate.length();
+                    break;
+                }
+            }
+            if (operator == null) {
+                if (left.path == null) {
+                    throw error("缺少比较运算符");
+                }
+                // 只写路径时判断是否存在
+                return node -> left.value(node) != null;
+            }
+            Operand right = parseOperand();
+            String op = operator;
+            return node -> {
+                JsonNode l = left.value(node);
+                JsonNode r = right.value(node);
+                if (l == null || r == null) {
+                    return "!=".equals(op) && (l != null || r != null);
+                }
+                switch (op) {
+                    case "==":
+                        return equal(l, r);
+                    case "!=":
+                        return !equal(l, r);
+                    default:
+                        try {
+                            int result = compare(l, r);
+                            return "<".equals(op) ? result < 0
+                                : "<=".equals(op) ? result <= 0
+                                : ">".equals(op) ? result > 0
+                                : result >= 0;
+                        } catch (ClassCastException e) {
+                            return false;
+                        }
+                }
+            };
+        }
+
+        private Operand parseOperand() {
+            skipSpaces();
+            if (peek('@')) {
+                int start = pos;
+                pos++;
+                List<Segment> segments = new ArrayList<>();
+                parseSegments(segments);
+                return new Operand(new JsonPath(text.substring(start, pos), segments), null);
+            }
+            if (peek('$')) {
+                throw error("过滤表达式只支持@开头的相对路径");
+            }
+            if (peek('\'') || peek('"')) {
+                return new Operand(null, JsonNodeFactory.instance.textNode(parseString()));
+            }
+            for (String keyword : new String[]{"true", "false", "null"}) {
+                if (text.startsWith(keyword, pos)) {
+                    pos += keyword.length();
+                    JsonNode literal = "null".equals(keyword) ? JsonNodeFactory.instance.nullNode()
+                        : JsonNodeFactory.instance.booleanNode("true".equals(keyword));
+                    return new Operand(null, literal);
+                }
+            }
+            int start = pos;
+            while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+                pos++;
+            }
+            if (start == pos) {
+                throw error("无法识别的操作数");
+            }
+            try {
+                return new Operand(null, JsonNodeFactory.instance.numberNode(new BigDecimal(text.substring(start, pos))));
+            } catch (NumberFormatException e) {
+                throw error("数字格式错误");
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.testplatform.testing;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用流式解析器对JSON求多个JSONPath的值
+ * 路径开头的字段名和下标边解析边匹配，只为命中的子树构建JsonNode，其余部分直接跳过；
+ * 所有路径都求值完成后不再解析剩余内容。路径以通配、过滤、递归查找开头时构建整棵树求值
+ */
+public final class JsonPathSelector {
+
+    private JsonPathSelector() {
+    }
+
+    /**
+     * @param parser 位于文档开头的解析器（需要设置ObjectCodec）
+     * @param paths 编译后的路径
+     * @return 表达式到值的映射（形式同 {@link JsonPath#read(JsonNode)}），没有匹配的表达式不在结果中
+     */
+    public static Map<String, JsonNode> select(JsonParser parser, Collection<JsonPath> paths) throws IOException {
+        Map<String, JsonNode> result = new HashMap<>();
+        if (paths.isEmpty() || parser.nextToken() == null) {
+            return result;
+        }
+        List<JsonPath> targets = new ArrayList<>(new LinkedHashSet<>(paths));
+        for (JsonPath path : targets) {
+            if (path.getStreamablePrefix() == 0) {
+                JsonNode root = parser.readValueAsTree();
+                for (JsonPath each : targets) {
+                    put(result, each, each.read(root));
+                }
+                return result;
+            }
+        }
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+            walk(parser, targets, 0, new int[]{targets.size()}, result);
+        }
+        return result;
+    }
+
+    /**
+     * 解析器位于容器的开始标记，处理到对应的结束标记或所有路径都已求值
+     * @param targets 前depth段与当前容器的位置一致的路径，求值完成的路径从中移除
+     * @param remaining 尚未求值的路径数
+     * @return 所有路径是否都已求值
+     */
+    private static boolean walk(JsonParser parser, List<JsonPath> targets, int depth, int[] remaining,
+                                Map<String, JsonNode> result) throws IOException {
+        boolean array = parser.currentToken() == JsonToken.START_ARRAY;
+        int index = 0;
+        while (true) {
+            JsonToken token = parser.nextToken();
+            String name = null;
+            int position = -1;
+            if (array) {
+                if (token == JsonToken.END_ARRAY || token == null) {
+                    return false;
+                }
+                position = index++;
+            } else {
+                if (token != JsonToken.FIELD_NAME) {
+                    return false;
+                }
+                name = parser.getCurrentName();
+                token = parser.nextToken();
+            }
+
+            List<JsonPath> matching = null;
+            boolean complete = false;
+            for (JsonPath target : targets) {
+                boolean matched = array ? target.indexAt(depth) == position : name.equals(target.nameAt(depth));
+                if (matched) {
+                    if (matching == null) {
+                        matching = new ArrayList<>();
+                    }
+                    matching.add(target);
+                    complete |= target.getStreamablePrefix() == depth + 1;
+                }
+            }
+            if (matching == null) {
+                parser.skipChildren();
+                continue;
+            }
+            if (complete) {
+                // 有路径的可匹配部分到此为止：构建子树，剩余的段在子树上求值
+                JsonNode node = parser.readValueAsTree();
+                for (JsonPath target : matching) {
+                    put(result, target, target.readFrom(node, depth + 1));
+                }
+                remaining[0] -= matching.size();
+            } else if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                List<JsonPath> nested = new ArrayList<>(matching);
+                if (walk(parser, nested, depth + 1, remaining, result)) {
+                    return true;
+                }
+                // 在子容器中没有匹配的路径
+                remaining[0] -= nested.size();
+            } else {
+                parser.skipChildren();
+                remaining[0] -= matching.size();
+            }
+            // 字段名和下标唯一，经过这里的路径不会在其他位置匹配
+            targets.removeAll(matching);
+            if (remaining[0] <= 0) {
+                return true;
+            }
+        }
+    }
+
+    private static void put(Map<String, JsonNode> result, JsonPath path, JsonNode value) {
+        if (value != null) {
+            result.put(path.getExpression(), value);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.testplatform.testing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 容量有限的编译结果缓存，容量满时淘汰最久未使用的项，线程安全
+ * 用于按文本缓存变量模板、JSONPath等编译结果：常用的文本一直留在缓存中，一次性的文本逐个被淘汰。
+ * 计算在锁外进行，并发的首次访问可能重复计算，结果相同
+ */
+public final class LruCache<K, V> {
+
+    private final int maxSize;
+    private final Map<K, V> entries;
+
+    public LruCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("缓存容量必须大于0: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > LruCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * 获取缓存的值，未命中时使用loader计算并缓存
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+        value = loader.apply(key);
+        put(key, value);
+        return value;
+    }
+
+    /**
+     * 获取缓存的值并标记为最近使用，未缓存时返回null
+     */
+    public synchronized V getIfPresent(K key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, value);
+    }
+
+    /**
+     * 移除键满足条件的项
+     */
+    public synchronized void removeIf(Predicate<? super K> filter) {
+        entries.keySet().removeIf(filter);
+    }
+
+    public synchronized boolean contains(K key) {
+        return entries.containsKey(key);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,95 @@
+package com.testplatform.testing;
+
+import com.testplatform.model.TestCase;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 已解析的用例配置缓存
+ * 同一用例在数据驱动、重试和压测中会被执行成千上万次，配置只在首次执行时解析。
+ * 缓存按用例ID+更新时间命中，用例被修改后更新时间变化即重新解析；容量满时淘汰最久未使用的用例。
+ * 缓存的配置对象被多个线程共享，调用方不能修改
+ */
+@Component
+public class TestCaseConfigCache {
+
+    /**
+     * 最多缓存的用例数
+     */
+    @Value("${test-platform.execution.config-cache-size:1000}")
+    private int maxSize = 1000;
+
+    private LruCache<String, CachedConfig> entries = new LruCache<>(maxSize);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        entries = new LruCache<>(maxSize);
+    }
+
+    /**
+     * 获取用例的已解析配置，未命中时使用parser解析并缓存
+     * @param type 配置类型，同一用例被不同执行器解析为不同类型时互不覆盖
+     */
+    public <T> T get(TestCase testCase, Class<T> type, ConfigParser<T> parser) throws IOException {
+        if (testCase.getId() == null) {
+            return parser.parse(testCase.getConfig());
+        }
+        String key = type.getName() + ":" + testCase.getId();
+        CachedConfig cached = entries.getIfPresent(key);
+        if (cached != null && Objects.equals(cached.updatedAt, testCase.getUpdatedAt())
+                && Objects.equals(cached.source, testCase.getConfig())) {
+            hits.incrementAndGet();
+            return type.cast(cached.value);
+        }
+        misses.incrementAndGet();
+        // 解析在锁外进行，并发的首次执行可能重复解析，结果相同
+        T value = parser.parse(testCase.getConfig());
+        entries.put(key, new CachedConfig(testCase.getUpdatedAt(), testCase.getConfig(), value));
+        return value;
+    }
+
+    /**
+     * 用例被修改或删除时清除其缓存
+     */
+    public void invalidate(String testCaseId) {
+        entries.removeIf(key -> key.endsWith(":" + testCaseId));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        return stats;
+    }
+
+    /**
+     * 用例配置解析器
+     */
+    public interface ConfigParser<T> {
+        T parse(String config) throws IOException;
+    }
+
+    private static final class CachedConfig {
+        private final LocalDateTime updatedAt;
+        private final String source;
+        private final Object value;
+
+        CachedConfig(LocalDateTime updatedAt, String source, Object value) {
+            this.updatedAt = updatedAt;
+            this.source = source;
+            this.value = value;
+        }
+    }
+}
@@ -3,6 +3,17 @@ package com.testplatform.testing;
 import com.testplatform.model.TestCase;
 import com.testplatform.model.TestEnvironment;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface TestExecutor {
     TestExecutionResult execute(TestCase testCase, TestEnvironment environment);
-}
\ No newline at end of file
+
+    /**
+     * 异步执行用例，结果中包含失败和取消，返回的Future不会异常完成
+     * 默认在调用线程中同步执行；支持非阻塞执行的执行器（如API测试）覆盖此方法，
+     * 调用时需绑定的ExecutionContext会被捕获并在后续回调中使用
+     */
+    default CompletableFuture<TestExecutionResult> executeAsync(TestCase testCase, TestEnvironment environment) {
+        return CompletableFuture.completedFuture(execute(testCase, environment));
+    }
+}
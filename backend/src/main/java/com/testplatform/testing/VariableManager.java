@@ -1,42 +1,82 @@
 package com.testplatform.testing;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.testplatform.model.GlobalVariable;
 import com.testplatform.service.GlobalVariableService;
+import com.testplatform.testing.engine.ExecutionContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 变量管理器，用于管理测试过程中的变量替换和提取
  * 支持全局变量、局部变量、系统变量和动态变量
+ * 执行引擎为每次执行、每个用例绑定独立的变量作用域（见 {@link VariableScope}），并发的执行互不影响；
+ * 未绑定作用域时使用共享的局部变量和会话变量
  */
 @Component
 public class VariableManager {
     private static final Logger logger = LoggerFactory.getLogger(VariableManager.class);
-    private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\$\\{(\\w+(?:\\.\\w+)*)}");
-    private static final Pattern SYSTEM_VARIABLE_PATTERN = Pattern.compile("\\$\\{__([^}]+)}");
+    /**
+     * 最多缓存的编译模板数
+     */
+    private static final int MAX_CACHED_TEMPLATES = 2000;
+    /**
+     * 缓存模板的最大长度（字符），更长的文本（如大请求体）每次重新编译，不长期占用内存
+     */
+    private static final int MAX_CACHED_TEMPLATE_LENGTH = 4096;
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private final Map<String, Object> localVariables = new HashMap<>();
-    private final Map<String, Object> sessionVariables = new HashMap<>();
+    // 套件用例并行执行时会被多个线程同时读写
+    private final Map<String, Object> localVariables = new ConcurrentHashMap<>();
+    private final Map<String, Object> sessionVariables = new ConcurrentHashMap<>();
+    private final LruCache<String, VariableTemplate> templates = new LruCache<>(MAX_CACHED_TEMPLATES);
+    private final Map<String, VariableScope> executionScopes = new ConcurrentHashMap<>();
     
     @Autowired
     private GlobalVariableService globalVariableService;
     
-    private String currentEnvironmentId = "env-001"; // 默认环境ID
+    private volatile String currentEnvironmentId = "env-001"; // 默认环境ID
+    
+    /**
+     * 创建执行级变量作用域，同一执行ID重复调用时返回已有的作用域
+     * 执行中的用例在其子作用域中读写变量，用例结束后合并回执行作用域
+     * @param executionId 执行ID（套件执行或压测）
+     * @param environmentId 查找全局变量使用的环境ID
+     */
+    public VariableScope openExecutionScope(String executionId, String environmentId) {
+        // 执行开始时加载环境的全局变量快照，用例执行中不再查询数据库
+        globalVariableService.getEnvironmentSnapshot(environmentId);
+        return executionScopes.computeIfAbsent(executionId, id -> VariableScope.root(environmentId));
+    }
     
     /**
-     * 设置当前环境ID
+     * 获取执行级变量作用域，未创建时返回null
+     */
+    public VariableScope getExecutionScope(String executionId) {
+        return executionScopes.get(executionId);
+    }
+    
+    /**
+     * 执行结束后释放执行级变量作用域
+     */
+    public void closeExecutionScope(String executionId) {
+        executionScopes.remove(executionId);
+    }
+    
+    /**
+     * 设置当前环境ID（未绑定执行上下文时查找全局变量使用）
      * @param environmentId 环境ID
      */
     public void setCurrentEnvironmentId(String environmentId) {
@@ -45,23 +85,40 @@ public class VariableManager {
     }
     
     /**
-     * 设置局部变量
+     * 设置局部变量，绑定了变量作用域时只写入当前作用域
      * @param name 变量名
      * @param value 变量值
      */
     public void setLocalVariable(String name, Object value) {
         logger.info("设置局部变量: {} = {}", name, value);
-        localVariables.put(name, value);
+        VariableScope scope = ExecutionContext.currentVariables();
+        if (scope != null) {
+            scope.put(name, value);
+        } else if (value == null) {
+            localVariables.remove(name);
+        } else {
+            localVariables.put(name, value);
+        }
     }
     
     /**
-     * 设置会话变量
+     * 设置会话变量，绑定了变量作用域时写入最外层的执行作用域
      * @param name 变量名
      * @param value 变量值
      */
     public void setSessionVariable(String name, Object value) {
         logger.info("设置会话变量: {} = {}", name, value);
-        sessionVariables.put(name, value);
+        VariableScope scope = ExecutionContext.currentVariables();
+        if (scope != null) {
+            while (scope.getParent() != null) {
+                scope = scope.getParent();
+            }
+            scope.put(name, value);
+        } else if (value == null) {
+            sessionVariables.remove(name);
+        } else {
+            sessionVariables.put(name, value);
+        }
     }
     
     /**
@@ -79,23 +136,34 @@ public class VariableManager {
      * @return 变量值
      */
     public Object getVariable(String name) {
-        // 1. 首先查找局部变量
-        if (localVariables.containsKey(name)) {
-            return localVariables.get(name);
-        }
-        
-        // 2. 查找会话变量
-        if (sessionVariables.containsKey(name)) {
-            return sessionVariables.get(name);
+        VariableScope scope = ExecutionContext.currentVariables();
+        String environmentId = currentEnvironmentId;
+        if (scope != null) {
+            // 1. 按 步骤 -> 用例 -> 执行 的顺序查找作用域变量
+            Object value = scope.get(name);
+            if (value != null) {
+                return value;
+            }
+            if (scope.getEnvironmentId() != null) {
+                environmentId = scope.getEnvironmentId();
+            }
+        } else {
+            // 1. 未绑定作用域时查找共享的局部变量和会话变量
+            if (localVariables.containsKey(name)) {
+                return localVariables.get(name);
+            }
+            if (sessionVariables.containsKey(name)) {
+                return sessionVariables.get(name);
+            }
         }
         
-        // 3. 查找全局变量
-        GlobalVariable globalVariable = globalVariableService.findByNameAndEnvironmentId(name, currentEnvironmentId);
-        if (globalVariable != null) {
-            return globalVariable.getValue();
+        // 2. 查找全局变量（环境快照，不查询数据库）
+        String globalValue = globalVariableService.getEnvironmentSnapshot(environmentId).get(name);
+        if (globalValue != null) {
+            return globalValue;
         }
         
-        // 4. 查找系统变量
+        // 3. 查找系统变量
         return getSystemVariable(name);
     }
     
@@ -129,51 +197,34 @@ public class VariableManager {
     
     /**
      * 替换字符串中的变量（支持多种变量类型）
+     * 普通变量 ${variable}、系统变量 ${__system_variable}，$${ 转义为 ${
      * @param input 输入字符串
      * @return 替换后的字符串
      */
     public String replaceVariables(String input) {
-        if (input == null || input.isEmpty()) {
+        if (input == null || input.indexOf('$') < 0) {
             return input;
         }
         
-        String result = input;
-        
-        // 替换普通变量 ${variable}
-        result = replacePatternVariables(result, VARIABLE_PATTERN);
-        
-        // 替换系统变量 ${__system_variable}
-        result = replacePatternVariables(result, SYSTEM_VARIABLE_PATTERN);
-        
-        return result;
+        return compileTemplate(input).render(name -> {
+            Object value = getVariable(name);
+            if (value != null) {
+                logger.debug("替换变量: {} = {}", name, value);
+            } else {
+                logger.warn("变量未找到: {}", name);
+            }
+            return value;
+        });
     }
     
     /**
-     * 替换指定模式的变量
-     * @param input 输入字符串
-     * @param pattern 变量模式
-     * @return 替换后的字符串
+     * 获取编译后的模板，同一字符串（如数据驱动和压测中反复执行的请求体）只编译一次
      */
-    private String replacePatternVariables(String input, Pattern pattern) {
-        Matcher matcher = pattern.matcher(input);
-        StringBuffer sb = new StringBuffer();
-        
-        while (matcher.find()) {
-            String variableName = matcher.group(1);
-            Object value = getVariable(variableName);
-            
-            if (value != null) {
-                matcher.appendReplacement(sb, String.valueOf(value));
-                logger.debug("替换变量: {} = {}", variableName, value);
-            } else {
-                logger.warn("变量未找到: {}", variableName);
-                // 保持原样
-                matcher.appendReplacement(sb, matcher.group());
-            }
+    private VariableTemplate compileTemplate(String input) {
+        if (input.length() > MAX_CACHED_TEMPLATE_LENGTH) {
+            return VariableTemplate.compile(input);
         }
-        matcher.appendTail(sb);
-        
-        return sb.toString();
+        return templates.get(input, VariableTemplate::compile);
     }
     
     /**
@@ -186,50 +237,77 @@ public class VariableManager {
             return;
         }
         
-        try {
-            JsonNode responseJson = objectMapper.readTree(responseBody);
-            
-            for (JsonNode extractor : extractors) {
-                String type = extractor.get("type").asText();
-                String expression = extractor.get("expression").asText();
-                String variableName = extractor.get("variable").asText();
-                
-                if ("json".equals(type)) {
-                    Object value = extractValueFromJson(responseJson, expression);
-                    if (value != null) {
-                        setVariable(variableName, value);
-                    }
-                }
-            }
+        try (JsonParser parser = objectMapper.getFactory().createParser(responseBody)) {
+            extractVariables(parser, extractors);
         } catch (IOException e) {
             logger.error("解析JSON响应失败", e);
         }
     }
     
     /**
-     * 从JSON中提取值
-     * @param json JSON节点
-     * @param expression JSON路径表达式
-     * @return 提取的值
+     * 从JSON响应流中提取变量，只解析提取器需要的字段，不把响应体读入内存
+     * @param responseBody 响应体流，由调用方关闭
+     * @param extractors 提取器配置
      */
-    private Object extractValueFromJson(JsonNode json, String expression) {
-        // 简单的JSON路径解析，支持.操作符
-        if (expression.startsWith("$")) {
-            expression = expression.substring(1);
+    public void extractVariablesFromJson(InputStream responseBody, JsonNode extractors) {
+        if (responseBody == null || extractors == null || !extractors.isArray()) {
+            return;
         }
         
-        String[] parts = expression.split("\\.");
-        JsonNode current = json;
-        
-        for (String part : parts) {
-            if (current == null || !current.isObject() || !current.has(part)) {
+        try (JsonParser parser = objectMapper.getFactory().createParser(responseBody)) {
+            extractVariables(parser, extractors);
+        } catch (IOException e) {
+            logger.error("解析JSON响应失败", e);
+        }
+    }
+    
+    private void extractVariables(JsonParser parser, JsonNode extractors) throws IOException {
+        List<JsonPath> paths = compileExtractors(extractors);
+        if (!paths.isEmpty()) {
+            extractVariables(JsonPathSelector.select(parser, paths), extractors);
+        }
+    }
+    
+    /**
+     * 编译提取器中的JSONPath表达式（编译结果全局缓存）
+     * @throws IllegalArgumentException 表达式语法错误
+     */
+    public static List<JsonPath> compileExtractors(JsonNode extractors) {
+        List<JsonPath> paths = new ArrayList<>();
+        if (extractors != null && extractors.isArray()) {
+            for (JsonNode extractor : extractors) {
+                if ("json".equals(extractor.path("type").asText())) {
+                    paths.add(JsonPath.of(extractor.path("expression").asText()));
+                }
+            }
+        }
+        return paths;
+    }
+    
+    /**
+     * 按提取器把已求值的JSONPath结果写入变量
+     * @param values 表达式到值的映射，见 {@link JsonPathSelector#select}
+     * @param extractors 提取器配置
+     */
+    public void extractVariables(Map<String, JsonNode> values, JsonNode extractors) {
+        if (extractors == null || !extractors.isArray()) {
+            return;
+        }
+        for (JsonNode extractor : extractors) {
+            if (!"json".equals(extractor.path("type").asText())) {
+                continue;
+            }
+            String expression = extractor.path("expression").asText();
+            JsonNode node = values.get(expression);
+            if (node == null) {
                 logger.warn("无法在JSON中找到路径: {}", expression);
-                return null;
+                continue;
+            }
+            Object value = getValueFromNode(node);
+            if (value != null) {
+                setVariable(extractor.path("variable").asText(), value);
             }
-            current = current.get(part);
         }
-        
-        return getValueFromNode(current);
     }
     
     /**
@@ -326,6 +404,10 @@ public class VariableManager {
      * @return 是否删除成功
      */
     public boolean removeVariable(String name) {
+        VariableScope scope = ExecutionContext.currentVariables();
+        if (scope != null) {
+            return scope.remove(name);
+        }
         boolean removed = false;
         if (localVariables.containsKey(name)) {
             localVariables.remove(name);
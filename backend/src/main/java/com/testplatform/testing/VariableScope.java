@@ -0,0 +1,126 @@
+package com.testplatform.testing;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 变量作用域
+ * 作用域按 步骤 -> 用例 -> 执行 组成链，查找时由内向外，找不到时再由VariableManager查找环境全局变量。
+ * 每个作用域保存一份不可变的变量快照，写入时复制新快照后替换，读取不加锁；
+ * 并行的用例、步骤和压测虚拟用户各自写入自己的作用域，互不影响
+ */
+public final class VariableScope {
+
+    private final VariableScope parent;
+    private final String environmentId;
+    private volatile Map<String, Object> variables = Collections.emptyMap();
+
+    private VariableScope(VariableScope parent, String environmentId) {
+        this.parent = parent;
+        this.environmentId = environmentId;
+    }
+
+    /**
+     * 创建执行级作用域
+     * @param environmentId 查找全局变量使用的环境ID，可为null
+     */
+    public static VariableScope root(String environmentId) {
+        return new VariableScope(null, environmentId);
+    }
+
+    /**
+     * 创建子作用域，子作用域的写入不影响本作用域，直到调用 {@link #mergeIntoParent()}
+     */
+    public VariableScope child() {
+        return new VariableScope(this, environmentId);
+    }
+
+    public VariableScope getParent() {
+        return parent;
+    }
+
+    public String getEnvironmentId() {
+        return environmentId;
+    }
+
+    /**
+     * 由内向外查找变量，找不到时返回null
+     */
+    public Object get(String name) {
+        for (VariableScope scope = this; scope != null; scope = scope.parent) {
+            Object value = scope.variables.get(name);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 写入本作用域，value为null时删除本作用域中的变量
+     */
+    public synchronized void put(String name, Object value) {
+        Map<String, Object> copy = new HashMap<>(variables);
+        if (value == null) {
+            copy.remove(name);
+        } else {
+            copy.put(name, value);
+        }
+        variables = Collections.unmodifiableMap(copy);
+    }
+
+    public synchronized void putAll(Map<String, ?> values) {
+        if (values == null || values.isEmpty()) {
+            return;
+        }
+        Map<String, Object> copy = new HashMap<>(variables);
+        values.forEach((name, value) -> {
+            if (value == null) {
+                copy.remove(name);
+            } else {
+                copy.put(name, value);
+            }
+        });
+        variables = Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * 删除本作用域中的变量，外层作用域中的同名变量不受影响
+     */
+    public synchronized boolean remove(String name) {
+        if (!variables.containsKey(name)) {
+            return false;
+        }
+        Map<String, Object> copy = new HashMap<>(variables);
+        copy.remove(name);
+        variables = Collections.unmodifiableMap(copy);
+        return true;
+    }
+
+    /**
+     * 本作用域的变量快照（不可修改）
+     */
+    public Map<String, Object> snapshot() {
+        return variables;
+    }
+
+    /**
+     * 整条作用域链合并后的变量，内层覆盖外层
+     */
+    public Map<String, Object> flatten() {
+        Map<String, Object> merged = parent != null ? new LinkedHashMap<>(parent.flatten()) : new LinkedHashMap<>();
+        merged.putAll(variables);
+        return merged;
+    }
+
+    /**
+     * 把本作用域的变量写入上层作用域，使后续的步骤或依赖的用例可以引用
+     */
+    public void mergeIntoParent() {
+        if (parent != null) {
+            parent.putAll(variables);
+        }
+    }
+}
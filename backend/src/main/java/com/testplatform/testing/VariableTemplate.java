@@ -0,0 +1,169 @@
+package com.testplatform.testing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 编译后的变量模板
+ * 源字符串只扫描一次，拆分为文本段和变量占位符，之后每次渲染只需按顺序拼接：
+ * <ul>
+ *   <li>{@code ${name}}：普通变量，name由字母、数字、下划线组成，可用.分隔</li>
+ *   <li>{@code ${__name}}：系统变量，按name查找，如 {@code ${__uuid}}</li>
+ *   <li>{@code $${}：转义，输出 {@code ${}，其后的内容按普通文本处理</li>
+ * </ul>
+ * 找不到值的占位符保持原样输出。模板不可变，可在多个线程间共享
+ */
+public final class VariableTemplate {
+
+    private final String source;
+    /**
+     * 文本段，长度为占位符数+1
+     */
+    private final String[] literals;
+    /**
+     * 占位符要查找的变量名
+     */
+    private final String[] names;
+    /**
+     * 占位符原文，找不到值时输出
+     */
+    private final String[] placeholders;
+    private final int literalLength;
+    private final boolean repeatedNames;
+    /**
+     * 上次渲染结果的长度，用于预分配StringBuilder
+     */
+    private volatile int lastRenderedLength;
+
+    private VariableTemplate(String source, List<String> literals, List<String> names, List<String> placeholders) {
+        this.source = source;
+        this.literals = literals.toArray(new String[0]);
+        this.names = names.toArray(new String[0]);
+        this.placeholders = placeholders.toArray(new String[0]);
+        int length = 0;
+        for (String literal : this.literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+        this.repeatedNames = new HashSet<>(names).size() < names.size();
+    }
+
+    /**
+     * 编译模板
+     */
+    public static VariableTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        StringBuilder literal = new StringBuilder(source.length());
+        int length = source.length();
+        int i = 0;
+        while (i < length) {
+            char c = source.charAt(i);
+            if (c == '$' && i + 1 < length) {
+                if (source.startsWith("$${", i)) {
+                    literal.append("${");
+                    i += 3;
+                    continue;
+                }
+                if (source.charAt(i + 1) == '{') {
+                    int close = source.indexOf('}', i + 2);
+                    String name = close < 0 ? null : placeholderName(source, i + 2, close);
+                    if (name != null) {
+                        literals.add(literal.toString());
+                        literal.setLength(0);
+                        names.add(name);
+                        placeholders.add(source.substring(i, close + 1));
+                        i = close + 1;
+                        continue;
+                    }
+                }
+            }
+            literal.append(c);
+            i++;
+        }
+        literals.add(literal.toString());
+        return new VariableTemplate(source, literals, names, placeholders);
+    }
+
+    /**
+     * 解析 ${ 与 } 之间的内容，不是合法占位符时返回null
+     */
+    private static String placeholderName(String source, int start, int end) {
+        if (end - start > 2 && source.startsWith("__", start)) {
+            return source.substring(start + 2, end);
+        }
+        if (start == end) {
+            return null;
+        }
+        boolean segmentStart = true;
+        for (int i = start; i < end; i++) {
+            char c = source.charAt(i);
+            if (c == '.') {
+                if (segmentStart) {
+                    return null;
+                }
+                segmentStart = true;
+            } else if (Character.isLetterOrDigit(c) || c == '_') {
+                segmentStart = false;
+            } else {
+                return null;
+            }
+        }
+        return segmentStart ? null : source.substring(start, end);
+    }
+
+    /**
+     * 渲染模板
+     * @param resolver 变量名 -> 值，找不到时返回null；同一次渲染中同名变量只查找一次
+     */
+    public String render(Function<String, Object> resolver) {
+        if (names.length == 0) {
+            return literals[0];
+        }
+        Map<String, Object> resolved = repeatedNames ? new HashMap<>() : null;
+        StringBuilder sb = new StringBuilder(Math.max(lastRenderedLength, literalLength + names.length * 16));
+        sb.append(literals[0]);
+        for (int i = 0; i < names.length; i++) {
+            Object value;
+            if (resolved != null) {
+                value = resolved.containsKey(names[i]) ? resolved.get(names[i]) : resolver.apply(names[i]);
+                resolved.put(names[i], value);
+            } else {
+                value = resolver.apply(names[i]);
+            }
+            if (value != null) {
+                sb.append(value);
+            } else {
+                sb.append(placeholders[i]);
+            }
+            sb.append(literals[i + 1]);
+        }
+        lastRenderedLength = sb.length();
+        return sb.toString();
+    }
+
+    /**
+     * 是否包含变量占位符
+     */
+    public boolean hasPlaceholders() {
+        return names.length > 0;
+    }
+
+    /**
+     * 模板引用的变量名（按出现顺序，可能重复）
+     */
+    public List<String> getVariableNames() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    public String getSource() {
+        return source;
+    }
+}
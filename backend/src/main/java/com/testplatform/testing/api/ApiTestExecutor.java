@@ -1,145 +1,509 @@
 package com.testplatform.testing.api;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.testplatform.model.TestCase;
 import com.testplatform.model.TestEnvironment;
+import com.testplatform.service.AuthService;
+import com.testplatform.service.AuthTokenCache;
+import com.testplatform.testing.JsonPath;
+import com.testplatform.testing.JsonPathSelector;
+import com.testplatform.testing.TestCaseConfigCache;
 import com.testplatform.testing.TestExecutionResult;
 import com.testplatform.testing.TestExecutor;
 import com.testplatform.testing.VariableManager;
+import com.testplatform.testing.VariableScope;
+import com.testplatform.testing.assertion.AssertionPlan;
+import com.testplatform.testing.assertion.AssertionResult;
+import com.testplatform.testing.assertion.ResponseSnapshot;
+import com.testplatform.testing.engine.CancellationToken;
+import com.testplatform.testing.engine.ExecutionContext;
+import com.testplatform.testing.retry.CircuitBreaker;
+import com.testplatform.testing.retry.RetryBudget;
+import com.testplatform.testing.retry.RetryPolicy;
+import com.testplatform.testing.retry.RetryRegistry;
+import com.testplatform.testing.schema.SchemaRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Component
 public class ApiTestExecutor implements TestExecutor {
     private static final Logger logger = LoggerFactory.getLogger(ApiTestExecutor.class);
+    /**
+     * 默认重试策略：连接失败、超时、网络错误、5xx和429最多重试3次，1秒起指数退避；其余断言失败不重试
+     */
+    static final RetryPolicy DEFAULT_RETRY_POLICY = new RetryPolicy(3, 1000, 10000, 2, 0.5,
+        Set.of(RetryPolicy.CONNECT, RetryPolicy.TIMEOUT, RetryPolicy.IO, RetryPolicy.SERVER_ERROR, RetryPolicy.TOO_MANY_REQUESTS));
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private final HttpClient httpClient;
+    /**
+     * 限流等待和重试延迟的共享定时器，只负责调度，不执行阻塞操作
+     */
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "api-test-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
     
     @Autowired
     private VariableManager variableManager;
     
-    public ApiTestExecutor() {
-        this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(30))
-                .build();
+    @Autowired
+    private EnvironmentRateLimiter rateLimiter;
+    
+    @Autowired
+    private TestCaseConfigCache configCache;
+    
+    @Autowired
+    private HttpClientRegistry httpClientRegistry;
+    
+    @Autowired
+    private SchemaRegistry schemaRegistry;
+    
+    @Autowired
+    private RetryRegistry retryRegistry;
+    
+    @Autowired
+    private AuthTokenCache authTokenCache;
+    
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
     }
     
+    /**
+     * 同步执行：等待异步执行的结果
+     */
     @Override
     public TestExecutionResult execute(TestCase testCase, TestEnvironment environment) {
-        return executeWithRetry(testCase, environment, 0);
+        long startTime = System.currentTimeMillis();
+        CompletableFuture<TestExecutionResult> future = executeAsync(testCase, environment);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            logger.info("API测试已取消: {}", testCase.getName());
+            return new TestExecutionResult(false, "执行已取消", System.currentTimeMillis() - startTime);
+        } catch (ExecutionException | CancellationException e) {
+            return new TestExecutionResult(false, "API测试执行异常: " + e.getMessage(), System.currentTimeMillis() - startTime);
+        }
     }
     
     /**
-     * 带重试机制的测试执行
+     * 异步执行：请求、变量提取、断言在HttpClient的回调中完成，限流等待和重试延迟由共享定时器调度，
+     * 执行期间不占用调用线程
      */
-    public TestExecutionResult executeWithRetry(TestCase testCase, TestEnvironment environment, int retryCount) {
-        long startTime = System.currentTimeMillis();
-        int maxRetries = 3; // 最大重试次数
+    @Override
+    public CompletableFuture<TestExecutionResult> executeAsync(TestCase testCase, TestEnvironment environment) {
+        AsyncExecution execution = new AsyncExecution(testCase, environment, ExecutionContext.current());
+        execution.attempt(0);
+        return execution.result;
+    }
+    
+    /**
+     * 一次用例执行的异步状态，包括重试
+     */
+    private class AsyncExecution {
+        private final TestCase testCase;
+        private final TestEnvironment environment;
+        private final ExecutionContext context;
+        private final CancellationToken cancellationToken;
+        private final long startTime = System.currentTimeMillis();
+        private final CompletableFuture<TestExecutionResult> result = new CompletableFuture<>();
+        private final RetryBudget retryBudget;
+        private volatile CompletableFuture<HttpResponse<ResponseBody>> inFlight;
+        private volatile RetryPolicy retryPolicy = DEFAULT_RETRY_POLICY;
+        /**
+         * 本次尝试占用的熔断器，请求得到结果后记录成功或失败
+         */
+        private volatile CircuitBreaker breaker;
+        private volatile String lastHost;
+        private volatile boolean started;
+        /**
+         * 已因401刷新过token并重发，同一用例只重发一次
+         */
+        private volatile boolean authRefreshed;
         
-        try {
-            // 解析测试用例配置
-            String testCaseConfig = testCase.getConfig();
-            if (testCaseConfig == null || testCaseConfig.trim().isEmpty()) {
-                return new TestExecutionResult(false, "测试用例配置为空", System.currentTimeMillis() - startTime);
+        AsyncExecution(TestCase testCase, TestEnvironment environment, ExecutionContext context) {
+            this.testCase = testCase;
+            this.environment = environment;
+            this.context = context;
+            this.cancellationToken = context != null ? context.getCancellationToken() : CancellationToken.NONE;
+            this.retryBudget = retryRegistry.getBudget(context);
+            // 取消执行时中止挂起的请求，结束后不再重试
+            Runnable registration = cancellationToken.onCancel(this::cancel);
+            result.whenComplete((r, e) -> {
+                cancellationToken.unregister(registration);
+                releaseBreaker();
+                CompletableFuture<HttpResponse<ResponseBody>> pending = inFlight;
+                if (pending != null) {
+                    pending.cancel(true);
+                }
+            });
+        }
+        
+        void attempt(int retryCount) {
+            if (result.isDone()) {
+                return;
+            }
+            ApiTestConfig apiConfig;
+            HttpRequest request;
+            EnvironmentHttpClient client;
+            try {
+                cancellationToken.throwIfCancelled();
+                
+                // 解析测试用例配置
+                String testCaseConfig = testCase.getConfig();
+                if (testCaseConfig == null || testCaseConfig.trim().isEmpty()) {
+                    complete(false, "测试用例配置为空");
+                    return;
+                }
+                apiConfig = configCache.get(testCase, ApiTestConfig.class, ApiTestExecutor.this::parseConfig);
+                if (!started) {
+                    started = true;
+                    // 用例配置覆盖套件的重试策略
+                    retryPolicy = retryRegistry.resolvePolicy(context, apiConfig.getRetry(), DEFAULT_RETRY_POLICY);
+                    if (retryBudget != null) {
+                        retryBudget.recordAttempt();
+                    }
+                }
+                
+                // 替换变量并创建HTTP请求，重试时在定时器线程中执行，需绑定调用方的执行上下文
+                request = inContext(() -> {
+                    // 执行变量中的认证token已被刷新时先更新变量
+                    applyUpdatedToken(environment);
+                    return buildRequest(apiConfig, environment);
+                });
+                // 同一环境的请求共享连接
+                client = httpClientRegistry.getClient(environment);
+            } catch (Exception e) {
+                // 请求发送前的错误（配置解析、变量替换、创建请求）重试也不会成功，不重试也不消耗重试预算
+                onFailure(e, Integer.MAX_VALUE);
+                return;
             }
             
-            // 解析JSON配置
-            ApiTestConfig apiConfig = parseConfig(testCaseConfig);
-            
-            // 构建完整URL并替换变量
-            String baseUrl = environment != null ? environment.getApiBaseUrl() : "";
-            String pathWithVariablesReplaced = variableManager.replaceVariables(apiConfig.getUrl());
-            String fullUrl = buildFullUrl(baseUrl, pathWithVariablesReplaced);
-            
-            // 替换请求体中的变量
-            String bodyWithVariablesReplaced = variableManager.replaceVariables(apiConfig.getBody());
+            // 目标主机熔断期间直接失败，不再等待超时和重试
+            CircuitBreaker hostBreaker = retryRegistry.getBreaker(request.uri().getAuthority());
+            if (hostBreaker != null && !hostBreaker.tryAcquire()) {
+                logger.warn("目标 {} 已熔断，用例快速失败: {}", hostBreaker.getHost(), testCase.getName());
+                complete(false, "目标 " + hostBreaker.getHost() + " 连续失败已熔断，用例快速失败");
+                return;
+            }
+            breaker = hostBreaker;
             
-            // 替换请求头中的变量
-            Map<String, String> headersWithVariablesReplaced = new HashMap<>();
-            for (Map.Entry<String, String> entry : apiConfig.getHeaders().entrySet()) {
-                headersWithVariablesReplaced.put(entry.getKey(), variableManager.replaceVariables(entry.getValue()));
+            // 按环境限速，令牌不足时延迟发送
+            long waitNanos = rateLimiter.reserve(environment);
+            if (waitNanos > 0) {
+                schedule(() -> send(client, apiConfig, request, retryCount), waitNanos, TimeUnit.NANOSECONDS);
+            } else {
+                send(client, apiConfig, request, retryCount);
+            }
+        }
+        
+        private void send(EnvironmentHttpClient client, ApiTestConfig apiConfig, HttpRequest request, int retryCount) {
+            if (result.isDone()) {
+                return;
             }
+            logger.info("执行API请求: {} {} (重试次数: {})", apiConfig.getMethod(), request.uri(), retryCount);
+            // 响应体不转换为字符串，超过内存上限时写入临时文件
+            long sentAt = System.nanoTime();
+            CompletableFuture<HttpResponse<ResponseBody>> future = client.sendAsync(request, httpClientRegistry.responseBodyHandler());
+            inFlight = future;
+            if (result.isDone()) {
+                future.cancel(true);
+                return;
+            }
+            future.orTimeout(apiConfig.getTimeout(), TimeUnit.MILLISECONDS).whenComplete((response, error) -> {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    if (cause instanceof TimeoutException) {
+                        future.cancel(true);
+                        cause = new TimeoutException("请求超时: " + apiConfig.getTimeout() + "ms");
+                    }
+                    onFailure(cause, retryCount);
+                    return;
+                }
+                try (ResponseBody body = response.body()) {
+                    if (!result.isDone()) {
+                        onResponse(apiConfig, response, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sentAt), retryCount);
+                    }
+                } catch (Exception e) {
+                    onFailure(e, retryCount);
+                }
+            });
+        }
+        
+        private void onResponse(ApiTestConfig apiConfig, HttpResponse<ResponseBody> response, long elapsedMs, int retryCount) throws Exception {
+            // 5xx计入熔断失败，其余响应说明目标可用
+            recordBreaker(response.statusCode() < 500);
             
-            // 创建HTTP请求
-            HttpRequest request = buildRequest(fullUrl, apiConfig.getMethod(), headersWithVariablesReplaced, bodyWithVariablesReplaced, apiConfig.getTimeout());
+            // 认证token被拒绝时刷新token后重发一次，不计入重试次数
+            if (response.statusCode() == 401 && !authRefreshed) {
+                String rejected = inContext(() -> sentAuthToken(environment, response.request()));
+                if (rejected != null) {
+                    authRefreshed = true;
+                    logger.info("请求返回401，刷新认证token后重发: {}", testCase.getName());
+                    authTokenCache.refreshAfterUnauthorized(environment, rejected).whenComplete((auth, error) -> {
+                        if (error == null && auth.isSuccess() && auth.getToken() != null) {
+                            try {
+                                inContext(() -> {
+                                    storeToken(auth);
+                                    return null;
+                                });
+                            } catch (Exception e) {
+                                onFailure(e, retryCount);
+                                return;
+                            }
+                        } else {
+                            logger.warn("刷新认证token失败: {}", error != null ? error.getMessage() : auth.getMessage());
+                        }
+                        attempt(retryCount);
+                    });
+                    return;
+                }
+            }
             
-            // 执行HTTP请求（带超时）
-            logger.info("执行API请求: {} {} (重试次数: {})", apiConfig.getMethod(), fullUrl, retryCount);
-            HttpResponse<String> response = executeRequestWithTimeout(request, apiConfig.getTimeout());
+            // 提取器和断言用到的JSONPath在一次流式解析中求值
+            Map<String, JsonNode> json = selectJson(response.body(), apiConfig.getJsonPaths());
             
             // 从响应中提取变量
             if (apiConfig.getExtractors() != null && !apiConfig.getExtractors().isEmpty()) {
-                variableManager.extractVariablesFromJson(response.body(), apiConfig.getExtractors());
+                inContext(() -> {
+                    variableManager.extractVariables(json, apiConfig.getExtractors());
+                    return null;
+                });
             }
             
-            // 验证断言
-            boolean assertionsPassed = validateAssertions(response, apiConfig.getAssertions());
-            
-            if (!assertionsPassed) {
-                if (retryCount < maxRetries) {
-                    logger.warn("断言验证失败，准备重试 (第{}次)", retryCount + 1);
-                    Thread.sleep(1000 * (retryCount + 1)); // 递增延迟
-                    return executeWithRetry(testCase, environment, retryCount + 1);
+            // 验证断言，期望值中的变量在调用方的执行上下文中替换
+            ResponseSnapshot snapshot = snapshot(response, elapsedMs, json, environment,
+                context != null ? context.getSuiteId() : null);
+            AssertionResult assertionResult = inContext(() -> apiConfig.getAssertionPlan().evaluate(snapshot));
+            if (!assertionResult.isPassed()) {
+                // 按响应状态（5xx、429）或断言失败判断是否重试
+                String category = RetryPolicy.classifyStatus(response.statusCode());
+                if (!retryPolicy.retriesOn(category)) {
+                    category = RetryPolicy.ASSERTION;
+                }
+                if (shouldRetry(category, retryCount)) {
+                    logger.warn("断言验证失败，准备重试 (第{}次): {}", retryCount + 1, assertionResult.getMessage());
+                    retry(retryCount + 1);
+                    return;
                 }
-                return new TestExecutionResult(false, "断言验证失败", System.currentTimeMillis() - startTime);
+                logger.error("断言验证失败: {}", assertionResult.getMessage());
+                complete(false, "断言验证失败: " + assertionResult.getMessage());
+                return;
             }
-            
-            return new TestExecutionResult(true, "API测试执行成功", System.currentTimeMillis() - startTime);
-        } catch (Exception e) {
-            if (retryCount < maxRetries && isRetryableException(e)) {
+            complete(true, "API测试执行成功");
+        }
+        
+        private void onFailure(Throwable e, int retryCount) {
+            if (e instanceof CancellationException || e instanceof InterruptedException || cancellationToken.isCancelled()) {
+                cancel();
+                return;
+            }
+            String category = RetryPolicy.classify(e);
+            if (category != null) {
+                // 连接失败、超时和网络错误计入熔断失败
+                recordBreaker(false);
+            } else {
+                releaseBreaker();
+            }
+            if (shouldRetry(category, retryCount)) {
                 logger.warn("API测试执行异常，准备重试 (第{}次): {}", retryCount + 1, e.getMessage());
-                try {
-                    Thread.sleep(1000 * (retryCount + 1)); // 递增延迟
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                }
-                return executeWithRetry(testCase, environment, retryCount + 1);
+                retry(retryCount + 1);
+                return;
             }
-            
             logger.error("API测试执行失败", e);
-            return new TestExecutionResult(false, "API测试执行异常: " + e.getMessage(), System.currentTimeMillis() - startTime);
+            complete(false, "API测试执行异常: " + e.getMessage());
+        }
+        
+        /**
+         * 策略允许该类别重试、次数未用完、执行的重试预算未用完且目标未熔断时重试
+         */
+        private boolean shouldRetry(String category, int retryCount) {
+            if (!retryPolicy.retriesOn(category) || retryCount >= retryPolicy.getMaxRetries() || cancellationToken.isCancelled()) {
+                return false;
+            }
+            CircuitBreaker lastBreaker = retryRegistry.getBreaker(testHost());
+            if (lastBreaker != null && lastBreaker.isOpen()) {
+                logger.warn("目标 {} 已熔断，不再重试: {}", lastBreaker.getHost(), testCase.getName());
+                return false;
+            }
+            if (retryBudget != null && !retryBudget.tryAcquire()) {
+                logger.warn("本次执行的重试预算已用完，不再重试: {}", testCase.getName());
+                return false;
+            }
+            return true;
+        }
+        
+        /**
+         * 按策略退避后重试，等待期间不占用线程
+         */
+        private void retry(int retryCount) {
+            schedule(() -> attempt(retryCount), retryPolicy.delayMillis(retryCount), TimeUnit.MILLISECONDS);
+        }
+        
+        private String testHost() {
+            CircuitBreaker current = breaker;
+            return current != null ? current.getHost() : lastHost;
+        }
+        
+        private void recordBreaker(boolean success) {
+            CircuitBreaker current = breaker;
+            breaker = null;
+            if (current != null) {
+                lastHost = current.getHost();
+                if (success) {
+                    current.onSuccess();
+                } else {
+                    current.onFailure();
+                }
+            }
+        }
+        
+        private void releaseBreaker() {
+            CircuitBreaker current = breaker;
+            breaker = null;
+            if (current != null) {
+                lastHost = current.getHost();
+                current.release();
+            }
+        }
+        
+        private void schedule(Runnable task, long delay, TimeUnit unit) {
+            try {
+                timer.schedule(() -> {
+                    try {
+                        task.run();
+                    } catch (Exception e) {
+                        // 调度的任务本身出错时不再重试
+                        onFailure(e, Integer.MAX_VALUE);
+                    }
+                }, delay, unit);
+            } catch (RejectedExecutionException e) {
+                // 应用正在关闭
+                complete(false, "API测试执行异常: 执行器已关闭");
+            }
+        }
+        
+        private void cancel() {
+            if (!result.isDone()) {
+                logger.info("API测试已取消: {}", testCase.getName());
+                complete(false, "执行已取消");
+            }
+        }
+        
+        private void complete(boolean success, String message) {
+            result.complete(new TestExecutionResult(success, message, System.currentTimeMillis() - startTime));
+        }
+        
+        /**
+         * 在调用方的执行上下文中运行（变量替换和提取依赖当前线程的变量作用域）
+         */
+        private <T> T inContext(Callable<T> action) throws Exception {
+            ExecutionContext previous = ExecutionContext.current();
+            if (context == null || previous == context) {
+                return action.call();
+            }
+            ExecutionContext.bind(context);
+            try {
+                return action.call();
+            } finally {
+                if (previous != null) {
+                    ExecutionContext.bind(previous);
+                } else {
+                    ExecutionContext.clear();
+                }
+            }
         }
     }
     
     /**
-     * 判断异常是否可重试
+     * 解析用例配置并替换变量，生成可重复发送的请求（压测使用）
      */
-    private boolean isRetryableException(Exception e) {
-        return e instanceof java.net.ConnectException ||
-               e instanceof java.net.SocketTimeoutException ||
-               e instanceof java.util.concurrent.TimeoutException ||
-               e.getMessage().contains("timeout") ||
-               e.getMessage().contains("connection");
+    public PreparedRequest prepareRequest(TestCase testCase, TestEnvironment environment) throws IOException {
+        String testCaseConfig = testCase.getConfig();
+        if (testCaseConfig == null || testCaseConfig.trim().isEmpty()) {
+            throw new IllegalArgumentException("测试用例配置为空");
+        }
+        ApiTestConfig apiConfig = configCache.get(testCase, ApiTestConfig.class, this::parseConfig);
+        return new PreparedRequest(buildRequest(apiConfig, environment), apiConfig.getAssertionPlan(), environment,
+            apiConfig.getTimeout());
     }
     
     /**
-     * 带超时的请求执行
+     * 校验响应是否满足预先准备的请求的断言，响应时间由调用方统计，不在这里校验
      */
-    private HttpResponse<String> executeRequestWithTimeout(HttpRequest request, int timeoutMs) throws Exception {
-        CompletableFuture<HttpResponse<String>> future = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
-        
-        try {
-            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
-        } catch (java.util.concurrent.TimeoutException e) {
-            future.cancel(true);
-            throw new java.util.concurrent.TimeoutException("请求超时: " + timeoutMs + "ms");
+    public boolean checkAssertions(PreparedRequest prepared, HttpResponse<?> response) {
+        if (prepared.assertionPlan.isEmpty()) {
+            return true;
+        }
+        Map<String, JsonNode> json = response.body() instanceof ResponseBody
+            ? selectJson((ResponseBody) response.body(), prepared.assertionPlan.getJsonPaths()) : Collections.emptyMap();
+        return prepared.assertionPlan.evaluate(snapshot(response, -1, json, prepared.environment, null)).isPassed();
+    }
+    
+    private ResponseSnapshot snapshot(HttpResponse<?> response, long elapsedMs, Map<String, JsonNode> json,
+                                      TestEnvironment environment, String suiteId) {
+        Object body = response.body();
+        long bodySize = body instanceof ResponseBody ? ((ResponseBody) body).getSize() : 0;
+        ResponseSnapshot snapshot = new ResponseSnapshot(response.statusCode(), response.headers(), elapsedMs, bodySize, json);
+        if (body instanceof ResponseBody) {
+            snapshot.setBodyText(((ResponseBody) body)::asString);
+            snapshot.setBodyStream(((ResponseBody) body)::openStream);
+        } else if (body instanceof String) {
+            snapshot.setBodyText(() -> (String) body);
         }
+        snapshot.setVariableResolver(variableManager::replaceVariables);
+        snapshot.setSchemaSource(() -> schemaRegistry.getSource(environment, suiteId));
+        return snapshot;
     }
     
+    /**
+     * 流式解析响应体，求出各JSONPath的值；响应体不是合法JSON时返回已求出的部分
+     */
+    private Map<String, JsonNode> selectJson(ResponseBody body, List<JsonPath> paths) {
+        if (paths.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        try (InputStream in = body.openStream(); JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            return JsonPathSelector.select(parser, paths);
+        } catch (IOException e) {
+            logger.warn("解析JSON响应失败: {}", e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+    
+    /**
+     * 解析用例配置，结果由TestCaseConfigCache缓存，不能修改
+     */
     private ApiTestConfig parseConfig(String configJson) throws IOException {
         JsonNode rootNode = objectMapper.readTree(configJson);
         
@@ -156,23 +520,32 @@ public class ApiTestExecutor implements TestExecutor {
                 headers.put(entry.getKey(), entry.getValue().asText());
             });
         }
-        config.setHeaders(headers);
+        // 解析结果会被缓存并在多个线程间共享
+        config.setHeaders(Collections.unmodifiableMap(headers));
         
         // 解析请求体
         if (rootNode.has("body")) {
             config.setBody(rootNode.get("body").asText());
         }
         
-        // 解析断言
-        if (rootNode.has("assertions")) {
-            config.setAssertions(rootNode.get("assertions"));
-        }
+        // 编译断言，配置错误时用例配置解析失败
+        config.setAssertionPlan(AssertionPlan.compile(rootNode.get("assertions")));
+        
+        // 用例的重试配置，执行时与套件的重试策略合并；先按默认策略解析以尽早发现配置错误
+        JsonNode retry = RetryPolicy.caseOverrides(rootNode);
+        RetryPolicy.parse(retry, DEFAULT_RETRY_POLICY);
+        config.setRetry(retry);
         
         // 解析变量提取器
         if (rootNode.has("extractors")) {
             config.setExtractors(rootNode.get("extractors"));
         }
         
+        // 预先编译提取器和断言中的JSONPath，表达式错误时用例配置解析失败
+        List<JsonPath> jsonPaths = new ArrayList<>(VariableManager.compileExtractors(config.getExtractors()));
+        jsonPaths.addAll(config.getAssertionPlan().getJsonPaths());
+        config.setJsonPaths(Collections.unmodifiableList(jsonPaths));
+        
         return config;
     }
     
@@ -187,6 +560,85 @@ public class ApiTestExecutor implements TestExecutor {
         return baseUrl + "/" + path;
     }
     
+    /**
+     * 执行变量中的token由认证缓存签发且已被刷新（或临近过期已在后台刷新）时，换成最新的token
+     */
+    private void applyUpdatedToken(TestEnvironment environment) {
+        if (environment == null || environment.getId() == null) {
+            return;
+        }
+        Object token = variableManager.getVariable("token");
+        if (token instanceof String) {
+            AuthService.AuthResult updated = authTokenCache.updatedToken(environment, (String) token);
+            if (updated != null) {
+                storeToken(updated);
+            }
+        }
+    }
+    
+    /**
+     * 请求携带的认证token：请求头中包含执行变量token，且该token由认证缓存签发时返回，否则返回null
+     */
+    private String sentAuthToken(TestEnvironment environment, HttpRequest request) {
+        if (environment == null || environment.getId() == null) {
+            return null;
+        }
+        Object token = variableManager.getVariable("token");
+        if (!(token instanceof String) || !authTokenCache.isIssued(environment, (String) token)) {
+            return null;
+        }
+        String value = (String) token;
+        boolean sent = request.headers().map().values().stream()
+            .flatMap(List::stream)
+            .anyMatch(header -> header.contains(value));
+        return sent ? value : null;
+    }
+    
+    /**
+     * 新token写入定义token变量的作用域（通常是执行作用域），同一执行的其他用例随后使用新token
+     */
+    private void storeToken(AuthService.AuthResult auth) {
+        VariableScope owner = ExecutionContext.currentVariables();
+        for (VariableScope scope = owner; scope != null; scope = scope.getParent()) {
+            if (scope.snapshot().containsKey("token")) {
+                owner = scope;
+                break;
+            }
+        }
+        if (owner == null) {
+            variableManager.setVariable("token", auth.getToken());
+            if (auth.getRefreshToken() != null) {
+                variableManager.setVariable("refreshToken", auth.getRefreshToken());
+            }
+            return;
+        }
+        owner.put("token", auth.getToken());
+        if (auth.getRefreshToken() != null) {
+            owner.put("refreshToken", auth.getRefreshToken());
+        }
+    }
+    
+    /**
+     * 替换URL、请求头和请求体中的变量并创建HTTP请求
+     */
+    private HttpRequest buildRequest(ApiTestConfig apiConfig, TestEnvironment environment) throws IOException {
+        // 构建完整URL并替换变量
+        String baseUrl = environment != null ? environment.getApiBaseUrl() : "";
+        String pathWithVariablesReplaced = variableManager.replaceVariables(apiConfig.getUrl());
+        String fullUrl = buildFullUrl(baseUrl, pathWithVariablesReplaced);
+        
+        // 替换请求体中的变量
+        String bodyWithVariablesReplaced = variableManager.replaceVariables(apiConfig.getBody());
+        
+        // 替换请求头中的变量
+        Map<String, String> headersWithVariablesReplaced = new HashMap<>();
+        for (Map.Entry<String, String> entry : apiConfig.getHeaders().entrySet()) {
+            headersWithVariablesReplaced.put(entry.getKey(), variableManager.replaceVariables(entry.getValue()));
+        }
+        
+        return buildRequest(fullUrl, apiConfig.getMethod(), headersWithVariablesReplaced, bodyWithVariablesReplaced, apiConfig.getTimeout());
+    }
+    
     private HttpRequest buildRequest(String url, String method, Map<String, String> headers, String body, int timeoutMs) throws IOException {
         HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
                 .uri(URI.create(url))
@@ -196,6 +648,10 @@ public class ApiTestExecutor implements TestExecutor {
         if (headers != null) {
             headers.forEach(requestBuilder::header);
         }
+        // 未指定时请求压缩响应，接收时按Content-Encoding流式解压
+        if (headers == null || headers.keySet().stream().noneMatch("Accept-Encoding"::equalsIgnoreCase)) {
+            requestBuilder.header("Accept-Encoding", "gzip, deflate");
+        }
         
         // 设置请求方法和请求体
         switch (method.toUpperCase()) {
@@ -227,40 +683,24 @@ public class ApiTestExecutor implements TestExecutor {
         return requestBuilder.build();
     }
     
-    private boolean validateAssertions(HttpResponse<String> response, JsonNode assertions) {
-        // 如果没有断言，默认返回成功
-        if (assertions == null || !assertions.isArray() || assertions.isEmpty()) {
-            return true;
-        }
+    /**
+     * 已替换变量的请求及其断言，可被并发地重复发送
+     */
+    public static class PreparedRequest {
+        private final HttpRequest request;
+        private final AssertionPlan assertionPlan;
+        private final TestEnvironment environment;
+        private final int timeoutMs;
         
-        // 简单的断言验证逻辑
-        for (JsonNode assertion : assertions) {
-            String type = assertion.get("type").asText();
-            Object expected = getValueFromNode(assertion.get("expected"));
-            
-            switch (type) {
-                case "statusCode":
-                    int actualStatusCode = response.statusCode();
-                    if (expected instanceof Integer && !expected.equals(actualStatusCode)) {
-                        logger.error("状态码断言失败: 期望={}, 实际={}", expected, actualStatusCode);
-                        return false;
-                    }
-                    break;
-                case "responseTime":
-                    // 响应时间断言需要在调用层处理
-                    break;
-                // 可以添加更多断言类型
-            }
+        PreparedRequest(HttpRequest request, AssertionPlan assertionPlan, TestEnvironment environment, int timeoutMs) {
+            this.request = request;
+            this.assertionPlan = assertionPlan;
+            this.environment = environment;
+            this.timeoutMs = timeoutMs;
         }
         
-        return true;
-    }
-    
-    private Object getValueFromNode(JsonNode node) {
-        if (node.isInt()) return node.asInt();
-        if (node.isBoolean()) return node.asBoolean();
-        if (node.isDouble()) return node.asDouble();
-        return node.asText();
+        public HttpRequest getRequest() { return request; }
+        public int getTimeoutMs() { return timeoutMs; }
     }
     
     // API测试配置类
@@ -270,8 +710,10 @@ public class ApiTestExecutor implements TestExecutor {
         private Map<String, String> headers;
         private String body;
         private int timeout;
-        private JsonNode assertions;
+        private AssertionPlan assertionPlan = AssertionPlan.EMPTY;
         private JsonNode extractors;
+        private List<JsonPath> jsonPaths = Collections.emptyList();
+        private JsonNode retry;
         
         // Getters and Setters
         public String getMethod() { return method; }
@@ -284,9 +726,13 @@ public class ApiTestExecutor implements TestExecutor {
         public void setBody(String body) { this.body = body; }
         public int getTimeout() { return timeout; }
         public void setTimeout(int timeout) { this.timeout = timeout; }
-        public JsonNode getAssertions() { return assertions; }
-        public void setAssertions(JsonNode assertions) { this.assertions = assertions; }
+        public AssertionPlan getAssertionPlan() { return assertionPlan; }
+        public void setAssertionPlan(AssertionPlan assertionPlan) { this.assertionPlan = assertionPlan; }
         public JsonNode getExtractors() { return extractors; }
         public void setExtractors(JsonNode extractors) { this.extractors = extractors; }
+        public List<JsonPath> getJsonPaths() { return jsonPaths; }
+        public void setJsonPaths(List<JsonPath> jsonPaths) { this.jsonPaths = jsonPaths; }
+        public JsonNode getRetry() { return retry; }
+        public void setRetry(JsonNode retry) { this.retry = retry; }
     }
 }
\ No newline at end of file
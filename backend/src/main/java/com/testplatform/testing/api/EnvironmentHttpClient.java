@@ -0,0 +1,212 @@
+package com.testplatform.testing.api;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 目标环境共享的HTTP客户端
+ * 同一环境的所有执行复用一个HttpClient（连接池、HTTP/2多路复用连接），
+ * 配置了maxConnections时限制同时在途的请求数，超出的异步请求排队等待空位，不占用调用线程
+ */
+public class EnvironmentHttpClient {
+
+    private final HttpClient httpClient;
+    private final HttpClientSettings settings;
+    private final String source;
+    private final ExecutorService executor;
+
+    private final Object lock = new Object();
+    private final ArrayDeque<Runnable> waiting = new ArrayDeque<>();
+    private int inFlight;
+    private int peakInFlight;
+    private boolean retired;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong http2Responses = new AtomicLong();
+    private final AtomicLong http1Responses = new AtomicLong();
+
+    EnvironmentHttpClient(HttpClient httpClient, HttpClientSettings settings, String source, ExecutorService executor) {
+        this.httpClient = httpClient;
+        this.settings = settings;
+        this.source = source;
+        this.executor = executor;
+    }
+
+    /**
+     * 底层HttpClient，不经过在途请求数限制（压测按自己的并发模型发送请求）
+     */
+    public HttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * 未指定超时的请求（认证、连通性测试）使用的默认超时
+     */
+    public Duration getRequestTimeout() {
+        return Duration.ofMillis(settings.getRequestTimeoutMs());
+    }
+
+    HttpClientSettings getSettings() {
+        return settings;
+    }
+
+    /**
+     * 创建客户端使用的环境http_config原文，配置变化时注册表重建客户端
+     */
+    String getSource() {
+        return source;
+    }
+
+    /**
+     * 同步发送，在途请求数已满时阻塞等待
+     */
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+        CompletableFuture<HttpResponse<T>> future = sendAsync(request, handler);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * 异步发送，在途请求数已满时排队，有请求完成后按到达顺序发送
+     * 返回的future被取消或超时时，排队中的请求不再发送，已发送的请求被取消
+     */
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+        CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        Runnable start = () -> {
+            if (result.isDone()) {
+                finish();
+                return;
+            }
+            requests.incrementAndGet();
+            CompletableFuture<HttpResponse<T>> call;
+            try {
+                call = httpClient.sendAsync(request, handler);
+            } catch (RuntimeException e) {
+                failures.incrementAndGet();
+                finish();
+                result.completeExceptionally(e);
+                return;
+            }
+            call.whenComplete((response, error) -> {
+                if (error != null) {
+                    failures.incrementAndGet();
+                } else if (response.version() == HttpClient.Version.HTTP_2) {
+                    http2Responses.incrementAndGet();
+                } else {
+                    http1Responses.incrementAndGet();
+                }
+                finish();
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(response);
+                }
+            });
+            result.whenComplete((response, error) -> {
+                if (error != null) {
+                    call.cancel(true);
+                }
+            });
+        };
+        if (tryStart(start)) {
+            start.run();
+        } else {
+            result.whenComplete((response, error) -> {
+                if (error != null) {
+                    synchronized (lock) {
+                        waiting.remove(start);
+                    }
+                }
+            });
+        }
+        return result;
+    }
+
+    private boolean tryStart(Runnable start) {
+        synchronized (lock) {
+            int limit = settings.getMaxConnections();
+            if (limit <= 0 || inFlight < limit) {
+                inFlight++;
+                peakInFlight = Math.max(peakInFlight, inFlight);
+                return true;
+            }
+            waiting.add(start);
+            return false;
+        }
+    }
+
+    /**
+     * 请求完成，空位直接交给排队中的下一个请求
+     */
+    private void finish() {
+        Runnable next;
+        synchronized (lock) {
+            next = waiting.poll();
+            if (next == null) {
+                inFlight--;
+                shutdownIfIdle();
+            }
+        }
+        if (next != null) {
+            next.run();
+        }
+    }
+
+    /**
+     * 配置变化或环境删除后停止使用本客户端，在途请求完成后释放专用线程池
+     */
+    void retire() {
+        synchronized (lock) {
+            retired = true;
+            shutdownIfIdle();
+        }
+    }
+
+    private void shutdownIfIdle() {
+        if (retired && inFlight == 0 && executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("httpVersion", settings.getHttpVersion().name());
+        stats.put("maxConnections", settings.getMaxConnections());
+        stats.put("executorThreads", settings.getExecutorThreads());
+        synchronized (lock) {
+            stats.put("inFlight", inFlight);
+            stats.put("queued", waiting.size());
+            stats.put("peakInFlight", peakInFlight);
+        }
+        stats.put("requests", requests.get());
+        stats.put("failures", failures.get());
+        stats.put("http2Responses", http2Responses.get());
+        stats.put("http1Responses", http1Responses.get());
+        return stats;
+    }
+}
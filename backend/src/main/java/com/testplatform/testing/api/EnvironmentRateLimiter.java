@@ -0,0 +1,124 @@
+package com.testplatform.testing.api;
+
+import com.testplatform.model.TestEnvironment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按环境限制API请求速率（令牌桶）
+ * 所有执行共享同一环境的令牌桶；令牌不足时请求按预占顺序延迟发送而不是失败，延迟期间可被取消
+ */
+@Component
+public class EnvironmentRateLimiter {
+    private static final Logger logger = LoggerFactory.getLogger(EnvironmentRateLimiter.class);
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * 预占一个请求令牌但不等待，调用方按返回的时间延迟发送；环境未配置速率上限时返回0
+     * @return 需要等待的纳秒数，0表示可以立即发送
+     */
+    public long reserve(TestEnvironment environment) {
+        if (environment == null || environment.getId() == null
+                || environment.getRateLimitRps() == null || environment.getRateLimitRps() <= 0) {
+            return 0;
+        }
+        double rate = environment.getRateLimitRps();
+        int burst = environment.getRateLimitBurst() != null && environment.getRateLimitBurst() > 0
+            ? environment.getRateLimitBurst() : Math.max(1, (int) Math.ceil(rate));
+        TokenBucket bucket = buckets.compute(environment.getId(), (id, existing) -> {
+            if (existing == null) {
+                return new TokenBucket(rate, burst);
+            }
+            existing.configure(rate, burst);
+            return existing;
+        });
+
+        long waitNanos = bucket.reserve();
+        if (waitNanos > 0) {
+            logger.debug("环境 {} 请求速率已达上限，等待 {} ms", environment.getName(), waitNanos / 1_000_000);
+            bucket.recordThrottled(waitNanos);
+        }
+        return waitNanos;
+    }
+
+    /**
+     * 各环境的限流统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (Map.Entry<String, TokenBucket> entry : buckets.entrySet()) {
+            stats.put(entry.getKey(), entry.getValue().getStats());
+        }
+        return stats;
+    }
+
+    /**
+     * 令牌桶：预占令牌，令牌可以透支为负数，透支部分按速率换算为等待时间，
+     * 并发请求因此按到达顺序依次放行
+     */
+    static class TokenBucket {
+        private double ratePerSecond;
+        private double capacity;
+        private double tokens;
+        private long lastRefillNanos;
+        private long acquired;
+        private long throttled;
+        private long throttledNanos;
+
+        TokenBucket(double ratePerSecond, int capacity) {
+            this.ratePerSecond = ratePerSecond;
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        synchronized void configure(double ratePerSecond, int capacity) {
+            if (this.ratePerSecond != ratePerSecond || this.capacity != capacity) {
+                refill(System.nanoTime());
+                this.ratePerSecond = ratePerSecond;
+                this.capacity = capacity;
+                this.tokens = Math.min(tokens, capacity);
+            }
+        }
+
+        /**
+         * 预占一个令牌
+         * @return 需要等待的纳秒数，0表示立即放行
+         */
+        synchronized long reserve() {
+            refill(System.nanoTime());
+            tokens -= 1;
+            acquired++;
+            if (tokens >= 0) {
+                return 0;
+            }
+            throttled++;
+            return (long) (-tokens / ratePerSecond * 1_000_000_000L);
+        }
+
+        synchronized void recordThrottled(long nanos) {
+            throttledNanos += nanos;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * ratePerSecond / 1_000_000_000L);
+            lastRefillNanos = now;
+        }
+
+        synchronized Map<String, Object> getStats() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("rateLimitRps", ratePerSecond);
+            stats.put("burst", (int) capacity);
+            stats.put("acquired", acquired);
+            stats.put("throttled", throttled);
+            stats.put("throttledMs", throttledNanos / 1_000_000);
+            return stats;
+        }
+    }
+}
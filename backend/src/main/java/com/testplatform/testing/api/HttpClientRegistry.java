@@ -0,0 +1,233 @@
+package com.testplatform.testing.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.testplatform.model.TestEnvironment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按目标环境共享HTTP客户端
+ * API用例、认证、连通性测试和压测都从这里获取环境的客户端，同一环境的请求复用连接（默认HTTP/2，
+ * 服务端不支持时自动协商为HTTP/1.1）；环境的http_config变化后下次获取时重建客户端
+ */
+@Component
+public class HttpClientRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(HttpClientRegistry.class);
+    private static final String DEFAULT_KEY = "default";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, EnvironmentHttpClient> clients = new ConcurrentHashMap<>();
+
+    /**
+     * 空闲连接的保活时间（秒），JDK HttpClient的连接池参数为JVM级别，所有环境共用
+     */
+    @Value("${test-platform.http.keep-alive-seconds:300}")
+    private int keepAliveSeconds = 300;
+
+    /**
+     * 每个目标地址保留的空闲连接数，0表示不限制（JVM级别）
+     */
+    @Value("${test-platform.http.idle-pool-size:0}")
+    private int idlePoolSize;
+
+    /**
+     * 环境未配置maxConnections时的在途请求数上限，0表示不限制
+     */
+    @Value("${test-platform.http.default-max-connections:0}")
+    private int defaultMaxConnections;
+
+    /**
+     * 响应体在内存中保留的字节数，超出部分写入临时文件
+     */
+    @Value("${test-platform.http.response-body.in-memory-bytes:1048576}")
+    private int responseInMemoryBytes = ResponseBodyHandler.DEFAULT_IN_MEMORY_BYTES;
+
+    /**
+     * 响应体大小上限，超出时请求失败
+     */
+    @Value("${test-platform.http.response-body.max-bytes:104857600}")
+    private long responseMaxBytes = ResponseBodyHandler.DEFAULT_MAX_BYTES;
+
+    /**
+     * 大响应体临时文件目录，为空时使用系统临时目录
+     */
+    @Value("${test-platform.http.response-body.spill-directory:}")
+    private String responseSpillDirectory;
+
+    private volatile ResponseBodyHandler responseBodyHandler;
+
+    @PostConstruct
+    public void init() {
+        // 连接池参数在第一个HttpClient创建时读取，已通过启动参数指定的不覆盖
+        setIfAbsent("jdk.httpclient.keepalive.timeout", keepAliveSeconds);
+        if (idlePoolSize > 0) {
+            setIfAbsent("jdk.httpclient.connectionPoolSize", idlePoolSize);
+        }
+    }
+
+    private static void setIfAbsent(String property, int value) {
+        if (System.getProperty(property) == null) {
+            System.setProperty(property, String.valueOf(value));
+        }
+    }
+
+    /**
+     * 按配置的内存上限和大小上限接收响应体
+     */
+    public ResponseBodyHandler responseBodyHandler() {
+        ResponseBodyHandler handler = responseBodyHandler;
+        if (handler == null) {
+            Path directory = responseSpillDirectory == null || responseSpillDirectory.trim().isEmpty()
+                ? null : Paths.get(responseSpillDirectory.trim());
+            handler = new ResponseBodyHandler(responseInMemoryBytes, responseMaxBytes, directory);
+            responseBodyHandler = handler;
+        }
+        return handler;
+    }
+
+    /**
+     * 获取环境的HTTP客户端，环境为空时返回默认客户端
+     * @throws IllegalArgumentException 环境的http_config非法
+     */
+    public EnvironmentHttpClient getClient(TestEnvironment environment) {
+        String key = environment != null && environment.getId() != null ? environment.getId() : DEFAULT_KEY;
+        String source = environment != null && environment.getId() != null ? environment.getHttpConfig() : null;
+        EnvironmentHttpClient client = clients.get(key);
+        if (client != null && Objects.equals(client.getSource(), source)) {
+            return client;
+        }
+        synchronized (this) {
+            client = clients.get(key);
+            if (client != null && Objects.equals(client.getSource(), source)) {
+                return client;
+            }
+            EnvironmentHttpClient created = create(environment, source);
+            EnvironmentHttpClient previous = clients.put(key, created);
+            if (previous != null) {
+                previous.retire();
+                logger.info("环境 {} 的HTTP配置已变更，重建HTTP客户端", key);
+            }
+            return created;
+        }
+    }
+
+    /**
+     * 环境更新或删除后释放其客户端
+     */
+    public void invalidate(String environmentId) {
+        if (environmentId == null) {
+            return;
+        }
+        EnvironmentHttpClient client = clients.remove(environmentId);
+        if (client != null) {
+            client.retire();
+        }
+    }
+
+    /**
+     * 各环境客户端的请求统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (Map.Entry<String, EnvironmentHttpClient> entry : clients.entrySet()) {
+            stats.put(entry.getKey(), entry.getValue().getStats());
+        }
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        clients.values().forEach(EnvironmentHttpClient::retire);
+        clients.clear();
+    }
+
+    private EnvironmentHttpClient create(TestEnvironment environment, String source) {
+        HttpClientSettings settings;
+        try {
+            JsonNode config = source == null || source.trim().isEmpty() ? null : objectMapper.readTree(source);
+            settings = HttpClientSettings.parse(config, defaultMaxConnections);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("环境HTTP配置不是合法的JSON: " + e.getMessage(), e);
+        }
+
+        HttpClient.Builder builder = HttpClient.newBuilder()
+            .version(settings.getHttpVersion())
+            .connectTimeout(Duration.ofMillis(settings.getConnectTimeoutMs()))
+            .followRedirects(settings.isFollowRedirects() ? HttpClient.Redirect.NORMAL : HttpClient.Redirect.NEVER);
+        if (settings.getProxy() != null) {
+            builder.proxy(ProxySelector.of(new InetSocketAddress(settings.getProxyHost(), settings.getProxyPort())));
+        }
+        if (settings.isTrustAllCertificates()) {
+            builder.sslContext(trustAllContext());
+        }
+        ExecutorService executor = null;
+        if (settings.getExecutorThreads() > 0) {
+            String name = environment != null ? environment.getName() : DEFAULT_KEY;
+            AtomicInteger counter = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(settings.getExecutorThreads(), r -> {
+                Thread thread = new Thread(r, "http-" + name + "-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            builder.executor(executor);
+        }
+        logger.info("创建HTTP客户端: 环境={}, 版本={}, 在途上限={}, 专用线程={}",
+            environment != null ? environment.getName() : DEFAULT_KEY, settings.getHttpVersion(),
+            settings.getMaxConnections(), settings.getExecutorThreads());
+        return new EnvironmentHttpClient(builder.build(), settings, source, executor);
+    }
+
+    /**
+     * 信任所有证书的SSL上下文，仅用于自签名证书的测试环境；主机名校验由JVM参数
+     * jdk.internal.httpclient.disableHostnameVerification控制，无法按环境关闭
+     */
+    private static SSLContext trustAllContext() {
+        TrustManager trustAll = new X509TrustManager() {
+            @Override
+            public void checkClientTrusted(X509Certificate[] chain, String authType) {
+            }
+
+            @Override
+            public void checkServerTrusted(X509Certificate[] chain, String authType) {
+            }
+
+            @Override
+            public X509Certificate[] getAcceptedIssuers() {
+                return new X509Certificate[0];
+            }
+        };
+        try {
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(null, new TrustManager[]{trustAll}, new SecureRandom());
+            return context;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("创建SSL上下文失败", e);
+        }
+    }
+}
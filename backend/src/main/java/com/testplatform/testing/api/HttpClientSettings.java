@@ -0,0 +1,96 @@
+package com.testplatform.testing.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.net.http.HttpClient;
+
+/**
+ * 环境的HTTP客户端配置（test_environments.http_config）
+ * 例: {"httpVersion":"HTTP_2","connectTimeoutMs":5000,"maxConnections":50,"executorThreads":4,
+ *      "proxy":"proxy.local:8080","trustAllCertificates":false,"followRedirects":false}
+ */
+class HttpClientSettings {
+    private HttpClient.Version httpVersion = HttpClient.Version.HTTP_2;
+    private long connectTimeoutMs = 30000;
+    private long requestTimeoutMs = 30000;
+    private int maxConnections;
+    private int executorThreads;
+    private String proxy;
+    private boolean trustAllCertificates;
+    private boolean followRedirects;
+
+    /**
+     * 解析配置，未配置的字段使用默认值
+     * @param defaultMaxConnections 环境未配置maxConnections时的在途请求数上限，0表示不限制
+     * @throws IllegalArgumentException 字段取值非法
+     */
+    static HttpClientSettings parse(JsonNode config, int defaultMaxConnections) {
+        HttpClientSettings settings = new HttpClientSettings();
+        settings.maxConnections = defaultMaxConnections;
+        if (config == null || !config.isObject()) {
+            return settings;
+        }
+        if (config.hasNonNull("httpVersion")) {
+            String version = config.get("httpVersion").asText().trim().toUpperCase().replace('.', '_');
+            if ("HTTP_2".equals(version) || "2".equals(version)) {
+                settings.httpVersion = HttpClient.Version.HTTP_2;
+            } else if ("HTTP_1_1".equals(version) || "1_1".equals(version)) {
+                settings.httpVersion = HttpClient.Version.HTTP_1_1;
+            } else {
+                throw new IllegalArgumentException("不支持的HTTP版本: " + config.get("httpVersion").asText());
+            }
+        }
+        if (config.hasNonNull("connectTimeoutMs")) {
+            settings.connectTimeoutMs = positive(config, "connectTimeoutMs");
+        }
+        if (config.hasNonNull("requestTimeoutMs")) {
+            settings.requestTimeoutMs = positive(config, "requestTimeoutMs");
+        }
+        if (config.hasNonNull("maxConnections")) {
+            settings.maxConnections = Math.max(0, config.get("maxConnections").asInt());
+        }
+        if (config.hasNonNull("executorThreads")) {
+            settings.executorThreads = Math.max(0, config.get("executorThreads").asInt());
+        }
+        if (config.hasNonNull("proxy") && !config.get("proxy").asText().trim().isEmpty()) {
+            settings.proxy = config.get("proxy").asText().trim();
+            int colon = settings.proxy.lastIndexOf(':');
+            if (colon <= 0 || colon == settings.proxy.length() - 1) {
+                throw new IllegalArgumentException("代理地址格式应为 host:port: " + settings.proxy);
+            }
+            settings.getProxyPort();
+        }
+        settings.trustAllCertificates = config.path("trustAllCertificates").asBoolean(false);
+        settings.followRedirects = config.path("followRedirects").asBoolean(false);
+        return settings;
+    }
+
+    private static long positive(JsonNode config, String field) {
+        long value = config.get(field).asLong();
+        if (value <= 0) {
+            throw new IllegalArgumentException(field + " 必须大于0: " + config.get(field).asText());
+        }
+        return value;
+    }
+
+    HttpClient.Version getHttpVersion() { return httpVersion; }
+    long getConnectTimeoutMs() { return connectTimeoutMs; }
+    long getRequestTimeoutMs() { return requestTimeoutMs; }
+    int getMaxConnections() { return maxConnections; }
+    int getExecutorThreads() { return executorThreads; }
+    String getProxy() { return proxy; }
+    boolean isTrustAllCertificates() { return trustAllCertificates; }
+    boolean isFollowRedirects() { return followRedirects; }
+
+    String getProxyHost() {
+        return proxy.substring(0, proxy.lastIndexOf(':'));
+    }
+
+    int getProxyPort() {
+        try {
+            return Integer.parseInt(proxy.substring(proxy.lastIndexOf(':') + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("代理端口非法: " + proxy);
+        }
+    }
+}
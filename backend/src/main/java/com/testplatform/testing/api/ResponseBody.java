@@ -0,0 +1,121 @@
+package com.testplatform.testing.api;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 接收完成的响应体
+ * 按原始（未解压）字节保存，小响应在内存中，超过内存上限的写入临时文件；
+ * 读取时按Content-Encoding解压，变量提取直接流式解析，只有需要完整文本时才调用 {@link #asString()}。
+ * 使用完后需要关闭以删除临时文件
+ */
+public class ResponseBody implements AutoCloseable {
+
+    private final byte[] memory;
+    private final int memoryLength;
+    private final Path file;
+    private final long size;
+    private final String contentEncoding;
+    private final Charset charset;
+    private final long maxDecodedBytes;
+
+    ResponseBody(byte[] memory, int memoryLength, Path file, long size, String contentEncoding,
+                 Charset charset, long maxDecodedBytes) {
+        this.memory = memory;
+        this.memoryLength = memoryLength;
+        this.file = file;
+        this.size = size;
+        this.contentEncoding = contentEncoding;
+        this.charset = charset != null ? charset : StandardCharsets.UTF_8;
+        this.maxDecodedBytes = maxDecodedBytes;
+    }
+
+    /**
+     * 接收到的字节数（压缩响应为压缩后的大小）
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * 响应体是否超过内存上限写入了临时文件
+     */
+    public boolean isSpilled() {
+        return file != null;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * 打开解压后的响应体流，可多次打开
+     */
+    public InputStream openStream() throws IOException {
+        InputStream raw = file != null
+            ? new BufferedInputStream(Files.newInputStream(file))
+            : new ByteArrayInputStream(memory, 0, memoryLength);
+        if (contentEncoding == null) {
+            return raw;
+        }
+        switch (contentEncoding) {
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(raw);
+            case "deflate":
+                return inflate(raw);
+            default:
+                return raw;
+        }
+    }
+
+    /**
+     * deflate按规范应带zlib头，部分服务端发送不带头的原始deflate数据，按前两个字节判断
+     */
+    private static InputStream inflate(InputStream raw) throws IOException {
+        InputStream in = raw.markSupported() ? raw : new BufferedInputStream(raw);
+        in.mark(2);
+        int first = in.read();
+        int second = in.read();
+        in.reset();
+        boolean zlib = first >= 0 && second >= 0 && (first & 0x0F) == 8 && ((first << 8) | second) % 31 == 0;
+        return new InflaterInputStream(in, new Inflater(!zlib));
+    }
+
+    /**
+     * 读取完整的响应文本
+     * @throws UncheckedIOException 读取失败或解压后超过响应体大小上限
+     */
+    public String asString() {
+        try (InputStream in = openStream()) {
+            byte[] bytes = in.readNBytes((int) Math.min(Integer.MAX_VALUE - 8, maxDecodedBytes + 1));
+            if (bytes.length > maxDecodedBytes) {
+                throw new IOException("解压后的响应体超过上限 " + maxDecodedBytes + " 字节");
+            }
+            return new String(bytes, charset);
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取响应体失败: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                file.toFile().deleteOnExit();
+            }
+        }
+    }
+}
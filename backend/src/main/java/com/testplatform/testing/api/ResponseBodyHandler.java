@@ -0,0 +1,200 @@
+package com.testplatform.testing.api;
+
+import java.io.IOException;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * 接收响应体为 {@link ResponseBody}
+ * 不转换为字符串，内存中最多保留inMemoryBytes字节，超出部分写入临时文件；
+ * 超过maxBytes时取消接收并以IOException失败，避免导出类接口的大响应占满堆内存
+ */
+public class ResponseBodyHandler implements HttpResponse.BodyHandler<ResponseBody> {
+
+    public static final int DEFAULT_IN_MEMORY_BYTES = 1024 * 1024;
+    public static final long DEFAULT_MAX_BYTES = 100L * 1024 * 1024;
+
+    private final int inMemoryBytes;
+    private final long maxBytes;
+    private final Path spillDirectory;
+
+    public ResponseBodyHandler() {
+        this(DEFAULT_IN_MEMORY_BYTES, DEFAULT_MAX_BYTES, null);
+    }
+
+    /**
+     * @param inMemoryBytes 内存中保留的字节数上限，超出后写入临时文件
+     * @param maxBytes 响应体（及解压后文本）的大小上限
+     * @param spillDirectory 临时文件目录，为null时使用系统临时目录
+     */
+    public ResponseBodyHandler(int inMemoryBytes, long maxBytes, Path spillDirectory) {
+        if (inMemoryBytes < 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("响应体大小上限必须大于0");
+        }
+        this.inMemoryBytes = inMemoryBytes;
+        this.maxBytes = maxBytes;
+        this.spillDirectory = spillDirectory;
+    }
+
+    @Override
+    public HttpResponse.BodySubscriber<ResponseBody> apply(HttpResponse.ResponseInfo responseInfo) {
+        return new SpillingSubscriber(responseInfo.headers());
+    }
+
+    private class SpillingSubscriber implements HttpResponse.BodySubscriber<ResponseBody> {
+        private final CompletableFuture<ResponseBody> result = new CompletableFuture<>();
+        private final HttpHeaders headers;
+        private Flow.Subscription subscription;
+        private byte[] buffer;
+        private int buffered;
+        private Path file;
+        private FileChannel channel;
+        private long size;
+
+        SpillingSubscriber(HttpHeaders headers) {
+            this.headers = headers;
+        }
+
+        @Override
+        public CompletionStage<ResponseBody> getBody() {
+            return result;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            OptionalLong contentLength = headers.firstValueAsLong("Content-Length");
+            if (contentLength.isPresent() && contentLength.getAsLong() > maxBytes) {
+                subscription.cancel();
+                result.completeExceptionally(tooLarge());
+                return;
+            }
+            int initial = contentLength.isPresent()
+                ? (int) Math.min(contentLength.getAsLong(), inMemoryBytes) : Math.min(8192, inMemoryBytes);
+            buffer = new byte[Math.max(initial, 16)];
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                for (ByteBuffer item : items) {
+                    size += item.remaining();
+                    if (size > maxBytes) {
+                        throw tooLarge();
+                    }
+                    write(item);
+                }
+            } catch (IOException e) {
+                subscription.cancel();
+                fail(e);
+            }
+        }
+
+        private void write(ByteBuffer item) throws IOException {
+            if (channel == null && size <= inMemoryBytes) {
+                int length = item.remaining();
+                if (buffered + length > buffer.length) {
+                    buffer = Arrays.copyOf(buffer, (int) Math.min(inMemoryBytes, Math.max(buffer.length * 2L, buffered + length)));
+                }
+                item.get(buffer, buffered, length);
+                buffered += length;
+                return;
+            }
+            if (channel == null) {
+                // 超出内存上限，已缓冲的部分和后续数据写入临时文件
+                file = spillDirectory != null
+                    ? Files.createTempFile(spillDirectory, "response-", ".body")
+                    : Files.createTempFile("response-", ".body");
+                channel = FileChannel.open(file, StandardOpenOption.WRITE);
+                ByteBuffer head = ByteBuffer.wrap(buffer, 0, buffered);
+                while (head.hasRemaining()) {
+                    channel.write(head);
+                }
+                buffer = null;
+                buffered = 0;
+            }
+            while (item.hasRemaining()) {
+                channel.write(item);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            fail(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                if (channel != null) {
+                    channel.close();
+                }
+            } catch (IOException e) {
+                fail(e);
+                return;
+            }
+            result.complete(new ResponseBody(buffer, buffered, file, size, contentEncoding(), charset(), maxBytes));
+        }
+
+        private void fail(Throwable error) {
+            try {
+                if (channel != null) {
+                    channel.close();
+                }
+                if (file != null) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (IOException ignored) {
+                // 临时文件由系统临时目录清理
+            }
+            buffer = null;
+            result.completeExceptionally(error);
+        }
+
+        private IOException tooLarge() {
+            return new IOException("响应体超过上限 " + maxBytes + " 字节");
+        }
+
+        private String contentEncoding() {
+            return headers.firstValue("Content-Encoding")
+                .map(value -> value.trim().toLowerCase(Locale.ROOT))
+                .filter(value -> !value.isEmpty() && !"identity".equals(value))
+                .orElse(null);
+        }
+
+        private Charset charset() {
+            String contentType = headers.firstValue("Content-Type").orElse("");
+            for (String part : contentType.split(";")) {
+                String parameter = part.trim();
+                if (parameter.toLowerCase(Locale.ROOT).startsWith("charset=")) {
+                    try {
+                        return Charset.forName(parameter.substring(8).replace("\"", "").trim());
+                    } catch (RuntimeException e) {
+                        return null;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+}
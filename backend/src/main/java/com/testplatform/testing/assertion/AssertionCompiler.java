@@ -0,0 +1,15 @@
+package com.testplatform.testing.assertion;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * 把一条断言配置编译为 {@link ResponseAssertion}，通过 {@link AssertionPlan#register} 注册新的断言类型
+ */
+@FunctionalInterface
+public interface AssertionCompiler {
+
+    /**
+     * @throws IllegalArgumentException 断言配置错误
+     */
+    ResponseAssertion compile(JsonNode config);
+}
@@ -0,0 +1,103 @@
+package com.testplatform.testing.assertion;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.testplatform.testing.JsonPath;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 用例的断言计划：断言配置编译一次（解析期望值、预编译正则和schema），每次响应只求值
+ * 求值时执行全部断言并报告所有失败，而不是在第一个失败处停止
+ */
+public final class AssertionPlan {
+
+    private static final Map<String, AssertionCompiler> COMPILERS = new ConcurrentHashMap<>();
+
+    static {
+        BuiltinAssertions.registerAll();
+    }
+
+    public static final AssertionPlan EMPTY = new AssertionPlan(Collections.emptyList(), Collections.emptyList());
+
+    private final List<ResponseAssertion> assertions;
+    private final List<JsonPath> jsonPaths;
+
+    private AssertionPlan(List<ResponseAssertion> assertions, List<JsonPath> jsonPaths) {
+        this.assertions = assertions;
+        this.jsonPaths = jsonPaths;
+    }
+
+    /**
+     * 注册断言类型，同名类型覆盖已有的实现
+     */
+    public static void register(String type, AssertionCompiler compiler) {
+        COMPILERS.put(type, compiler);
+    }
+
+    /**
+     * 编译断言配置（数组，每项的type为断言类型）
+     * @throws IllegalArgumentException 断言类型未知或配置错误
+     */
+    public static AssertionPlan compile(JsonNode assertions) {
+        if (assertions == null || assertions.isNull() || assertions.isMissingNode() || assertions.isEmpty()) {
+            return EMPTY;
+        }
+        if (!assertions.isArray()) {
+            throw new IllegalArgumentException("断言配置必须是数组");
+        }
+        List<ResponseAssertion> compiled = new ArrayList<>();
+        Set<JsonPath> paths = new LinkedHashSet<>();
+        for (int i = 0; i < assertions.size(); i++) {
+            JsonNode config = assertions.get(i);
+            String type = config.path("type").asText();
+            AssertionCompiler compiler = COMPILERS.get(type);
+            try {
+                if (compiler == null) {
+                    throw new IllegalArgumentException("未知的断言类型: " + (type.isEmpty() ? "(空)" : type));
+                }
+                ResponseAssertion assertion = compiler.compile(config);
+                compiled.add(assertion);
+                paths.addAll(assertion.getJsonPaths());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("第" + (i + 1) + "个断言: " + e.getMessage(), e);
+            }
+        }
+        return new AssertionPlan(Collections.unmodifiableList(compiled), Collections.unmodifiableList(new ArrayList<>(paths)));
+    }
+
+    /**
+     * 断言需要从响应体中求值的JSONPath
+     */
+    public List<JsonPath> getJsonPaths() {
+        return jsonPaths;
+    }
+
+    public boolean isEmpty() {
+        return assertions.isEmpty();
+    }
+
+    /**
+     * 执行全部断言
+     */
+    public AssertionResult evaluate(ResponseSnapshot response) {
+        List<String> failures = new ArrayList<>();
+        for (ResponseAssertion assertion : assertions) {
+            String failure;
+            try {
+                failure = assertion.check(response);
+            } catch (RuntimeException e) {
+                failure = "断言执行异常: " + e.getMessage();
+            }
+            if (failure != null) {
+                failures.add(failure);
+            }
+        }
+        return new AssertionResult(failures);
+    }
+}
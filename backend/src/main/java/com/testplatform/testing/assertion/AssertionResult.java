@@ -0,0 +1,30 @@
+package com.testplatform.testing.assertion;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 断言计划的求值结果，包含所有失败的断言
+ */
+public class AssertionResult {
+    private final List<String> failures;
+
+    AssertionResult(List<String> failures) {
+        this.failures = Collections.unmodifiableList(failures);
+    }
+
+    public boolean isPassed() {
+        return failures.isEmpty();
+    }
+
+    public List<String> getFailures() {
+        return failures;
+    }
+
+    /**
+     * 失败描述，多个失败以分号分隔
+     */
+    public String getMessage() {
+        return String.join("; ", failures);
+    }
+}
@@ -0,0 +1,201 @@
+package com.testplatform.testing.assertion;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.testplatform.testing.JsonPath;
+import com.testplatform.testing.schema.CompiledSchemaCache;
+import com.testplatform.testing.schema.JsonSchema;
+import com.testplatform.testing.schema.SchemaSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 内置断言类型
+ * <ul>
+ *   <li>statusCode：expected为状态码、状态码数组或"2xx"形式的范围，也可指定operator</li>
+ *   <li>header：name响应头，operator/expected比较第一个值，未指定expected时判断是否存在</li>
+ *   <li>jsonPath：expression（或path）为JSONPath，operator/expected比较求值结果，未指定expected时判断是否存在</li>
+ *   <li>contains / equals：响应文本包含/等于expected，可用operator改为其他比较</li>
+ *   <li>bodySize：响应体字节数在min和max之间</li>
+ *   <li>responseTime：响应耗时不超过max（兼容expected）毫秒</li>
+ *   <li>jsonSchema：响应体满足schema（内联的schema，或schemaRef引用环境/套件中存储的schema），边解析边校验</li>
+ * </ul>
+ */
+final class BuiltinAssertions {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private BuiltinAssertions() {
+    }
+
+    static void registerAll() {
+        AssertionPlan.register("statusCode", BuiltinAssertions::statusCode);
+        AssertionPlan.register("header", BuiltinAssertions::header);
+        AssertionPlan.register("jsonPath", BuiltinAssertions::jsonPath);
+        AssertionPlan.register("contains", config -> bodyText(config, "contains"));
+        AssertionPlan.register("equals", config -> bodyText(config, "equals"));
+        AssertionPlan.register("bodySize", BuiltinAssertions::bodySize);
+        AssertionPlan.register("responseTime", BuiltinAssertions::responseTime);
+        AssertionPlan.register("jsonSchema", BuiltinAssertions::jsonSchema);
+    }
+
+    private static ResponseAssertion statusCode(JsonNode config) {
+        JsonNode expected = config.get("expected");
+        String operator = config.path("operator").asText(null);
+        if (operator != null && !operator.trim().isEmpty()
+            && ValueMatcher.Operator.parse(operator.trim()) != ValueMatcher.Operator.EQUALS) {
+            ValueMatcher matcher = ValueMatcher.compile(operator, expected);
+            return response -> {
+                String mismatch = matcher.mismatch(IntNode.valueOf(response.getStatusCode()), response::resolveVariables);
+                return mismatch == null ? null : "状态码断言失败: " + mismatch;
+            };
+        }
+        if (expected == null || expected.isNull()) {
+            throw new IllegalArgumentException("状态码断言缺少expected");
+        }
+        // 每项为[最小值, 最大值]
+        List<int[]> ranges = new ArrayList<>();
+        for (JsonNode each : expected.isArray() ? expected : Collections.singletonList(expected)) {
+            ranges.add(statusRange(each));
+        }
+        String description = expected.isArray() ? expected.toString() : expected.asText();
+        return response -> {
+            int actual = response.getStatusCode();
+            for (int[] range : ranges) {
+                if (actual >= range[0] && actual <= range[1]) {
+                    return null;
+                }
+            }
+            return "状态码断言失败: 期望=" + description + ", 实际=" + actual;
+        };
+    }
+
+    private static int[] statusRange(JsonNode node) {
+        String text = node.asText().trim();
+        if (text.length() == 3 && text.substring(1).equalsIgnoreCase("xx") && Character.isDigit(text.charAt(0))) {
+            int base = (text.charAt(0) - '0') * 100;
+            return new int[]{base, base + 99};
+        }
+        try {
+            int code = node.isNumber() ? node.intValue() : Integer.parseInt(text);
+            return new int[]{code, code};
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("状态码格式错误: " + node);
+        }
+    }
+
+    private static ResponseAssertion header(JsonNode config) {
+        String name = config.path("name").asText();
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("响应头断言缺少name");
+        }
+        ValueMatcher matcher = ValueMatcher.compile(config.path("operator").asText(null), config.get("expected"));
+        return response -> {
+            Optional<String> value = response.getHeaders().firstValue(name);
+            String mismatch = matcher.mismatch(value.map(TextNode::valueOf).orElse(null), response::resolveVariables);
+            return mismatch == null ? null : "响应头断言失败: " + name + " " + mismatch;
+        };
+    }
+
+    private static ResponseAssertion jsonPath(JsonNode config) {
+        String expression = config.has("expression") ? config.get("expression").asText() : config.path("path").asText();
+        if (expression.isEmpty()) {
+            throw new IllegalArgumentException("JSONPath断言缺少expression");
+        }
+        JsonPath path = JsonPath.of(expression);
+        ValueMatcher matcher = ValueMatcher.compile(config.path("operator").asText(null), config.get("expected"));
+        List<JsonPath> paths = Collections.singletonList(path);
+        return new ResponseAssertion() {
+            @Override
+            public String check(ResponseSnapshot response) {
+                String mismatch = matcher.mismatch(response.json(path), response::resolveVariables);
+                return mismatch == null ? null : "JSONPath断言失败: " + expression + " " + mismatch;
+            }
+
+            @Override
+            public List<JsonPath> getJsonPaths() {
+                return paths;
+            }
+        };
+    }
+
+    private static ResponseAssertion bodyText(JsonNode config, String defaultOperator) {
+        String operator = config.path("operator").asText(defaultOperator);
+        ValueMatcher matcher = ValueMatcher.compile(operator, config.get("expected"));
+        return response -> {
+            String mismatch = matcher.mismatch(TextNode.valueOf(response.getBodyText()), response::resolveVariables);
+            return mismatch == null ? null : "响应内容断言失败: " + abbreviate(mismatch);
+        };
+    }
+
+    private static ResponseAssertion bodySize(JsonNode config) {
+        long min = config.path("min").asLong(0);
+        long max = config.has("max") ? config.get("max").asLong() : Long.MAX_VALUE;
+        if (!config.has("min") && !config.has("max")) {
+            throw new IllegalArgumentException("响应体大小断言缺少min或max");
+        }
+        if (min < 0 || max < min) {
+            throw new IllegalArgumentException("响应体大小范围错误: min=" + min + ", max=" + max);
+        }
+        return response -> {
+            long size = response.getBodySize();
+            return size >= min && size <= max ? null
+                : "响应体大小断言失败: 期望" + min + "~" + (max == Long.MAX_VALUE ? "" : max) + "字节, 实际=" + size;
+        };
+    }
+
+    private static ResponseAssertion responseTime(JsonNode config) {
+        JsonNode limit = config.has("max") ? config.get("max") : config.get("expected");
+        if (limit == null || !(limit.isNumber() || limit.asText().trim().matches("\\d+"))) {
+            throw new IllegalArgumentException("响应时间断言的max必须是毫秒数");
+        }
+        long max = limit.isNumber() ? limit.asLong() : Long.parseLong(limit.asText().trim());
+        return response -> {
+            long elapsed = response.getElapsedMs();
+            // 耗时未知（如压测中单独统计响应时间）时不校验
+            return elapsed < 0 || elapsed <= max ? null : "响应时间断言失败: 期望不超过" + max + "ms, 实际=" + elapsed + "ms";
+        };
+    }
+
+    private static ResponseAssertion jsonSchema(JsonNode config) {
+        JsonNode schema = config.get("schema");
+        if (config.hasNonNull("schemaRef")) {
+            schema = JsonNodeFactory.instance.objectNode().put("$ref", config.get("schemaRef").asText());
+        }
+        if (schema == null || schema.isNull()) {
+            throw new IllegalArgumentException("JSON Schema断言缺少schema或schemaRef");
+        }
+        JsonNode definition = schema;
+        String hash = CompiledSchemaCache.hash(definition);
+        // 不引用存储schema的在编译断言时编译（同时检查schema），否则在执行时按环境和套件的存储schema编译
+        boolean external = JsonSchema.hasExternalReferences(definition);
+        JsonSchema compiled = external ? null : CompiledSchemaCache.get(hash, definition, SchemaSource.EMPTY);
+        return response -> {
+            JsonSchema validator = compiled != null ? compiled
+                : CompiledSchemaCache.get(hash, definition, response.getSchemaSource());
+            List<String> errors;
+            try (InputStream in = response.openBody(); JsonParser parser = objectMapper.getFactory().createParser(in)) {
+                errors = validator.validate(parser);
+            } catch (IOException e) {
+                return "JSON Schema断言失败: 响应体不是合法的JSON: " + e.getMessage();
+            }
+            return errors.isEmpty() ? null : "JSON Schema断言失败: " + String.join(", ", errors);
+        };
+    }
+
+    /**
+     * 响应文本可能很长，失败描述只保留开头部分
+     */
+    private static String abbreviate(String text) {
+        return text.length() <= 500 ? text : text.substring(0, 500) + "...";
+    }
+}
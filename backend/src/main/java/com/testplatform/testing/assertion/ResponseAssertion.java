@@ -0,0 +1,24 @@
+package com.testplatform.testing.assertion;
+
+import com.testplatform.testing.JsonPath;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 编译后的单个响应断言，不可变，可被多个线程同时求值
+ */
+public interface ResponseAssertion {
+
+    /**
+     * @return 失败描述，通过时返回null
+     */
+    String check(ResponseSnapshot response);
+
+    /**
+     * 断言需要从响应体中求值的JSONPath，由调用方在一次流式解析中统一求值
+     */
+    default List<JsonPath> getJsonPaths() {
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,114 @@
+package com.testplatform.testing.assertion;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.testplatform.testing.JsonPath;
+import com.testplatform.testing.schema.SchemaSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * 断言求值所需的响应信息
+ */
+public class ResponseSnapshot {
+    private final int statusCode;
+    private final HttpHeaders headers;
+    private final long elapsedMs;
+    private final long bodySize;
+    private final Map<String, JsonNode> json;
+    private Supplier<String> bodyText = () -> "";
+    private String bodyTextValue;
+    private Callable<InputStream> bodyStream;
+    private UnaryOperator<String> variableResolver = UnaryOperator.identity();
+    private Supplier<SchemaSource> schemaSource = () -> SchemaSource.EMPTY;
+
+    /**
+     * @param elapsedMs 响应耗时，未知时为-1（不校验响应时间断言）
+     * @param bodySize 接收到的响应体字节数
+     * @param json 断言所需JSONPath的求值结果，见 {@link com.testplatform.testing.JsonPathSelector}
+     */
+    public ResponseSnapshot(int statusCode, HttpHeaders headers, long elapsedMs, long bodySize, Map<String, JsonNode> json) {
+        this.statusCode = statusCode;
+        this.headers = headers;
+        this.elapsedMs = elapsedMs;
+        this.bodySize = bodySize;
+        this.json = json != null ? json : Collections.emptyMap();
+    }
+
+    public int getStatusCode() { return statusCode; }
+    public HttpHeaders getHeaders() { return headers; }
+    public long getElapsedMs() { return elapsedMs; }
+    public long getBodySize() { return bodySize; }
+
+    /**
+     * JSONPath的值，路径不存在或响应体不是JSON时返回null
+     */
+    public JsonNode json(JsonPath path) {
+        return json.get(path.getExpression());
+    }
+
+    /**
+     * 响应文本，只在有文本断言时读取一次
+     */
+    public String getBodyText() {
+        if (bodyTextValue == null) {
+            bodyTextValue = bodyText.get();
+        }
+        return bodyTextValue;
+    }
+
+    public void setBodyText(Supplier<String> bodyText) {
+        this.bodyText = bodyText;
+        this.bodyTextValue = null;
+    }
+
+    /**
+     * 打开响应体（已解压），用于不构建完整文档树的流式校验；未设置时读取响应文本
+     */
+    public InputStream openBody() throws IOException {
+        if (bodyStream == null) {
+            return new ByteArrayInputStream(getBodyText().getBytes(StandardCharsets.UTF_8));
+        }
+        try {
+            return bodyStream.call();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    public void setBodyStream(Callable<InputStream> bodyStream) {
+        this.bodyStream = bodyStream;
+    }
+
+    /**
+     * jsonSchema断言可按名称引用的存储schema，只在有引用时读取
+     */
+    public SchemaSource getSchemaSource() {
+        return schemaSource.get();
+    }
+
+    public void setSchemaSource(Supplier<SchemaSource> schemaSource) {
+        this.schemaSource = schemaSource;
+    }
+
+    /**
+     * 替换期望值中的变量
+     */
+    public String resolveVariables(String text) {
+        return variableResolver.apply(text);
+    }
+
+    public void setVariableResolver(UnaryOperator<String> variableResolver) {
+        this.variableResolver = variableResolver;
+    }
+}
@@ -0,0 +1,231 @@
+package com.testplatform.testing.assertion;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 编译后的比较条件：运算符和期望值在编译时解析，正则表达式预先编译
+ * 期望值中含有变量（${name}）时在求值时替换变量后再比较
+ */
+final class ValueMatcher {
+
+    enum Operator {
+        EQUALS("等于"), NOT_EQUALS("不等于"), CONTAINS("包含"), NOT_CONTAINS("不包含"), REGEX("匹配"),
+        GREATER_THAN("大于"), GREATER_THAN_OR_EQUAL("大于等于"), LESS_THAN("小于"), LESS_THAN_OR_EQUAL("小于等于"),
+        EXISTS("存在"), NOT_EXISTS("不存在");
+
+        private final String label;
+
+        Operator(String label) {
+            this.label = label;
+        }
+
+        /**
+         * 运算符不区分大小写，下划线和连字符可省略（EQUALS、equals、notEquals、NOT_EQUALS）
+         */
+        static Operator parse(String name) {
+            switch (name.replace("_", "").replace("-", "").toLowerCase(Locale.ROOT)) {
+                case "equals": case "eq": case "==":
+                    return EQUALS;
+                case "notequals": case "ne": case "!=":
+                    return NOT_EQUALS;
+                case "contains":
+                    return CONTAINS;
+                case "notcontains":
+                    return NOT_CONTAINS;
+                case "regex": case "matches":
+                    return REGEX;
+                case "greaterthan": case "gt": case ">":
+                    return GREATER_THAN;
+                case "greaterthanorequal": case "gte": case "ge": case ">=":
+                    return GREATER_THAN_OR_EQUAL;
+                case "lessthan": case "lt": case "<":
+                    return LESS_THAN;
+                case "lessthanorequal": case "lte": case "le": case "<=":
+                    return LESS_THAN_OR_EQUAL;
+                case "exists":
+                    return EXISTS;
+                case "notexists":
+                    return NOT_EXISTS;
+                default:
+                    throw new IllegalArgumentException("不支持的运算符: " + name);
+            }
+        }
+    }
+
+    private final Operator operator;
+    private final JsonNode expected;
+    private final BigDecimal expectedNumber;
+    private final Pattern pattern;
+    private final boolean dynamic;
+
+    private ValueMatcher(Operator operator, JsonNode expected, boolean dynamic) {
+        this.operator = operator;
+        this.expected = expected;
+        this.dynamic = dynamic;
+        this.expectedNumber = dynamic ? null : toNumber(expected);
+        if (operator == Operator.REGEX && !dynamic) {
+            try {
+                this.pattern = Pattern.compile(expected.asText());
+            } catch (PatternSyntaxException e) {
+                throw new IllegalArgumentException("正则表达式错误: " + e.getDescription());
+            }
+        } else {
+            this.pattern = null;
+        }
+        if (!dynamic && expectedNumber == null && isOrdering(operator)) {
+            throw new IllegalArgumentException(operator.label + "比较的期望值必须是数字: " + expected);
+        }
+    }
+
+    /**
+     * @param operator 运算符，为空时有期望值则为等于，否则为存在
+     * @param expected 期望值，存在/不存在判断时忽略
+     * @throws IllegalArgumentException 运算符不支持、缺少期望值或正则表达式错误
+     */
+    static ValueMatcher compile(String operator, JsonNode expected) {
+        boolean hasExpected = expected != null && !expected.isMissingNode() && !expected.isNull();
+        Operator op = operator == null || operator.trim().isEmpty()
+            ? (hasExpected ? Operator.EQUALS : Operator.EXISTS) : Operator.parse(operator.trim());
+        if (op == Operator.EXISTS || op == Operator.NOT_EXISTS) {
+            return new ValueMatcher(op, null, false);
+        }
+        if (!hasExpected) {
+            throw new IllegalArgumentException("运算符 " + op.label + " 缺少期望值");
+        }
+        boolean dynamic = expected.isTextual() && expected.asText().contains("${");
+        return new ValueMatcher(op, expected, dynamic);
+    }
+
+    Operator getOperator() {
+        return operator;
+    }
+
+    /**
+     * @param actual 实际值，不存在时为null
+     * @param variables 期望值中的变量替换
+     * @return 不匹配的原因，匹配时返回null
+     */
+    String mismatch(JsonNode actual, UnaryOperator<String> variables) {
+        if (dynamic) {
+            // 期望值依赖执行时的变量，替换后按静态期望值比较
+            return new ValueMatcher(operator, TextNode.valueOf(variables.apply(expected.asText())), false)
+                .mismatch(actual, variables);
+        }
+        boolean present = actual != null && !actual.isMissingNode();
+        switch (operator) {
+            case EXISTS:
+                return present ? null : "不存在";
+            case NOT_EXISTS:
+                return present ? "期望不存在, 实际=" + actual : null;
+            default:
+                break;
+        }
+        if (!present) {
+            return "不存在";
+        }
+        boolean matched;
+        switch (operator) {
+            case EQUALS:
+                matched = valueEquals(actual);
+                break;
+            case NOT_EQUALS:
+                matched = !valueEquals(actual);
+                break;
+            case CONTAINS:
+                matched = contains(actual);
+                break;
+            case NOT_CONTAINS:
+                matched = !contains(actual);
+                break;
+            case REGEX:
+                matched = pattern.matcher(text(actual)).find();
+                break;
+            default:
+                BigDecimal number = toNumber(actual);
+                if (number == null) {
+                    return "实际值不是数字: " + actual;
+                }
+                int compared = number.compareTo(expectedNumber);
+                matched = operator == Operator.GREATER_THAN ? compared > 0
+                    : operator == Operator.GREATER_THAN_OR_EQUAL ? compared >= 0
+                    : operator == Operator.LESS_THAN ? compared < 0
+                    : compared <= 0;
+        }
+        return matched ? null : "期望" + operator.label + " " + expected + ", 实际=" + actual;
+    }
+
+    /**
+     * 数字按数值比较，期望值为字符串时与实际值的文本比较
+     */
+    private boolean valueEquals(JsonNode actual) {
+        return equalsValue(actual, expected, expectedNumber);
+    }
+
+    private static boolean equalsValue(JsonNode actual, JsonNode expected, BigDecimal expectedNumber) {
+        if (actual.isNumber() && expectedNumber != null) {
+            return actual.decimalValue().compareTo(expectedNumber) == 0;
+        }
+        if (expected.isTextual() && actual.isValueNode()) {
+            return expected.asText().equals(actual.asText());
+        }
+        return actual.equals(expected);
+    }
+
+    /**
+     * 数组包含等于期望值的元素，对象包含期望值命名的字段，其余按文本包含判断
+     */
+    private boolean contains(JsonNode actual) {
+        if (actual.isArray()) {
+            for (Iterator<JsonNode> it = actual.elements(); it.hasNext(); ) {
+                if (equalsValue(it.next(), expected, expectedNumber)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (actual.isObject()) {
+            return actual.has(expected.asText());
+        }
+        return text(actual).contains(expected.asText());
+    }
+
+    private static String text(JsonNode node) {
+        return node.isValueNode() ? node.asText() : node.toString();
+    }
+
+    private static boolean isOrdering(Operator operator) {
+        return operator == Operator.GREATER_THAN || operator == Operator.GREATER_THAN_OR_EQUAL
+            || operator == Operator.LESS_THAN || operator == Operator.LESS_THAN_OR_EQUAL;
+    }
+
+    /**
+     * 数字或数字文本的数值，其余返回null
+     */
+    private static BigDecimal toNumber(JsonNode node) {
+        if (node == null) {
+            return null;
+        }
+        if (node.isNumber()) {
+            return node.decimalValue();
+        }
+        if (node.isTextual()) {
+            String text = node.asText().trim();
+            if (!text.isEmpty() && (Character.isDigit(text.charAt(text.length() - 1)))) {
+                try {
+                    return new BigDecimal(text);
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+}
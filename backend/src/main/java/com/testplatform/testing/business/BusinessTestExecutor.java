@@ -7,6 +7,12 @@ import com.testplatform.model.TestEnvironment;
 import com.testplatform.testing.TestExecutionResult;
 import com.testplatform.testing.TestExecutor;
 import com.testplatform.testing.VariableManager;
+import com.testplatform.testing.VariableScope;
+import com.testplatform.testing.engine.CancellationToken;
+import com.testplatform.testing.engine.ExecutionContext;
+import com.testplatform.testing.engine.ExecutionThreads;
+import com.testplatform.testing.retry.RetryPolicy;
+import com.testplatform.testing.retry.RetryRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,20 +23,32 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 @Component
 public class BusinessTestExecutor implements TestExecutor {
     private static final Logger logger = LoggerFactory.getLogger(BusinessTestExecutor.class);
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private final ExecutorService executorService = Executors.newFixedThreadPool(10);
+    
+    /**
+     * 默认重试策略：连接失败、超时和网络错误时重试2次，2秒起指数退避；步骤失败不重试
+     */
+    static final RetryPolicy DEFAULT_RETRY_POLICY = new RetryPolicy(2, 2000, 20000, 2, 0.5,
+        Set.of(RetryPolicy.CONNECT, RetryPolicy.TIMEOUT, RetryPolicy.IO));
     
     @Autowired
     private VariableManager variableManager;
     
+    @Autowired
+    private ExecutionThreads executionThreads;
+    
+    @Autowired
+    private RetryRegistry retryRegistry;
+    
     @Override
     public TestExecutionResult execute(TestCase testCase, TestEnvironment environment) {
         return executeWithRetry(testCase, environment, 0);
@@ -41,9 +59,11 @@ public class BusinessTestExecutor implements TestExecutor {
      */
     public TestExecutionResult executeWithRetry(TestCase testCase, TestEnvironment environment, int retryCount) {
         long startTime = System.currentTimeMillis();
-        int maxRetries = 2; // 最大重试次数
+        RetryPolicy retryPolicy = DEFAULT_RETRY_POLICY;
+        CancellationToken cancellationToken = ExecutionContext.currentToken();
         
         try {
+            cancellationToken.throwIfCancelled();
             logger.info("开始执行业务流程测试: {} (重试次数: {})", testCase.getName(), retryCount);
             
             // 解析业务流程配置
@@ -53,41 +73,39 @@ public class BusinessTestExecutor implements TestExecutor {
             }
             
             BusinessProcessConfig processConfig = parseProcessConfig(configJson);
-            
-            // 替换流程变量中的引用
-            processConfig.setVariables(replaceVariablesInMap(processConfig.getVariables()));
-            
-            // 初始化流程变量
-            if (processConfig.getVariables() != null) {
-                processConfig.getVariables().forEach((key, value) -> {
-                    variableManager.setVariable(key, value);
-                });
+            // 用例配置覆盖套件的重试策略
+            retryPolicy = retryRegistry.resolvePolicy(processConfig.getRetry(), DEFAULT_RETRY_POLICY);
+            if (retryCount == 0) {
+                retryRegistry.recordAttempt();
             }
+            initProcessVariables(processConfig);
             
             // 根据配置决定是否并行执行步骤
             List<StepResult> stepResults;
             if (processConfig.isParallel()) {
-                stepResults = executeStepsInParallel(processConfig.getSteps(), environment);
+                stepResults = executeStepsInParallel(processConfig.getSteps(), environment, null);
             } else {
-                stepResults = executeStepsSequentially(processConfig.getSteps(), environment);
+                stepResults = executeStepsSequentially(processConfig.getSteps(), environment, null);
             }
             
             // 检查执行结果
             boolean processSuccess = stepResults.stream().allMatch(StepResult::isSuccess);
             String failureMessage = "";
+            String failureCategory = null;
             
             if (!processSuccess) {
                 for (StepResult stepResult : stepResults) {
                     if (!stepResult.isSuccess()) {
                         failureMessage = "步骤执行失败: " + stepResult.getMessage();
+                        failureCategory = stepResult.getRetryCategory();
                         break;
                     }
                 }
                 
-                // 如果失败且还有重试次数，则重试
-                if (retryCount < maxRetries) {
+                // 失败类别在重试策略中且还有重试次数，则重试
+                if (shouldRetry(retryPolicy, failureCategory, retryCount, cancellationToken)) {
                     logger.warn("业务流程执行失败，准备重试 (第{}次): {}", retryCount + 1, failureMessage);
-                    Thread.sleep(2000 * (retryCount + 1)); // 递增延迟
+                    Thread.sleep(retryPolicy.delayMillis(retryCount + 1));
                     return executeWithRetry(testCase, environment, retryCount + 1);
                 }
                 
@@ -97,12 +115,20 @@ public class BusinessTestExecutor implements TestExecutor {
             logger.info("业务流程测试执行成功: {}", testCase.getName());
             return new TestExecutionResult(true, "业务流程测试执行成功", System.currentTimeMillis() - startTime);
         } catch (Exception e) {
-            if (retryCount < maxRetries && isRetryableException(e)) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            if (e instanceof InterruptedException || e instanceof CancellationException || cancellationToken.isCancelled()) {
+                logger.info("业务流程测试已取消: {}", testCase.getName());
+                return new TestExecutionResult(false, "执行已取消", System.currentTimeMillis() - startTime);
+            }
+            if (shouldRetry(retryPolicy, RetryPolicy.classify(e), retryCount, cancellationToken)) {
                 logger.warn("业务流程测试执行异常，准备重试 (第{}次): {}", retryCount + 1, e.getMessage());
                 try {
-                    Thread.sleep(2000 * (retryCount + 1)); // 递增延迟
+                    Thread.sleep(retryPolicy.delayMillis(retryCount + 1));
                 } catch (InterruptedException ie) {
                     Thread.currentThread().interrupt();
+                    return new TestExecutionResult(false, "执行已取消", System.currentTimeMillis() - startTime);
                 }
                 return executeWithRetry(testCase, environment, retryCount + 1);
             }
@@ -112,21 +138,77 @@ public class BusinessTestExecutor implements TestExecutor {
         }
     }
     
+    /**
+     * 执行一次业务流程，不重试（压测虚拟用户使用）
+     * @param listener 每个步骤结束后回调，可为null
+     * @return 所有步骤是否成功
+     * @throws InterruptedException 执行被取消时
+     */
+    public boolean runProcessOnce(TestCase testCase, TestEnvironment environment, StepListener listener) throws IOException, InterruptedException {
+        BusinessProcessConfig processConfig = loadProcessConfig(testCase);
+        initProcessVariables(processConfig);
+        
+        List<StepResult> stepResults = processConfig.isParallel()
+            ? executeStepsInParallel(processConfig.getSteps(), environment, listener)
+            : executeStepsSequentially(processConfig.getSteps(), environment, listener);
+        return stepResults.size() == processConfig.getSteps().size() && stepResults.stream().allMatch(StepResult::isSuccess);
+    }
+    
+    /**
+     * 校验业务流程配置，压测开始前调用一次
+     * @throws IllegalArgumentException 配置为空或没有步骤
+     * @throws IOException 配置不是合法的JSON
+     */
+    public void validateProcess(TestCase testCase) throws IOException {
+        loadProcessConfig(testCase);
+    }
+    
+    private BusinessProcessConfig loadProcessConfig(TestCase testCase) throws IOException {
+        String configJson = testCase.getConfig();
+        if (configJson == null || configJson.trim().isEmpty()) {
+            throw new IllegalArgumentException("业务流程配置为空");
+        }
+        BusinessProcessConfig processConfig = parseProcessConfig(configJson);
+        if (processConfig.getSteps().isEmpty()) {
+            throw new IllegalArgumentException("业务流程没有步骤");
+        }
+        return processConfig;
+    }
+    
+    /**
+     * 替换流程变量中的引用并写入变量
+     */
+    private void initProcessVariables(BusinessProcessConfig processConfig) {
+        processConfig.setVariables(replaceVariablesInMap(processConfig.getVariables()));
+        if (processConfig.getVariables() != null) {
+            processConfig.getVariables().forEach((key, value) -> {
+                variableManager.setVariable(key, value);
+            });
+        }
+    }
+    
     /**
      * 顺序执行步骤
      */
-    private List<StepResult> executeStepsSequentially(List<BusinessStepConfig> steps, TestEnvironment environment) {
+    private List<StepResult> executeStepsSequentially(List<BusinessStepConfig> steps, TestEnvironment environment,
+                                                      StepListener listener) throws InterruptedException {
         List<StepResult> stepResults = new ArrayList<>();
         
+        CancellationToken cancellationToken = ExecutionContext.currentToken();
         for (BusinessStepConfig step : steps) {
+            cancellationToken.throwIfCancelled();
+            
             // 替换步骤配置中的变量
-            step = replaceVariablesInStep(step);
+            BusinessStepConfig replacedStep = replaceVariablesInStep(step);
             
-            StepResult stepResult = executeStep(step, environment);
+            StepResult stepResult = executeStep(replacedStep, environment);
             stepResults.add(stepResult);
+            if (listener != null) {
+                listener.onStepCompleted(step.getName(), stepResult.isSuccess(), stepResult.getDurationMs(), step.getThinkTime());
+            }
             
             if (!stepResult.isSuccess()) {
-                logger.error("步骤执行失败: {}", step.getName());
+                logger.error("步骤执行失败: {}", replacedStep.getName());
                 break;
             }
             
@@ -144,40 +226,79 @@ public class BusinessTestExecutor implements TestExecutor {
     /**
      * 并行执行步骤
      */
-    private List<StepResult> executeStepsInParallel(List<BusinessStepConfig> steps, TestEnvironment environment) {
+    private List<StepResult> executeStepsInParallel(List<BusinessStepConfig> steps, TestEnvironment environment,
+                                                    StepListener listener) throws InterruptedException {
         List<CompletableFuture<StepResult>> futures = new ArrayList<>();
+        long startTime = System.currentTimeMillis();
+        ExecutionContext context = ExecutionContext.current();
+        CancellationToken cancellationToken = ExecutionContext.currentToken();
         
+        // 每个并行步骤在各自的子作用域中写入变量，全部结束后按步骤顺序合并，避免步骤间互相覆盖
+        VariableScope caseScope = ExecutionContext.currentVariables();
+        List<VariableScope> stepScopes = new ArrayList<>();
         for (BusinessStepConfig step : steps) {
-            CompletableFuture<StepResult> future = CompletableFuture.supplyAsync(() -> {
-                BusinessStepConfig replacedStep = replaceVariablesInStep(step);
-                return executeStep(replacedStep, environment);
-            }, executorService);
-            
+            CompletableFuture<StepResult> future = new CompletableFuture<>();
+            VariableScope stepScope = caseScope != null ? caseScope.child() : null;
+            stepScopes.add(stepScope);
+            ExecutionContext stepContext = context != null && stepScope != null ? context.withVariables(stepScope) : context;
+            // 步骤线程继承当前执行上下文，取消时中断步骤线程
+            Future<?> task = executionThreads.getStepExecutor().submit(() -> {
+                ExecutionContext.bind(stepContext);
+                try {
+                    BusinessStepConfig replacedStep = replaceVariablesInStep(step);
+                    future.complete(executeStep(replacedStep, environment));
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                } finally {
+                    ExecutionContext.clear();
+                }
+            });
+            future.whenComplete((result, error) -> {
+                if (future.isCancelled()) {
+                    task.cancel(true);
+                }
+            });
             futures.add(future);
         }
         
-        // 等待所有步骤完成
-        List<StepResult> stepResults = new ArrayList<>();
-        for (CompletableFuture<StepResult> future : futures) {
-            try {
-                stepResults.add(future.get(30, TimeUnit.SECONDS)); // 30秒超时
-            } catch (Exception e) {
-                logger.error("并行步骤执行超时或异常", e);
-                stepResults.add(new StepResult(false, "步骤执行超时或异常: " + e.getMessage(), null));
+        Runnable registration = cancellationToken.onCancel(() -> futures.forEach(f -> f.cancel(true)));
+        try {
+            // 等待所有步骤完成
+            List<StepResult> stepResults = new ArrayList<>();
+            for (CompletableFuture<StepResult> future : futures) {
+                try {
+                    stepResults.add(future.get(30, TimeUnit.SECONDS)); // 30秒超时
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    futures.forEach(f -> f.cancel(true));
+                    throw new CancellationException("执行已取消");
+                } catch (Exception e) {
+                    logger.error("并行步骤执行超时或异常", e);
+                    StepResult failed = StepResult.failed("步骤执行超时或异常: " + e.getMessage(), RetryPolicy.classify(e));
+                    failed.setDurationMs(System.currentTimeMillis() - startTime);
+                    stepResults.add(failed);
+                }
+            }
+            for (VariableScope stepScope : stepScopes) {
+                if (stepScope != null) {
+                    stepScope.mergeIntoParent();
+                }
+            }
+            // 并行步骤同时进行，不插入思考时间
+            if (listener != null) {
+                for (int i = 0; i < steps.size(); i++) {
+                    listener.onStepCompleted(steps.get(i).getName(), stepResults.get(i).isSuccess(), stepResults.get(i).getDurationMs(), 0);
+                }
             }
+            return stepResults;
+        } finally {
+            cancellationToken.unregister(registration);
         }
-        
-        return stepResults;
     }
     
-    /**
-     * 判断异常是否可重试
-     */
-    private boolean isRetryableException(Exception e) {
-        return e instanceof java.util.concurrent.TimeoutException ||
-               e.getMessage().contains("timeout") ||
-               e.getMessage().contains("connection") ||
-               e.getMessage().contains("network");
+    private boolean shouldRetry(RetryPolicy retryPolicy, String category, int retryCount, CancellationToken cancellationToken) {
+        return retryPolicy.retriesOn(category) && retryCount < retryPolicy.getMaxRetries()
+            && !cancellationToken.isCancelled() && retryRegistry.tryAcquireRetry();
     }
     
     private BusinessProcessConfig parseProcessConfig(String configJson) throws IOException {
@@ -221,6 +342,7 @@ public class BusinessTestExecutor implements TestExecutor {
                     step.setDescription(stepNode.has("description") ? stepNode.get("description").asText() : "");
                     step.setTimeout(stepNode.has("timeout") ? stepNode.get("timeout").asInt(10000) : 10000);
                     step.setRetryCount(stepNode.has("retryCount") ? stepNode.get("retryCount").asInt(0) : 0);
+                    step.setThinkTime(stepNode.has("thinkTime") ? stepNode.get("thinkTime").asLong(0) : 0);
                     
                     // 解析步骤配置
                     if (stepNode.has("config")) {
@@ -232,6 +354,9 @@ public class BusinessTestExecutor implements TestExecutor {
             }
         }
         
+        // 用例的重试配置，执行时与套件的重试策略合并
+        config.setRetry(RetryPolicy.caseOverrides(rootNode));
+        
         return config;
     }
     
@@ -259,6 +384,13 @@ public class BusinessTestExecutor implements TestExecutor {
     }
     
     private StepResult executeStep(BusinessStepConfig step, TestEnvironment environment) {
+        long startTime = System.currentTimeMillis();
+        StepResult result = doExecuteStep(step, environment);
+        result.setDurationMs(System.currentTimeMillis() - startTime);
+        return result;
+    }
+    
+    private StepResult doExecuteStep(BusinessStepConfig step, TestEnvironment environment) {
         logger.info("执行步骤: {}, 类型: {}", step.getName(), step.getType());
         
         try {
@@ -285,9 +417,12 @@ public class BusinessTestExecutor implements TestExecutor {
                     Thread.sleep(500);
                     return new StepResult(true, "步骤执行成功", null);
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new StepResult(false, "执行已取消", null);
         } catch (Exception e) {
             logger.error("步骤执行失败", e);
-            return new StepResult(false, e.getMessage(), null);
+            return StepResult.failed(e.getMessage(), RetryPolicy.classify(e));
         }
     }
     
@@ -298,6 +433,7 @@ public class BusinessTestExecutor implements TestExecutor {
         private List<BusinessStepConfig> steps = new ArrayList<>();
         private boolean parallel = false;
         private int timeout = 30000; // 30秒超时
+        private JsonNode retry;
         
         // Getters and Setters
         public String getName() { return name; }
@@ -310,6 +446,8 @@ public class BusinessTestExecutor implements TestExecutor {
         public void setParallel(boolean parallel) { this.parallel = parallel; }
         public int getTimeout() { return timeout; }
         public void setTimeout(int timeout) { this.timeout = timeout; }
+        public JsonNode getRetry() { return retry; }
+        public void setRetry(JsonNode retry) { this.retry = retry; }
     }
     
     // 业务步骤配置类
@@ -320,6 +458,7 @@ public class BusinessTestExecutor implements TestExecutor {
         private String config;
         private int timeout = 10000; // 10秒超时
         private int retryCount = 0; // 重试次数
+        private long thinkTime = 0; // 压测时步骤结束后的思考时间（毫秒）
         
         // Getters and Setters
         public String getName() { return name; }
@@ -334,6 +473,8 @@ public class BusinessTestExecutor implements TestExecutor {
         public void setTimeout(int timeout) { this.timeout = timeout; }
         public int getRetryCount() { return retryCount; }
         public void setRetryCount(int retryCount) { this.retryCount = retryCount; }
+        public long getThinkTime() { return thinkTime; }
+        public void setThinkTime(long thinkTime) { this.thinkTime = thinkTime; }
     }
     
     // 步骤执行结果类
@@ -341,6 +482,8 @@ public class BusinessTestExecutor implements TestExecutor {
         private boolean success;
         private String message;
         private Map<String, Object> variables;
+        private long durationMs;
+        private String retryCategory;
         
         public StepResult(boolean success, String message, Map<String, Object> variables) {
             this.success = success;
@@ -348,8 +491,29 @@ public class BusinessTestExecutor implements TestExecutor {
             this.variables = variables;
         }
         
+        static StepResult failed(String message, String retryCategory) {
+            StepResult result = new StepResult(false, message, null);
+            result.retryCategory = retryCategory;
+            return result;
+        }
+        
         public boolean isSuccess() { return success; }
         public String getMessage() { return message; }
         public Map<String, Object> getVariables() { return variables; }
+        public long getDurationMs() { return durationMs; }
+        public void setDurationMs(long durationMs) { this.durationMs = durationMs; }
+        public String getRetryCategory() { return retryCategory; }
+    }
+    
+    /**
+     * 步骤完成回调
+     */
+    public interface StepListener {
+        /**
+         * @param stepName 步骤名称（未替换变量，用于按步骤汇总）
+         * @param thinkTimeMs 步骤配置的思考时间，未配置或并行步骤为0
+         * @throws InterruptedException 等待思考时间时被取消
+         */
+        void onStepCompleted(String stepName, boolean success, long durationMs, long thinkTimeMs) throws InterruptedException;
     }
 }
\ No newline at end of file
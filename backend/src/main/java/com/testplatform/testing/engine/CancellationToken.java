@@ -0,0 +1,96 @@
+package com.testplatform.testing.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+
+/**
+ * 套件执行的取消令牌
+ * 执行中的组件通过onCancel注册回调（中断线程、取消HTTP请求、关闭浏览器等），
+ * 取消时依次触发；回调在锁内执行，unregister返回后该回调不会再被触发
+ */
+public class CancellationToken {
+    private static final Logger logger = LoggerFactory.getLogger(CancellationToken.class);
+
+    /**
+     * 永不取消的令牌，用于没有绑定执行上下文的调用
+     */
+    public static final CancellationToken NONE = new CancellationToken() {
+        @Override
+        public void cancel() {
+            throw new UnsupportedOperationException("NONE令牌不能取消");
+        }
+
+        @Override
+        public Runnable onCancel(Runnable callback) {
+            return callback;
+        }
+    };
+
+    private final Set<Runnable> callbacks = new LinkedHashSet<>();
+    private volatile boolean cancelled;
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 取消并触发所有已注册的回调，重复调用无效
+     */
+    public void cancel() {
+        List<Runnable> toRun;
+        synchronized (callbacks) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            toRun = new ArrayList<>(callbacks);
+            callbacks.clear();
+            for (Runnable callback : toRun) {
+                try {
+                    callback.run();
+                } catch (Exception e) {
+                    logger.warn("执行取消回调失败", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 注册取消回调，已取消时立即执行
+     * @return 用于unregister的句柄
+     */
+    public Runnable onCancel(Runnable callback) {
+        synchronized (callbacks) {
+            if (!cancelled) {
+                callbacks.add(callback);
+                return callback;
+            }
+        }
+        callback.run();
+        return callback;
+    }
+
+    /**
+     * 注销取消回调
+     */
+    public void unregister(Runnable registration) {
+        synchronized (callbacks) {
+            callbacks.remove(registration);
+        }
+    }
+
+    /**
+     * 已取消时抛出CancellationException
+     */
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException("执行已取消");
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.testplatform.testing.engine;
+
+import com.testplatform.model.TestCase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * 套件用例依赖图（DAG）
+ * 节点下标即用例在有序列表中的位置，下标越小优先级越高
+ */
+public class CaseDependencyGraph {
+    private static final Logger logger = LoggerFactory.getLogger(CaseDependencyGraph.class);
+
+    private final List<TestCase> testCases;
+    private final List<List<Integer>> parents;
+    private final List<List<Integer>> children;
+    private final List<Integer> topologicalOrder;
+    private final boolean hasDependencies;
+
+    private CaseDependencyGraph(List<TestCase> testCases, List<List<Integer>> parents, List<List<Integer>> children,
+                                List<Integer> topologicalOrder, boolean hasDependencies) {
+        this.testCases = testCases;
+        this.parents = parents;
+        this.children = children;
+        this.topologicalOrder = topologicalOrder;
+        this.hasDependencies = hasDependencies;
+    }
+
+    /**
+     * 根据有序用例列表和依赖声明构建依赖图
+     * 依赖了本次不执行的用例（如已禁用）时忽略该依赖
+     * @param testCases 有序用例列表
+     * @param dependencies 用例ID -> 依赖的用例ID列表
+     * @throws IllegalArgumentException 依赖存在循环时
+     */
+    public static CaseDependencyGraph build(List<TestCase> testCases, Map<String, List<String>> dependencies) {
+        Map<String, Integer> indexById = new HashMap<>();
+        for (int i = 0; i < testCases.size(); i++) {
+            indexById.put(testCases.get(i).getId(), i);
+        }
+
+        List<List<Integer>> parents = new ArrayList<>(testCases.size());
+        List<List<Integer>> children = new ArrayList<>(testCases.size());
+        for (int i = 0; i < testCases.size(); i++) {
+            parents.add(new ArrayList<>());
+            children.add(new ArrayList<>());
+        }
+
+        boolean hasDependencies = false;
+        for (int i = 0; i < testCases.size(); i++) {
+            List<String> dependsOn = dependencies != null ? dependencies.get(testCases.get(i).getId()) : null;
+            if (dependsOn == null) {
+                continue;
+            }
+            for (String dependencyId : new LinkedHashSet<>(dependsOn)) {
+                Integer parent = indexById.get(dependencyId);
+                if (parent == null) {
+                    logger.warn("用例 {} 依赖的用例 {} 不在本次执行中，忽略该依赖", testCases.get(i).getId(), dependencyId);
+                    continue;
+                }
+                if (parent == i) {
+                    throw new IllegalArgumentException("用例不能依赖自身: " + dependencyId);
+                }
+                parents.get(i).add(parent);
+                children.get(parent).add(i);
+                hasDependencies = true;
+            }
+        }
+
+        List<Integer> order = topologicalSort(parents, children);
+        if (order.size() < testCases.size()) {
+            Set<Integer> sorted = new HashSet<>(order);
+            List<String> cycle = new ArrayList<>();
+            for (int i = 0; i < testCases.size(); i++) {
+                if (!sorted.contains(i)) {
+                    cycle.add(testCases.get(i).getName());
+                }
+            }
+            throw new IllegalArgumentException("用例依赖存在循环: " + cycle);
+        }
+
+        return new CaseDependencyGraph(testCases, parents, children, order, hasDependencies);
+    }
+
+    /**
+     * 校验依赖声明：依赖必须指向套件内的用例且不能形成循环
+     * @param caseIds 套件内的用例ID
+     * @param dependencies 用例ID -> 依赖的用例ID列表
+     * @throws IllegalArgumentException 校验失败时
+     */
+    public static void validate(Collection<String> caseIds, Map<String, List<String>> dependencies) {
+        Set<String> known = new HashSet<>(caseIds);
+        List<TestCase> nodes = new ArrayList<>();
+        for (String caseId : caseIds) {
+            List<String> dependsOn = dependencies.get(caseId);
+            if (dependsOn != null) {
+                for (String dependencyId : dependsOn) {
+                    if (!known.contains(dependencyId)) {
+                        throw new IllegalArgumentException("用例 " + caseId + " 依赖的用例不在套件中: " + dependencyId);
+                    }
+                }
+            }
+            TestCase node = new TestCase();
+            node.setId(caseId);
+            node.setName(caseId);
+            nodes.add(node);
+        }
+        build(nodes, dependencies);
+    }
+
+    /**
+     * Kahn算法拓扑排序，同层按下标（优先级）从小到大
+     */
+    private static List<Integer> topologicalSort(List<List<Integer>> parents, List<List<Integer>> children) {
+        int size = parents.size();
+        int[] inDegree = new int[size];
+        PriorityQueue<Integer> ready = new PriorityQueue<>();
+        for (int i = 0; i < size; i++) {
+            inDegree[i] = parents.get(i).size();
+            if (inDegree[i] == 0) {
+                ready.add(i);
+            }
+        }
+        List<Integer> order = new ArrayList<>(size);
+        while (!ready.isEmpty()) {
+            int node = ready.poll();
+            order.add(node);
+            for (int child : children.get(node)) {
+                if (--inDegree[child] == 0) {
+                    ready.add(child);
+                }
+            }
+        }
+        return order;
+    }
+
+    public int size() {
+        return testCases.size();
+    }
+
+    public TestCase getTestCase(int index) {
+        return testCases.get(index);
+    }
+
+    public List<Integer> getParents(int index) {
+        return Collections.unmodifiableList(parents.get(index));
+    }
+
+    public List<Integer> getChildren(int index) {
+        return Collections.unmodifiableList(children.get(index));
+    }
+
+    public boolean hasDependencies() {
+        return hasDependencies;
+    }
+
+    /**
+     * 各节点的入度（未满足的依赖数）
+     */
+    public int[] inDegrees() {
+        int[] inDegree = new int[testCases.size()];
+        for (int i = 0; i < inDegree.length; i++) {
+            inDegree[i] = parents.get(i).size();
+        }
+        return inDegree;
+    }
+
+    /**
+     * 获取节点的所有后代（按拓扑顺序）
+     */
+    public List<Integer> getDescendants(int index) {
+        Set<Integer> visited = new HashSet<>();
+        Deque<Integer> stack = new ArrayDeque<>(children.get(index));
+        while (!stack.isEmpty()) {
+            int node = stack.pop();
+            if (visited.add(node)) {
+                stack.addAll(children.get(node));
+            }
+        }
+        List<Integer> descendants = new ArrayList<>(visited.size());
+        for (int node : topologicalOrder) {
+            if (visited.contains(node)) {
+                descendants.add(node);
+            }
+        }
+        return descendants;
+    }
+
+    /**
+     * 拓扑顺序（同层按下标）
+     */
+    public List<Integer> getTopologicalOrder() {
+        return Collections.unmodifiableList(topologicalOrder);
+    }
+
+    /**
+     * 各节点的向上秩：自身耗时加上后代中最长依赖链的耗时
+     * 没有依赖时即为自身耗时，按秩从大到小调度就是最长处理时间优先（LPT）
+     * @param weights 各节点的预估耗时（毫秒）
+     */
+    public long[] upwardRanks(long[] weights) {
+        long[] ranks = new long[testCases.size()];
+        for (int i = topologicalOrder.size() - 1; i >= 0; i--) {
+            int node = topologicalOrder.get(i);
+            long longestChild = 0;
+            for (int child : children.get(node)) {
+                longestChild = Math.max(longestChild, ranks[child]);
+            }
+            ranks[node] = weights[node] + longestChild;
+        }
+        return ranks;
+    }
+
+    /**
+     * 计算关键路径（按耗时加权的最长依赖链）
+     * @param durations 各节点耗时（毫秒），未执行的节点为0
+     */
+    public CriticalPath criticalPath(long[] durations) {
+        if (testCases.isEmpty()) {
+            return new CriticalPath(Collections.emptyList(), Collections.emptyList(), 0);
+        }
+        long[] finish = new long[testCases.size()];
+        int[] predecessor = new int[testCases.size()];
+        int last = topologicalOrder.get(0);
+        for (int node : topologicalOrder) {
+            long start = 0;
+            predecessor[node] = -1;
+            for (int parent : parents.get(node)) {
+                if (predecessor[node] < 0 || finish[parent] > start) {
+                    start = finish[parent];
+                    predecessor[node] = parent;
+                }
+            }
+            finish[node] = start + durations[node];
+            if (finish[node] > finish[last]) {
+                last = node;
+            }
+        }
+
+        List<String> ids = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (int node = last; node >= 0; node = predecessor[node]) {
+            ids.add(0, testCases.get(node).getId());
+            names.add(0, testCases.get(node).getName());
+        }
+        return new CriticalPath(ids, names, finish[last]);
+    }
+
+    /**
+     * 关键路径
+     */
+    public static class CriticalPath {
+        private final List<String> testCaseIds;
+        private final List<String> testCaseNames;
+        private final long durationMs;
+
+        public CriticalPath(List<String> testCaseIds, List<String> testCaseNames, long durationMs) {
+            this.testCaseIds = testCaseIds;
+            this.testCaseNames = testCaseNames;
+            this.durationMs = durationMs;
+        }
+
+        public List<String> getTestCaseIds() { return testCaseIds; }
+        public List<String> getTestCaseNames() { return testCaseNames; }
+        public long getDurationMs() { return durationMs; }
+    }
+}
@@ -0,0 +1,380 @@
+package com.testplatform.testing.engine;
+
+import com.testplatform.model.ExecutionWorkItem;
+import com.testplatform.model.TestCase;
+import com.testplatform.model.TestCaseExecution;
+import com.testplatform.model.TestEnvironment;
+import com.testplatform.model.TestExecution;
+import com.testplatform.model.TestSuite;
+import com.testplatform.repository.TestCaseRepository;
+import com.testplatform.repository.TestEnvironmentRepository;
+import com.testplatform.repository.TestExecutionRepository;
+import com.testplatform.repository.TestSuiteRepository;
+import com.testplatform.service.AuthService;
+import com.testplatform.service.AuthTokenCache;
+import com.testplatform.service.ExecutionWorkItemService;
+import com.testplatform.service.TestExecutionService;
+import com.testplatform.testing.TestExecutionResult;
+import com.testplatform.testing.TestExecutor;
+import com.testplatform.testing.TestExecutorFactory;
+import com.testplatform.testing.VariableManager;
+import com.testplatform.testing.VariableScope;
+import com.testplatform.testing.retry.RetryRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分布式用例工作线程
+ * 每个后端副本定期从工作项表租用可执行的用例，通过FairCaseScheduler在本副本的用例工作线程上执行，
+ * 执行期间定期续租；副本崩溃后租约过期，工作项由其他副本重新领取。
+ * 只在 test-platform.execution.distributed.enabled=true 时启动
+ */
+@Component
+public class DistributedCaseWorker {
+    private static final Logger logger = LoggerFactory.getLogger(DistributedCaseWorker.class);
+
+    @Value("${test-platform.execution.distributed.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * 副本标识，为空时使用主机名加随机后缀
+     */
+    @Value("${test-platform.execution.distributed.node-id:}")
+    private String nodeId;
+
+    /**
+     * 本副本同时持有的工作项上限，0表示使用用例工作线程数
+     */
+    @Value("${test-platform.execution.distributed.max-leased:0}")
+    private int maxLeased;
+
+    @Value("${test-platform.execution.distributed.poll-interval-ms:500}")
+    private long pollIntervalMs;
+
+    /**
+     * 租约时长，持有者每1/3租约时长续租一次
+     */
+    @Value("${test-platform.execution.distributed.lease-duration-ms:30000}")
+    private long leaseDurationMs;
+
+    /**
+     * 工作项最多被租用的次数，超过后按失败处理，避免导致崩溃的用例反复投递
+     */
+    @Value("${test-platform.execution.distributed.max-attempts:3}")
+    private int maxAttempts;
+
+    @Autowired
+    private ExecutionWorkItemService workItemService;
+
+    @Autowired
+    private SuiteExecutionEngine suiteExecutionEngine;
+
+    @Autowired
+    private FairCaseScheduler caseScheduler;
+
+    @Autowired
+    private TestExecutorFactory testExecutorFactory;
+
+    @Autowired
+    private TestExecutionService testExecutionService;
+
+    @Autowired
+    private TestExecutionRepository testExecutionRepository;
+
+    @Autowired
+    private TestSuiteRepository testSuiteRepository;
+
+    @Autowired
+    private TestEnvironmentRepository testEnvironmentRepository;
+
+    @Autowired
+    private TestCaseRepository testCaseRepository;
+
+    @Autowired
+    private AuthTokenCache authTokenCache;
+
+    @Autowired
+    private VariableManager variableManager;
+
+    @Autowired
+    private RetryRegistry retryRegistry;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * 本副本持有的工作项
+     */
+    private final Map<String, ExecutionWorkItem> leased = new ConcurrentHashMap<>();
+
+    /**
+     * 本副本上有在途用例的执行
+     */
+    private final Map<String, ExecutionRuntime> runtimes = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        if (nodeId == null || nodeId.isEmpty()) {
+            nodeId = resolveHostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        }
+        if (maxLeased <= 0) {
+            maxLeased = caseScheduler.getWorkerCount();
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "work-lease-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long heartbeatMs = Math.max(1000, leaseDurationMs / 3);
+        scheduler.scheduleWithFixedDelay(this::poll, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::heartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        logger.info("分布式执行已启用，副本: {}，最多持有工作项: {}，租约: {} ms", nodeId, maxLeased, leaseDurationMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // 未完成的工作项不主动释放，租约过期后由其他副本重新领取
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 重新投递过期工作项并领取新的工作项
+     */
+    void poll() {
+        try {
+            for (ExecutionWorkItem item : workItemService.requeueExpired(maxAttempts, maxLeased)) {
+                if (workItemService.failExpired(item)) {
+                    testExecutionService.completeDistributedExecution(item.getExecutionId());
+                }
+            }
+
+            int capacity = maxLeased - leased.size();
+            if (capacity <= 0) {
+                return;
+            }
+            for (ExecutionWorkItem item : workItemService.lease(nodeId, capacity, leaseDurationMs)) {
+                dispatch(item);
+            }
+        } catch (Exception e) {
+            logger.error("领取工作项失败", e);
+        }
+    }
+
+    /**
+     * 续租本副本持有的工作项，并取消已在其他副本被停止的执行
+     */
+    void heartbeat() {
+        try {
+            if (leased.isEmpty()) {
+                return;
+            }
+            List<String> ids = new ArrayList<>(leased.keySet());
+            int renewed = workItemService.renew(nodeId, ids, leaseDurationMs);
+            if (renewed < ids.size()) {
+                logger.warn("{} 个工作项续租失败，租约可能已过期并被重新投递", ids.size() - renewed);
+            }
+
+            List<String> executionIds;
+            synchronized (runtimes) {
+                executionIds = new ArrayList<>(runtimes.keySet());
+            }
+            for (TestExecution execution : testExecutionRepository.findAllById(executionIds)) {
+                if (execution.getStatus() == TestExecution.ExecutionStatus.CANCELLED) {
+                    ExecutionRuntime runtime;
+                    synchronized (runtimes) {
+                        runtime = runtimes.get(execution.getId());
+                    }
+                    if (runtime != null && !runtime.token.isCancelled()) {
+                        logger.info("执行 {} 已停止，取消本副本上的在途用例", execution.getId());
+                        runtime.token.cancel();
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logger.error("工作项续租失败", e);
+        }
+    }
+
+    private void dispatch(ExecutionWorkItem item) {
+        leased.put(item.getId(), item);
+        ExecutionRuntime runtime;
+        try {
+            runtime = acquireRuntime(item);
+        } catch (Exception e) {
+            logger.error("准备执行环境失败: {}", item.getExecutionId(), e);
+            TestExecutionResult result = new TestExecutionResult(false, "准备执行环境失败: " + e.getMessage(), 0,
+                item.getTestCaseId(), item.getTestCaseName(), null);
+            finishItem(item, result, ExecutionWorkItem.WorkStatus.FAILED, Collections.emptyMap());
+            leased.remove(item.getId());
+            return;
+        }
+        runtime.flow.submit(Boolean.TRUE.equals(item.getUrgent()), () -> runItem(item, runtime));
+    }
+
+    private void runItem(ExecutionWorkItem item, ExecutionRuntime runtime) {
+        try {
+            TestCase testCase = testCaseRepository.findById(item.getTestCaseId()).orElse(null);
+            if (testCase == null) {
+                finishItem(item, new TestExecutionResult(false, "测试用例不存在: " + item.getTestCaseId(), 0,
+                    item.getTestCaseId(), item.getTestCaseName(), null), ExecutionWorkItem.WorkStatus.FAILED, Collections.emptyMap());
+                return;
+            }
+            // 依赖的用例可能在其他副本上执行，运行前加载已结束用例写入的变量
+            VariableScope variables = variableManager.getExecutionScope(item.getExecutionId());
+            if (variables != null) {
+                variables.putAll(workItemService.loadVariables(item.getExecutionId()));
+            }
+            SuiteExecutionEngine.CaseCompletion completion = suiteExecutionEngine.runCase(item.getCaseIndex(),
+                item.getExecutionId(), item.getSuiteId(), runtime.executor, testCase, runtime.environment, runtime.suite.getType().name(), runtime.token);
+            finishItem(item, completion.getResult(), toWorkStatus(completion.getStatus()), completion.getVariables());
+        } finally {
+            leased.remove(item.getId());
+            releaseRuntime(item.getExecutionId());
+        }
+    }
+
+    private void finishItem(ExecutionWorkItem item, TestExecutionResult result, ExecutionWorkItem.WorkStatus status,
+                            Map<String, Object> variables) {
+        try {
+            if (workItemService.complete(item.getExecutionId(), item.getId(), nodeId, result, status, variables)) {
+                testExecutionService.completeDistributedExecution(item.getExecutionId());
+            }
+        } catch (Exception e) {
+            // 结果未写入时租约会过期，工作项由其他副本重新执行
+            logger.error("写入工作项结果失败: {}", item.getId(), e);
+        }
+    }
+
+    private ExecutionWorkItem.WorkStatus toWorkStatus(TestCaseExecution.ExecutionStatus status) {
+        if (status == TestCaseExecution.ExecutionStatus.PASSED) {
+            return ExecutionWorkItem.WorkStatus.PASSED;
+        }
+        if (status == TestCaseExecution.ExecutionStatus.SKIPPED) {
+            return ExecutionWorkItem.WorkStatus.SKIPPED;
+        }
+        return ExecutionWorkItem.WorkStatus.FAILED;
+    }
+
+    /**
+     * 获取执行在本副本的运行期状态，首次领取时加载套件与环境并完成认证
+     * 只有轮询线程会创建运行期状态
+     */
+    private ExecutionRuntime acquireRuntime(ExecutionWorkItem item) {
+        synchronized (runtimes) {
+            ExecutionRuntime runtime = runtimes.get(item.getExecutionId());
+            if (runtime != null) {
+                runtime.inFlight++;
+                return runtime;
+            }
+        }
+
+        TestExecution execution = testExecutionRepository.findById(item.getExecutionId())
+            .orElseThrow(() -> new RuntimeException("测试执行不存在: " + item.getExecutionId()));
+        TestSuite testSuite = testSuiteRepository.findById(item.getSuiteId())
+            .orElseThrow(() -> new RuntimeException("测试套件不存在: " + item.getSuiteId()));
+        TestEnvironment environment = testEnvironmentRepository.findById(item.getEnvironmentId())
+            .orElseThrow(() -> new RuntimeException("测试环境不存在: " + item.getEnvironmentId()));
+
+        AuthService.AuthResult authResult = authTokenCache.getToken(environment);
+        if (!authResult.isSuccess()) {
+            throw new RuntimeException("认证失败: " + authResult.getMessage());
+        }
+        // 本节点上该执行的变量作用域，在本节点没有该执行的在途用例时释放；
+        // 用例结束时写入的变量持久化在执行记录中，每个用例运行前重新加载
+        VariableScope variables = variableManager.openExecutionScope(item.getExecutionId(), environment.getId());
+        if (authResult.getToken() != null) {
+            variables.put("token", authResult.getToken());
+        }
+        if (authResult.getRefreshToken() != null) {
+            variables.put("refreshToken", authResult.getRefreshToken());
+        }
+
+        ExecutionRuntime runtime = new ExecutionRuntime(testSuite, environment, testExecutorFactory.getExecutor(testSuite),
+            caseScheduler.openFlow(item.getExecutionId(), environment.getId(), 1, environment.getMaxConcurrency()));
+        if (execution.getStatus() == TestExecution.ExecutionStatus.CANCELLED) {
+            runtime.token.cancel();
+        }
+        synchronized (runtimes) {
+            runtimes.put(item.getExecutionId(), runtime);
+        }
+        return runtime;
+    }
+
+    private void releaseRuntime(String executionId) {
+        synchronized (runtimes) {
+            ExecutionRuntime runtime = runtimes.get(executionId);
+            if (runtime != null && --runtime.inFlight == 0) {
+                runtimes.remove(executionId);
+                runtime.flow.close();
+                variableManager.closeExecutionScope(executionId);
+                retryRegistry.releaseBudget(executionId);
+            }
+        }
+    }
+
+    private static String resolveHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "node";
+        }
+    }
+
+    /**
+     * 工作线程统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        if (enabled) {
+            stats.put("nodeId", nodeId);
+            stats.put("maxLeased", maxLeased);
+            stats.put("leased", leased.size());
+            synchronized (runtimes) {
+                stats.put("executions", new ArrayList<>(runtimes.keySet()));
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * 一次执行在本副本上的运行期状态
+     */
+    private static class ExecutionRuntime {
+        private final TestSuite suite;
+        private final TestEnvironment environment;
+        private final TestExecutor executor;
+        private final FairCaseScheduler.Flow flow;
+        private final CancellationToken token = new CancellationToken();
+        private int inFlight = 1;
+
+        ExecutionRuntime(TestSuite suite, TestEnvironment environment, TestExecutor executor, FairCaseScheduler.Flow flow) {
+            this.suite = suite;
+            this.environment = environment;
+            this.executor = executor;
+            this.flow = flow;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.testplatform.testing.engine;
+
+import com.testplatform.model.TestCase;
+import com.testplatform.model.TestCaseExecution;
+import com.testplatform.repository.TestCaseExecutionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用例耗时估算
+ * 使用最近若干次执行（TestCaseExecution.durationMs）的平均耗时；没有历史记录的新用例
+ * 使用同批已知用例耗时的中位数，全部没有历史时使用默认值
+ */
+@Component
+public class DurationEstimator {
+    private static final Logger logger = LoggerFactory.getLogger(DurationEstimator.class);
+
+    /**
+     * 单次查询的用例ID数量上限，避免超长IN列表
+     */
+    private static final int QUERY_BATCH_SIZE = 500;
+
+    /**
+     * SKIPPED的用例没有实际执行，不参与估算
+     */
+    private static final List<String> ESTIMATED_STATUSES = Arrays.asList(TestCaseExecution.ExecutionStatus.PASSED.name(),
+        TestCaseExecution.ExecutionStatus.FAILED.name(), TestCaseExecution.ExecutionStatus.ERROR.name());
+
+    /**
+     * 参与估算的最近执行次数
+     */
+    @Value("${test-platform.execution.duration-estimate.window:10}")
+    private int window;
+
+    /**
+     * 只使用最近多少天的执行记录
+     */
+    @Value("${test-platform.execution.duration-estimate.history-days:30}")
+    private int historyDays;
+
+    /**
+     * 没有任何历史记录时的默认耗时
+     */
+    @Value("${test-platform.execution.duration-estimate.default-ms:1000}")
+    private long defaultDurationMs;
+
+    @Autowired
+    private TestCaseExecutionRepository testCaseExecutionRepository;
+
+    /**
+     * 估算用例耗时
+     * @return 用例ID -> 预估耗时（毫秒），包含所有传入的用例
+     */
+    public Map<String, Long> estimate(List<TestCase> testCases) {
+        if (testCases.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<String> ids = new ArrayList<>(testCases.size());
+        for (TestCase testCase : testCases) {
+            ids.add(testCase.getId());
+        }
+        List<Object[]> history = new ArrayList<>();
+        try {
+            // 每个用例只取最近window条，由数据库完成截断
+            LocalDateTime since = LocalDateTime.now().minusDays(historyDays);
+            for (int from = 0; from < ids.size(); from += QUERY_BATCH_SIZE) {
+                history.addAll(testCaseExecutionRepository.findRecentDurations(
+                    ids.subList(from, Math.min(from + QUERY_BATCH_SIZE, ids.size())), ESTIMATED_STATUSES, since, window));
+            }
+        } catch (Exception e) {
+            logger.warn("查询用例历史耗时失败，使用默认耗时: {}", e.getMessage());
+            history = Collections.emptyList();
+        }
+        return estimate(ids, history, window, defaultDurationMs);
+    }
+
+    /**
+     * 根据历史耗时估算
+     * @param history [testCaseId, durationMs]，最近的在前
+     */
+    static Map<String, Long> estimate(List<String> testCaseIds, List<Object[]> history, int window, long defaultDurationMs) {
+        Map<String, long[]> sums = new HashMap<>();
+        for (Object[] row : history) {
+            long[] sum = sums.computeIfAbsent((String) row[0], key -> new long[2]);
+            if (sum[1] < window) {
+                sum[0] += ((Number) row[1]).longValue();
+                sum[1]++;
+            }
+        }
+
+        Map<String, Long> estimates = new LinkedHashMap<>();
+        List<Long> known = new ArrayList<>();
+        for (String id : testCaseIds) {
+            long[] sum = sums.get(id);
+            if (sum != null && sum[1] > 0) {
+                long average = sum[0] / sum[1];
+                estimates.put(id, average);
+                known.add(average);
+            }
+        }
+
+        long fallback = defaultDurationMs;
+        if (!known.isEmpty()) {
+            Collections.sort(known);
+            fallback = known.get(known.size() / 2);
+        }
+        for (String id : testCaseIds) {
+            estimates.putIfAbsent(id, fallback);
+        }
+        return estimates;
+    }
+}
@@ -0,0 +1,109 @@
+package com.testplatform.testing.engine;
+
+import com.testplatform.testing.VariableScope;
+
+/**
+ * 当前线程正在执行的套件上下文
+ * 执行引擎在运行用例前绑定，执行器通过它获取取消令牌，无需修改TestExecutor接口
+ */
+public final class ExecutionContext {
+    private static final ThreadLocal<ExecutionContext> CURRENT = new ThreadLocal<>();
+
+    private final String executionId;
+    private final CancellationToken cancellationToken;
+    private final VariableScope variables;
+    private final String suiteId;
+    private final boolean retryEnabled;
+
+    public ExecutionContext(String executionId, CancellationToken cancellationToken) {
+        this(executionId, cancellationToken, null);
+    }
+
+    /**
+     * @param variables 当前线程的变量作用域（用例、步骤或压测虚拟用户），为null时使用共享的局部变量
+     */
+    public ExecutionContext(String executionId, CancellationToken cancellationToken, VariableScope variables) {
+        this(executionId, cancellationToken, variables, null);
+    }
+
+    /**
+     * @param suiteId 正在执行的套件，执行器据此读取套件级配置（如存储的JSON Schema），压测等非套件执行为null
+     */
+    public ExecutionContext(String executionId, CancellationToken cancellationToken, VariableScope variables, String suiteId) {
+        this(executionId, cancellationToken, variables, suiteId, true);
+    }
+
+    private ExecutionContext(String executionId, CancellationToken cancellationToken, VariableScope variables, String suiteId,
+                             boolean retryEnabled) {
+        this.executionId = executionId;
+        this.cancellationToken = cancellationToken;
+        this.variables = variables;
+        this.suiteId = suiteId;
+        this.retryEnabled = retryEnabled;
+    }
+
+    /**
+     * 相同执行、使用另一个变量作用域的上下文，用于并行步骤
+     */
+    public ExecutionContext withVariables(VariableScope variables) {
+        return new ExecutionContext(executionId, cancellationToken, variables, suiteId, retryEnabled);
+    }
+
+    /**
+     * 不重试失败请求的上下文，用于压测：重试会扭曲压测结果，也不为其分配重试预算
+     */
+    public ExecutionContext withoutRetries() {
+        return new ExecutionContext(executionId, cancellationToken, variables, suiteId, false);
+    }
+
+    public String getExecutionId() {
+        return executionId;
+    }
+
+    public CancellationToken getCancellationToken() {
+        return cancellationToken;
+    }
+
+    public VariableScope getVariables() {
+        return variables;
+    }
+
+    public String getSuiteId() {
+        return suiteId;
+    }
+
+    public boolean isRetryEnabled() {
+        return retryEnabled;
+    }
+
+    /**
+     * 当前线程绑定的上下文，未绑定时返回null
+     */
+    public static ExecutionContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 当前线程的取消令牌，未绑定时返回永不取消的令牌
+     */
+    public static CancellationToken currentToken() {
+        ExecutionContext context = CURRENT.get();
+        return context != null ? context.cancellationToken : CancellationToken.NONE;
+    }
+
+    /**
+     * 当前线程的变量作用域，未绑定时返回null
+     */
+    public static VariableScope currentVariables() {
+        ExecutionContext context = CURRENT.get();
+        return context != null ? context.variables : null;
+    }
+
+    public static void bind(ExecutionContext context) {
+        CURRENT.set(context);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+}
@@ -0,0 +1,218 @@
+package com.testplatform.testing.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 套件执行队列
+ * 同时运行的套件执行数和排队数都有上限，队列满时拒绝新的执行请求，
+ * 由调用方返回429并带上建议的重试时间
+ */
+@Component
+public class ExecutionQueue {
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionQueue.class);
+
+    /**
+     * 同时运行的套件执行数
+     */
+    @Value("${test-platform.execution.max-concurrent-executions:4}")
+    private int maxConcurrentExecutions;
+
+    /**
+     * 等待队列长度
+     */
+    @Value("${test-platform.execution.queue-capacity:100}")
+    private int queueCapacity;
+
+    /**
+     * 没有历史执行耗时时建议的重试间隔
+     */
+    @Value("${test-platform.execution.default-retry-after-seconds:30}")
+    private long defaultRetryAfterSeconds;
+
+    private ThreadPoolExecutor coordinatorPool;
+
+    /**
+     * 排队中的执行，按入队顺序
+     */
+    private final Map<String, QueuedExecution> waiting = new LinkedHashMap<>();
+
+    private final AtomicLong acceptedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong startedCount = new AtomicLong();
+    private final AtomicLong totalWaitMillis = new AtomicLong();
+    private final AtomicLong maxWaitMillis = new AtomicLong();
+    private final AtomicLong finishedCount = new AtomicLong();
+    private final AtomicLong totalRunMillis = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        coordinatorPool = new ThreadPoolExecutor(maxConcurrentExecutions, maxConcurrentExecutions, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+                Thread thread = new Thread(r, "suite-coordinator-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+        coordinatorPool.allowCoreThreadTimeOut(true);
+        logger.info("执行队列已初始化，并发执行数: {}，队列长度: {}", maxConcurrentExecutions, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinatorPool.shutdownNow();
+    }
+
+    /**
+     * 队列是否已满，用于在创建执行记录前快速拒绝
+     */
+    public boolean isFull() {
+        return coordinatorPool.getQueue().remainingCapacity() == 0
+            && coordinatorPool.getActiveCount() >= maxConcurrentExecutions;
+    }
+
+    /**
+     * 提交一次套件执行
+     * @throws ExecutionQueueFullException 队列已满时
+     */
+    public void submit(String executionId, Runnable task) {
+        QueuedExecution queued = new QueuedExecution(executionId, task);
+        synchronized (waiting) {
+            waiting.put(executionId, queued);
+        }
+        try {
+            coordinatorPool.execute(queued);
+            acceptedCount.incrementAndGet();
+        } catch (RejectedExecutionException e) {
+            synchronized (waiting) {
+                waiting.remove(executionId);
+            }
+            rejectedCount.incrementAndGet();
+            throw new ExecutionQueueFullException("执行队列已满，请稍后重试", getRetryAfterSeconds());
+        }
+    }
+
+    /**
+     * 取消仍在排队的执行
+     * @return 执行仍在排队并已移出队列时返回true
+     */
+    public boolean cancel(String executionId) {
+        QueuedExecution queued;
+        synchronized (waiting) {
+            queued = waiting.remove(executionId);
+        }
+        if (queued == null) {
+            return false;
+        }
+        coordinatorPool.remove(queued);
+        logger.info("已从执行队列移除: {}", executionId);
+        return true;
+    }
+
+    /**
+     * 获取执行在队列中的位置（从1开始），不在队列中时返回null
+     */
+    public Integer getQueuePosition(String executionId) {
+        synchronized (waiting) {
+            int position = 1;
+            for (String id : waiting.keySet()) {
+                if (id.equals(executionId)) {
+                    return position;
+                }
+                position++;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 建议的重试间隔：按平均执行耗时估算排在前面的执行全部开始所需的时间
+     */
+    public long getRetryAfterSeconds() {
+        long finished = finishedCount.get();
+        if (finished == 0) {
+            return defaultRetryAfterSeconds;
+        }
+        long averageRunMillis = totalRunMillis.get() / finished;
+        int queued;
+        synchronized (waiting) {
+            queued = waiting.size();
+        }
+        long rounds = (queued + maxConcurrentExecutions) / Math.max(1, maxConcurrentExecutions);
+        return Math.max(1, Math.min(3600, rounds * averageRunMillis / 1000));
+    }
+
+    /**
+     * 队列统计
+     */
+    public Map<String, Object> getStats() {
+        List<String> queuedIds;
+        synchronized (waiting) {
+            queuedIds = new ArrayList<>(waiting.keySet());
+        }
+        long started = startedCount.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxConcurrentExecutions", maxConcurrentExecutions);
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("running", coordinatorPool.getActiveCount());
+        stats.put("queued", queuedIds.size());
+        stats.put("queuedExecutionIds", queuedIds);
+        stats.put("accepted", acceptedCount.get());
+        stats.put("rejected", rejectedCount.get());
+        stats.put("averageWaitMs", started > 0 ? totalWaitMillis.get() / started : 0);
+        stats.put("maxWaitMs", maxWaitMillis.get());
+        stats.put("retryAfterSeconds", getRetryAfterSeconds());
+        return stats;
+    }
+
+    /**
+     * 排队中的执行，开始运行时记录等待时间
+     */
+    private class QueuedExecution implements Runnable {
+        private final String executionId;
+        private final Runnable task;
+        private final long enqueuedNanos = System.nanoTime();
+
+        QueuedExecution(String executionId, Runnable task) {
+            this.executionId = executionId;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            synchronized (waiting) {
+                if (waiting.remove(executionId) == null) {
+                    // 排队期间已被取消
+                    return;
+                }
+            }
+            long startNanos = System.nanoTime();
+            long waitMillis = (startNanos - enqueuedNanos) / 1_000_000;
+            startedCount.incrementAndGet();
+            totalWaitMillis.addAndGet(waitMillis);
+            maxWaitMillis.accumulateAndGet(waitMillis, Math::max);
+            logger.info("执行 {} 开始运行，排队等待 {} ms", executionId, waitMillis);
+            try {
+                task.run();
+            } finally {
+                finishedCount.incrementAndGet();
+                totalRunMillis.addAndGet((System.nanoTime() - startNanos) / 1_000_000);
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.testplatform.testing.engine;
+
+/**
+ * 执行队列已满
+ */
+public class ExecutionQueueFullException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public ExecutionQueueFullException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
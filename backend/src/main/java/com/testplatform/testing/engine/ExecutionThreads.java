@@ -0,0 +1,114 @@
+package com.testplatform.testing.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 用例与业务步骤的执行线程
+ * platform模式使用固定大小的平台线程池；virtual模式（JDK 21+）每个用例、每个并行步骤使用一个虚拟线程，
+ * 阻塞在HTTP响应或重试等待上时不占用平台线程。运行时不支持虚拟线程时自动回退到platform模式
+ */
+@Component
+public class ExecutionThreads {
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionThreads.class);
+
+    public static final String MODE_PLATFORM = "platform";
+    public static final String MODE_VIRTUAL = "virtual";
+
+    /**
+     * 线程模式：platform 或 virtual
+     */
+    @Value("${test-platform.execution.thread-mode:platform}")
+    private String threadMode;
+
+    /**
+     * platform模式下业务流程并行步骤的线程数
+     */
+    @Value("${test-platform.execution.step-threads:10}")
+    private int stepThreads;
+
+    private ExecutorService virtualExecutor;
+    private ExecutorService stepExecutor;
+
+    @PostConstruct
+    public void init() {
+        if (MODE_VIRTUAL.equalsIgnoreCase(threadMode)) {
+            virtualExecutor = newVirtualThreadPerTaskExecutor();
+            if (virtualExecutor == null) {
+                logger.warn("当前JDK（{}）不支持虚拟线程，回退到platform线程模式", System.getProperty("java.version"));
+            } else {
+                logger.info("用例执行使用虚拟线程模式");
+            }
+        }
+
+        if (virtualExecutor != null) {
+            stepExecutor = virtualExecutor;
+        } else {
+            int threads = Math.max(1, stepThreads);
+            AtomicInteger counter = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread thread = new Thread(r, "business-step-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            pool.allowCoreThreadTimeOut(true);
+            stepExecutor = pool;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stepExecutor.shutdownNow();
+        if (virtualExecutor != null && virtualExecutor != stepExecutor) {
+            virtualExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 是否运行在虚拟线程模式
+     */
+    public boolean isVirtual() {
+        return virtualExecutor != null;
+    }
+
+    /**
+     * 虚拟线程模式下执行用例的Executor，platform模式下返回null
+     */
+    public ExecutorService getCaseExecutor() {
+        return virtualExecutor;
+    }
+
+    /**
+     * 业务流程并行步骤使用的Executor
+     */
+    public ExecutorService getStepExecutor() {
+        return stepExecutor;
+    }
+
+    /**
+     * 通过反射调用Executors.newVirtualThreadPerTaskExecutor()，项目按Java 11编译
+     */
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.warn("创建虚拟线程Executor失败", e);
+            return null;
+        }
+    }
+}
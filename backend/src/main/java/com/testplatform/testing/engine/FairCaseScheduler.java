@@ -0,0 +1,375 @@
+package com.testplatform.testing.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 用例调度器
+ * 所有套件执行共享同一组用例工作线程，每次执行对应一个Flow：
+ * 1. 紧急用例（CRITICAL/HIGH或手动触发的执行）优先于普通用例出队
+ * 2. 同一优先级内按Flow权重做加权公平调度（虚拟时间），大套件无法独占工作线程
+ * 3. 同一目标环境的在途用例数达到上限（环境配置优先于全局配置）时，该环境的Flow暂不参与调度，
+ *    用例留在队列中等待，并累计该环境处于饱和状态的时间
+ * 每个Flow的在途用例数由执行引擎按套件并行度控制
+ */
+@Component
+public class FairCaseScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(FairCaseScheduler.class);
+
+    /**
+     * 用例工作线程数，0表示按CPU核数自动计算
+     */
+    @Value("${test-platform.execution.worker-threads:0}")
+    private int workerThreads;
+
+    /**
+     * 虚拟线程模式下全局在途用例数上限
+     */
+    @Value("${test-platform.execution.virtual-max-in-flight:10000}")
+    private int virtualMaxInFlight;
+
+    /**
+     * 单个目标环境的在途用例数上限，0表示不限制；环境配置了maxConcurrency时以环境配置为准
+     */
+    @Value("${test-platform.execution.environment-max-concurrency:0}")
+    private int environmentMaxConcurrency;
+
+    @Autowired
+    private ExecutionThreads executionThreads;
+
+    private ExecutorService workerPool;
+    private int maxRunning;
+
+    private final Object lock = new Object();
+    private final List<Flow> flows = new ArrayList<>();
+    private final Map<String, Integer> environmentInFlight = new HashMap<>();
+    private final Map<String, Integer> environmentLimits = new HashMap<>();
+    private final Map<String, EnvironmentThrottle> environmentThrottles = new HashMap<>();
+    private int running;
+    private double virtualClock;
+
+    @PostConstruct
+    public void init() {
+        if (executionThreads.isVirtual()) {
+            // 虚拟线程模式下每个用例一个虚拟线程，只限制在途总数
+            maxRunning = Math.max(1, virtualMaxInFlight);
+            workerPool = executionThreads.getCaseExecutor();
+            logger.info("用例调度器使用虚拟线程，在途上限: {}", maxRunning);
+            return;
+        }
+        maxRunning = workerThreads > 0 ? workerThreads : Runtime.getRuntime().availableProcessors() * 4;
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(maxRunning, maxRunning, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "case-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        workerPool = pool;
+        logger.info("用例执行线程池已初始化，线程数: {}", maxRunning);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // 虚拟线程Executor由ExecutionThreads负责关闭
+        if (!executionThreads.isVirtual()) {
+            workerPool.shutdownNow();
+        }
+    }
+
+    public int getWorkerCount() {
+        return maxRunning;
+    }
+
+    /**
+     * 为一次套件执行注册调度流
+     * @param environmentId 目标环境ID，用于按环境限制在途用例数，可为null
+     * @param weight 公平调度权重，权重越大分到的工作线程越多
+     */
+    public Flow openFlow(String name, String environmentId, int weight) {
+        return openFlow(name, environmentId, weight, null);
+    }
+
+    /**
+     * 为一次套件执行注册调度流，并更新目标环境的在途用例数上限
+     * @param environmentMaxConcurrency 环境配置的在途上限，为空或不大于0时使用全局配置
+     */
+    public Flow openFlow(String name, String environmentId, int weight, Integer environmentMaxConcurrency) {
+        Flow flow = new Flow(name, environmentId, Math.max(1, weight));
+        synchronized (lock) {
+            if (environmentId != null) {
+                if (environmentMaxConcurrency != null && environmentMaxConcurrency > 0) {
+                    environmentLimits.put(environmentId, environmentMaxConcurrency);
+                } else {
+                    environmentLimits.remove(environmentId);
+                }
+            }
+            flow.virtualTime = virtualClock;
+            flows.add(flow);
+        }
+        return flow;
+    }
+
+    /**
+     * 在有空闲工作线程时持续挑选下一个用例执行
+     */
+    private void drain() {
+        while (true) {
+            Dispatch next;
+            synchronized (lock) {
+                if (running >= maxRunning) {
+                    return;
+                }
+                next = pickNext();
+                if (next == null) {
+                    return;
+                }
+                running++;
+                acquireEnvironment(next.environmentId);
+            }
+            final Dispatch dispatch = next;
+            try {
+                workerPool.execute(() -> {
+                    try {
+                        dispatch.task.run();
+                    } finally {
+                        release(dispatch);
+                        drain();
+                    }
+                });
+            } catch (RuntimeException e) {
+                release(dispatch);
+                throw e;
+            }
+        }
+    }
+
+    private void release(Dispatch dispatch) {
+        synchronized (lock) {
+            running--;
+            releaseEnvironment(dispatch.environmentId);
+        }
+    }
+
+    private void acquireEnvironment(String environmentId) {
+        if (environmentId != null) {
+            environmentInFlight.merge(environmentId, 1, Integer::sum);
+        }
+    }
+
+    private void releaseEnvironment(String environmentId) {
+        if (environmentId != null) {
+            environmentInFlight.computeIfPresent(environmentId, (key, count) -> count > 1 ? count - 1 : null);
+            EnvironmentThrottle throttle = environmentThrottles.get(environmentId);
+            if (throttle != null && throttle.saturatedSinceNanos >= 0 && !isEnvironmentSaturated(environmentId)) {
+                throttle.saturatedNanos += System.nanoTime() - throttle.saturatedSinceNanos;
+                throttle.saturatedSinceNanos = -1;
+            }
+        }
+    }
+
+    private int environmentLimit(String environmentId) {
+        return environmentLimits.getOrDefault(environmentId, environmentMaxConcurrency);
+    }
+
+    /**
+     * 目标环境的在途用例数是否已达上限
+     */
+    private boolean isEnvironmentSaturated(String environmentId) {
+        if (environmentId == null) {
+            return false;
+        }
+        int limit = environmentLimit(environmentId);
+        return limit > 0 && environmentInFlight.getOrDefault(environmentId, 0) >= limit;
+    }
+
+    /**
+     * 有用例因环境饱和而等待时开始计时
+     */
+    private void markThrottled(String environmentId) {
+        EnvironmentThrottle throttle = environmentThrottles.computeIfAbsent(environmentId, key -> new EnvironmentThrottle());
+        if (throttle.saturatedSinceNanos < 0) {
+            throttle.saturatedSinceNanos = System.nanoTime();
+            throttle.episodes++;
+        }
+    }
+
+    /**
+     * 先看紧急队列再看普通队列，同级中选虚拟时间最小的Flow
+     */
+    private Dispatch pickNext() {
+        Dispatch next = pickNext(true);
+        return next != null ? next : pickNext(false);
+    }
+
+    private Dispatch pickNext(boolean urgent) {
+        Flow selected = null;
+        for (Flow flow : flows) {
+            if (flow.queue(urgent).isEmpty()) {
+                continue;
+            }
+            if (isEnvironmentSaturated(flow.environmentId)) {
+                markThrottled(flow.environmentId);
+            } else if (selected == null || flow.virtualTime < selected.virtualTime) {
+                selected = flow;
+            }
+        }
+        if (selected == null) {
+            return null;
+        }
+        virtualClock = Math.max(virtualClock, selected.virtualTime);
+        selected.virtualTime += 1.0 / selected.weight;
+        selected.dispatched++;
+        return new Dispatch(selected.queue(urgent).poll(), selected.environmentId);
+    }
+
+    /**
+     * 调度器统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (lock) {
+            int urgent = 0;
+            int normal = 0;
+            List<Map<String, Object>> flowStats = new ArrayList<>();
+            for (Flow flow : flows) {
+                urgent += flow.urgentTasks.size();
+                normal += flow.normalTasks.size();
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("name", flow.name);
+                item.put("environmentId", flow.environmentId);
+                item.put("weight", flow.weight);
+                item.put("queued", flow.urgentTasks.size() + flow.normalTasks.size());
+                item.put("dispatched", flow.dispatched);
+                flowStats.add(item);
+            }
+            stats.put("threadMode", executionThreads.isVirtual() ? ExecutionThreads.MODE_VIRTUAL : ExecutionThreads.MODE_PLATFORM);
+            stats.put("workers", maxRunning);
+            stats.put("running", running);
+            stats.put("queuedUrgent", urgent);
+            stats.put("queuedNormal", normal);
+            stats.put("environmentInFlight", new HashMap<>(environmentInFlight));
+            Map<String, Object> environments = new LinkedHashMap<>();
+            long now = System.nanoTime();
+            for (Map.Entry<String, EnvironmentThrottle> entry : environmentThrottles.entrySet()) {
+                EnvironmentThrottle throttle = entry.getValue();
+                long saturatedNanos = throttle.saturatedNanos
+                    + (throttle.saturatedSinceNanos >= 0 ? now - throttle.saturatedSinceNanos : 0);
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("maxConcurrency", environmentLimit(entry.getKey()));
+                item.put("inFlight", environmentInFlight.getOrDefault(entry.getKey(), 0));
+                item.put("saturated", throttle.saturatedSinceNanos >= 0);
+                item.put("throttleEpisodes", throttle.episodes);
+                item.put("throttledMs", saturatedNanos / 1_000_000);
+                environments.put(entry.getKey(), item);
+            }
+            stats.put("environmentThrottling", environments);
+            stats.put("flows", flowStats);
+        }
+        return stats;
+    }
+
+    /**
+     * 环境因在途上限被限流的统计
+     */
+    private static class EnvironmentThrottle {
+        private long saturatedSinceNanos = -1;
+        private long saturatedNanos;
+        private long episodes;
+    }
+
+    /**
+     * 已选出待执行的任务
+     */
+    private static class Dispatch {
+        private final Runnable task;
+        private final String environmentId;
+
+        Dispatch(Runnable task, String environmentId) {
+            this.task = task;
+            this.environmentId = environmentId;
+        }
+    }
+
+    /**
+     * 一次套件执行的调度流
+     */
+    public class Flow implements AutoCloseable {
+        private final String name;
+        private final String environmentId;
+        private final int weight;
+        private final Deque<Runnable> urgentTasks = new ArrayDeque<>();
+        private final Deque<Runnable> normalTasks = new ArrayDeque<>();
+        private double virtualTime;
+        private long dispatched;
+
+        private Flow(String name, String environmentId, int weight) {
+            this.name = name;
+            this.environmentId = environmentId;
+            this.weight = weight;
+        }
+
+        private Deque<Runnable> queue(boolean urgent) {
+            return urgent ? urgentTasks : normalTasks;
+        }
+
+        /**
+         * 提交用例任务
+         * @param urgent 是否进入紧急队列
+         */
+        public void submit(boolean urgent, Runnable task) {
+            synchronized (lock) {
+                if (urgentTasks.isEmpty() && normalTasks.isEmpty()) {
+                    // 空闲后重新排队的Flow不能累积之前的份额
+                    virtualTime = Math.max(virtualTime, virtualClock);
+                }
+                queue(urgent).add(task);
+            }
+            drain();
+        }
+
+        /**
+         * 丢弃尚未开始的任务
+         * @return 丢弃的任务
+         */
+        public List<Runnable> cancelPending() {
+            synchronized (lock) {
+                List<Runnable> dropped = new ArrayList<>(urgentTasks);
+                dropped.addAll(normalTasks);
+                urgentTasks.clear();
+                normalTasks.clear();
+                return dropped;
+            }
+        }
+
+        /**
+         * 注销调度流，丢弃尚未开始的任务
+         */
+        @Override
+        public void close() {
+            synchronized (lock) {
+                urgentTasks.clear();
+                normalTasks.clear();
+                flows.remove(this);
+            }
+        }
+    }
+}
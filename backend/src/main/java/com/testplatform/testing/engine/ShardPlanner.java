@@ -0,0 +1,163 @@
+package com.testplatform.testing.engine;
+
+import com.testplatform.model.TestCase;
+import com.testplatform.service.TestSuiteService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * 套件分片规划
+ * 按历史耗时把用例分成N个耗时接近的分片，供外部CI并行运行：
+ * 有依赖关系的用例作为一组分到同一分片，各组按预估耗时从大到小依次放入当前负载最小的分片（LPT）
+ */
+@Component
+public class ShardPlanner {
+
+    @Autowired
+    private TestSuiteService testSuiteService;
+
+    @Autowired
+    private DurationEstimator durationEstimator;
+
+    /**
+     * 为套件规划分片
+     * @throws IllegalArgumentException 分片数小于1、超过用例数或依赖配置无效时
+     */
+    public ShardPlan plan(String suiteId, int shardCount) {
+        List<TestCase> testCases = testSuiteService.getOrderedTestCases(suiteId);
+        checkShardCount(testCases, shardCount);
+        return plan(testCases, testSuiteService.getCaseDependencies(suiteId), durationEstimator.estimate(testCases), shardCount);
+    }
+
+    /**
+     * 分片数不能超过用例数（空套件允许1个分片），多出的分片只会是空分片
+     */
+    private static void checkShardCount(List<TestCase> testCases, int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("分片数必须大于0");
+        }
+        if (shardCount > Math.max(1, testCases.size())) {
+            throw new IllegalArgumentException("分片数不能超过用例数: " + Math.max(1, testCases.size()));
+        }
+    }
+
+    /**
+     * 规划分片，分片内的用例按依赖的拓扑顺序排列
+     * @param estimates 用例ID -> 预估耗时（毫秒）
+     */
+    public static ShardPlan plan(List<TestCase> testCases, Map<String, List<String>> dependencies,
+                                 Map<String, Long> estimates, int shardCount) {
+        checkShardCount(testCases, shardCount);
+        CaseDependencyGraph graph = CaseDependencyGraph.build(testCases, dependencies);
+        int[] position = new int[graph.size()];
+        List<Integer> order = graph.getTopologicalOrder();
+        for (int i = 0; i < order.size(); i++) {
+            position[order.get(i)] = i;
+        }
+
+        // 有依赖关系（连通）的用例合并为一组
+        int[] group = new int[graph.size()];
+        for (int i = 0; i < group.length; i++) {
+            group[i] = i;
+        }
+        for (int i = 0; i < graph.size(); i++) {
+            for (int parent : graph.getParents(i)) {
+                group[find(group, i)] = find(group, parent);
+            }
+        }
+        Map<Integer, List<Integer>> members = new LinkedHashMap<>();
+        Map<Integer, Long> groupWeights = new LinkedHashMap<>();
+        for (int i = 0; i < graph.size(); i++) {
+            int root = find(group, i);
+            members.computeIfAbsent(root, key -> new ArrayList<>()).add(i);
+            groupWeights.merge(root, estimates.getOrDefault(graph.getTestCase(i).getId(), 0L), Long::sum);
+        }
+        List<Integer> roots = new ArrayList<>(members.keySet());
+        roots.sort(Comparator.comparing((Integer root) -> groupWeights.get(root)).reversed()
+            .thenComparing(root -> members.get(root).get(0)));
+
+        List<Shard> shards = new ArrayList<>(shardCount);
+        PriorityQueue<Shard> byLoad = new PriorityQueue<>(Comparator.comparingLong(Shard::getEstimatedDurationMs)
+            .thenComparingInt(Shard::getIndex));
+        for (int i = 0; i < shardCount; i++) {
+            Shard shard = new Shard(i);
+            shards.add(shard);
+            byLoad.add(shard);
+        }
+        Map<Shard, List<Integer>> assigned = new LinkedHashMap<>();
+        for (int root : roots) {
+            Shard shard = byLoad.poll();
+            assigned.computeIfAbsent(shard, key -> new ArrayList<>()).addAll(members.get(root));
+            shard.estimatedDurationMs += groupWeights.get(root);
+            byLoad.add(shard);
+        }
+
+        long makespan = 0;
+        long total = 0;
+        for (Shard shard : shards) {
+            List<Integer> nodes = assigned.getOrDefault(shard, new ArrayList<>());
+            nodes.sort(Comparator.comparingInt(node -> position[node]));
+            for (int node : nodes) {
+                shard.testCaseIds.add(graph.getTestCase(node).getId());
+                shard.testCaseNames.add(graph.getTestCase(node).getName());
+            }
+            makespan = Math.max(makespan, shard.estimatedDurationMs);
+            total += shard.estimatedDurationMs;
+        }
+        return new ShardPlan(shards, makespan, total);
+    }
+
+    private static int find(int[] group, int node) {
+        while (group[node] != node) {
+            group[node] = group[group[node]];
+            node = group[node];
+        }
+        return node;
+    }
+
+    /**
+     * 分片规划结果
+     */
+    public static class ShardPlan {
+        private final List<Shard> shards;
+        private final long estimatedMakespanMs;
+        private final long totalEstimatedMs;
+
+        ShardPlan(List<Shard> shards, long estimatedMakespanMs, long totalEstimatedMs) {
+            this.shards = shards;
+            this.estimatedMakespanMs = estimatedMakespanMs;
+            this.totalEstimatedMs = totalEstimatedMs;
+        }
+
+        public int getShardCount() { return shards.size(); }
+        public List<Shard> getShards() { return shards; }
+        public long getEstimatedMakespanMs() { return estimatedMakespanMs; }
+        public long getTotalEstimatedMs() { return totalEstimatedMs; }
+    }
+
+    /**
+     * 单个分片
+     */
+    public static class Shard {
+        private final int index;
+        private final List<String> testCaseIds = new ArrayList<>();
+        private final List<String> testCaseNames = new ArrayList<>();
+        private long estimatedDurationMs;
+
+        Shard(int index) {
+            this.index = index;
+        }
+
+        public int getIndex() { return index; }
+        public List<String> getTestCaseIds() { return testCaseIds; }
+        public List<String> getTestCaseNames() { return testCaseNames; }
+        public long getEstimatedDurationMs() { return estimatedDurationMs; }
+    }
+}
@@ -0,0 +1,606 @@
+package com.testplatform.testing.engine;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.testplatform.model.ExecutionWorkItem;
+import com.testplatform.model.TestCase;
+import com.testplatform.model.TestCaseExecution;
+import com.testplatform.model.TestEnvironment;
+import com.testplatform.model.TestExecution;
+import com.testplatform.model.TestSuite;
+import com.testplatform.repository.TestCaseExecutionRepository;
+import com.testplatform.repository.TestExecutionRepository;
+import com.testplatform.service.ExecutionWorkItemService;
+import com.testplatform.service.TestSuiteService;
+import com.testplatform.testing.TestExecutionResult;
+import com.testplatform.testing.TestExecutor;
+import com.testplatform.testing.TestExecutorFactory;
+import com.testplatform.testing.VariableManager;
+import com.testplatform.testing.VariableScope;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 测试套件执行引擎
+ * 按套件顺序加载用例，通过FairCaseScheduler分发到共享的用例工作线程并行执行，
+ * 每个用例写入一条TestCaseExecution记录，并汇总TestExecution的统计和进度
+ */
+@Component
+public class SuiteExecutionEngine {
+    private static final Logger logger = LoggerFactory.getLogger(SuiteExecutionEngine.class);
+
+    @Autowired
+    private TestSuiteService testSuiteService;
+
+    @Autowired
+    private TestExecutorFactory testExecutorFactory;
+
+    @Autowired
+    private TestExecutionRepository testExecutionRepository;
+
+    @Autowired
+    private TestCaseExecutionRepository testCaseExecutionRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private FairCaseScheduler caseScheduler;
+
+    @Autowired
+    private ExecutionWorkItemService executionWorkItemService;
+
+    @Autowired
+    private VariableManager variableManager;
+
+    @Autowired
+    private DurationEstimator durationEstimator;
+
+    /**
+     * 本进程上正在执行的套件（执行ID -> 统计），用例结束时据此写入检查点
+     */
+    private final Map<String, SuiteRun> activeRuns = new ConcurrentHashMap<>();
+
+    /**
+     * 套件未配置并行度时使用的默认值，0表示使用工作线程数
+     */
+    @Value("${test-platform.execution.default-parallelism:0}")
+    private int defaultParallelism;
+
+    /**
+     * 进度写回数据库的最小间隔
+     */
+    @Value("${test-platform.execution.progress-flush-interval-ms:1000}")
+    private long progressFlushIntervalMs;
+
+    /**
+     * 手动触发执行的公平调度权重，定时执行的权重为1
+     */
+    @Value("${test-platform.execution.manual-weight:2}")
+    private int manualWeight;
+
+    /**
+     * 就绪用例按历史耗时排序：预估剩余依赖链最长的先执行（无依赖时即最长处理时间优先），
+     * 关闭时按套件顺序执行
+     */
+    @Value("${test-platform.execution.duration-aware-scheduling:true}")
+    private boolean durationAwareScheduling;
+
+    /**
+     * 执行测试套件中的所有用例
+     * 调用线程负责调度：依赖全部通过的用例进入就绪队列，保持最多parallelism个用例在执行中，
+     * 用例失败时跳过其所有后代用例；取消后丢弃排队中的用例，中断执行中的用例
+     */
+    public SuiteRun execute(TestExecution execution, TestSuite testSuite, TestEnvironment environment,
+                            CancellationToken cancellationToken) throws InterruptedException {
+        return execute(execution, testSuite, environment, cancellationToken, Collections.emptyMap());
+    }
+
+    /**
+     * 执行测试套件，已有结果的用例不再执行
+     * @param completedCases 恢复执行时之前已执行完成的用例（用例ID -> 用例执行记录），
+     *                       其结果计入本次统计，通过的用例解除后继依赖，未通过的用例跳过后代
+     */
+    public SuiteRun execute(TestExecution execution, TestSuite testSuite, TestEnvironment environment,
+                            CancellationToken cancellationToken, Map<String, TestCaseExecution> completedCases)
+            throws InterruptedException {
+        List<TestCase> testCases = testSuiteService.getOrderedTestCases(testSuite.getId());
+        CaseDependencyGraph graph = CaseDependencyGraph.build(testCases, testSuiteService.getCaseDependencies(testSuite.getId()));
+        TestExecutor executor = testExecutorFactory.getExecutor(testSuite);
+        int parallelism = resolveParallelism(testSuite, testCases.size());
+
+        SuiteRun run = new SuiteRun(execution.getId(), testCases.size());
+        activeRuns.put(execution.getId(), run);
+        try {
+            flushProgress(run, true);
+            logger.info("开始执行套件 {}，共 {} 个用例，并行度 {}，依赖调度: {}", testSuite.getName(), testCases.size(),
+                parallelism, graph.hasDependencies());
+
+            BlockingQueue<CaseCompletion> completions = new LinkedBlockingQueue<>();
+            int[] unmetDependencies = graph.inDegrees();
+            boolean[] skipped = new boolean[graph.size()];
+            boolean[] started = new boolean[graph.size()];
+            long[] durations = new long[graph.size()];
+            String testType = testSuite.getType().name();
+
+            if (!completedCases.isEmpty()) {
+                resumeCompletedCases(run, graph, completedCases, unmetDependencies, skipped, started, durations, testType);
+            }
+            long[] ranks = rankCases(graph, testCases);
+            PriorityQueue<Integer> ready = new PriorityQueue<>((a, b) -> ranks[a] != ranks[b]
+                ? Long.compare(ranks[b], ranks[a]) : Integer.compare(a, b));
+            for (int i = 0; i < graph.size(); i++) {
+                if (unmetDependencies[i] == 0 && !started[i] && !skipped[i]) {
+                    ready.add(i);
+                }
+            }
+            boolean manual = isManual(execution);
+            int inFlight = 0;
+
+            // 取消时唤醒调度线程
+            Runnable cancelSignal = cancellationToken.onCancel(() -> completions.add(CaseCompletion.CANCELLED));
+            try (FairCaseScheduler.Flow flow = caseScheduler.openFlow(execution.getId(),
+                    environment != null ? environment.getId() : null, manual ? manualWeight : 1,
+                    environment != null ? environment.getMaxConcurrency() : null)) {
+                while (!ready.isEmpty() || inFlight > 0) {
+                    if (cancellationToken.isCancelled()) {
+                        ready.clear();
+                        // 被丢弃的用例没有开始，取消后按未运行的用例计入跳过数
+                        for (Runnable dropped : flow.cancelPending()) {
+                            started[((CaseTask) dropped).index] = false;
+                            inFlight--;
+                        }
+                    } else {
+                        while (inFlight < parallelism && !ready.isEmpty()) {
+                            int index = ready.poll();
+                            TestCase testCase = graph.getTestCase(index);
+                            started[index] = true;
+                            flow.submit(manual || isUrgent(testCase), new CaseTask(index, () -> completions.add(
+                                runCase(index, execution.getId(), testSuite.getId(), executor, testCase, environment, testType,
+                                    cancellationToken))));
+                            inFlight++;
+                        }
+                    }
+                    if (inFlight == 0) {
+                        continue;
+                    }
+
+                    CaseCompletion completion = completions.take();
+                    if (completion == CaseCompletion.CANCELLED) {
+                        continue;
+                    }
+                    inFlight--;
+                    durations[completion.index] = completion.result.getExecutionTime();
+                    if (completion.cancelled) {
+                        run.recordSkipped(completion.result);
+                    } else {
+                        run.record(completion.result);
+                    }
+
+                    if (completion.result.isSuccess()) {
+                        for (int child : graph.getChildren(completion.index)) {
+                            if (!skipped[child] && --unmetDependencies[child] == 0) {
+                                ready.add(child);
+                            }
+                        }
+                    } else if (!completion.cancelled) {
+                        skipDescendants(run, graph, completion.index, skipped, started, testType);
+                    }
+                    flushProgress(run, false);
+                }
+            } finally {
+                cancellationToken.unregister(cancelSignal);
+            }
+
+            if (cancellationToken.isCancelled()) {
+                run.setCancelled(true);
+                // 未开始的用例只计入跳过数，不写用例执行记录，恢复执行时会重新运行
+                for (int i = 0; i < graph.size(); i++) {
+                    if (!started[i] && !skipped[i]) {
+                        TestCase testCase = graph.getTestCase(i);
+                        run.recordSkipped(new TestExecutionResult(false, "执行已取消，用例未运行", 0,
+                            testCase.getId(), testCase.getName(), testType));
+                    }
+                }
+                logger.info("套件 {} 已取消", testSuite.getName());
+            }
+
+            if (graph.hasDependencies()) {
+                run.setCriticalPath(graph.criticalPath(durations));
+            }
+            flushProgress(run, true);
+            logger.info("套件 {} 执行结束: 通过 {}, 失败 {}, 跳过 {}, 耗时 {} ms", testSuite.getName(),
+                run.getPassedTests(), run.getFailedTests(), run.getSkippedTests(), run.getElapsedMillis());
+        } finally {
+            activeRuns.remove(execution.getId(), run);
+        }
+        return run;
+    }
+
+    /**
+     * 分布式模式：把套件用例写入工作项表，由各副本的DistributedCaseWorker租用执行
+     * 依赖关系记录为未满足依赖数和后继用例，套件并行度作为同一执行同时租出的上限
+     * @return 工作项数
+     */
+    public int enqueue(TestExecution execution, TestSuite testSuite, TestEnvironment environment) {
+        List<TestCase> testCases = testSuiteService.getOrderedTestCases(testSuite.getId());
+        CaseDependencyGraph graph = CaseDependencyGraph.build(testCases, testSuiteService.getCaseDependencies(testSuite.getId()));
+        int parallelism = resolveParallelism(testSuite, testCases.size());
+        boolean manual = isManual(execution);
+
+        List<ExecutionWorkItem> items = new ArrayList<>();
+        for (int i = 0; i < graph.size(); i++) {
+            TestCase testCase = graph.getTestCase(i);
+            ExecutionWorkItem item = new ExecutionWorkItem();
+            item.setId(UUID.randomUUID().toString());
+            item.setExecutionId(execution.getId());
+            item.setSuiteId(testSuite.getId());
+            item.setEnvironmentId(environment != null ? environment.getId() : null);
+            item.setTestCaseId(testCase.getId());
+            item.setTestCaseName(testCase.getName());
+            item.setCaseIndex(i);
+            item.setUrgent(manual || isUrgent(testCase));
+            item.setMaxParallelism(parallelism);
+            item.setBlockedBy(graph.getParents(i).size());
+            List<String> dependents = new ArrayList<>();
+            for (int child : graph.getChildren(i)) {
+                dependents.add(graph.getTestCase(child).getId());
+            }
+            item.setDependents(dependents);
+            items.add(item);
+        }
+        executionWorkItemService.enqueue(execution.getId(), items);
+        logger.info("套件 {} 已写入 {} 个工作项，并行度 {}，依赖调度: {}", testSuite.getName(), items.size(),
+            parallelism, graph.hasDependencies());
+        return items.size();
+    }
+
+    /**
+     * 计算就绪队列的排序秩，未开启按耗时调度时全部为0（按套件顺序）
+     */
+    private long[] rankCases(CaseDependencyGraph graph, List<TestCase> testCases) {
+        long[] weights = new long[graph.size()];
+        if (durationAwareScheduling && graph.size() > 1) {
+            Map<String, Long> estimates = durationEstimator.estimate(testCases);
+            for (int i = 0; i < graph.size(); i++) {
+                weights[i] = estimates.getOrDefault(graph.getTestCase(i).getId(), 0L);
+            }
+        }
+        return graph.upwardRanks(weights);
+    }
+
+    private boolean isManual(TestExecution execution) {
+        return execution.getExecutionType() == null || "MANUAL".equalsIgnoreCase(execution.getExecutionType());
+    }
+
+    /**
+     * CRITICAL/HIGH用例进入紧急队列，可越过其他执行的普通用例
+     */
+    private boolean isUrgent(TestCase testCase) {
+        return testCase.getPriority() == TestCase.Priority.CRITICAL || testCase.getPriority() == TestCase.Priority.HIGH;
+    }
+
+    /**
+     * 恢复执行：把之前已完成的用例计入统计并按结果推进依赖
+     */
+    private void resumeCompletedCases(SuiteRun run, CaseDependencyGraph graph, Map<String, TestCaseExecution> completedCases,
+                                      int[] unmetDependencies, boolean[] skipped, boolean[] started, long[] durations,
+                                      String testType) {
+        for (int i = 0; i < graph.size(); i++) {
+            TestCase testCase = graph.getTestCase(i);
+            TestCaseExecution previous = completedCases.get(testCase.getId());
+            if (previous == null) {
+                continue;
+            }
+            started[i] = true;
+            boolean success = previous.getStatus() == TestCaseExecution.ExecutionStatus.PASSED;
+            long durationMs = previous.getDurationMs() != null ? previous.getDurationMs() : 0;
+            TestExecutionResult result = new TestExecutionResult(success,
+                success ? "之前的执行中已通过" : previous.getErrorMessage(), durationMs, testCase.getId(), testCase.getName(), testType);
+            result.setErrorDetails(previous.getErrorDetails());
+            if (previous.getStartTime() != null) {
+                result.setStartTime(previous.getStartTime().toString());
+            }
+            if (previous.getEndTime() != null) {
+                result.setEndTime(previous.getEndTime().toString());
+            }
+            durations[i] = durationMs;
+            run.record(result);
+        }
+
+        int resumed = 0;
+        for (int i = 0; i < graph.size(); i++) {
+            if (!started[i]) {
+                continue;
+            }
+            resumed++;
+            if (completedCases.get(graph.getTestCase(i).getId()).getStatus() == TestCaseExecution.ExecutionStatus.PASSED) {
+                for (int child : graph.getChildren(i)) {
+                    unmetDependencies[child]--;
+                }
+            } else {
+                skipDescendants(run, graph, i, skipped, started, testType);
+            }
+        }
+        logger.info("恢复执行 {}：{} 个用例已在之前完成，继续执行其余 {} 个用例", run.getExecutionId(), resumed,
+            graph.size() - resumed);
+    }
+
+    /**
+     * 用例失败后跳过所有依赖它的后代用例
+     */
+    private void skipDescendants(SuiteRun run, CaseDependencyGraph graph, int failedIndex, boolean[] skipped,
+                                 boolean[] started, String testType) {
+        TestCase failedCase = graph.getTestCase(failedIndex);
+        for (int descendant : graph.getDescendants(failedIndex)) {
+            if (skipped[descendant] || started[descendant]) {
+                continue;
+            }
+            skipped[descendant] = true;
+            TestCase testCase = graph.getTestCase(descendant);
+            TestExecutionResult result = new TestExecutionResult(false, "依赖的用例未通过，已跳过: " + failedCase.getName(), 0,
+                testCase.getId(), testCase.getName(), testType);
+            run.recordSkipped(result);
+            saveCaseExecution(run.getExecutionId(), testCase.getId(), TestCaseExecution.ExecutionStatus.SKIPPED,
+                LocalDateTime.now(), 0, result);
+        }
+    }
+
+    /**
+     * 执行单个用例并写入用例执行记录，任何异常都转换为失败结果
+     * 执行期间绑定ExecutionContext，取消时中断当前线程；因取消而未通过的用例记为SKIPPED
+     */
+    CaseCompletion runCase(int index, String executionId, String suiteId, TestExecutor executor, TestCase testCase,
+                                   TestEnvironment environment, String testType, CancellationToken cancellationToken) {
+        LocalDateTime startTime = LocalDateTime.now();
+        long startNanos = System.nanoTime();
+        TestExecutionResult result;
+        boolean error = false;
+        Map<String, Object> caseVariables = Collections.emptyMap();
+
+        // 用例在执行作用域的子作用域中读写变量，结束后合并回执行作用域，供依赖它的用例引用
+        VariableScope executionScope = variableManager.getExecutionScope(executionId);
+        VariableScope caseScope = executionScope != null ? executionScope.child() : null;
+        ExecutionContext.bind(new ExecutionContext(executionId, cancellationToken, caseScope, suiteId));
+        Thread worker = Thread.currentThread();
+        Runnable interrupter = cancellationToken.onCancel(worker::interrupt);
+        try {
+            if (cancellationToken.isCancelled()) {
+                result = new TestExecutionResult(false, "执行已取消", 0);
+            } else {
+                result = executor.execute(testCase, environment);
+            }
+            if (result == null) {
+                result = new TestExecutionResult(false, "执行器未返回结果", 0);
+            }
+        } catch (Exception e) {
+            logger.error("用例执行异常: {}", testCase.getName(), e);
+            result = new TestExecutionResult(false, "用例执行异常: " + e.getMessage(), 0);
+            result.setErrorDetails(e.toString());
+            error = true;
+        } finally {
+            cancellationToken.unregister(interrupter);
+            // 清除取消产生的中断标记，避免影响后续的数据库写入和线程复用
+            Thread.interrupted();
+            ExecutionContext.clear();
+            if (caseScope != null) {
+                caseVariables = caseScope.snapshot();
+                caseScope.mergeIntoParent();
+            }
+        }
+
+        boolean cancelled = !result.isSuccess() && cancellationToken.isCancelled();
+        if (cancelled) {
+            result.setMessage("执行已取消: " + result.getMessage());
+        }
+        long durationMs = (System.nanoTime() - startNanos) / 1_000_000;
+        result.setTestCaseId(testCase.getId());
+        result.setTestCaseName(testCase.getName());
+        result.setTestType(testType);
+        result.setExecutionTime(durationMs);
+        result.setStartTime(startTime.toString());
+        result.setEndTime(LocalDateTime.now().toString());
+
+        TestCaseExecution.ExecutionStatus status = result.isSuccess() ? TestCaseExecution.ExecutionStatus.PASSED
+            : cancelled ? TestCaseExecution.ExecutionStatus.SKIPPED
+            : error ? TestCaseExecution.ExecutionStatus.ERROR : TestCaseExecution.ExecutionStatus.FAILED;
+        // 写入了变量的通过用例先写检查点再写用例执行记录：恢复执行时该用例被跳过，其变量从检查点恢复
+        SuiteRun run = activeRuns.get(executionId);
+        if (run != null && status == TestCaseExecution.ExecutionStatus.PASSED && !caseVariables.isEmpty()) {
+            writeCheckpoint(run);
+        }
+        saveCaseExecution(executionId, testCase.getId(), status, startTime, durationMs, result);
+        return new CaseCompletion(index, result, cancelled, status, caseVariables);
+    }
+
+    private void saveCaseExecution(String executionId, String testCaseId, TestCaseExecution.ExecutionStatus status,
+                                   LocalDateTime startTime, long durationMs, TestExecutionResult result) {
+        try {
+            TestCaseExecution caseExecution = new TestCaseExecution(UUID.randomUUID().toString(), executionId, testCaseId, status);
+            caseExecution.setStartTime(startTime);
+            caseExecution.setEndTime(LocalDateTime.now());
+            caseExecution.setDurationMs((int) Math.min(durationMs, Integer.MAX_VALUE));
+            if (!result.isSuccess()) {
+                caseExecution.setErrorMessage(result.getMessage());
+                caseExecution.setErrorDetails(result.getErrorDetails());
+            }
+            testCaseExecutionRepository.save(caseExecution);
+        } catch (Exception e) {
+            logger.error("保存用例执行记录失败: {}", testCaseId, e);
+        }
+    }
+
+    /**
+     * 计算套件并行度：套件配置 > 全局默认 > 工作线程数，且不超过用例数
+     */
+    private int resolveParallelism(TestSuite testSuite, int caseCount) {
+        int parallelism;
+        if (testSuite.getParallelism() != null && testSuite.getParallelism() > 0) {
+            parallelism = testSuite.getParallelism();
+        } else if (defaultParallelism > 0) {
+            parallelism = defaultParallelism;
+        } else {
+            parallelism = caseScheduler.getWorkerCount();
+        }
+        return Math.max(1, Math.min(parallelism, caseCount));
+    }
+
+    /**
+     * 把统计和进度写回TestExecution，非强制写入时按间隔节流
+     */
+    private void flushProgress(SuiteRun run, boolean force) {
+        long now = System.nanoTime();
+        if (!force && now - run.getLastFlushNanos() < TimeUnit.MILLISECONDS.toNanos(progressFlushIntervalMs)) {
+            return;
+        }
+        run.setLastFlushNanos(now);
+        try {
+            testExecutionRepository.updateProgress(run.getExecutionId(), run.getTotalTests(), run.getPassedTests(),
+                run.getFailedTests(), run.getSkippedTests(), run.getProgress(), LocalDateTime.now());
+        } catch (Exception e) {
+            logger.error("更新执行进度失败: {}", run.getExecutionId(), e);
+        }
+        writeCheckpoint(run);
+    }
+
+    /**
+     * 写入检查点，同一执行的写入串行进行：快照在锁内生成，后写入的检查点总是包含先前已合并的变量
+     */
+    private void writeCheckpoint(SuiteRun run) {
+        synchronized (run) {
+            try {
+                String checkpoint = buildCheckpoint(run);
+                if (checkpoint != null) {
+                    testExecutionRepository.updateCheckpoint(run.getExecutionId(), checkpoint, LocalDateTime.now());
+                }
+            } catch (Exception e) {
+                logger.error("写入执行检查点失败: {}", run.getExecutionId(), e);
+            }
+        }
+    }
+
+    /**
+     * 生成检查点：用例进度以用例执行记录为准，这里保存恢复执行所需的变量状态
+     */
+    private String buildCheckpoint(SuiteRun run) {
+        Map<String, Object> checkpoint = new LinkedHashMap<>();
+        checkpoint.put("completedTests", run.getCompletedTests());
+        VariableScope executionScope = variableManager.getExecutionScope(run.getExecutionId());
+        checkpoint.put("localVariables", executionScope != null ? executionScope.snapshot() : variableManager.getAllLocalVariables());
+        checkpoint.put("sessionVariables", executionScope != null ? Collections.emptyMap() : variableManager.getAllSessionVariables());
+        checkpoint.put("savedAt", LocalDateTime.now().toString());
+        try {
+            return objectMapper.writeValueAsString(checkpoint);
+        } catch (Exception e) {
+            logger.warn("序列化执行检查点失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 生成报告可解析的执行日志（{"results": [...]} 格式）
+     */
+    public String buildExecutionLog(SuiteRun run) {
+        try {
+            Map<String, Object> log = new LinkedHashMap<>();
+            log.put("results", run.getResults());
+            if (run.getCriticalPath() != null) {
+                log.put("criticalPath", run.getCriticalPath());
+            }
+            return objectMapper.writeValueAsString(log);
+        } catch (Exception e) {
+            logger.error("序列化执行结果失败", e);
+            return null;
+        }
+    }
+
+    /**
+     * 生成执行结果摘要
+     */
+    public String buildSummary(SuiteRun run) {
+        String summary = String.format("测试执行完成: 共 %d 个用例, 通过 %d, 失败 %d, 跳过 %d, 耗时 %d ms",
+            run.getTotalTests(), run.getPassedTests(), run.getFailedTests(), run.getSkippedTests(), run.getElapsedMillis());
+        if (run.isCancelled()) {
+            summary += " (已取消)";
+        }
+        CaseDependencyGraph.CriticalPath criticalPath = run.getCriticalPath();
+        if (criticalPath != null) {
+            summary += String.format("; 关键路径 %d ms: %s", criticalPath.getDurationMs(),
+                String.join(" -> ", criticalPath.getTestCaseNames()));
+        }
+        return summary;
+    }
+
+    /**
+     * 提交到调度流的用例任务，取消时据此找回被丢弃的用例
+     */
+    private static class CaseTask implements Runnable {
+        private final int index;
+        private final Runnable body;
+
+        CaseTask(int index, Runnable body) {
+            this.index = index;
+            this.body = body;
+        }
+
+        @Override
+        public void run() {
+            body.run();
+        }
+    }
+
+    /**
+     * 用例执行完成事件
+     */
+    static class CaseCompletion {
+        /**
+         * 取消信号，只用于唤醒调度线程
+         */
+        static final CaseCompletion CANCELLED = new CaseCompletion(-1, null, true, null, Collections.emptyMap());
+
+        private final int index;
+        private final TestExecutionResult result;
+        private final boolean cancelled;
+        private final TestCaseExecution.ExecutionStatus status;
+        private final Map<String, Object> variables;
+
+        CaseCompletion(int index, TestExecutionResult result, boolean cancelled, TestCaseExecution.ExecutionStatus status,
+                       Map<String, Object> variables) {
+            this.index = index;
+            this.result = result;
+            this.cancelled = cancelled;
+            this.status = status;
+            this.variables = variables;
+        }
+
+        TestExecutionResult getResult() {
+            return result;
+        }
+
+        TestCaseExecution.ExecutionStatus getStatus() {
+            return status;
+        }
+
+        /**
+         * 用例写入的变量（已合并到执行作用域）
+         */
+        Map<String, Object> getVariables() {
+            return variables;
+        }
+    }
+}
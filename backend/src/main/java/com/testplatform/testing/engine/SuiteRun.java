@@ -0,0 +1,129 @@
+package com.testplatform.testing.engine;
+
+import com.testplatform.testing.TestExecutionResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一次套件执行的运行期状态
+ * 统计计数由调度线程更新，其他线程（进度查询、监控）只读
+ */
+public class SuiteRun {
+    private final String executionId;
+    private final int totalTests;
+    private final long startNanos = System.nanoTime();
+    private final AtomicInteger passedTests = new AtomicInteger();
+    private final AtomicInteger failedTests = new AtomicInteger();
+    private final AtomicInteger skippedTests = new AtomicInteger();
+    private final List<TestExecutionResult> results = Collections.synchronizedList(new ArrayList<>());
+    private volatile long lastFlushNanos;
+    private volatile CaseDependencyGraph.CriticalPath criticalPath;
+    private volatile boolean cancelled;
+    private volatile long elapsedMillis = -1;
+
+    public SuiteRun(String executionId, int totalTests) {
+        this.executionId = executionId;
+        this.totalTests = totalTests;
+    }
+
+    /**
+     * 记录单个用例的执行结果
+     */
+    public void record(TestExecutionResult result) {
+        results.add(result);
+        if (result.isSuccess()) {
+            passedTests.incrementAndGet();
+        } else {
+            failedTests.incrementAndGet();
+        }
+    }
+
+    /**
+     * 记录被跳过的用例
+     */
+    public void recordSkipped(TestExecutionResult result) {
+        results.add(result);
+        skippedTests.incrementAndGet();
+    }
+
+    public int getCompletedTests() {
+        return passedTests.get() + failedTests.get() + skippedTests.get();
+    }
+
+    /**
+     * 执行进度百分比（0-100）
+     */
+    public int getProgress() {
+        if (totalTests == 0) {
+            return 100;
+        }
+        return (int) (getCompletedTests() * 100L / totalTests);
+    }
+
+    public long getElapsedMillis() {
+        if (elapsedMillis >= 0) {
+            return elapsedMillis;
+        }
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * 使用外部记录的耗时，用于由工作项汇总的分布式执行
+     */
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public String getExecutionId() {
+        return executionId;
+    }
+
+    public int getTotalTests() {
+        return totalTests;
+    }
+
+    public int getPassedTests() {
+        return passedTests.get();
+    }
+
+    public int getFailedTests() {
+        return failedTests.get();
+    }
+
+    public int getSkippedTests() {
+        return skippedTests.get();
+    }
+
+    public List<TestExecutionResult> getResults() {
+        synchronized (results) {
+            return new ArrayList<>(results);
+        }
+    }
+
+    public CaseDependencyGraph.CriticalPath getCriticalPath() {
+        return criticalPath;
+    }
+
+    public void setCriticalPath(CaseDependencyGraph.CriticalPath criticalPath) {
+        this.criticalPath = criticalPath;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    long getLastFlushNanos() {
+        return lastFlushNanos;
+    }
+
+    void setLastFlushNanos(long lastFlushNanos) {
+        this.lastFlushNanos = lastFlushNanos;
+    }
+}
@@ -0,0 +1,158 @@
+package com.testplatform.testing.load;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 延迟直方图（HdrHistogram式的对数-线性分桶）
+ * 每个2的幂区间再均分为1024个子桶，记录值的相对误差不超过0.1%，内存占用固定，与记录次数无关。
+ * 值的单位由调用方决定（压测中为微秒），超过上限的值按上限记录
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 11;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+
+    /**
+     * 报告中输出的百分位
+     */
+    private static final double[] REPORTED_PERCENTILES = {50, 75, 90, 95, 99, 99.9, 99.99, 100};
+
+    private final long highestTrackableValue;
+    private final long[] counts;
+    private long totalCount;
+    private long minValue = Long.MAX_VALUE;
+    private long maxValue;
+    private double sum;
+
+    /**
+     * @param highestTrackableValue 可记录的最大值
+     */
+    public LatencyHistogram(long highestTrackableValue) {
+        if (highestTrackableValue < SUB_BUCKET_COUNT) {
+            throw new IllegalArgumentException("可记录的最大值不能小于" + SUB_BUCKET_COUNT);
+        }
+        this.highestTrackableValue = highestTrackableValue;
+        this.counts = new long[indexOf(highestTrackableValue) + 1];
+    }
+
+    /**
+     * 记录一个值
+     */
+    public synchronized void recordValue(long value) {
+        recordValue(value, 1);
+    }
+
+    private void recordValue(long value, long count) {
+        long clamped = Math.max(0, Math.min(value, highestTrackableValue));
+        counts[indexOf(clamped)] += count;
+        totalCount += count;
+        sum += (double) clamped * count;
+        minValue = Math.min(minValue, clamped);
+        maxValue = Math.max(maxValue, clamped);
+    }
+
+    /**
+     * 合并另一个直方图（两者的可记录上限必须相同）
+     */
+    public synchronized void add(LatencyHistogram other) {
+        if (other.counts.length != counts.length) {
+            throw new IllegalArgumentException("直方图的可记录上限不一致");
+        }
+        synchronized (other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+            totalCount += other.totalCount;
+            sum += other.sum;
+            if (other.totalCount > 0) {
+                minValue = Math.min(minValue, other.minValue);
+                maxValue = Math.max(maxValue, other.maxValue);
+            }
+        }
+    }
+
+    /**
+     * 百分位上的值，返回所在桶的上界（不超过实际最大值）
+     * @param percentile 0-100
+     */
+    public synchronized long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        double bounded = Math.min(Math.max(percentile, 0), 100);
+        long target = Math.max(1, (long) Math.ceil(bounded / 100 * totalCount));
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= target) {
+                return Math.min(highestEquivalentValue(i), maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    public synchronized long getTotalCount() {
+        return totalCount;
+    }
+
+    public synchronized long getMinValue() {
+        return totalCount == 0 ? 0 : minValue;
+    }
+
+    public synchronized long getMaxValue() {
+        return maxValue;
+    }
+
+    public synchronized double getMean() {
+        return totalCount == 0 ? 0 : sum / totalCount;
+    }
+
+    /**
+     * 百分位分布，值按scale换算（如微秒换算为毫秒时scale=1000）
+     * @return "p50" -> 值，另含 "min"、"mean"、"max"、"count"
+     */
+    public synchronized Map<String, Object> getDistribution(double scale) {
+        Map<String, Object> distribution = new LinkedHashMap<>();
+        distribution.put("count", totalCount);
+        distribution.put("min", getMinValue() / scale);
+        distribution.put("mean", getMean() / scale);
+        for (double percentile : REPORTED_PERCENTILES) {
+            String key = percentile == 100 ? "max" : "p" + formatPercentile(percentile);
+            distribution.put(key, getValueAtPercentile(percentile) / scale);
+        }
+        return distribution;
+    }
+
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile)
+            ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+
+    /**
+     * 值所在的桶下标：小于SUB_BUCKET_COUNT的值精确记录；更大的值按最高位所在的2的幂区间分桶，
+     * 每个区间保留最高11位有效位
+     */
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >> shift);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + (subBucket - SUB_BUCKET_HALF_COUNT);
+    }
+
+    /**
+     * 桶中可能出现的最大值
+     */
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int offset = index - SUB_BUCKET_COUNT;
+        int shift = offset / SUB_BUCKET_HALF_COUNT + 1;
+        long subBucket = offset % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
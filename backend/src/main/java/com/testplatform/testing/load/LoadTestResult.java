@@ -0,0 +1,106 @@
+package com.testplatform.testing.load;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 压测结果，延迟单位为微秒
+ * 虚拟用户压测中一次请求对应一次完整的业务流程
+ */
+public class LoadTestResult {
+    private final long successCount;
+    private final long errorCount;
+    private final long elapsedNanos;
+    private final LatencyHistogram latency;
+    private final LatencyHistogram serviceTime;
+    private final Map<String, Long> errors;
+    private final boolean cancelled;
+    private final Map<String, Map<String, Object>> steps;
+    private final int peakVirtualUsers;
+
+    LoadTestResult(long successCount, long errorCount, long elapsedNanos, LatencyHistogram latency,
+                   LatencyHistogram serviceTime, Map<String, Long> errors, boolean cancelled) {
+        this(successCount, errorCount, elapsedNanos, latency, serviceTime, errors, cancelled, Collections.emptyMap(), 0);
+    }
+
+    LoadTestResult(long successCount, long errorCount, long elapsedNanos, LatencyHistogram latency,
+                   LatencyHistogram serviceTime, Map<String, Long> errors, boolean cancelled,
+                   Map<String, Map<String, Object>> steps, int peakVirtualUsers) {
+        this.successCount = successCount;
+        this.errorCount = errorCount;
+        this.elapsedNanos = elapsedNanos;
+        this.latency = latency;
+        this.serviceTime = serviceTime;
+        this.errors = errors;
+        this.cancelled = cancelled;
+        this.steps = steps;
+        this.peakVirtualUsers = peakVirtualUsers;
+    }
+
+    public long getTotalRequests() {
+        return successCount + errorCount;
+    }
+
+    public long getSuccessCount() {
+        return successCount;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public double getErrorRate() {
+        long total = getTotalRequests();
+        return total == 0 ? 0 : (double) errorCount / total;
+    }
+
+    /**
+     * 每秒完成的请求数
+     */
+    public double getThroughputRps() {
+        return elapsedNanos <= 0 ? 0 : getTotalRequests() * 1_000_000_000d / elapsedNanos;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * 从计划发出时间计算的延迟（已修正协调遗漏）
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * 从实际发出时间计算的服务时间，虚拟用户压测中为null
+     */
+    public LatencyHistogram getServiceTime() {
+        return serviceTime;
+    }
+
+    /**
+     * 错误类别 -> 次数
+     */
+    public Map<String, Long> getErrors() {
+        return errors;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 步骤名称 -> 耗时分布（毫秒，含errors），仅虚拟用户压测
+     */
+    public Map<String, Map<String, Object>> getSteps() {
+        return steps;
+    }
+
+    /**
+     * 同时在线的虚拟用户数峰值，仅虚拟用户压测
+     */
+    public int getPeakVirtualUsers() {
+        return peakVirtualUsers;
+    }
+}
@@ -0,0 +1,275 @@
+package com.testplatform.testing.load;
+
+import com.testplatform.testing.api.ResponseBody;
+import com.testplatform.testing.api.ResponseBodyHandler;
+import com.testplatform.testing.engine.CancellationToken;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * 单次压测的请求驱动
+ * RATE模式为开环：按目标RPS计算每个请求的计划发出时间，不等待前一个请求完成；
+ * CONCURRENCY模式为闭环：每个并发顺序发送，指定RPS时按 并发数/RPS 的间隔控制节奏。
+ * 延迟从计划发出时间开始计算，目标服务变慢导致请求晚发出的时间也计入延迟（修正协调遗漏）；
+ * 另记录从实际发出时间开始计算的服务时间。闭环且未指定RPS时没有计划时间，两者相同
+ */
+public class LoadTestRunner {
+
+    /**
+     * 延迟直方图可记录的最大值（微秒）
+     */
+    static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+
+    private final HttpClient httpClient;
+    private final HttpRequest request;
+    private final Predicate<HttpResponse<ResponseBody>> assertion;
+    private final ResponseBodyHandler bodyHandler;
+    private final int maxInFlight;
+
+    private final LatencyHistogram latency = new LatencyHistogram(HIGHEST_TRACKABLE_MICROS);
+    private final LatencyHistogram serviceTime = new LatencyHistogram(HIGHEST_TRACKABLE_MICROS);
+    private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+    private final AtomicLong successCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicLong lastCompletionNanos = new AtomicLong();
+    private final Object inFlightLock = new Object();
+    private int inFlight;
+
+    /**
+     * @param assertion 响应是否满足用例断言
+     * @param maxInFlight 在途请求上限，开环模式下超出的请求不发送并计为错误
+     */
+    public LoadTestRunner(HttpClient httpClient, HttpRequest request, Predicate<HttpResponse<ResponseBody>> assertion, int maxInFlight) {
+        this(httpClient, request, assertion, new ResponseBodyHandler(), maxInFlight);
+    }
+
+    /**
+     * @param bodyHandler 响应体的内存和大小上限，响应体在断言后立即释放
+     */
+    public LoadTestRunner(HttpClient httpClient, HttpRequest request, Predicate<HttpResponse<ResponseBody>> assertion,
+                          ResponseBodyHandler bodyHandler, int maxInFlight) {
+        this.httpClient = httpClient;
+        this.request = request;
+        this.assertion = assertion;
+        this.bodyHandler = bodyHandler;
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    /**
+     * 开环压测：按目标RPS发出请求直到时长结束或被取消，然后等待在途请求完成
+     */
+    public LoadTestResult runAtRate(double targetRps, Duration duration, CancellationToken cancellationToken) throws InterruptedException {
+        if (targetRps <= 0) {
+            throw new IllegalArgumentException("目标RPS必须大于0");
+        }
+        CountDownLatch cancelled = cancelSignal(cancellationToken);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (long i = 0; ; i++) {
+            long intended = start + (long) (i * 1_000_000_000d / targetRps);
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0 ? cancelled.await(wait, TimeUnit.NANOSECONDS) : cancellationToken.isCancelled()) {
+                break;
+            }
+            if (!tryAcquireSlot()) {
+                // 目标服务已无法承受，不再堆积请求，直接计为错误
+                recordError("在途请求数超过上限");
+                continue;
+            }
+            send(intended, null);
+        }
+        awaitInFlight(cancellationToken);
+        return buildResult(start, cancellationToken.isCancelled());
+    }
+
+    /**
+     * 闭环压测：concurrency个并发各自顺序发送请求直到时长结束或被取消
+     * @param targetRps 总目标RPS，为null或不大于0时每个并发收到响应后立即发送下一个请求
+     */
+    public LoadTestResult runWithConcurrency(int concurrency, Double targetRps, Duration duration,
+                                             CancellationToken cancellationToken) throws InterruptedException {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("并发数必须大于0");
+        }
+        CountDownLatch cancelled = cancelSignal(cancellationToken);
+        long interval = targetRps != null && targetRps > 0 ? (long) (concurrency * 1_000_000_000d / targetRps) : 0;
+        ScheduledExecutorService pacer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "load-pacer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CountDownLatch finished = new CountDownLatch(concurrency);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        try {
+            for (int i = 0; i < concurrency; i++) {
+                // 指定RPS时各并发的首个请求在一个间隔内错开，避免同时发出
+                long first = interval > 0 ? start + interval * i / concurrency : start;
+                new VirtualUser(pacer, interval, end, finished, cancellationToken).schedule(first);
+            }
+            // 每个并发在最后一个响应返回后结束；取消时不再等待在途请求
+            long deadline = end + TimeUnit.MILLISECONDS.toNanos(requestTimeoutMillis() + 1000);
+            while (!finished.await(100, TimeUnit.MILLISECONDS)) {
+                if (cancelled.getCount() == 0 || System.nanoTime() >= deadline) {
+                    break;
+                }
+            }
+        } finally {
+            pacer.shutdownNow();
+        }
+        return buildResult(start, cancellationToken.isCancelled());
+    }
+
+    /**
+     * 闭环中的一个并发：收到上一个响应后在下一个计划时间发出请求
+     */
+    private class VirtualUser {
+        private final ScheduledExecutorService pacer;
+        private final long interval;
+        private final long end;
+        private final CountDownLatch finished;
+        private final CancellationToken cancellationToken;
+
+        VirtualUser(ScheduledExecutorService pacer, long interval, long end, CountDownLatch finished, CancellationToken cancellationToken) {
+            this.pacer = pacer;
+            this.interval = interval;
+            this.end = end;
+            this.finished = finished;
+            this.cancellationToken = cancellationToken;
+        }
+
+        void schedule(long intended) {
+            // 到达时长后不再补发积压的请求
+            if (intended >= end || System.nanoTime() >= end || cancellationToken.isCancelled()) {
+                finished.countDown();
+                return;
+            }
+            // 始终经由pacer线程发出，避免在HTTP回调中递归
+            try {
+                pacer.schedule(() -> {
+                    if (cancellationToken.isCancelled()) {
+                        finished.countDown();
+                        return;
+                    }
+                    synchronized (inFlightLock) {
+                        inFlight++;
+                    }
+                    long planned = interval > 0 ? intended : System.nanoTime();
+                    send(planned, this);
+                }, Math.max(0, intended - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                // 压测已结束
+                finished.countDown();
+            }
+        }
+
+        void onComplete(long intended) {
+            // 响应晚于下一个计划时间时立即发出，计划时间不顺延，延迟中包含积压的等待
+            schedule(interval > 0 ? intended + interval : System.nanoTime());
+        }
+    }
+
+    private boolean tryAcquireSlot() {
+        synchronized (inFlightLock) {
+            if (inFlight >= maxInFlight) {
+                return false;
+            }
+            inFlight++;
+            return true;
+        }
+    }
+
+    private void send(long intended, VirtualUser user) {
+        long sent = System.nanoTime();
+        httpClient.sendAsync(request, bodyHandler)
+            .whenComplete((response, error) -> {
+                long now = System.nanoTime();
+                latency.recordValue((now - intended) / 1000);
+                serviceTime.recordValue((now - sent) / 1000);
+                lastCompletionNanos.accumulateAndGet(now, Math::max);
+                if (error != null) {
+                    recordError(errorLabel(error));
+                } else {
+                    try (ResponseBody body = response.body()) {
+                        if (!assertion.test(response)) {
+                            recordError(response.statusCode() >= 400 ? "HTTP " + response.statusCode() : "断言失败");
+                        } else {
+                            successCount.incrementAndGet();
+                        }
+                    }
+                }
+                synchronized (inFlightLock) {
+                    inFlight--;
+                    inFlightLock.notifyAll();
+                }
+                if (user != null) {
+                    user.onComplete(intended);
+                }
+            });
+    }
+
+    private void recordError(String label) {
+        errorCount.incrementAndGet();
+        errors.computeIfAbsent(label, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    private static String errorLabel(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof HttpTimeoutException) {
+            return "请求超时";
+        }
+        return cause.getClass().getSimpleName();
+    }
+
+    private static CountDownLatch cancelSignal(CancellationToken cancellationToken) {
+        CountDownLatch cancelled = new CountDownLatch(1);
+        cancellationToken.onCancel(cancelled::countDown);
+        return cancelled;
+    }
+
+    /**
+     * 等待在途请求完成；已取消时不等待，未完成的请求由HttpClient按请求超时结束
+     */
+    private void awaitInFlight(CancellationToken cancellationToken) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(requestTimeoutMillis() + 1000);
+        synchronized (inFlightLock) {
+            while (inFlight > 0 && !cancellationToken.isCancelled()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                TimeUnit.NANOSECONDS.timedWait(inFlightLock, Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(100)));
+            }
+        }
+    }
+
+    private long requestTimeoutMillis() {
+        return request.timeout().map(Duration::toMillis).orElse(30_000L);
+    }
+
+    private LoadTestResult buildResult(long start, boolean cancelled) {
+        // 吞吐量按第一个请求计划发出到最后一个响应返回的时间计算
+        long lastCompletion = lastCompletionNanos.get();
+        long elapsed = (lastCompletion > 0 ? lastCompletion : System.nanoTime()) - start;
+        Map<String, Long> errorCounts = new ConcurrentHashMap<>();
+        errors.forEach((label, count) -> errorCounts.put(label, count.get()));
+        return new LoadTestResult(successCount.get(), errorCount.get(), elapsed, latency, serviceTime, errorCounts, cancelled);
+    }
+}
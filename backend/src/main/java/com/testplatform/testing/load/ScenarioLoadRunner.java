@@ -0,0 +1,263 @@
+package com.testplatform.testing.load;
+
+import com.testplatform.testing.VariableScope;
+import com.testplatform.testing.business.BusinessTestExecutor;
+import com.testplatform.testing.engine.CancellationToken;
+import com.testplatform.testing.engine.ExecutionContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 业务流程的虚拟用户压测
+ * 每个虚拟用户在一个线程中反复执行同一业务流程：爬坡阶段按相同间隔依次加入，稳定阶段全部在线，
+ * 下降阶段依次在完成当前流程后退出。每个虚拟用户有独立的局部变量（含vuId、iteration），
+ * 流程中提取的令牌等变量在该用户的后续流程中继续使用，不影响其他用户。
+ * 流程耗时不含思考时间；压测为闭环模式，不做协调遗漏修正
+ */
+public class ScenarioLoadRunner {
+
+    /**
+     * 一次业务流程的执行
+     */
+    public interface Scenario {
+        /**
+         * @return 流程是否成功
+         */
+        boolean runOnce(BusinessTestExecutor.StepListener listener) throws Exception;
+
+        /**
+         * 校验流程配置，压测开始前调用一次
+         * @throws IllegalArgumentException 配置无效时
+         */
+        default void validate() throws Exception {
+        }
+    }
+
+    private final Scenario scenario;
+    private final ExecutorService executor;
+
+    private final LatencyHistogram iterationLatency = new LatencyHistogram(LoadTestRunner.HIGHEST_TRACKABLE_MICROS);
+    private final Map<String, StepStats> steps = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+    private final AtomicLong successCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicInteger activeUsers = new AtomicInteger();
+    private final AtomicInteger peakActiveUsers = new AtomicInteger();
+
+    /**
+     * @param executor 运行虚拟用户的线程，需能同时运行全部虚拟用户
+     */
+    public ScenarioLoadRunner(Scenario scenario, ExecutorService executor) {
+        this.scenario = scenario;
+        this.executor = executor;
+    }
+
+    /**
+     * 按负载曲线运行，直到所有虚拟用户退出或被取消
+     * @param runId 压测ID，作为虚拟用户执行上下文的执行ID
+     * @throws IllegalArgumentException 业务流程配置无效时
+     */
+    public LoadTestResult run(String runId, VirtualUserProfile profile, CancellationToken cancellationToken) throws InterruptedException {
+        // 配置错误在爬坡前发现，压测直接失败；之后单次流程的异常只计入错误数
+        try {
+            scenario.validate();
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalArgumentException("业务流程配置无效: " + e.getMessage(), e);
+        }
+
+        // 内部令牌：外部取消时停止所有虚拟用户
+        CancellationToken stop = new CancellationToken();
+        Runnable registration = cancellationToken.onCancel(stop::cancel);
+        CountDownLatch stopped = new CountDownLatch(1);
+        stop.onCancel(stopped::countDown);
+
+        // 虚拟用户的变量作用域继承压测的作用域（认证令牌等）
+        VariableScope runVariables = ExecutionContext.currentVariables();
+        VariableScope parentScope = runVariables != null ? runVariables : VariableScope.root(null);
+        int users = profile.getVirtualUsers();
+        long start = System.nanoTime();
+        long rampUp = profile.getRampUp().toNanos();
+        long steadyEnd = start + rampUp + profile.getSteady().toNanos();
+        long rampDown = profile.getRampDown().toNanos();
+        List<Future<?>> futures = new ArrayList<>(users);
+        try {
+            for (int i = 0; i < users; i++) {
+                long startAt = start + rampUp * i / users;
+                // 先加入的用户最后退出
+                long stopAt = steadyEnd + rampDown * (users - i) / users;
+                int vuId = i + 1;
+                futures.add(executor.submit(() -> runUser(runId, parentScope.child(), vuId, startAt, stopAt, profile.getThinkTimeMs(), stop, stopped)));
+            }
+            for (Future<?> future : futures) {
+                awaitUser(future, stopped);
+            }
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+            cancellationToken.unregister(registration);
+        }
+
+        Map<String, Long> errorCounts = new LinkedHashMap<>();
+        errors.forEach((label, count) -> errorCounts.put(label, count.get()));
+        Map<String, Map<String, Object>> stepDistributions = new LinkedHashMap<>();
+        steps.forEach((name, stats) -> stepDistributions.put(name, stats.toDistribution()));
+        return new LoadTestResult(successCount.get(), errorCount.get(), System.nanoTime() - start, iterationLatency, null,
+            errorCounts, cancellationToken.isCancelled(), stepDistributions, peakActiveUsers.get());
+    }
+
+    /**
+     * 等待虚拟用户退出；停止后最多再等待30秒让当前步骤结束，之后中断线程
+     */
+    private static void awaitUser(Future<?> future, CountDownLatch stopped) throws InterruptedException {
+        try {
+            while (true) {
+                try {
+                    future.get(100, TimeUnit.MILLISECONDS);
+                    return;
+                } catch (TimeoutException e) {
+                    if (stopped.getCount() == 0) {
+                        future.get(30, TimeUnit.SECONDS);
+                        return;
+                    }
+                }
+            }
+        } catch (TimeoutException | ExecutionException | CancellationException e) {
+            future.cancel(true);
+        }
+    }
+
+    private void runUser(String runId, VariableScope variables, int vuId, long startAt, long stopAt, long defaultThinkTimeMs,
+                         CancellationToken stop, CountDownLatch stopped) {
+        variables.put("vuId", vuId);
+        try {
+            long delay = startAt - System.nanoTime();
+            if (delay > 0 && stopped.await(delay, TimeUnit.NANOSECONDS)) {
+                return;
+            }
+            ExecutionContext.bind(new ExecutionContext(runId, stop, variables).withoutRetries());
+            peakActiveUsers.accumulateAndGet(activeUsers.incrementAndGet(), Math::max);
+            try {
+                for (long iteration = 1; System.nanoTime() < stopAt && !stop.isCancelled(); iteration++) {
+                    variables.put("iteration", iteration);
+                    runIteration(defaultThinkTimeMs, stop, stopped);
+                }
+            } finally {
+                activeUsers.decrementAndGet();
+                ExecutionContext.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runIteration(long defaultThinkTimeMs, CancellationToken stop, CountDownLatch stopped) throws InterruptedException {
+        long[] thinkNanos = new long[1];
+        BusinessTestExecutor.StepListener listener = (stepName, success, durationMs, thinkTimeMs) -> {
+            steps.computeIfAbsent(stepName, name -> new StepStats()).record(durationMs, success);
+            long think = thinkTimeMs > 0 ? thinkTimeMs : defaultThinkTimeMs;
+            if (think > 0) {
+                long thinkStart = System.nanoTime();
+                if (stopped.await(think, TimeUnit.MILLISECONDS)) {
+                    throw new InterruptedException("压测已停止");
+                }
+                thinkNanos[0] += System.nanoTime() - thinkStart;
+            }
+        };
+
+        long iterationStart = System.nanoTime();
+        boolean success;
+        try {
+            success = scenario.runOnce(listener);
+        } catch (InterruptedException | CancellationException e) {
+            if (stop.isCancelled()) {
+                // 停止时未完成的流程不计入统计
+                return;
+            }
+            throw e instanceof InterruptedException ? (InterruptedException) e : new InterruptedException(e.getMessage());
+        } catch (Exception e) {
+            recordError(e.getClass().getSimpleName());
+            return;
+        }
+        if (stop.isCancelled() && !success) {
+            return;
+        }
+        iterationLatency.recordValue((System.nanoTime() - iterationStart - thinkNanos[0]) / 1000);
+        if (success) {
+            successCount.incrementAndGet();
+        } else {
+            recordError("流程失败");
+        }
+    }
+
+    private void recordError(String label) {
+        errorCount.incrementAndGet();
+        errors.computeIfAbsent(label, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * 单个步骤的耗时统计
+     */
+    private static class StepStats {
+        private final LatencyHistogram latency = new LatencyHistogram(LoadTestRunner.HIGHEST_TRACKABLE_MICROS);
+        private final AtomicLong errors = new AtomicLong();
+
+        void record(long durationMs, boolean success) {
+            latency.recordValue(durationMs * 1000);
+            if (!success) {
+                errors.incrementAndGet();
+            }
+        }
+
+        Map<String, Object> toDistribution() {
+            Map<String, Object> distribution = latency.getDistribution(1000.0);
+            distribution.put("errors", errors.get());
+            return distribution;
+        }
+    }
+
+    /**
+     * 虚拟用户负载曲线
+     */
+    public static class VirtualUserProfile {
+        private final int virtualUsers;
+        private final Duration rampUp;
+        private final Duration steady;
+        private final Duration rampDown;
+        private final long thinkTimeMs;
+
+        /**
+         * @param thinkTimeMs 步骤之间的默认思考时间，步骤配置了thinkTime时以步骤为准
+         */
+        public VirtualUserProfile(int virtualUsers, Duration rampUp, Duration steady, Duration rampDown, long thinkTimeMs) {
+            if (virtualUsers <= 0) {
+                throw new IllegalArgumentException("虚拟用户数必须大于0");
+            }
+            this.virtualUsers = virtualUsers;
+            this.rampUp = rampUp;
+            this.steady = steady;
+            this.rampDown = rampDown;
+            this.thinkTimeMs = Math.max(0, thinkTimeMs);
+        }
+
+        public int getVirtualUsers() { return virtualUsers; }
+        public Duration getRampUp() { return rampUp; }
+        public Duration getSteady() { return steady; }
+        public Duration getRampDown() { return rampDown; }
+        public long getThinkTimeMs() { return thinkTimeMs; }
+    }
+}
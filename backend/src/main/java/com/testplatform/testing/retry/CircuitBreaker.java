@@ -0,0 +1,106 @@
+package com.testplatform.testing.retry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * 目标主机的熔断器
+ * 连续failureThreshold次连接失败、超时或5xx响应后打开，打开期间请求直接失败；
+ * openMillis后放行一个探测请求（半开），探测成功则关闭，失败则重新打开
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String host;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final LongSupplier clock;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probing;
+    private long rejected;
+    private long opened;
+
+    public CircuitBreaker(String host, int failureThreshold, long openMillis) {
+        this(host, failureThreshold, openMillis, System::currentTimeMillis);
+    }
+
+    CircuitBreaker(String host, int failureThreshold, long openMillis, LongSupplier clock) {
+        this.host = host;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * 请求前调用
+     * @return 是否允许发送；允许时必须以onSuccess、onFailure或release之一结束
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openMillis) {
+            state = State.HALF_OPEN;
+            probing = false;
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && !probing) {
+            probing = true;
+            return true;
+        }
+        rejected++;
+        return false;
+    }
+
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probing = false;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = clock.getAsLong();
+            opened++;
+        }
+        probing = false;
+    }
+
+    /**
+     * 请求未得到结果（取消、请求构建失败）时释放探测资格，不影响状态
+     */
+    public synchronized void release() {
+        probing = false;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * 是否处于打开状态且还未到探测时间
+     */
+    public synchronized boolean isOpen() {
+        return state == State.OPEN && clock.getAsLong() - openedAt < openMillis;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("state", state.name());
+        stats.put("consecutiveFailures", consecutiveFailures);
+        stats.put("opened", opened);
+        stats.put("rejected", rejected);
+        return stats;
+    }
+}
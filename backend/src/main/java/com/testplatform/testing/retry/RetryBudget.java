@@ -0,0 +1,50 @@
+package com.testplatform.testing.retry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 一次执行的重试预算：重试总数不超过 minRetries + ratio * 用例执行次数
+ * 目标环境整体故障时，用例在预算用尽后直接失败，而不是各自耗尽重试次数
+ */
+public class RetryBudget {
+    private final double ratio;
+    private final int minRetries;
+    private long attempts;
+    private long retries;
+    private long rejected;
+
+    public RetryBudget(double ratio, int minRetries) {
+        this.ratio = ratio;
+        this.minRetries = minRetries;
+    }
+
+    /**
+     * 记录一次用例执行（不含重试）
+     */
+    public synchronized void recordAttempt() {
+        attempts++;
+    }
+
+    /**
+     * 申请一次重试
+     * @return 预算是否允许
+     */
+    public synchronized boolean tryAcquire() {
+        if (retries < minRetries + (long) (ratio * attempts)) {
+            retries++;
+            return true;
+        }
+        rejected++;
+        return false;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("attempts", attempts);
+        stats.put("retries", retries);
+        stats.put("rejected", rejected);
+        stats.put("limit", minRetries + (long) (ratio * attempts));
+        return stats;
+    }
+}
@@ -0,0 +1,188 @@
+package com.testplatform.testing.retry;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 重试策略：最大重试次数、指数退避（带随机抖动）和可重试的失败类别，不可变
+ * 配置（JSON）：
+ * <pre>
+ * {"maxRetries": 3, "initialDelayMs": 1000, "maxDelayMs": 10000, "multiplier": 2, "jitter": 0.5,
+ *  "retryOn": ["connect", "timeout", "io", "5xx", "429", "element", "assertion"]}
+ * </pre>
+ * 用例配置的retry（或retries次数）覆盖套件的retry_policy，套件覆盖执行器的默认策略，未配置的字段沿用上一层
+ */
+public final class RetryPolicy {
+
+    /** 连接失败（拒绝连接、连接超时、DNS解析失败） */
+    public static final String CONNECT = "connect";
+    /** 请求或等待超时 */
+    public static final String TIMEOUT = "timeout";
+    /** 其他网络读写错误 */
+    public static final String IO = "io";
+    /** 服务端5xx响应且断言未通过 */
+    public static final String SERVER_ERROR = "5xx";
+    /** 429限流响应且断言未通过 */
+    public static final String TOO_MANY_REQUESTS = "429";
+    /** UI元素未找到或已失效 */
+    public static final String ELEMENT = "element";
+    /** 断言或步骤失败（默认不重试，避免掩盖真实缺陷） */
+    public static final String ASSERTION = "assertion";
+
+    private static final Set<String> CATEGORIES = Set.of(CONNECT, TIMEOUT, IO, SERVER_ERROR, TOO_MANY_REQUESTS, ELEMENT, ASSERTION);
+
+    /** 不重试，用于压测等不应重试的执行 */
+    public static final RetryPolicy NONE = new RetryPolicy(0, 0, 0, 1, 0, Collections.emptySet());
+
+    private final int maxRetries;
+    private final long initialDelayMs;
+    private final long maxDelayMs;
+    private final double multiplier;
+    private final double jitter;
+    private final Set<String> retryOn;
+
+    public RetryPolicy(int maxRetries, long initialDelayMs, long maxDelayMs, double multiplier, double jitter, Set<String> retryOn) {
+        if (maxRetries < 0 || initialDelayMs < 0 || maxDelayMs < initialDelayMs || multiplier < 1 || jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("重试策略参数错误: maxRetries=" + maxRetries + ", initialDelayMs=" + initialDelayMs
+                + ", maxDelayMs=" + maxDelayMs + ", multiplier=" + multiplier + ", jitter=" + jitter);
+        }
+        for (String category : retryOn) {
+            if (!CATEGORIES.contains(category)) {
+                throw new IllegalArgumentException("未知的重试类别: " + category + "，可选: " + CATEGORIES);
+            }
+        }
+        this.maxRetries = maxRetries;
+        this.initialDelayMs = initialDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.multiplier = multiplier;
+        this.jitter = jitter;
+        this.retryOn = Collections.unmodifiableSet(new LinkedHashSet<>(retryOn));
+    }
+
+    /**
+     * 用例配置中的重试覆盖：retry对象，或retries次数
+     * @return 没有配置时返回null
+     */
+    public static JsonNode caseOverrides(JsonNode caseConfig) {
+        if (caseConfig == null) {
+            return null;
+        }
+        JsonNode retry = caseConfig.get("retry");
+        return retry != null && !retry.isNull() ? retry : caseConfig.get("retries");
+    }
+
+    /**
+     * 在base的基础上应用配置
+     * @param config retry对象或重试次数，为null时返回base
+     * @throws IllegalArgumentException 配置错误
+     */
+    public static RetryPolicy parse(JsonNode config, RetryPolicy base) {
+        if (config == null || config.isNull() || config.isMissingNode()) {
+            return base;
+        }
+        if (config.isNumber() || config.isTextual()) {
+            return new RetryPolicy(toInt(config, "retries"), base.initialDelayMs, base.maxDelayMs, base.multiplier,
+                base.jitter, base.retryOn);
+        }
+        if (!config.isObject()) {
+            throw new IllegalArgumentException("重试策略必须是JSON对象或重试次数");
+        }
+        Set<String> retryOn = base.retryOn;
+        if (config.has("retryOn")) {
+            retryOn = new LinkedHashSet<>();
+            for (JsonNode category : config.get("retryOn")) {
+                retryOn.add(category.asText());
+            }
+        }
+        long initialDelayMs = config.path("initialDelayMs").asLong(base.initialDelayMs);
+        return new RetryPolicy(
+            config.has("maxRetries") ? toInt(config.get("maxRetries"), "maxRetries") : base.maxRetries,
+            initialDelayMs,
+            config.has("maxDelayMs") ? config.get("maxDelayMs").asLong() : Math.max(base.maxDelayMs, initialDelayMs),
+            config.path("multiplier").asDouble(base.multiplier),
+            config.path("jitter").asDouble(base.jitter),
+            retryOn);
+    }
+
+    private static int toInt(JsonNode node, String name) {
+        if (node.isNumber()) {
+            return node.asInt();
+        }
+        try {
+            return Integer.parseInt(node.asText().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + "必须是整数: " + node);
+        }
+    }
+
+    /**
+     * 异常的重试类别，不属于任何可重试类别时返回null；按异常类型判断，不依赖异常消息
+     */
+    public static String classify(Throwable error) {
+        Throwable e = error;
+        while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+        for (Throwable current = e; current != null; current = current.getCause() == current ? null : current.getCause()) {
+            if (current instanceof ConnectException || current instanceof HttpConnectTimeoutException
+                    || current instanceof UnknownHostException || current instanceof NoRouteToHostException) {
+                return CONNECT;
+            }
+            if (current instanceof HttpTimeoutException || current instanceof SocketTimeoutException
+                    || current instanceof TimeoutException) {
+                return TIMEOUT;
+            }
+        }
+        // JSON解析错误（用例配置、响应内容）不是网络错误，不重试
+        return e instanceof IOException && !(e instanceof JsonProcessingException) ? IO : null;
+    }
+
+    /**
+     * 响应状态对应的重试类别
+     */
+    public static String classifyStatus(int statusCode) {
+        if (statusCode == 429) {
+            return TOO_MANY_REQUESTS;
+        }
+        return statusCode >= 500 ? SERVER_ERROR : ASSERTION;
+    }
+
+    public boolean retriesOn(String category) {
+        return category != null && retryOn.contains(category);
+    }
+
+    /**
+     * 第retryNumber次重试（从1开始）前的等待时间：initialDelayMs * multiplier^(n-1)，不超过maxDelayMs，
+     * 再随机减少最多jitter比例，使同时失败的用例错开重试
+     */
+    public long delayMillis(int retryNumber) {
+        double delay = initialDelayMs * Math.pow(multiplier, Math.max(0, retryNumber - 1));
+        delay = Math.min(delay, maxDelayMs);
+        if (jitter > 0) {
+            delay -= delay * jitter * ThreadLocalRandom.current().nextDouble();
+        }
+        return (long) delay;
+    }
+
+    public int getMaxRetries() { return maxRetries; }
+    public long getInitialDelayMs() { return initialDelayMs; }
+    public long getMaxDelayMs() { return maxDelayMs; }
+    public double getMultiplier() { return multiplier; }
+    public double getJitter() { return jitter; }
+    public Set<String> getRetryOn() { return retryOn; }
+}
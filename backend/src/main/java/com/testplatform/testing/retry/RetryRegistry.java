@@ -0,0 +1,177 @@
+package com.testplatform.testing.retry;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.testplatform.model.TestSuite;
+import com.testplatform.repository.TestSuiteRepository;
+import com.testplatform.testing.engine.ExecutionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 重试相关的共享状态：每次执行的重试预算、每个目标主机的熔断器，以及套件的重试策略
+ */
+@Component
+public class RetryRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(RetryRegistry.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, RetryBudget> budgets = new ConcurrentHashMap<>();
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final Map<String, Optional<JsonNode>> suitePolicies = new ConcurrentHashMap<>();
+
+    @Autowired
+    private TestSuiteRepository testSuiteRepository;
+
+    /**
+     * 每次用例执行增加的重试预算
+     */
+    @Value("${test-platform.retry.budget-ratio:0.2}")
+    private double budgetRatio = 0.2;
+
+    /**
+     * 每次执行至少允许的重试次数
+     */
+    @Value("${test-platform.retry.budget-min-retries:10}")
+    private int budgetMinRetries = 10;
+
+    /**
+     * 熔断器打开前允许的连续失败次数，0表示不熔断
+     */
+    @Value("${test-platform.retry.breaker.failure-threshold:5}")
+    private int breakerFailureThreshold = 5;
+
+    /**
+     * 熔断器打开后到放行探测请求的时间（秒）
+     */
+    @Value("${test-platform.retry.breaker.open-seconds:30}")
+    private int breakerOpenSeconds = 30;
+
+    /**
+     * 合并用例、套件和执行器默认的重试策略，执行上下文不允许重试时（压测）返回 {@link RetryPolicy#NONE}
+     * @param context 正在执行的上下文，可为null
+     * @param caseOverrides 用例配置中的重试配置，见 {@link RetryPolicy#caseOverrides}
+     * @throws IllegalArgumentException 重试策略配置错误
+     */
+    public RetryPolicy resolvePolicy(ExecutionContext context, JsonNode caseOverrides, RetryPolicy defaults) {
+        if (context != null && !context.isRetryEnabled()) {
+            return RetryPolicy.NONE;
+        }
+        RetryPolicy policy = defaults;
+        String suiteId = context != null ? context.getSuiteId() : null;
+        if (suiteId != null) {
+            Optional<JsonNode> suitePolicy = suitePolicies.computeIfAbsent(suiteId, this::loadSuitePolicy);
+            if (suitePolicy.isPresent()) {
+                policy = RetryPolicy.parse(suitePolicy.get(), policy);
+            }
+        }
+        return RetryPolicy.parse(caseOverrides, policy);
+    }
+
+    /**
+     * 按当前线程的执行上下文合并重试策略
+     */
+    public RetryPolicy resolvePolicy(JsonNode caseOverrides, RetryPolicy defaults) {
+        return resolvePolicy(ExecutionContext.current(), caseOverrides, defaults);
+    }
+
+    private Optional<JsonNode> loadSuitePolicy(String suiteId) {
+        Optional<String> text = testSuiteRepository.findById(suiteId).map(TestSuite::getRetryPolicy)
+            .filter(value -> !value.trim().isEmpty());
+        if (!text.isPresent()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(objectMapper.readTree(text.get()));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("套件重试策略不是合法的JSON: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 套件更新或删除后重新读取其重试策略
+     */
+    public void invalidateSuite(String suiteId) {
+        if (suiteId != null) {
+            suitePolicies.remove(suiteId);
+        }
+    }
+
+    /**
+     * 执行的重试预算，不在执行中或执行不允许重试（压测）时返回null，不分配预算
+     */
+    public RetryBudget getBudget(ExecutionContext context) {
+        if (context == null || context.getExecutionId() == null || !context.isRetryEnabled()) {
+            return null;
+        }
+        return budgets.computeIfAbsent(context.getExecutionId(), id -> new RetryBudget(budgetRatio, budgetMinRetries));
+    }
+
+    /**
+     * 记录当前执行的一次用例执行（不含重试），增加其重试预算
+     */
+    public void recordAttempt() {
+        RetryBudget budget = getBudget(ExecutionContext.current());
+        if (budget != null) {
+            budget.recordAttempt();
+        }
+    }
+
+    /**
+     * 从当前执行的重试预算中取出一次重试，不在套件执行中时总是允许
+     * @return 预算已用完时返回false
+     */
+    public boolean tryAcquireRetry() {
+        ExecutionContext context = ExecutionContext.current();
+        RetryBudget budget = getBudget(context);
+        if (budget != null && !budget.tryAcquire()) {
+            logger.warn("执行 {} 的重试预算已用完，不再重试", context.getExecutionId());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 执行结束后释放其重试预算
+     */
+    public void releaseBudget(String executionId) {
+        if (executionId == null) {
+            return;
+        }
+        RetryBudget budget = budgets.remove(executionId);
+        if (budget != null) {
+            logger.debug("执行 {} 的重试统计: {}", executionId, budget.getStats());
+        }
+    }
+
+    /**
+     * 目标主机的熔断器，未启用熔断时返回null
+     * @param host 主机和端口（URI的authority）
+     */
+    public CircuitBreaker getBreaker(String host) {
+        if (breakerFailureThreshold <= 0 || host == null) {
+            return null;
+        }
+        return breakers.computeIfAbsent(host, key -> new CircuitBreaker(key, breakerFailureThreshold, breakerOpenSeconds * 1000L));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> breakerStats = new LinkedHashMap<>();
+        breakers.forEach((host, breaker) -> breakerStats.put(host, breaker.getStats()));
+        Map<String, Object> budgetStats = new LinkedHashMap<>();
+        budgets.forEach((executionId, budget) -> budgetStats.put(executionId, budget.getStats()));
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("circuitBreakers", breakerStats);
+        stats.put("budgets", budgetStats);
+        return stats;
+    }
+}
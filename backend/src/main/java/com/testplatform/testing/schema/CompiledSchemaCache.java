@@ -0,0 +1,39 @@
+package com.testplatform.testing.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.testplatform.testing.LruCache;
+
+/**
+ * 按内容摘要缓存编译后的schema：相同的schema（不同用例中重复的契约）只编译一次；
+ * 引用了存储schema的，缓存键还包含存储schema的摘要，存储的schema修改后重新编译
+ */
+public final class CompiledSchemaCache {
+
+    /**
+     * 最多缓存的编译结果数
+     */
+    private static final int MAX_CACHED = 500;
+    private static final LruCache<String, JsonSchema> CACHE = new LruCache<>(MAX_CACHED);
+
+    private CompiledSchemaCache() {
+    }
+
+    /**
+     * schema内容的摘要，断言编译时计算一次
+     */
+    public static String hash(JsonNode schema) {
+        return SchemaSource.sha256(schema.toString());
+    }
+
+    /**
+     * 获取编译后的schema
+     * @param hash {@link #hash(JsonNode)} 的结果
+     * @param source 按名称引用的存储schema，schema不引用存储schema时应传 {@link SchemaSource#EMPTY}，
+     *               使各环境共用同一个编译结果
+     * @throws IllegalArgumentException schema不合法或引用的schema不存在
+     */
+    public static JsonSchema get(String hash, JsonNode schema, SchemaSource source) {
+        String key = source == SchemaSource.EMPTY ? hash : hash + ":" + source.getFingerprint();
+        return CACHE.get(key, ignored -> JsonSchema.compile(schema, source::getDocument));
+    }
+}
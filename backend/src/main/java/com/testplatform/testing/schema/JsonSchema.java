@@ -0,0 +1,580 @@
+package com.testplatform.testing.schema;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 编译后的JSON Schema，编译一次后可被多个线程重复校验
+ * 支持的关键字：type、enum、const、required、properties、additionalProperties、items、
+ * minItems/maxItems、minLength/maxLength、pattern、minimum/maximum、exclusiveMinimum/exclusiveMaximum、
+ * allOf/anyOf/oneOf/not、$ref；其余关键字（format、description、definitions等）忽略
+ * <p>
+ * $ref 支持文档内引用（#/definitions/user）和按名称引用存储的schema（user、user#/definitions/address），
+ * 含$ref的schema只使用引用的目标（同draft-07），允许递归引用
+ */
+public final class JsonSchema {
+
+    /**
+     * 单次校验最多报告的错误数
+     */
+    public static final int MAX_ERRORS = 20;
+
+    private static final Set<String> TYPES = Set.of("object", "array", "string", "number", "integer", "boolean", "null");
+
+    /**
+     * true/false schema 或空schema
+     */
+    private final Boolean constant;
+    private JsonSchema ref;
+    private String refLocation;
+    private Set<String> types;
+    private List<JsonNode> enumValues;
+    private JsonNode constValue;
+    private List<String> required = Collections.emptyList();
+    private Map<String, JsonSchema> properties = Collections.emptyMap();
+    private JsonSchema additionalProperties;
+    private JsonSchema items;
+    private Integer minItems;
+    private Integer maxItems;
+    private Integer minLength;
+    private Integer maxLength;
+    private Pattern pattern;
+    private BigDecimal minimum;
+    private BigDecimal maximum;
+    private BigDecimal exclusiveMinimum;
+    private BigDecimal exclusiveMaximum;
+    private List<JsonSchema> allOf;
+    private List<JsonSchema> anyOf;
+    private List<JsonSchema> oneOf;
+    private JsonSchema not;
+    /**
+     * enum、const和组合关键字需要完整的值，流式校验时为该值构建子树
+     */
+    private boolean treeRequired;
+
+    private JsonSchema(Boolean constant) {
+        this.constant = constant;
+    }
+
+    /**
+     * 编译不引用存储schema的schema
+     * @throws IllegalArgumentException schema不合法或引用了存储的schema
+     */
+    public static JsonSchema compile(JsonNode schema) {
+        return compile(schema, name -> null);
+    }
+
+    /**
+     * 编译schema，按名称引用的schema从documents中获取
+     * @param documents 名称到存储的schema文档，不存在时返回null
+     * @throws IllegalArgumentException schema不合法、引用的schema不存在或引用形成无限循环
+     */
+    public static JsonSchema compile(JsonNode schema, Function<String, JsonNode> documents) {
+        return new Compiler(schema, documents).compileRoot();
+    }
+
+    /**
+     * schema中是否有按名称引用存储的schema的$ref
+     */
+    public static boolean hasExternalReferences(JsonNode schema) {
+        if (schema == null) {
+            return false;
+        }
+        if (schema.isObject()) {
+            JsonNode ref = schema.get("$ref");
+            if (ref != null && ref.isTextual() && !ref.asText().startsWith("#")) {
+                return true;
+            }
+        }
+        if (schema.isContainerNode()) {
+            for (JsonNode child : schema) {
+                if (hasExternalReferences(child)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 编译过程：按位置（文档名#JSON Pointer）记录引用的目标，全部编译后再连接引用，递归引用复用同一个目标
+     */
+    private static class Compiler {
+        private final JsonNode root;
+        private final Function<String, JsonNode> documents;
+        private final Map<String, JsonSchema> targets = new HashMap<>();
+        private final Deque<JsonSchema> pending = new ArrayDeque<>();
+
+        Compiler(JsonNode root, Function<String, JsonNode> documents) {
+            this.root = root;
+            this.documents = documents;
+        }
+
+        JsonSchema compileRoot() {
+            JsonSchema schema = compile(root, "", "#");
+            targets.put("#", schema);
+            while (!pending.isEmpty()) {
+                JsonSchema reference = pending.poll();
+                JsonSchema target = targets.get(reference.refLocation);
+                if (target == null) {
+                    target = compileLocation(reference.refLocation);
+                    targets.put(reference.refLocation, target);
+                }
+                reference.ref = target;
+            }
+            for (JsonSchema reference : targets.values()) {
+                checkReferenceCycle(reference);
+            }
+            return schema;
+        }
+
+        private JsonSchema compileLocation(String location) {
+            int hash = location.indexOf('#');
+            String name = location.substring(0, hash);
+            String pointer = location.substring(hash + 1);
+            JsonNode document = name.isEmpty() ? root : documents.apply(name);
+            if (document == null) {
+                throw new IllegalArgumentException("引用的Schema不存在: " + name);
+            }
+            JsonNode node = pointer.isEmpty() ? document : document.at(pointer);
+            if (node.isMissingNode()) {
+                throw new IllegalArgumentException("引用的位置不存在: " + location);
+            }
+            return compile(node, name, location);
+        }
+
+        /**
+         * 只由$ref组成的循环（A引用B、B引用A）在校验时会无限递归
+         */
+        private void checkReferenceCycle(JsonSchema schema) {
+            Set<JsonSchema> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (JsonSchema current = schema; current != null && current.refLocation != null; current = current.ref) {
+                if (!visited.add(current)) {
+                    throw new IllegalArgumentException("$ref形成无限循环: " + current.refLocation);
+                }
+            }
+        }
+
+        /**
+         * @param document 节点所在的文档名，根schema为空字符串
+         * @param location 节点位置，用于错误信息
+         */
+        private JsonSchema compile(JsonNode node, String document, String location) {
+            if (node == null || node.isMissingNode() || node.isNull()) {
+                throw new IllegalArgumentException("Schema不能为空: " + location);
+            }
+            if (node.isBoolean()) {
+                return new JsonSchema(node.asBoolean());
+            }
+            if (!node.isObject()) {
+                throw new IllegalArgumentException("Schema必须是对象或布尔值: " + location);
+            }
+            if (node.has("$ref")) {
+                JsonSchema reference = new JsonSchema(null);
+                reference.refLocation = resolveReference(node.get("$ref").asText(), document);
+                pending.add(reference);
+                return reference;
+            }
+            JsonSchema schema = new JsonSchema(node.isEmpty() ? Boolean.TRUE : null);
+
+            JsonNode type = node.get("type");
+            if (type != null) {
+                Set<String> types = new LinkedHashSet<>();
+                for (JsonNode each : type.isArray() ? type : Collections.singletonList(type)) {
+                    if (!TYPES.contains(each.asText())) {
+                        throw new IllegalArgumentException("未知的类型 " + each + ": " + location + "/type");
+                    }
+                    types.add(each.asText());
+                }
+                schema.types = types;
+            }
+            if (node.has("enum")) {
+                JsonNode values = node.get("enum");
+                if (!values.isArray()) {
+                    throw new IllegalArgumentException("enum必须是数组: " + location);
+                }
+                List<JsonNode> list = new ArrayList<>();
+                values.forEach(list::add);
+                schema.enumValues = list;
+            }
+            schema.constValue = node.get("const");
+
+            JsonNode required = node.get("required");
+            if (required != null && required.isArray()) {
+                List<String> names = new ArrayList<>();
+                required.forEach(name -> names.add(name.asText()));
+                schema.required = names;
+            }
+            JsonNode properties = node.get("properties");
+            if (properties != null) {
+                Map<String, JsonSchema> compiled = new LinkedHashMap<>();
+                properties.fields().forEachRemaining(entry -> compiled.put(entry.getKey(),
+                    compile(entry.getValue(), document, location + "/properties/" + entry.getKey())));
+                schema.properties = compiled;
+            }
+            if (node.has("additionalProperties")) {
+                schema.additionalProperties = compile(node.get("additionalProperties"), document, location + "/additionalProperties");
+            }
+            if (node.has("items")) {
+                schema.items = compile(node.get("items"), document, location + "/items");
+            }
+
+            schema.minItems = integer(node, "minItems", location);
+            schema.maxItems = integer(node, "maxItems", location);
+            schema.minLength = integer(node, "minLength", location);
+            schema.maxLength = integer(node, "maxLength", location);
+            if (node.has("pattern")) {
+                try {
+                    schema.pattern = Pattern.compile(node.get("pattern").asText());
+                } catch (PatternSyntaxException e) {
+                    throw new IllegalArgumentException("pattern正则表达式错误: " + location + ": " + e.getDescription());
+                }
+            }
+            schema.minimum = number(node, "minimum", location);
+            schema.maximum = number(node, "maximum", location);
+            schema.exclusiveMinimum = number(node, "exclusiveMinimum", location);
+            schema.exclusiveMaximum = number(node, "exclusiveMaximum", location);
+
+            schema.allOf = list(node, "allOf", document, location);
+            schema.anyOf = list(node, "anyOf", document, location);
+            schema.oneOf = list(node, "oneOf", document, location);
+            if (node.has("not")) {
+                schema.not = compile(node.get("not"), document, location + "/not");
+            }
+            schema.treeRequired = schema.enumValues != null || schema.constValue != null || schema.allOf != null
+                || schema.anyOf != null || schema.oneOf != null || schema.not != null;
+            return schema;
+        }
+
+        /**
+         * 把$ref转换为位置：#/a/b 为当前文档内，name 和 name#/a/b 为存储的schema
+         */
+        private String resolveReference(String ref, String document) {
+            int hash = ref.indexOf('#');
+            String name = hash < 0 ? ref : ref.substring(0, hash);
+            String pointer = hash < 0 ? "" : ref.substring(hash + 1);
+            if (!pointer.isEmpty() && !pointer.startsWith("/")) {
+                throw new IllegalArgumentException("不支持的$ref: " + ref);
+            }
+            return (name.isEmpty() ? document : name) + "#" + pointer;
+        }
+
+        private List<JsonSchema> list(JsonNode node, String keyword, String document, String location) {
+            JsonNode value = node.get(keyword);
+            if (value == null) {
+                return null;
+            }
+            if (!value.isArray() || value.isEmpty()) {
+                throw new IllegalArgumentException(keyword + "必须是非空数组: " + location);
+            }
+            List<JsonSchema> schemas = new ArrayList<>();
+            for (int i = 0; i < value.size(); i++) {
+                schemas.add(compile(value.get(i), document, location + "/" + keyword + "/" + i));
+            }
+            return schemas;
+        }
+    }
+
+    private static Integer integer(JsonNode node, String keyword, String location) {
+        JsonNode value = node.get(keyword);
+        if (value == null) {
+            return null;
+        }
+        if (!value.canConvertToInt() || value.asInt() < 0) {
+            throw new IllegalArgumentException(keyword + "必须是非负整数: " + location);
+        }
+        return value.asInt();
+    }
+
+    private static BigDecimal number(JsonNode node, String keyword, String location) {
+        JsonNode value = node.get(keyword);
+        if (value == null) {
+            return null;
+        }
+        if (!value.isNumber()) {
+            throw new IllegalArgumentException(keyword + "必须是数字: " + location);
+        }
+        return value.decimalValue();
+    }
+
+    /**
+     * 校验JSON文档
+     * @return 错误描述（含出错位置），最多 {@link #MAX_ERRORS} 条；通过时为空
+     */
+    public List<String> validate(JsonNode document) {
+        List<String> errors = new ArrayList<>();
+        validate(document, "$", errors);
+        return errors;
+    }
+
+    /**
+     * 边解析边校验，不构建整个文档的树：只有enum、const和组合关键字所在的值会构建子树
+     * @param parser 位于文档开头的解析器（需要设置ObjectCodec）
+     * @return 错误描述，最多 {@link #MAX_ERRORS} 条；通过时为空
+     * @throws IOException 读取失败或不是合法的JSON
+     */
+    public List<String> validate(JsonParser parser) throws IOException {
+        List<String> errors = new ArrayList<>();
+        if (parser.nextToken() == null) {
+            errors.add("$: 响应体为空");
+            return errors;
+        }
+        validateStream(parser, "$", errors);
+        return errors;
+    }
+
+    private void validateStream(JsonParser parser, String path, List<String> errors) throws IOException {
+        if (ref != null) {
+            ref.validateStream(parser, path, errors);
+            return;
+        }
+        if (errors.size() >= MAX_ERRORS) {
+            parser.skipChildren();
+            return;
+        }
+        if (constant != null) {
+            parser.skipChildren();
+            if (!constant) {
+                errors.add(path + ": 不允许出现");
+            }
+            return;
+        }
+        if (treeRequired) {
+            validate(parser.readValueAsTree(), path, errors);
+            return;
+        }
+        JsonToken token = parser.currentToken();
+        String type = typeOf(parser);
+        if (types != null && !matchesType(type)) {
+            errors.add(path + ": 类型应为" + String.join("/", types) + ", 实际为" + type);
+            parser.skipChildren();
+            return;
+        }
+        if (token == JsonToken.START_OBJECT) {
+            Set<String> seen = required.isEmpty() ? null : new HashSet<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                if (seen != null) {
+                    seen.add(name);
+                }
+                JsonSchema property = propertySchema(name);
+                if (property != null) {
+                    property.validateStream(parser, path + "." + name, errors);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            for (String name : required) {
+                if (!seen.contains(name)) {
+                    addError(errors, path + ": 缺少必填字段 " + name);
+                }
+            }
+        } else if (token == JsonToken.START_ARRAY) {
+            int count = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (items != null) {
+                    items.validateStream(parser, path + "[" + count + "]", errors);
+                } else {
+                    parser.skipChildren();
+                }
+                count++;
+            }
+            checkArray(count, path, errors);
+        } else if (token == JsonToken.VALUE_STRING) {
+            checkString(parser.getText(), path, errors);
+        } else if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            checkNumber(parser.getDecimalValue(), path, errors);
+        }
+    }
+
+    private void validate(JsonNode node, String path, List<String> errors) {
+        if (errors.size() >= MAX_ERRORS) {
+            return;
+        }
+        if (ref != null) {
+            ref.validate(node, path, errors);
+            return;
+        }
+        if (constant != null) {
+            if (!constant) {
+                errors.add(path + ": 不允许出现");
+            }
+            return;
+        }
+        if (types != null && !matchesType(typeOf(node))) {
+            errors.add(path + ": 类型应为" + String.join("/", types) + ", 实际为" + typeOf(node));
+            return;
+        }
+        if (enumValues != null && enumValues.stream().noneMatch(value -> sameValue(node, value))) {
+            errors.add(path + ": 不是允许的取值 " + enumValues);
+        }
+        if (constValue != null && !sameValue(node, constValue)) {
+            errors.add(path + ": 应等于 " + constValue);
+        }
+
+        if (node.isObject()) {
+            for (String name : required) {
+                if (!node.has(name)) {
+                    addError(errors, path + ": 缺少必填字段 " + name);
+                }
+            }
+            for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = it.next();
+                JsonSchema property = propertySchema(field.getKey());
+                if (property != null) {
+                    property.validate(field.getValue(), path + "." + field.getKey(), errors);
+                }
+            }
+        } else if (node.isArray()) {
+            if (items != null) {
+                for (int i = 0; i < node.size(); i++) {
+                    items.validate(node.get(i), path + "[" + i + "]", errors);
+                }
+            }
+            checkArray(node.size(), path, errors);
+        } else if (node.isTextual()) {
+            checkString(node.asText(), path, errors);
+        } else if (node.isNumber()) {
+            checkNumber(node.decimalValue(), path, errors);
+        }
+
+        if (allOf != null) {
+            for (JsonSchema each : allOf) {
+                each.validate(node, path, errors);
+            }
+        }
+        if (anyOf != null && anyOf.stream().noneMatch(each -> each.isValid(node, path))) {
+            addError(errors, path + ": 不满足anyOf中的任何一个schema");
+        }
+        if (oneOf != null) {
+            long matched = oneOf.stream().filter(each -> each.isValid(node, path)).count();
+            if (matched != 1) {
+                addError(errors, path + ": 应恰好满足oneOf中的一个schema, 实际满足" + matched + "个");
+            }
+        }
+        if (not != null && not.isValid(node, path)) {
+            addError(errors, path + ": 不应满足not中的schema");
+        }
+    }
+
+    private boolean isValid(JsonNode node, String path) {
+        List<String> errors = new ArrayList<>(1);
+        validate(node, path, errors);
+        return errors.isEmpty();
+    }
+
+    private JsonSchema propertySchema(String name) {
+        JsonSchema property = properties.get(name);
+        return property != null ? property : additionalProperties;
+    }
+
+    private void checkArray(int size, String path, List<String> errors) {
+        if (minItems != null && size < minItems) {
+            addError(errors, path + ": 元素数 " + size + " 少于 " + minItems);
+        }
+        if (maxItems != null && size > maxItems) {
+            addError(errors, path + ": 元素数 " + size + " 多于 " + maxItems);
+        }
+    }
+
+    private void checkString(String text, String path, List<String> errors) {
+        if (minLength != null || maxLength != null) {
+            int length = text.codePointCount(0, text.length());
+            if (minLength != null && length < minLength) {
+                addError(errors, path + ": 长度 " + length + " 小于 " + minLength);
+            }
+            if (maxLength != null && length > maxLength) {
+                addError(errors, path + ": 长度 " + length + " 大于 " + maxLength);
+            }
+        }
+        if (pattern != null && !pattern.matcher(text).find()) {
+            addError(errors, path + ": 不匹配 " + pattern.pattern());
+        }
+    }
+
+    private void checkNumber(BigDecimal value, String path, List<String> errors) {
+        if (minimum != null && value.compareTo(minimum) < 0) {
+            addError(errors, path + ": " + value + " 小于最小值 " + minimum);
+        }
+        if (maximum != null && value.compareTo(maximum) > 0) {
+            addError(errors, path + ": " + value + " 大于最大值 " + maximum);
+        }
+        if (exclusiveMinimum != null && value.compareTo(exclusiveMinimum) <= 0) {
+            addError(errors, path + ": " + value + " 应大于 " + exclusiveMinimum);
+        }
+        if (exclusiveMaximum != null && value.compareTo(exclusiveMaximum) >= 0) {
+            addError(errors, path + ": " + value + " 应小于 " + exclusiveMaximum);
+        }
+    }
+
+    private static void addError(List<String> errors, String error) {
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(error);
+        }
+    }
+
+    private boolean matchesType(String type) {
+        return types.contains(type) || ("integer".equals(type) && types.contains("number"));
+    }
+
+    private static String typeOf(JsonNode node) {
+        if (node.isObject()) return "object";
+        if (node.isArray()) return "array";
+        if (node.isTextual()) return "string";
+        if (node.isBoolean()) return "boolean";
+        if (node.isNull()) return "null";
+        if (node.isNumber()) {
+            return node.isIntegralNumber() || isIntegral(node.decimalValue()) ? "integer" : "number";
+        }
+        return "unknown";
+    }
+
+    private static String typeOf(JsonParser parser) throws IOException {
+        switch (parser.currentToken()) {
+            case START_OBJECT: return "object";
+            case START_ARRAY: return "array";
+            case VALUE_STRING: return "string";
+            case VALUE_TRUE:
+            case VALUE_FALSE: return "boolean";
+            case VALUE_NULL: return "null";
+            case VALUE_NUMBER_INT: return "integer";
+            case VALUE_NUMBER_FLOAT: return isIntegral(parser.getDecimalValue()) ? "integer" : "number";
+            default: return "unknown";
+        }
+    }
+
+    private static boolean isIntegral(BigDecimal value) {
+        return value.signum() == 0 || value.stripTrailingZeros().scale() <= 0;
+    }
+
+    /**
+     * 数字按数值比较（1 与 1.0 相等），其余按JSON结构比较
+     */
+    private static boolean sameValue(JsonNode actual, JsonNode expected) {
+        if (actual.isNumber() && expected.isNumber()) {
+            return actual.decimalValue().compareTo(expected.decimalValue()) == 0;
+        }
+        return actual.equals(expected);
+    }
+}
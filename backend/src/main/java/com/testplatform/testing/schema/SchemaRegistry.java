@@ -0,0 +1,70 @@
+package com.testplatform.testing.schema;
+
+import com.testplatform.model.TestEnvironment;
+import com.testplatform.model.TestSuite;
+import com.testplatform.repository.TestSuiteRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 提供用例执行时可引用的存储schema：环境的schemas与套件的schemas合并，套件中的同名schema优先
+ * 套件的schemas在首次使用时读取并缓存，套件更新或删除后失效；合并结果在配置不变时复用
+ */
+@Component
+public class SchemaRegistry {
+
+    @Autowired
+    private TestSuiteRepository testSuiteRepository;
+
+    private final Map<String, Optional<String>> suiteSchemas = new ConcurrentHashMap<>();
+    private final Map<String, Entry> sources = new ConcurrentHashMap<>();
+
+    /**
+     * @param environment 执行环境，可为null
+     * @param suiteId 正在执行的套件，可为null
+     * @throws IllegalArgumentException 存储的schemas不是合法的JSON对象
+     */
+    public SchemaSource getSource(TestEnvironment environment, String suiteId) {
+        String environmentText = environment != null ? environment.getSchemas() : null;
+        String suiteText = suiteId != null
+            ? suiteSchemas.computeIfAbsent(suiteId, id -> testSuiteRepository.findById(id).map(TestSuite::getSchemas)).orElse(null)
+            : null;
+        if (environmentText == null && suiteText == null) {
+            return SchemaSource.EMPTY;
+        }
+        String key = (environment != null ? environment.getId() : "") + "|" + (suiteId != null ? suiteId : "");
+        Entry entry = sources.get(key);
+        if (entry != null && Objects.equals(entry.environmentText, environmentText) && Objects.equals(entry.suiteText, suiteText)) {
+            return entry.source;
+        }
+        SchemaSource source = SchemaSource.parse(environmentText, suiteText);
+        sources.put(key, new Entry(environmentText, suiteText, source));
+        return source;
+    }
+
+    /**
+     * 套件更新或删除后重新读取其schemas
+     */
+    public void invalidateSuite(String suiteId) {
+        if (suiteId != null) {
+            suiteSchemas.remove(suiteId);
+        }
+    }
+
+    private static class Entry {
+        private final String environmentText;
+        private final String suiteText;
+        private final SchemaSource source;
+
+        Entry(String environmentText, String suiteText, SchemaSource source) {
+            this.environmentText = environmentText;
+            this.suiteText = suiteText;
+            this.source = source;
+        }
+    }
+}
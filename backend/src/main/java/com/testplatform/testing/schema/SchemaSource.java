@@ -0,0 +1,87 @@
+package com.testplatform.testing.schema;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * jsonSchema断言可按名称引用的存储schema，由环境和套件的schemas配置（JSON对象：名称 -> schema）合并而成
+ */
+public final class SchemaSource {
+
+    public static final SchemaSource EMPTY = new SchemaSource(Collections.emptyMap(), "");
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<String, JsonNode> documents;
+    private final String fingerprint;
+
+    private SchemaSource(Map<String, JsonNode> documents, String fingerprint) {
+        this.documents = documents;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * 合并多层schemas配置，后面的层覆盖前面的同名schema（环境在前，套件在后）
+     * @throws IllegalArgumentException 配置不是JSON对象
+     */
+    public static SchemaSource parse(String... layers) {
+        Map<String, JsonNode> documents = new HashMap<>();
+        StringBuilder content = new StringBuilder();
+        for (String layer : layers) {
+            content.append('\u0000');
+            if (layer == null || layer.trim().isEmpty()) {
+                continue;
+            }
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(layer);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("存储的Schema不是合法的JSON: " + e.getMessage(), e);
+            }
+            if (!node.isObject()) {
+                throw new IllegalArgumentException("存储的Schema必须是JSON对象（名称 -> schema）");
+            }
+            node.fields().forEachRemaining(entry -> documents.put(entry.getKey(), entry.getValue()));
+            content.append(layer);
+        }
+        if (documents.isEmpty()) {
+            return EMPTY;
+        }
+        return new SchemaSource(Collections.unmodifiableMap(documents), sha256(content.toString()));
+    }
+
+    /**
+     * 名称对应的schema，不存在时返回null
+     */
+    public JsonNode getDocument(String name) {
+        return documents.get(name);
+    }
+
+    /**
+     * 内容摘要，存储的schema变化后摘要随之变化，用作编译缓存键的一部分
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            StringBuilder hex = new StringBuilder(64);
+            for (byte b : digest.digest(text.getBytes(StandardCharsets.UTF_8))) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+}
@@ -7,6 +7,10 @@ import com.testplatform.model.TestEnvironment;
 import com.testplatform.testing.TestExecutionResult;
 import com.testplatform.testing.TestExecutor;
 import com.testplatform.testing.VariableManager;
+import com.testplatform.testing.engine.CancellationToken;
+import com.testplatform.testing.engine.ExecutionContext;
+import com.testplatform.testing.retry.RetryPolicy;
+import com.testplatform.testing.retry.RetryRegistry;
 import org.openqa.selenium.*;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
@@ -26,15 +30,27 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 
 @Component
 public class UiTestExecutor implements TestExecutor {
     private static final Logger logger = LoggerFactory.getLogger(UiTestExecutor.class);
     private final ObjectMapper objectMapper = new ObjectMapper();
     
+    /**
+     * 默认重试策略：超时、元素未找到和连接失败时重试2次，3秒起指数退避；断言失败不重试
+     */
+    static final RetryPolicy DEFAULT_RETRY_POLICY = new RetryPolicy(2, 3000, 30000, 2, 0.5,
+        Set.of(RetryPolicy.TIMEOUT, RetryPolicy.ELEMENT, RetryPolicy.CONNECT, RetryPolicy.IO));
+    
     @Autowired
     private VariableManager variableManager;
     
+    @Autowired
+    private RetryRegistry retryRegistry;
+    
     @Override
     public TestExecutionResult execute(TestCase testCase, TestEnvironment environment) {
         return executeWithRetry(testCase, environment, 0);
@@ -46,9 +62,13 @@ public class UiTestExecutor implements TestExecutor {
     public TestExecutionResult executeWithRetry(TestCase testCase, TestEnvironment environment, int retryCount) {
         WebDriver driver = null;
         long startTime = System.currentTimeMillis();
-        int maxRetries = 2; // 最大重试次数
+        RetryPolicy retryPolicy = DEFAULT_RETRY_POLICY;
+        CancellationToken cancellationToken = ExecutionContext.currentToken();
+        Runnable driverRegistration = null;
         
         try {
+            cancellationToken.throwIfCancelled();
+            
             logger.info("开始执行UI测试: {} (重试次数: {})", testCase.getName(), retryCount);
             
             // 解析UI测试配置
@@ -58,10 +78,19 @@ public class UiTestExecutor implements TestExecutor {
             }
             
             UITestConfig uiTestConfig = parseTestConfig(configJson);
+            // 用例配置覆盖套件的重试策略
+            retryPolicy = retryRegistry.resolvePolicy(uiTestConfig.getRetry(), DEFAULT_RETRY_POLICY);
+            if (retryCount == 0) {
+                retryRegistry.recordAttempt();
+            }
             
             // 初始化WebDriver
             driver = createWebDriver(uiTestConfig);
             
+            // 取消执行时关闭浏览器，正在进行的WebDriver调用会立即失败
+            final WebDriver activeDriver = driver;
+            driverRegistration = cancellationToken.onCancel(() -> quitDriverAsync(activeDriver));
+            
             // 设置隐式等待
             driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(uiTestConfig.getImplicitWait()));
             
@@ -79,17 +108,21 @@ public class UiTestExecutor implements TestExecutor {
             List<UIStepResult> stepResults = new ArrayList<>();
             boolean testSuccess = true;
             String failureMessage = "";
+            String failureCategory = null;
             
             for (UIStepConfig step : uiTestConfig.getSteps()) {
+                cancellationToken.throwIfCancelled();
+                
                 // 替换步骤配置中的变量
                 step = replaceVariablesInStep(step);
                 
-                UIStepResult stepResult = executeStepWithRetry(driver, step, 0, environment);
+                UIStepResult stepResult = executeStepWithRetry(driver, step, 0, environment, retryPolicy);
                 stepResults.add(stepResult);
                 
                 if (!stepResult.isSuccess()) {
                     testSuccess = false;
                     failureMessage = "步骤 " + step.getName() + " 执行失败: " + stepResult.getMessage();
+                    failureCategory = stepResult.getRetryCategory();
                     logger.error(failureMessage);
                     break;
                 }
@@ -106,22 +139,30 @@ public class UiTestExecutor implements TestExecutor {
                 logger.info("UI测试执行成功: {}", testCase.getName());
                 return new TestExecutionResult(true, "UI测试执行成功", System.currentTimeMillis() - startTime);
             } else {
-                // 如果失败且还有重试次数，则重试
-                if (retryCount < maxRetries) {
+                // 失败类别在重试策略中且还有重试次数，则重试
+                if (shouldRetry(retryPolicy, failureCategory, retryCount, cancellationToken)) {
                     logger.warn("UI测试执行失败，准备重试 (第{}次): {}", retryCount + 1, failureMessage);
-                    Thread.sleep(3000 * (retryCount + 1)); // 递增延迟
+                    Thread.sleep(retryPolicy.delayMillis(retryCount + 1));
                     return executeWithRetry(testCase, environment, retryCount + 1);
                 }
                 
                 return new TestExecutionResult(false, failureMessage, System.currentTimeMillis() - startTime);
             }
         } catch (Exception e) {
-            if (retryCount < maxRetries && isRetryableException(e)) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            if (e instanceof InterruptedException || e instanceof CancellationException || cancellationToken.isCancelled()) {
+                logger.info("UI测试已取消: {}", testCase.getName());
+                return new TestExecutionResult(false, "执行已取消", System.currentTimeMillis() - startTime);
+            }
+            if (shouldRetry(retryPolicy, classify(e), retryCount, cancellationToken)) {
                 logger.warn("UI测试执行异常，准备重试 (第{}次): {}", retryCount + 1, e.getMessage());
                 try {
-                    Thread.sleep(3000 * (retryCount + 1)); // 递增延迟
+                    Thread.sleep(retryPolicy.delayMillis(retryCount + 1));
                 } catch (InterruptedException ie) {
                     Thread.currentThread().interrupt();
+                    return new TestExecutionResult(false, "执行已取消", System.currentTimeMillis() - startTime);
                 }
                 return executeWithRetry(testCase, environment, retryCount + 1);
             }
@@ -129,6 +170,9 @@ public class UiTestExecutor implements TestExecutor {
             logger.error("UI测试执行失败", e);
             return new TestExecutionResult(false, "UI测试执行异常: " + e.getMessage(), System.currentTimeMillis() - startTime);
         } finally {
+            if (driverRegistration != null) {
+                cancellationToken.unregister(driverRegistration);
+            }
             // 关闭浏览器
             if (driver != null) {
                 try {
@@ -140,6 +184,19 @@ public class UiTestExecutor implements TestExecutor {
         }
     }
     
+    /**
+     * 在后台线程关闭浏览器，避免阻塞取消操作
+     */
+    private void quitDriverAsync(WebDriver driver) {
+        CompletableFuture.runAsync(() -> {
+            try {
+                driver.quit();
+            } catch (Exception e) {
+                logger.debug("取消时关闭浏览器出错", e);
+            }
+        });
+    }
+    
     /**
      * 创建WebDriver实例
      */
@@ -207,34 +264,43 @@ public class UiTestExecutor implements TestExecutor {
     /**
      * 带重试机制的步骤执行
      */
-    private UIStepResult executeStepWithRetry(WebDriver driver, UIStepConfig step, int retryCount, TestEnvironment environment) {
-        int maxRetries = step.getRetryCount();
-        
-        try {
-            return executeStep(driver, step, environment);
-        } catch (Exception e) {
-            if (retryCount < maxRetries && isRetryableException(e)) {
-                logger.warn("步骤执行失败，准备重试 (第{}次): {}", retryCount + 1, e.getMessage());
-                try {
-                    Thread.sleep(1000 * (retryCount + 1)); // 递增延迟
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                }
-                return executeStepWithRetry(driver, step, retryCount + 1, environment);
+    private UIStepResult executeStepWithRetry(WebDriver driver, UIStepConfig step, int retryCount, TestEnvironment environment,
+                                              RetryPolicy retryPolicy) {
+        UIStepResult result = executeStep(driver, step, environment);
+        // 步骤的重试次数由步骤配置，只重试超时和元素类失败，等待时间按重试策略退避
+        String category = result.getRetryCategory();
+        boolean retryable = RetryPolicy.TIMEOUT.equals(category) || RetryPolicy.ELEMENT.equals(category);
+        if (!result.isSuccess() && retryable && retryCount < step.getRetryCount()
+                && !ExecutionContext.currentToken().isCancelled() && retryRegistry.tryAcquireRetry()) {
+            logger.warn("步骤执行失败，准备重试 (第{}次): {}", retryCount + 1, result.getMessage());
+            try {
+                Thread.sleep(retryPolicy.delayMillis(retryCount + 1));
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("执行已取消");
             }
-            throw e;
+            return executeStepWithRetry(driver, step, retryCount + 1, environment, retryPolicy);
         }
+        return result;
+    }
+    
+    private boolean shouldRetry(RetryPolicy retryPolicy, String category, int retryCount, CancellationToken cancellationToken) {
+        return retryPolicy.retriesOn(category) && retryCount < retryPolicy.getMaxRetries()
+            && !cancellationToken.isCancelled() && retryRegistry.tryAcquireRetry();
     }
     
     /**
-     * 判断异常是否可重试
+     * 异常的重试类别：WebDriver等待超时为timeout，元素找不到或已失效为element，其余按异常类型判断
      */
-    private boolean isRetryableException(Exception e) {
-        return e instanceof TimeoutException ||
-               e instanceof NoSuchElementException ||
-               e instanceof StaleElementReferenceException ||
-               e.getMessage().contains("timeout") ||
-               e.getMessage().contains("element not found");
+    static String classify(Throwable e) {
+        if (e instanceof TimeoutException) {
+            return RetryPolicy.TIMEOUT;
+        }
+        if (e instanceof NoSuchElementException || e instanceof StaleElementReferenceException
+                || e instanceof ElementNotInteractableException) {
+            return RetryPolicy.ELEMENT;
+        }
+        return RetryPolicy.classify(e);
     }
     
     private UITestConfig parseTestConfig(String configJson) throws IOException {
@@ -324,6 +390,9 @@ public class UiTestExecutor implements TestExecutor {
             }
         }
         
+        // 用例的重试配置，执行时与套件的重试策略合并
+        config.setRetry(RetryPolicy.caseOverrides(rootNode));
+        
         return config;
     }
     
@@ -388,7 +457,8 @@ public class UiTestExecutor implements TestExecutor {
                     if (actualText.contains(expectedText)) {
                         return new UIStepResult(true, "文本断言成功", null);
                     } else {
-                        return new UIStepResult(false, "文本断言失败: 期望包含'" + expectedText + "', 实际为'" + actualText + "'", null);
+                        return UIStepResult.failed("文本断言失败: 期望包含'" + expectedText + "', 实际为'" + actualText + "'",
+                            RetryPolicy.ASSERTION);
                     }
                     
                 case "getText":
@@ -405,10 +475,13 @@ public class UiTestExecutor implements TestExecutor {
             }
         } catch (NoSuchElementException e) {
             logger.error("找不到元素: {}", step.getLocatorValue(), e);
-            return new UIStepResult(false, "找不到元素: " + step.getLocatorValue(), null);
+            return UIStepResult.failed("找不到元素: " + step.getLocatorValue(), RetryPolicy.ELEMENT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("执行已取消");
         } catch (Exception e) {
             logger.error("步骤执行失败", e);
-            return new UIStepResult(false, e.getMessage(), null);
+            return UIStepResult.failed(e.getMessage(), classify(e));
         }
     }
     
@@ -446,6 +519,7 @@ public class UiTestExecutor implements TestExecutor {
         private int implicitWait = 10;
         private List<String> chromeArguments = new ArrayList<>();
         private List<UIStepConfig> steps = new ArrayList<>();
+        private JsonNode retry;
         
         // Getters and Setters
         public String getBaseUrl() { return baseUrl; }
@@ -462,6 +536,8 @@ public class UiTestExecutor implements TestExecutor {
         public void setChromeArguments(List<String> chromeArguments) { this.chromeArguments = chromeArguments; }
         public List<UIStepConfig> getSteps() { return steps; }
         public void setSteps(List<UIStepConfig> steps) { this.steps = steps; }
+        public JsonNode getRetry() { return retry; }
+        public void setRetry(JsonNode retry) { this.retry = retry; }
     }
     
     // UI步骤配置类
@@ -505,6 +581,7 @@ public class UiTestExecutor implements TestExecutor {
         private boolean success;
         private String message;
         private Map<String, Object> variables;
+        private String retryCategory;
         
         public UIStepResult(boolean success, String message, Map<String, Object> variables) {
             this.success = success;
@@ -512,8 +589,15 @@ public class UiTestExecutor implements TestExecutor {
             this.variables = variables;
         }
         
+        static UIStepResult failed(String message, String retryCategory) {
+            UIStepResult result = new UIStepResult(false, message, null);
+            result.retryCategory = retryCategory;
+            return result;
+        }
+        
         public boolean isSuccess() { return success; }
         public String getMessage() { return message; }
         public Map<String, Object> getVariables() { return variables; }
+        public String getRetryCategory() { return retryCategory; }
     }
 }
\ No newline at end of file
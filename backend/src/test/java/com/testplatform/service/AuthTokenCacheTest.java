@@ -0,0 +1,182 @@
+package com.testplatform.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.testplatform.model.TestEnvironment;
+import com.testplatform.testing.api.HttpClientRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthTokenCacheTest {
+
+    private HttpServer server;
+    private AuthTokenCache cache;
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final AtomicInteger tokenCalls = new AtomicInteger();
+    private final AtomicInteger refreshCalls = new AtomicInteger();
+    private final AtomicReference<String> lastAuthorization = new AtomicReference<>();
+    private final AtomicReference<String> lastForm = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/oauth/token", exchange -> {
+            lastAuthorization.set(exchange.getRequestHeaders().getFirst("Authorization"));
+            lastForm.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            int call = tokenCalls.incrementAndGet();
+            sleep(200);
+            respond(exchange, 200, "{\"access_token\":\"access-" + call + "\",\"token_type\":\"Bearer\",\"expires_in\":120}");
+        });
+        server.createContext("/login", exchange -> {
+            int call = tokenCalls.incrementAndGet();
+            respond(exchange, 200, "{\"token\":\"jwt-" + call + "\",\"refreshToken\":\"refresh-" + call + "\"}");
+        });
+        server.createContext("/refresh", exchange -> {
+            int call = refreshCalls.incrementAndGet();
+            respond(exchange, 200, "{\"token\":\"refreshed-" + call + "\"}");
+        });
+        server.start();
+
+        AuthService authService = new AuthService();
+        ReflectionTestUtils.setField(authService, "httpClientRegistry", new HttpClientRegistry());
+        ReflectionTestUtils.setField(authService, "objectMapper", new ObjectMapper());
+        cache = new AuthTokenCache();
+        ReflectionTestUtils.setField(cache, "authService", authService);
+        cache.clock = now::get;
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private TestEnvironment environment(String authConfig) {
+        TestEnvironment environment = new TestEnvironment("stub", "测试桩");
+        environment.setId("env-1");
+        environment.setApiBaseUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        environment.setAuthConfig(authConfig);
+        return environment;
+    }
+
+    private TestEnvironment oauth2() {
+        return environment("{\"type\":\"oauth2\",\"tokenUrl\":\"/oauth/token\",\"clientId\":\"suite runner\","
+            + "\"clientSecret\":\"s3cret\",\"scope\":\"read write\"}");
+    }
+
+    @Test
+    void testConcurrentCallersShareOneClientCredentialsLogin() throws Exception {
+        TestEnvironment environment = oauth2();
+        ExecutorService pool = Executors.newFixedThreadPool(20);
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<AuthService.AuthResult>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < 20; i++) {
+                results.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return cache.getToken(environment);
+                }, pool));
+            }
+            start.countDown();
+            for (CompletableFuture<AuthService.AuthResult> result : results) {
+                AuthService.AuthResult auth = result.get(10, TimeUnit.SECONDS);
+                assertTrue(auth.isSuccess(), auth.getMessage());
+                assertEquals("access-1", auth.getToken());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, tokenCalls.get());
+        assertEquals(Long.valueOf(120), cache.getToken(environment).getExpiresIn());
+        String credentials = new String(Base64.getDecoder().decode(lastAuthorization.get().substring("Basic ".length())),
+            StandardCharsets.UTF_8);
+        assertEquals("suite+runner:s3cret", credentials);
+        assertEquals("grant_type=client_credentials&scope=read+write", lastForm.get());
+    }
+
+    @Test
+    void testRefreshesInBackgroundBeforeExpiry() throws Exception {
+        TestEnvironment environment = oauth2();
+        assertEquals("access-1", cache.getToken(environment).getToken());
+
+        // 有效期120秒，提前60秒刷新：刷新期间继续返回旧token
+        now.addAndGet(61_000);
+        assertEquals("access-1", cache.getToken(environment).getToken());
+        AuthService.AuthResult refreshed = cache.refreshAfterUnauthorized(environment, "access-1").get(10, TimeUnit.SECONDS);
+        assertEquals("access-2", refreshed.getToken());
+        assertEquals(2, tokenCalls.get());
+
+        // 执行变量中仍是旧token时换成新token
+        assertEquals("access-2", cache.updatedToken(environment, "access-1").getToken());
+        assertNull(cache.updatedToken(environment, "access-2"));
+        assertNull(cache.updatedToken(environment, "extracted-by-case"));
+    }
+
+    @Test
+    void testUnauthorizedUsesRefreshTokenOnce() throws Exception {
+        TestEnvironment environment = environment("{\"type\":\"jwt\",\"loginUrl\":\"/login\","
+            + "\"credentials\":{\"username\":\"u\",\"password\":\"p\"},\"tokenField\":\"token\","
+            + "\"refreshTokenField\":\"refreshToken\",\"refreshUrl\":\"/refresh\","
+            + "\"refreshParams\":{\"refreshToken\":\"{refreshToken}\"}}");
+        assertEquals("jwt-1", cache.getToken(environment).getToken());
+
+        List<CompletableFuture<AuthService.AuthResult>> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            results.add(cache.refreshAfterUnauthorized(environment, "jwt-1"));
+        }
+        for (CompletableFuture<AuthService.AuthResult> result : results) {
+            assertEquals("refreshed-1", result.get(10, TimeUnit.SECONDS).getToken());
+        }
+        assertEquals(1, refreshCalls.get());
+        assertEquals(1, tokenCalls.get());
+        // 刷新响应没有refreshToken时沿用原值
+        assertEquals("refresh-1", cache.getToken(environment).getRefreshToken());
+
+        // 认证配置变更后重新登录
+        environment.setAuthConfig(environment.getAuthConfig().replace("\"p\"", "\"changed\""));
+        assertEquals("jwt-2", cache.getToken(environment).getToken());
+    }
+}
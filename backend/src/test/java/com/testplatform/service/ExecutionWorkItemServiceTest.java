@@ -0,0 +1,107 @@
+package com.testplatform.service;
+
+import com.testplatform.model.ExecutionWorkItem;
+import com.testplatform.repository.ExecutionWorkItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ExecutionWorkItemServiceTest {
+
+    @Mock
+    private ExecutionWorkItemRepository workItemRepository;
+
+    @InjectMocks
+    private ExecutionWorkItemService workItemService;
+
+    /**
+     * 模拟工作项表
+     */
+    private final List<ExecutionWorkItem> table = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(workItemRepository.findLeasableExecutions(anyInt())).thenAnswer(invocation -> {
+            Map<String, Integer> executions = new LinkedHashMap<>();
+            for (ExecutionWorkItem item : table) {
+                if (item.getStatus() == ExecutionWorkItem.WorkStatus.PENDING && item.getBlockedBy() == 0) {
+                    executions.putIfAbsent(item.getExecutionId(), item.getMaxParallelism());
+                }
+            }
+            return executions.entrySet().stream()
+                .limit(invocation.<Integer>getArgument(0))
+                .map(entry -> new Object[]{entry.getKey(), entry.getValue()})
+                .collect(Collectors.toList());
+        });
+        when(workItemRepository.tryLockExecution(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(workItemRepository.countByExecutionIdAndStatus(anyString(), any())).thenAnswer(invocation -> (int) table.stream()
+            .filter(item -> item.getExecutionId().equals(invocation.getArgument(0)) && item.getStatus() == invocation.getArgument(1))
+            .count());
+        when(workItemRepository.lockLeasable(anyString(), anyInt())).thenAnswer(invocation -> table.stream()
+            .filter(item -> item.getExecutionId().equals(invocation.getArgument(0))
+                && item.getStatus() == ExecutionWorkItem.WorkStatus.PENDING && item.getBlockedBy() == 0)
+            .limit(invocation.<Integer>getArgument(1))
+            .collect(Collectors.toList()));
+        when(workItemRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private void addItems(String executionId, int count, int maxParallelism) {
+        for (int i = 0; i < count; i++) {
+            ExecutionWorkItem item = new ExecutionWorkItem();
+            item.setId(executionId + "-" + i);
+            item.setExecutionId(executionId);
+            item.setTestCaseId("case-" + i);
+            item.setCaseIndex(i);
+            item.setMaxParallelism(maxParallelism);
+            item.setCreatedAt(LocalDateTime.now());
+            table.add(item);
+        }
+    }
+
+    @Test
+    void testLeaseRespectsParallelismPerExecution() {
+        addItems("exec-a", 3, 1);
+        addItems("exec-b", 3, 1);
+
+        List<ExecutionWorkItem> first = workItemService.lease("node-1", 10, 30000);
+        assertEquals(2, first.size());
+        assertEquals(1, first.stream().filter(item -> item.getExecutionId().equals("exec-a")).count());
+        assertEquals(1, first.stream().filter(item -> item.getExecutionId().equals("exec-b")).count());
+        assertTrue(first.stream().allMatch(item -> "node-1".equals(item.getLeaseOwner()) && item.getAttempts() == 1));
+
+        // 两个执行的在途数都已达到并行度，其他副本领取不到
+        assertTrue(workItemService.lease("node-2", 10, 30000).isEmpty());
+
+        // 一个用例结束后只能再领取该执行的一个用例
+        first.get(0).setStatus(ExecutionWorkItem.WorkStatus.PASSED);
+        List<ExecutionWorkItem> next = workItemService.lease("node-2", 10, 30000);
+        assertEquals(1, next.size());
+        assertEquals(first.get(0).getExecutionId(), next.get(0).getExecutionId());
+    }
+
+    @Test
+    void testLeaseSkipsExecutionLockedByOtherReplica() {
+        addItems("exec-a", 2, 2);
+        addItems("exec-b", 2, 2);
+        when(workItemRepository.tryLockExecution("exec-a")).thenReturn(null);
+
+        List<ExecutionWorkItem> leased = workItemService.lease("node-1", 3, 30000);
+        assertEquals(2, leased.size());
+        assertTrue(leased.stream().allMatch(item -> item.getExecutionId().equals("exec-b")));
+        verify(workItemRepository, never()).lockLeasable(eq("exec-a"), anyInt());
+    }
+}
@@ -0,0 +1,124 @@
+package com.testplatform.service;
+
+import com.testplatform.model.GlobalVariable;
+import com.testplatform.repository.GlobalVariableRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class GlobalVariableServiceTest {
+
+    @Mock
+    private GlobalVariableRepository globalVariableRepository;
+
+    @InjectMocks
+    private GlobalVariableService globalVariableService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(globalVariableRepository.save(any(GlobalVariable.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private GlobalVariable variable(String id, String name, String value, boolean encrypted) {
+        GlobalVariable variable = new GlobalVariable();
+        variable.setId(id);
+        variable.setName(name);
+        variable.setValue(value);
+        variable.setEnvironmentId("env-1");
+        variable.setVariableType("STRING");
+        variable.setIsEncrypted(encrypted);
+        return variable;
+    }
+
+    @Test
+    void testSnapshotLoadedOnceAndDecrypted() {
+        when(globalVariableRepository.findByEnvironmentId("env-1")).thenReturn(Arrays.asList(
+            variable("v1", "baseUrl", "http://api", false),
+            variable("v2", "password", globalVariableService.encryptValue("secret"), true)));
+
+        for (int i = 0; i < 100; i++) {
+            Map<String, String> snapshot = globalVariableService.getEnvironmentSnapshot("env-1");
+            assertEquals("http://api", snapshot.get("baseUrl"));
+            assertEquals("secret", snapshot.get("password"));
+        }
+        verify(globalVariableRepository, times(1)).findByEnvironmentId("env-1");
+    }
+
+    @Test
+    void testSnapshotInvalidatedOnUpdate() {
+        GlobalVariable stored = variable("v1", "baseUrl", "http://old", false);
+        when(globalVariableRepository.findByEnvironmentId("env-1")).thenReturn(Collections.singletonList(stored));
+        when(globalVariableRepository.findById("v1")).thenReturn(Optional.of(stored));
+        when(globalVariableRepository.findByNameAndEnvironmentId("baseUrl", "env-1")).thenReturn(Optional.of(stored));
+        assertEquals("http://old", globalVariableService.getEnvironmentSnapshot("env-1").get("baseUrl"));
+
+        globalVariableService.updateVariable("v1", variable("v1", "baseUrl", "http://new", false), "tester");
+
+        assertEquals("http://new", globalVariableService.getEnvironmentSnapshot("env-1").get("baseUrl"));
+        verify(globalVariableRepository, times(2)).findByEnvironmentId("env-1");
+    }
+
+    @Test
+    void testSnapshotReloadedAfterTtl() {
+        AtomicLong now = new AtomicLong(1_000_000);
+        globalVariableService.clock = now::get;
+        when(globalVariableRepository.findByEnvironmentId("env-1"))
+            .thenReturn(Collections.singletonList(variable("v1", "baseUrl", "http://old", false)));
+        assertEquals("http://old", globalVariableService.getEnvironmentSnapshot("env-1").get("baseUrl"));
+
+        // 变量在其他副本上被修改，本进程的快照在有效期内不变，过期后重新加载
+        when(globalVariableRepository.findByEnvironmentId("env-1"))
+            .thenReturn(Collections.singletonList(variable("v1", "baseUrl", "http://new", false)));
+        now.addAndGet(4_000);
+        assertEquals("http://old", globalVariableService.getEnvironmentSnapshot("env-1").get("baseUrl"));
+        now.addAndGet(1_000);
+        assertEquals("http://new", globalVariableService.getEnvironmentSnapshot("env-1").get("baseUrl"));
+        verify(globalVariableRepository, times(2)).findByEnvironmentId("env-1");
+    }
+
+    @Test
+    void testReplaceVariablesSinglePass() {
+        when(globalVariableRepository.findByEnvironmentId("env-1")).thenReturn(Arrays.asList(
+            variable("v1", "host", "api.test", false),
+            variable("v2", "path", "${host}", false)));
+
+        assertEquals("http://api.test/${host}/${missing}/$/${aapi.test",
+            globalVariableService.replaceVariables("http://${host}/${path}/${missing}/$/${a${host}", "env-1"));
+    }
+
+    @Test
+    void testReplaceVariablesWithManyVariables() {
+        List<GlobalVariable> variables = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            variables.add(variable("v" + i, "var" + i, "value-" + i, false));
+        }
+        when(globalVariableRepository.findByEnvironmentId("env-1")).thenReturn(variables);
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            body.append("{\"field\":\"${var").append(i % 1000).append("}\",\"padding\":\"lorem ipsum dolor\"},");
+        }
+        String text = body.toString();
+
+        // 结果与逐个变量String.replace一致
+        String expected = text;
+        for (GlobalVariable variable : variables) {
+            expected = expected.replace("${" + variable.getName() + "}", variable.getValue());
+        }
+        assertEquals(expected, globalVariableService.replaceVariables(text, "env-1"));
+    }
+}
@@ -0,0 +1,131 @@
+package com.testplatform.service;
+
+import com.testplatform.model.TestEnvironment;
+import com.testplatform.model.TestExecution;
+import com.testplatform.model.TestSuite;
+import com.testplatform.repository.TestEnvironmentRepository;
+import com.testplatform.repository.TestExecutionRepository;
+import com.testplatform.repository.TestSuiteRepository;
+import com.testplatform.testing.TestExecutionResult;
+import com.testplatform.testing.engine.ExecutionQueue;
+import com.testplatform.testing.engine.SuiteExecutionEngine;
+import com.testplatform.testing.engine.SuiteRun;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TestExecutionServiceImplTest {
+
+    @Mock
+    private TestExecutionRepository testExecutionRepository;
+
+    @Mock
+    private TestSuiteRepository testSuiteRepository;
+
+    @Mock
+    private TestEnvironmentRepository testEnvironmentRepository;
+
+    @Mock
+    private ExecutionQueue executionQueue;
+
+    @Mock
+    private ExecutionWorkItemService executionWorkItemService;
+
+    @Mock
+    private SuiteExecutionEngine suiteExecutionEngine;
+
+    @InjectMocks
+    private TestExecutionServiceImpl testExecutionService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(testSuiteRepository.findById("suite-1")).thenReturn(Optional.of(new TestSuite()));
+        TestEnvironment environment = new TestEnvironment("stub", "测试桩");
+        environment.setId("env-1");
+        when(testEnvironmentRepository.findById("env-1")).thenReturn(Optional.of(environment));
+        when(testExecutionRepository.save(any(TestExecution.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private TestExecution execution(String id, TestExecution.ExecutionStatus status) {
+        TestExecution execution = new TestExecution(id, "suite-1", status);
+        execution.setEnvironmentId("env-1");
+        return execution;
+    }
+
+    @Test
+    void testResumesOnlyExecutionsClaimedFromExitedOwner() {
+        TestExecution owned = execution("exec-owned", TestExecution.ExecutionStatus.RUNNING);
+        TestExecution orphaned = execution("exec-orphaned", TestExecution.ExecutionStatus.RUNNING);
+        when(testExecutionRepository.findOrphaned(anyCollection(), any())).thenReturn(Arrays.asList(owned, orphaned));
+        // 另一个进程已先接管exec-owned
+        when(testExecutionRepository.claim(eq("exec-owned"), anyString(), any(), any())).thenReturn(0);
+        when(testExecutionRepository.claim(eq("exec-orphaned"), anyString(), any(), any())).thenReturn(1);
+
+        testExecutionService.resumeInterruptedExecutions();
+
+        verify(executionQueue).submit(eq("exec-orphaned"), any());
+        verify(executionQueue, never()).submit(eq("exec-owned"), any());
+        verify(testExecutionRepository, never()).save(owned);
+        assertEquals(TestExecution.ExecutionStatus.RUNNING, owned.getStatus());
+        assertEquals(TestExecution.ExecutionStatus.PENDING, orphaned.getStatus());
+    }
+
+    @Test
+    void testManualResumeRejectsExecutionOfLiveProcess() {
+        TestExecution running = execution("exec-1", TestExecution.ExecutionStatus.RUNNING);
+        when(testExecutionRepository.findById("exec-1")).thenReturn(Optional.of(running));
+        when(testExecutionRepository.claim(eq("exec-1"), anyString(), any(), any())).thenReturn(0);
+
+        assertThrows(IllegalStateException.class, () -> testExecutionService.resumeExecution("exec-1"));
+        verify(executionQueue, never()).submit(anyString(), any());
+        verify(testExecutionRepository, never()).save(any(TestExecution.class));
+    }
+
+    @Test
+    void testCompletionKeepsConcurrentStop() {
+        SuiteRun run = new SuiteRun("exec-1", 2);
+        run.record(new TestExecutionResult(true, "done", 0));
+        when(executionWorkItemService.buildRun("exec-1")).thenReturn(run);
+        // 读取统计之后用户停止了执行，条件更新不命中
+        when(testExecutionRepository.updateStatusUnless(eq("exec-1"), any(), any(), any(), any(),
+            eq(TestExecution.ExecutionStatus.CANCELLED))).thenReturn(0);
+
+        testExecutionService.completeDistributedExecution("exec-1");
+
+        verify(testExecutionRepository).updateStatusUnless(eq("exec-1"), eq(TestExecution.ExecutionStatus.COMPLETED), any(),
+            any(), any(), eq(TestExecution.ExecutionStatus.CANCELLED));
+        verify(testExecutionRepository).updateResults(eq("exec-1"), any(), eq(2), eq(1), eq(0), eq(0), anyLong(), anyInt(), any());
+        verify(testExecutionRepository, never()).save(any(TestExecution.class));
+    }
+
+    @Test
+    void testWorkItemsPurgedOnlyAfterRollUpSaved() {
+        SuiteRun run = new SuiteRun("exec-1", 1);
+        run.record(new TestExecutionResult(true, "done", 0));
+        when(executionWorkItemService.buildRun(anyString())).thenReturn(run);
+
+        testExecutionService.completeDistributedExecution("exec-1");
+
+        InOrder inOrder = inOrder(testExecutionRepository, executionWorkItemService);
+        inOrder.verify(testExecutionRepository).updateResults(eq("exec-1"), any(), anyInt(), anyInt(), anyInt(), anyInt(),
+            anyLong(), anyInt(), any());
+        inOrder.verify(executionWorkItemService).purge("exec-1");
+
+        // 汇总落库失败时保留工作项
+        doThrow(new RuntimeException("db down")).when(testExecutionRepository).updateResults(eq("exec-2"), any(),
+            anyInt(), anyInt(), anyInt(), anyInt(), anyLong(), anyInt(), any());
+        testExecutionService.completeDistributedExecution("exec-2");
+        verify(executionWorkItemService, never()).purge("exec-2");
+    }
+}
@@ -1,9 +1,13 @@
 package com.testplatform.service;
 
+import com.testplatform.model.LoadTestRun;
 import com.testplatform.model.TestExecution;
 import com.testplatform.model.TestReport;
+import com.testplatform.model.TestSuiteCase;
+import com.testplatform.repository.LoadTestRunRepository;
 import com.testplatform.repository.TestExecutionRepository;
 import com.testplatform.repository.TestReportRepository;
+import com.testplatform.repository.TestSuiteCaseRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
@@ -11,10 +15,14 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class TestReportServiceTest {
@@ -25,6 +33,12 @@ class TestReportServiceTest {
     @Mock
     private TestExecutionRepository testExecutionRepository;
 
+    @Mock
+    private TestSuiteCaseRepository testSuiteCaseRepository;
+
+    @Mock
+    private LoadTestRunRepository loadTestRunRepository;
+
     @InjectMocks
     private TestReportGenerationService testReportGenerationService;
 
@@ -87,4 +101,28 @@ class TestReportServiceTest {
         verify(testExecutionRepository, times(1)).findById(executionId);
         verify(testReportRepository, never()).save(any(TestReport.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testPerformanceReportIncludesLoadTestsOfSuiteCases() {
+        when(testExecutionRepository.findBySuiteId("suite-1")).thenReturn(Collections.emptyList());
+        when(testSuiteCaseRepository.findBySuiteIdOrderByExecutionOrder("suite-1"))
+            .thenReturn(Collections.singletonList(new TestSuiteCase("suite-1", "case-1", 1)));
+        LoadTestRun run = new LoadTestRun();
+        run.setId("load-1");
+        run.setTestCaseId("case-1");
+        run.setTestCaseName("下单");
+        run.setStatus(LoadTestRun.RunStatus.COMPLETED);
+        run.setThroughputRps(250.0);
+        when(loadTestRunRepository.findByTestCaseIdInAndCreatedAtAfterOrderByCreatedAtDesc(
+            eq(Collections.singletonList("case-1")), any())).thenReturn(Collections.singletonList(run));
+
+        Map<String, Object> report = testReportGenerationService.generatePerformanceReport("suite-1", 7);
+
+        List<?> loadTests = (List<?>) report.get("loadTests");
+        assertEquals(1, loadTests.size());
+        Map<?, ?> summary = (Map<?, ?>) loadTests.get(0);
+        assertEquals("load-1", summary.get("id"));
+        assertEquals(250.0, summary.get("throughputRps"));
+        assertFalse(summary.containsKey("distribution"));
+    }
+}
@@ -0,0 +1,84 @@
+package com.testplatform.testing;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonPathTest {
+
+    private static final String STORE = "{\"store\":{"
+        + "\"book\":["
+        + "{\"title\":\"A\",\"price\":8.95,\"tags\":[\"x\"]},"
+        + "{\"title\":\"B\",\"price\":12.99},"
+        + "{\"title\":\"C\",\"price\":8.99,\"isbn\":\"0-553\"},"
+        + "{\"title\":\"D\",\"price\":22.99,\"isbn\":\"0-395\"}],"
+        + "\"bicycle\":{\"color\":\"red\",\"price\":19.95}},"
+        + "\"token\":\"abc\"}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private String read(String expression) throws Exception {
+        JsonNode value = JsonPath.compile(expression).read(objectMapper.readTree(STORE));
+        return value == null ? null : value.toString();
+    }
+
+    @Test
+    void testSyntax() throws Exception {
+        assertEquals("\"abc\"", read("$.token"));
+        assertEquals("\"abc\"", read("token"));
+        assertEquals("\"red\"", read("$['store']['bicycle']['color']"));
+        assertEquals("\"B\"", read("$.store.book[1].title"));
+        assertEquals("\"D\"", read("$.store.book[-1].title"));
+        assertEquals("[\"A\",\"C\"]", read("$.store.book[0,2].title"));
+        assertEquals("[\"B\",\"C\"]", read("$.store.book[1:3].title"));
+        assertEquals("[\"D\",\"B\"]", read("$.store.book[::-2].title"));
+        assertEquals("[\"A\",\"B\",\"C\",\"D\"]", read("$.store.book[*].title"));
+        assertEquals("[8.95,12.99,8.99,22.99,19.95]", read("$..price"));
+        assertEquals("[\"C\",\"D\"]", read("$.store.book[?(@.isbn)].title"));
+        assertEquals("[\"A\",\"C\"]", read("$.store.book[?(@.price < 10)].title"));
+        assertEquals("[\"B\",\"D\"]", read("$.store.book[?(@.price > 10 && !(@.title == 'A') || @.tags[0] == 'none')].title"));
+        assertNull(read("$.store.book[9].title"));
+        assertNull(read("$.store.book[?(@.price > 100)]"));
+
+        assertThrows(IllegalArgumentException.class, () -> JsonPath.compile("$.store.book[?(@.price <)]"));
+        assertThrows(IllegalArgumentException.class, () -> JsonPath.compile("$.store.book[1"));
+        assertSame(JsonPath.of("$.token"), JsonPath.of("$.token"));
+    }
+
+    @Test
+    void testStreamingSelectionMatchesTreeEvaluation() throws Exception {
+        List<String> expressions = Arrays.asList("$.token", "$.store.book[2].isbn", "$.store.book[*].price",
+            "$.store.bicycle", "$.store.missing", "$.store.book[1:].title");
+        List<JsonPath> paths = Arrays.asList(expressions.stream().map(JsonPath::of).toArray(JsonPath[]::new));
+
+        Map<String, JsonNode> selected;
+        try (JsonParser parser = objectMapper.getFactory().createParser(STORE)) {
+            selected = JsonPathSelector.select(parser, paths);
+        }
+
+        JsonNode tree = objectMapper.readTree(STORE);
+        for (JsonPath path : paths) {
+            assertEquals(path.read(tree), selected.get(path.getExpression()), path.getExpression());
+        }
+        assertFalse(selected.containsKey("$.store.missing"));
+    }
+
+    @Test
+    void testStreamingStopsAfterLastMatch() throws Exception {
+        // 命中的字段之后是非法JSON：所有路径求值完成后不再解析
+        String truncated = "{\"data\":{\"id\":7,\"items\":[1,2]},\"rest\":[1,2,";
+        try (JsonParser parser = objectMapper.getFactory().createParser(truncated)) {
+            Map<String, JsonNode> selected = JsonPathSelector.select(parser,
+                Arrays.asList(JsonPath.of("$.data.id"), JsonPath.of("$.data.items[1]")));
+            assertEquals(7, selected.get("$.data.id").asInt());
+            assertEquals(2, selected.get("$.data.items[1]").asInt());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.testplatform.testing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LruCacheTest {
+
+    @Test
+    void testEvictsLeastRecentlyUsedInsteadOfClearing() {
+        LruCache<String, String> cache = new LruCache<>(2);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("a", key -> key + loads.incrementAndGet());
+        cache.get("b", key -> key + loads.incrementAndGet());
+        // 访问a后，b成为最久未使用的项
+        assertEquals("a1", cache.get("a", key -> key + loads.incrementAndGet()));
+        cache.get("c", key -> key + loads.incrementAndGet());
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("b"));
+        assertTrue(cache.contains("c"));
+        assertEquals(3, loads.get());
+    }
+}
@@ -0,0 +1,71 @@
+package com.testplatform.testing;
+
+import com.testplatform.model.TestCase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestCaseConfigCacheTest {
+
+    private TestCaseConfigCache cache;
+    private final AtomicInteger parses = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cache = new TestCaseConfigCache();
+        ReflectionTestUtils.setField(cache, "maxSize", 2);
+        cache.init();
+    }
+
+    private String parse(String config) {
+        parses.incrementAndGet();
+        return "parsed:" + config;
+    }
+
+    private TestCase testCase(String id, String config, LocalDateTime updatedAt) {
+        TestCase testCase = new TestCase();
+        testCase.setId(id);
+        testCase.setConfig(config);
+        testCase.setUpdatedAt(updatedAt);
+        return testCase;
+    }
+
+    @Test
+    void testParsesOncePerVersion() throws IOException {
+        LocalDateTime v1 = LocalDateTime.of(2024, 1, 1, 0, 0);
+        TestCase testCase = testCase("case-1", "{\"url\":\"/a\"}", v1);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals("parsed:{\"url\":\"/a\"}", cache.get(testCase, String.class, this::parse));
+        }
+        assertEquals(1, parses.get());
+
+        // 用例更新后更新时间变化，重新解析
+        TestCase updated = testCase("case-1", "{\"url\":\"/b\"}", v1.plusMinutes(1));
+        assertEquals("parsed:{\"url\":\"/b\"}", cache.get(updated, String.class, this::parse));
+        assertEquals(2, parses.get());
+    }
+
+    @Test
+    void testInvalidateAndEviction() throws IOException {
+        LocalDateTime now = LocalDateTime.now();
+        TestCase first = testCase("case-1", "a", now);
+        cache.get(first, String.class, this::parse);
+        cache.invalidate("case-1");
+        cache.get(first, String.class, this::parse);
+        assertEquals(2, parses.get());
+
+        cache.get(testCase("case-2", "b", now), String.class, this::parse);
+        cache.get(testCase("case-3", "c", now), String.class, this::parse);
+        assertEquals(2, cache.getStats().get("size"));
+        // case-1最久未使用，已被淘汰
+        cache.get(first, String.class, this::parse);
+        assertEquals(5, parses.get());
+    }
+}
@@ -0,0 +1,105 @@
+package com.testplatform.testing;
+
+import com.testplatform.service.GlobalVariableService;
+import com.testplatform.testing.engine.CancellationToken;
+import com.testplatform.testing.engine.ExecutionContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class VariableScopeTest {
+
+    private VariableManager variableManager;
+    private GlobalVariableService globalVariableService;
+
+    @BeforeEach
+    void setUp() {
+        variableManager = new VariableManager();
+        globalVariableService = mock(GlobalVariableService.class);
+        ReflectionTestUtils.setField(variableManager, "globalVariableService", globalVariableService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ExecutionContext.clear();
+    }
+
+    @Test
+    void testLookupOrderAndMerge() {
+        when(globalVariableService.getEnvironmentSnapshot("env-2")).thenReturn(Map.of("baseUrl", "http://env-2"));
+
+        VariableScope execution = variableManager.openExecutionScope("exec-1", "env-2");
+        execution.put("token", "t-exec");
+        VariableScope caseScope = execution.child();
+        ExecutionContext.bind(new ExecutionContext("exec-1", CancellationToken.NONE, caseScope));
+
+        variableManager.setVariable("orderId", "o-1");
+        variableManager.setVariable("token", "t-case");
+        assertEquals("t-case|o-1|http://env-2", variableManager.replaceVariables("${token}|${orderId}|${baseUrl}"));
+        // 用例结束前不影响执行作用域
+        assertEquals("t-exec", execution.get("token"));
+        assertNull(execution.get("orderId"));
+
+        caseScope.mergeIntoParent();
+        assertEquals("o-1", execution.get("orderId"));
+        assertTrue(variableManager.getAllLocalVariables().isEmpty(), "作用域变量不应写入共享变量");
+
+        variableManager.closeExecutionScope("exec-1");
+        assertNull(variableManager.getExecutionScope("exec-1"));
+    }
+
+    @Test
+    void testConcurrentExecutionsAreIsolated() throws Exception {
+        when(globalVariableService.getEnvironmentSnapshot(anyString())).thenReturn(Map.of());
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        CountDownLatch written = new CountDownLatch(2);
+        try {
+            Future<String> first = pool.submit(() -> runCase("exec-a", written));
+            Future<String> second = pool.submit(() -> runCase("exec-b", written));
+            assertEquals("token-exec-a", first.get(5, TimeUnit.SECONDS));
+            assertEquals("token-exec-b", second.get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private String runCase(String executionId, CountDownLatch written) throws InterruptedException {
+        VariableScope caseScope = variableManager.openExecutionScope(executionId, "env-1").child();
+        ExecutionContext.bind(new ExecutionContext(executionId, CancellationToken.NONE, caseScope));
+        try {
+            variableManager.setVariable("token", "token-" + executionId);
+            // 两个执行都写入后再读取
+            written.countDown();
+            written.await(5, TimeUnit.SECONDS);
+            return variableManager.replaceVariables("${token}");
+        } finally {
+            ExecutionContext.clear();
+        }
+    }
+
+    @Test
+    void testSnapshotIsImmutable() {
+        VariableScope scope = VariableScope.root(null);
+        scope.put("a", 1);
+        Map<String, Object> snapshot = scope.snapshot();
+        scope.put("b", 2);
+        scope.put("a", null);
+
+        assertEquals(1, snapshot.size());
+        assertEquals(1, snapshot.get("a"));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.put("c", 3));
+        assertEquals(Map.of("b", 2), scope.snapshot());
+    }
+}
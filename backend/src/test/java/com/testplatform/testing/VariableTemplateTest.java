@@ -0,0 +1,50 @@
+package com.testplatform.testing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VariableTemplateTest {
+
+    @Test
+    void testRendersPlaceholdersAndKeepsUnresolved() {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("user.name", "alice");
+        variables.put("uuid", "u-1");
+        variables.put("price", "$5\\0");
+
+        VariableTemplate template = VariableTemplate.compile(
+            "{\"name\":\"${user.name}\",\"id\":\"${__uuid}\",\"price\":\"${price}\",\"token\":\"${token}\"}");
+
+        assertEquals(Arrays.asList("user.name", "uuid", "price", "token"), template.getVariableNames());
+        // 值中的 $ 和 \ 原样输出，找不到的变量保持原样
+        assertEquals("{\"name\":\"alice\",\"id\":\"u-1\",\"price\":\"$5\\0\",\"token\":\"${token}\"}",
+            template.render(variables::get));
+    }
+
+    @Test
+    void testEscapeAndInvalidSyntaxAreLiteral() {
+        VariableTemplate template = VariableTemplate.compile("$${a} ${a b} ${} ${.a} ${x ${a} $");
+
+        assertEquals(Arrays.asList("a"), template.getVariableNames());
+        assertEquals("${a} ${a b} ${} ${.a} ${x 1 $", template.render(name -> 1));
+        assertFalse(VariableTemplate.compile("price: $100, ${ }").hasPlaceholders());
+    }
+
+    @Test
+    void testRepeatedPlaceholderResolvedOncePerRender() {
+        AtomicInteger lookups = new AtomicInteger();
+        VariableTemplate template = VariableTemplate.compile("${a}-${b}-${a}");
+
+        assertEquals("x-x-x", template.render(name -> {
+            lookups.incrementAndGet();
+            return "x";
+        }));
+        assertEquals(2, lookups.get());
+    }
+}
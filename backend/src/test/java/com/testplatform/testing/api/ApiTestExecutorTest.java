@@ -0,0 +1,232 @@
+package com.testplatform.testing.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.testplatform.model.TestCase;
+import com.testplatform.model.TestEnvironment;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.testplatform.service.AuthService;
+import com.testplatform.service.AuthTokenCache;
+import com.testplatform.service.GlobalVariableService;
+import com.testplatform.testing.TestCaseConfigCache;
+import com.testplatform.testing.TestExecutionResult;
+import com.testplatform.testing.VariableManager;
+import com.testplatform.testing.VariableScope;
+import com.testplatform.testing.engine.CancellationToken;
+import com.testplatform.testing.engine.ExecutionContext;
+import com.testplatform.testing.retry.RetryRegistry;
+import com.testplatform.testing.schema.SchemaRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ApiTestExecutorTest {
+
+    private HttpServer server;
+    private ApiTestExecutor executor;
+    private VariableManager variableManager;
+    private RetryRegistry retryRegistry;
+    private final AtomicInteger downCalls = new AtomicInteger();
+    private final AtomicInteger tokenCalls = new AtomicInteger();
+    private AuthTokenCache authTokenCache;
+    private final AtomicInteger flakyCalls = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/login", exchange -> respond(exchange, 200, "{\"token\":\"abc\"}"));
+        server.createContext("/flaky", exchange -> respond(exchange, flakyCalls.incrementAndGet() == 1 ? 500 : 200, "{}"));
+        server.createContext("/down", exchange -> {
+            downCalls.incrementAndGet();
+            respond(exchange, 503, "{}");
+        });
+        server.createContext("/oauth/token", exchange -> respond(exchange, 200,
+            "{\"access_token\":\"access-" + tokenCalls.incrementAndGet() + "\"}"));
+        // 只接受最近签发的token
+        server.createContext("/secure", exchange -> {
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            respond(exchange, ("Bearer access-" + tokenCalls.get()).equals(authorization) ? 200 : 401, "{}");
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, "{}");
+        });
+        server.start();
+
+        variableManager = new VariableManager();
+        ReflectionTestUtils.setField(variableManager, "globalVariableService", mock(GlobalVariableService.class));
+        executor = new ApiTestExecutor();
+        ReflectionTestUtils.setField(executor, "variableManager", variableManager);
+        ReflectionTestUtils.setField(executor, "rateLimiter", new EnvironmentRateLimiter());
+        ReflectionTestUtils.setField(executor, "configCache", new TestCaseConfigCache());
+        ReflectionTestUtils.setField(executor, "httpClientRegistry", new HttpClientRegistry());
+        ReflectionTestUtils.setField(executor, "schemaRegistry", new SchemaRegistry());
+        retryRegistry = new RetryRegistry();
+        ReflectionTestUtils.setField(retryRegistry, "breakerFailureThreshold", 2);
+        ReflectionTestUtils.setField(executor, "retryRegistry", retryRegistry);
+        AuthService authService = new AuthService();
+        ReflectionTestUtils.setField(authService, "httpClientRegistry", new HttpClientRegistry());
+        ReflectionTestUtils.setField(authService, "objectMapper", new ObjectMapper());
+        authTokenCache = new AuthTokenCache();
+        ReflectionTestUtils.setField(authTokenCache, "authService", authService);
+        ReflectionTestUtils.setField(executor, "authTokenCache", authTokenCache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        server.stop(0);
+        executor.shutdown();
+        ExecutionContext.clear();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private TestEnvironment environment() {
+        TestEnvironment environment = new TestEnvironment("stub", "测试桩");
+        environment.setApiBaseUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        return environment;
+    }
+
+    private TestCase testCase(String id, String config) {
+        TestCase testCase = new TestCase();
+        testCase.setId(id);
+        testCase.setName(id);
+        testCase.setConfig(config);
+        return testCase;
+    }
+
+    @Test
+    void testAsyncExtractsIntoCallerScope() throws Exception {
+        VariableScope scope = VariableScope.root(null);
+        ExecutionContext.bind(new ExecutionContext("exec-1", new CancellationToken(), scope));
+        TestCase login = testCase("login", "{\"method\":\"POST\",\"url\":\"/login\","
+            + "\"assertions\":[{\"type\":\"statusCode\",\"expected\":200}],"
+            + "\"extractors\":[{\"type\":\"json\",\"expression\":\"$.token\",\"variable\":\"token\"}]}");
+
+        List<CompletableFuture<TestExecutionResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            futures.add(executor.executeAsync(login, environment()));
+        }
+        // 调用线程不被占用，提取的变量在回调线程中写入调用方的作用域
+        ExecutionContext.clear();
+        for (CompletableFuture<TestExecutionResult> future : futures) {
+            assertTrue(future.get(10, TimeUnit.SECONDS).isSuccess());
+        }
+        assertEquals("abc", scope.get("token"));
+    }
+
+    @Test
+    void testRetriesOnTimerAfterAssertionFailure() {
+        TestCase flaky = testCase("flaky", "{\"url\":\"/flaky\",\"assertions\":[{\"type\":\"statusCode\",\"expected\":200}]}");
+
+        TestExecutionResult result = executor.execute(flaky, environment());
+
+        assertTrue(result.isSuccess(), result.getMessage());
+        assertEquals(2, flakyCalls.get());
+    }
+
+    @Test
+    void testCaseRetryOverrideDisablesRetry() {
+        TestCase flaky = testCase("flaky", "{\"url\":\"/flaky\",\"retry\":{\"maxRetries\":0},"
+            + "\"assertions\":[{\"type\":\"statusCode\",\"expected\":200}]}");
+
+        TestExecutionResult result = executor.execute(flaky, environment());
+
+        assertFalse(result.isSuccess());
+        assertEquals(1, flakyCalls.get());
+    }
+
+    @Test
+    void testMalformedConfigFailsWithoutRetry() {
+        ExecutionContext.bind(new ExecutionContext("exec-1", new CancellationToken(), VariableScope.root(null), "suite-1"));
+        TestCase broken = testCase("broken", "{\"url\":\"/flaky\",");
+
+        TestExecutionResult result = executor.execute(broken, environment());
+
+        assertFalse(result.isSuccess());
+        assertEquals(0, flakyCalls.get());
+        // 配置错误不重试，不消耗执行的重试预算
+        assertEquals(0L, retryRegistry.getBudget(ExecutionContext.current()).getStats().get("retries"));
+    }
+
+    @Test
+    void testCircuitBreakerFastFailsUnhealthyHost() {
+        String config = "{\"url\":\"/down\",\"retry\":{\"maxRetries\":5,\"initialDelayMs\":10,\"jitter\":0},"
+            + "\"assertions\":[{\"type\":\"statusCode\",\"expected\":200}]}";
+
+        // 连续两次5xx后熔断，不再用完5次重试
+        TestExecutionResult first = executor.execute(testCase("down-1", config), environment());
+        assertFalse(first.isSuccess());
+        assertEquals(2, downCalls.get());
+
+        TestExecutionResult second = executor.execute(testCase("down-2", config), environment());
+        assertFalse(second.isSuccess());
+        assertTrue(second.getMessage().contains("熔断"), second.getMessage());
+        assertEquals(2, downCalls.get());
+    }
+
+    @Test
+    void testRefreshesTokenOnceAfterUnauthorized() throws Exception {
+        TestEnvironment environment = environment();
+        environment.setId("env-auth");
+        environment.setAuthConfig("{\"type\":\"oauth2\",\"tokenUrl\":\"/oauth/token\",\"clientId\":\"runner\"}");
+        VariableScope scope = VariableScope.root(null);
+        scope.put("token", authTokenCache.getToken(environment).getToken());
+        ExecutionContext.bind(new ExecutionContext("exec-3", new CancellationToken(), scope));
+        TestCase secure = testCase("secure", "{\"url\":\"/secure\",\"headers\":{\"Authorization\":\"Bearer ${token}\"},"
+            + "\"retry\":{\"maxRetries\":0},\"assertions\":[{\"type\":\"statusCode\",\"expected\":200}]}");
+
+        assertTrue(executor.execute(secure, environment).isSuccess());
+        assertEquals(1, tokenCalls.get());
+
+        // token在服务端失效：401后刷新一次并重发，新token写入执行作用域
+        tokenCalls.incrementAndGet();
+        TestExecutionResult result = executor.execute(secure, environment);
+        assertTrue(result.isSuccess(), result.getMessage());
+        assertEquals(3, tokenCalls.get());
+        assertEquals("access-3", scope.get("token"));
+    }
+
+    @Test
+    void testCancelCompletesPendingExecution() throws Exception {
+        CancellationToken token = new CancellationToken();
+        ExecutionContext.bind(new ExecutionContext("exec-2", token));
+        CompletableFuture<TestExecutionResult> future = executor.executeAsync(
+            testCase("slow", "{\"url\":\"/slow\",\"timeout\":10000}"), environment());
+
+        token.cancel();
+
+        TestExecutionResult result = future.get(2, TimeUnit.SECONDS);
+        assertFalse(result.isSuccess());
+        assertEquals("执行已取消", result.getMessage());
+    }
+}
@@ -0,0 +1,50 @@
+package com.testplatform.testing.api;
+
+import com.testplatform.model.TestEnvironment;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EnvironmentRateLimiterTest {
+
+    private TestEnvironment environment(Double rps, Integer burst) {
+        TestEnvironment environment = new TestEnvironment();
+        environment.setId("env-1");
+        environment.setName("测试环境");
+        environment.setRateLimitRps(rps);
+        environment.setRateLimitBurst(burst);
+        return environment;
+    }
+
+    @Test
+    void testBurstPassesThenRequestsWait() {
+        EnvironmentRateLimiter limiter = new EnvironmentRateLimiter();
+        TestEnvironment environment = environment(20.0, 2);
+
+        assertEquals(0, limiter.reserve(environment), "桶容量内的请求应立即放行");
+        assertEquals(0, limiter.reserve(environment), "桶容量内的请求应立即放行");
+
+        // 第3、4个请求需要等待补充令牌（20rps即每个约50ms），按到达顺序依次延后
+        long third = limiter.reserve(environment);
+        long fourth = limiter.reserve(environment);
+        assertTrue(third > 0 && third <= 50_000_000L, "超出容量的请求应排队等待: " + third);
+        assertTrue(fourth > third && fourth <= 100_000_000L, "后到的请求等待更久: " + fourth);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> stats = (Map<String, Object>) limiter.getStats().get("env-1");
+        assertEquals(4L, stats.get("acquired"));
+        assertEquals(2L, stats.get("throttled"));
+        assertTrue((Long) stats.get("throttledMs") > 0);
+    }
+
+    @Test
+    void testUnlimitedEnvironmentIsNotTracked() {
+        EnvironmentRateLimiter limiter = new EnvironmentRateLimiter();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, limiter.reserve(environment(null, null)));
+        }
+        assertTrue(limiter.getStats().isEmpty());
+    }
+}
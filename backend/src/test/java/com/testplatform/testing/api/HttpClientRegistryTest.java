@@ -0,0 +1,105 @@
+package com.testplatform.testing.api;
+
+import com.sun.net.httpserver.HttpServer;
+import com.testplatform.model.TestEnvironment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpClientRegistryTest {
+
+    private HttpServer server;
+    private HttpClientRegistry registry;
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/slow", exchange -> {
+            peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            active.decrementAndGet();
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        registry = new HttpClientRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        server.stop(0);
+        registry.shutdown();
+    }
+
+    private TestEnvironment environment(String httpConfig) {
+        TestEnvironment environment = new TestEnvironment("stub", "测试桩");
+        environment.setId("env-1");
+        environment.setHttpConfig(httpConfig);
+        return environment;
+    }
+
+    @Test
+    void testClientSharedPerEnvironmentAndRebuiltOnConfigChange() {
+        EnvironmentHttpClient first = registry.getClient(environment(null));
+        assertSame(first, registry.getClient(environment(null)));
+        assertEquals("HTTP_2", first.getStats().get("httpVersion"));
+
+        EnvironmentHttpClient rebuilt = registry.getClient(environment("{\"httpVersion\":\"HTTP_1_1\"}"));
+        assertNotSame(first, rebuilt);
+        assertEquals("HTTP_1_1", rebuilt.getStats().get("httpVersion"));
+
+        assertThrows(IllegalArgumentException.class, () -> registry.getClient(environment("{\"proxy\":\"no-port\"}")));
+    }
+
+    @Test
+    void testMaxConnectionsQueuesExcessRequests() throws Exception {
+        EnvironmentHttpClient client = registry.getClient(environment("{\"maxConnections\":2}"));
+        HttpRequest request = HttpRequest.newBuilder(
+            URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/slow")).build();
+
+        List<CompletableFuture<HttpResponse<Void>>> futures = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            futures.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+        // 排队的请求不占用调用线程
+        for (int i = 0; i < 100 && active.get() < 2; i++) {
+            Thread.sleep(20);
+        }
+        Map<String, Object> stats = client.getStats();
+        assertEquals(2, stats.get("inFlight"));
+        assertEquals(4, stats.get("queued"));
+
+        release.countDown();
+        for (CompletableFuture<HttpResponse<Void>> future : futures) {
+            assertEquals(200, future.get(10, TimeUnit.SECONDS).statusCode());
+        }
+        assertEquals(2, peak.get());
+        assertEquals(0, client.getStats().get("inFlight"));
+        assertEquals(6L, client.getStats().get("requests"));
+    }
+}
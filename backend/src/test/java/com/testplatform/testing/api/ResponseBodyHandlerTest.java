@@ -0,0 +1,113 @@
+package com.testplatform.testing.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import com.testplatform.service.GlobalVariableService;
+import com.testplatform.testing.VariableManager;
+import com.testplatform.testing.VariableScope;
+import com.testplatform.testing.engine.CancellationToken;
+import com.testplatform.testing.engine.ExecutionContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ResponseBodyHandlerTest {
+
+    private HttpServer server;
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] gzippedExport;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // 约5MB的导出响应，需要提取的字段在大数组之后
+        StringBuilder json = new StringBuilder("{\"rows\":[");
+        for (int i = 0; json.length() < 5 * 1024 * 1024; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"name\":\"row-").append(i).append("\"}");
+        }
+        json.append("],\"meta\":{\"exportId\":\"exp-42\",\"total\":12345}}");
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(json.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        gzippedExport = compressed.toByteArray();
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/export", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, gzippedExport.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(gzippedExport);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        ExecutionContext.clear();
+    }
+
+    private HttpRequest exportRequest() {
+        return HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/export")).build();
+    }
+
+    @Test
+    void testSpillsToFileAndExtractsWhileDecompressing() throws Exception {
+        VariableManager variableManager = new VariableManager();
+        ReflectionTestUtils.setField(variableManager, "globalVariableService", mock(GlobalVariableService.class));
+        VariableScope scope = VariableScope.root(null);
+        ExecutionContext.bind(new ExecutionContext("exec-1", CancellationToken.NONE, scope));
+
+        ResponseBodyHandler handler = new ResponseBodyHandler(16 * 1024, 10L * 1024 * 1024, null);
+        HttpResponse<ResponseBody> response = httpClient.send(exportRequest(), handler);
+        Path spilled;
+        try (ResponseBody body = response.body()) {
+            assertTrue(body.isSpilled());
+            assertEquals(gzippedExport.length, body.getSize());
+            spilled = (Path) ReflectionTestUtils.getField(body, "file");
+            assertTrue(Files.exists(spilled));
+
+            try (InputStream in = body.openStream()) {
+                variableManager.extractVariablesFromJson(in, objectMapper.readTree(
+                    "[{\"type\":\"json\",\"expression\":\"$.meta.exportId\",\"variable\":\"exportId\"},"
+                        + "{\"type\":\"json\",\"expression\":\"meta.total\",\"variable\":\"total\"}]"));
+            }
+        }
+        assertEquals("exp-42", scope.get("exportId"));
+        assertEquals(12345, scope.get("total"));
+        assertFalse(Files.exists(spilled), "关闭后应删除临时文件");
+    }
+
+    @Test
+    void testRejectsBodyOverMaxBytes() {
+        ResponseBodyHandler handler = new ResponseBodyHandler(1024, 1024, null);
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+            () -> httpClient.sendAsync(exportRequest(), handler).get(10, TimeUnit.SECONDS));
+        assertTrue(error.getCause() instanceof IOException);
+        assertTrue(error.getCause().getMessage().contains("响应体超过上限"), error.getCause().getMessage());
+    }
+}
@@ -0,0 +1,84 @@
+package com.testplatform.testing.assertion;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.testplatform.testing.JsonPathSelector;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpHeaders;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssertionPlanTest {
+
+    private static final String BODY = "{\"code\":0,\"data\":{\"id\":42,\"name\":\"alice\",\"tags\":[\"a\",\"b\"]}}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private AssertionResult evaluate(String assertions, int status, long elapsedMs) throws Exception {
+        AssertionPlan plan = AssertionPlan.compile(objectMapper.readTree(assertions));
+        Map<String, JsonNode> json;
+        try (JsonParser parser = objectMapper.getFactory().createParser(BODY)) {
+            json = JsonPathSelector.select(parser, plan.getJsonPaths());
+        }
+        HttpHeaders headers = HttpHeaders.of(Map.of("Content-Type", List.of("application/json")), (name, value) -> true);
+        ResponseSnapshot snapshot = new ResponseSnapshot(status, headers, elapsedMs, BODY.length(), json);
+        snapshot.setBodyText(() -> BODY);
+        snapshot.setVariableResolver(text -> text.replace("${userName}", "alice"));
+        return plan.evaluate(snapshot);
+    }
+
+    @Test
+    void testAllTypesPass() throws Exception {
+        AssertionResult result = evaluate("["
+            + "{\"type\":\"statusCode\",\"expected\":\"2xx\"},"
+            + "{\"type\":\"header\",\"name\":\"content-type\",\"operator\":\"CONTAINS\",\"expected\":\"json\"},"
+            + "{\"type\":\"jsonPath\",\"expression\":\"$.data.id\",\"expected\":\"42\"},"
+            + "{\"type\":\"jsonPath\",\"path\":\"$.data.name\",\"operator\":\"EQUALS\",\"expected\":\"${userName}\"},"
+            + "{\"type\":\"jsonPath\",\"expression\":\"$.data.tags\",\"operator\":\"contains\",\"expected\":\"b\"},"
+            + "{\"type\":\"jsonPath\",\"expression\":\"$.data.name\",\"operator\":\"regex\",\"expected\":\"^al\"},"
+            + "{\"type\":\"jsonPath\",\"expression\":\"$.data.missing\",\"operator\":\"notExists\"},"
+            + "{\"type\":\"contains\",\"expected\":\"alice\"},"
+            + "{\"type\":\"bodySize\",\"min\":1,\"max\":1024},"
+            + "{\"type\":\"responseTime\",\"max\":500},"
+            + "{\"type\":\"jsonSchema\",\"schema\":{\"type\":\"object\",\"required\":[\"code\",\"data\"],"
+            + "\"properties\":{\"data\":{\"type\":\"object\",\"properties\":{\"id\":{\"type\":\"integer\",\"minimum\":1}}}}}}"
+            + "]", 200, 120);
+
+        assertTrue(result.isPassed(), result.getMessage());
+    }
+
+    @Test
+    void testReportsEveryFailure() throws Exception {
+        AssertionResult result = evaluate("["
+            + "{\"type\":\"statusCode\",\"expected\":[200,201]},"
+            + "{\"type\":\"jsonPath\",\"expression\":\"$.data.id\",\"operator\":\"greaterThan\",\"expected\":100},"
+            + "{\"type\":\"responseTime\",\"expected\":100},"
+            + "{\"type\":\"jsonSchema\",\"schema\":{\"properties\":{\"data\":{\"required\":[\"email\"]}}}}"
+            + "]", 404, 250);
+
+        assertFalse(result.isPassed());
+        assertEquals(4, result.getFailures().size());
+        assertTrue(result.getFailures().get(0).contains("404"));
+        assertTrue(result.getFailures().get(3).contains("email"));
+    }
+
+    @Test
+    void testUnknownResponseTimeIsSkipped() throws Exception {
+        assertTrue(evaluate("[{\"type\":\"responseTime\",\"max\":1}]", 200, -1).isPassed());
+    }
+
+    @Test
+    void testInvalidConfigRejectedAtCompile() {
+        IllegalArgumentException unknown = assertThrows(IllegalArgumentException.class,
+            () -> AssertionPlan.compile(objectMapper.readTree("[{\"type\":\"statusCode\",\"expected\":200},{\"type\":\"foo\"}]")));
+        assertTrue(unknown.getMessage().startsWith("第2个断言"));
+        assertThrows(IllegalArgumentException.class,
+            () -> AssertionPlan.compile(objectMapper.readTree("[{\"type\":\"jsonPath\",\"expression\":\"$.a\",\"operator\":\"regex\",\"expected\":\"(\"}]")));
+        assertThrows(IllegalArgumentException.class,
+            () -> AssertionPlan.compile(objectMapper.readTree("[{\"type\":\"jsonPath\",\"expression\":\"$.a\",\"operator\":\"lessThan\",\"expected\":\"abc\"}]")));
+    }
+}
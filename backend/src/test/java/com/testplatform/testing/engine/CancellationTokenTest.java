@@ -0,0 +1,45 @@
+package com.testplatform.testing.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CancellationTokenTest {
+
+    @Test
+    void testCallbacksRunOnceAndUnregisteredOnesAreSkipped() {
+        CancellationToken token = new CancellationToken();
+        AtomicInteger fired = new AtomicInteger();
+        token.onCancel(fired::incrementAndGet);
+        Runnable removed = token.onCancel(() -> fail("已注销的回调不应被触发"));
+        token.unregister(removed);
+
+        token.cancel();
+        token.cancel();
+
+        assertTrue(token.isCancelled());
+        assertEquals(1, fired.get());
+        assertThrows(CancellationException.class, token::throwIfCancelled);
+    }
+
+    @Test
+    void testRegisteringAfterCancelRunsImmediately() {
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        AtomicInteger fired = new AtomicInteger();
+
+        token.onCancel(fired::incrementAndGet);
+
+        assertEquals(1, fired.get());
+    }
+
+    @Test
+    void testUnboundThreadUsesNeverCancelledToken() {
+        ExecutionContext.clear();
+        assertSame(CancellationToken.NONE, ExecutionContext.currentToken());
+        assertFalse(ExecutionContext.currentToken().isCancelled());
+    }
+}
@@ -0,0 +1,63 @@
+package com.testplatform.testing.engine;
+
+import com.testplatform.model.TestCase;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaseDependencyGraphTest {
+
+    private List<TestCase> cases(String... ids) {
+        TestCase[] testCases = new TestCase[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            testCases[i] = new TestCase(ids[i], ids[i], null, TestCase.Priority.MEDIUM, "{}");
+        }
+        return Arrays.asList(testCases);
+    }
+
+    @Test
+    void testCycleIsRejected() {
+        Map<String, List<String>> dependencies = new HashMap<>();
+        dependencies.put("a", Collections.singletonList("c"));
+        dependencies.put("b", Collections.singletonList("a"));
+        dependencies.put("c", Collections.singletonList("b"));
+
+        assertThrows(IllegalArgumentException.class, () -> CaseDependencyGraph.build(cases("a", "b", "c", "d"), dependencies));
+        assertThrows(IllegalArgumentException.class,
+            () -> CaseDependencyGraph.validate(Arrays.asList("a", "b"), Collections.singletonMap("a", Collections.singletonList("x"))));
+    }
+
+    @Test
+    void testUnknownDependencyIsIgnoredWhenBuilding() {
+        CaseDependencyGraph graph = CaseDependencyGraph.build(cases("a", "b"),
+            Collections.singletonMap("b", Collections.singletonList("disabled")));
+
+        assertFalse(graph.hasDependencies());
+        assertArrayEquals(new int[]{0, 0}, graph.inDegrees());
+    }
+
+    @Test
+    void testDescendantsAndCriticalPath() {
+        Map<String, List<String>> dependencies = new HashMap<>();
+        dependencies.put("b", Collections.singletonList("a"));
+        dependencies.put("c", Collections.singletonList("a"));
+        dependencies.put("d", Arrays.asList("b", "c"));
+        CaseDependencyGraph graph = CaseDependencyGraph.build(cases("a", "b", "c", "d"), dependencies);
+
+        assertEquals(Arrays.asList(1, 2, 3), graph.getDescendants(0));
+        assertEquals(Collections.singletonList(3), graph.getDescendants(2));
+
+        CaseDependencyGraph.CriticalPath path = graph.criticalPath(new long[]{100, 50, 300, 20});
+        assertEquals(Arrays.asList("a", "c", "d"), path.getTestCaseIds());
+        assertEquals(420, path.getDurationMs());
+
+        CaseDependencyGraph.CriticalPath instant = graph.criticalPath(new long[]{0, 0, 0, 1});
+        assertEquals(Arrays.asList("a", "b", "d"), instant.getTestCaseIds());
+    }
+}
@@ -0,0 +1,85 @@
+package com.testplatform.testing.engine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutionQueueTest {
+
+    private ExecutionQueue queue;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        queue = new ExecutionQueue();
+        ReflectionTestUtils.setField(queue, "maxConcurrentExecutions", 1);
+        ReflectionTestUtils.setField(queue, "queueCapacity", 2);
+        ReflectionTestUtils.setField(queue, "defaultRetryAfterSeconds", 15L);
+        queue.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        queue.shutdown();
+    }
+
+    private Runnable blocking(CountDownLatch started) {
+        return () -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+    }
+
+    @Test
+    void testRejectsWhenQueueIsFullAndReportsPositions() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        queue.submit("running", blocking(started));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        queue.submit("queued-1", () -> { });
+        queue.submit("queued-2", () -> { });
+
+        assertNull(queue.getQueuePosition("running"));
+        assertEquals(1, queue.getQueuePosition("queued-1"));
+        assertEquals(2, queue.getQueuePosition("queued-2"));
+        assertTrue(queue.isFull());
+
+        ExecutionQueueFullException e = assertThrows(ExecutionQueueFullException.class,
+            () -> queue.submit("rejected", () -> { }));
+        assertEquals(15L, e.getRetryAfterSeconds());
+        assertNull(queue.getQueuePosition("rejected"));
+        assertEquals(1L, queue.getStats().get("rejected"));
+    }
+
+    @Test
+    void testCancelledExecutionNeverRuns() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        queue.submit("running", blocking(started));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        AtomicBoolean ran = new AtomicBoolean();
+        CountDownLatch after = new CountDownLatch(1);
+        queue.submit("cancelled", () -> ran.set(true));
+        queue.submit("after", after::countDown);
+
+        assertTrue(queue.cancel("cancelled"));
+        assertEquals(1, queue.getQueuePosition("after"));
+        release.countDown();
+
+        assertTrue(after.await(5, TimeUnit.SECONDS));
+        assertFalse(ran.get());
+        assertFalse(queue.cancel("cancelled"));
+    }
+}
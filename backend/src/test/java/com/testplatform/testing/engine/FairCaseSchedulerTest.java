@@ -0,0 +1,120 @@
+package com.testplatform.testing.engine;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FairCaseSchedulerTest {
+
+    private FairCaseScheduler scheduler;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new FairCaseScheduler();
+        ReflectionTestUtils.setField(scheduler, "executionThreads", new ExecutionThreads());
+        ReflectionTestUtils.setField(scheduler, "workerThreads", 1);
+        scheduler.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        scheduler.shutdown();
+    }
+
+    /**
+     * 占住唯一的工作线程，使后续提交的任务都进入队列
+     */
+    private FairCaseScheduler.Flow occupyWorker() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        FairCaseScheduler.Flow blocker = scheduler.openFlow("blocker", null, 1);
+        blocker.submit(false, () -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return blocker;
+    }
+
+    @Test
+    void testUrgentTasksOvertakeNormalTasks() throws Exception {
+        occupyWorker();
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(3);
+        FairCaseScheduler.Flow batch = scheduler.openFlow("batch", null, 1);
+        FairCaseScheduler.Flow smoke = scheduler.openFlow("smoke", null, 1);
+
+        batch.submit(false, () -> { order.add("low-1"); done.countDown(); });
+        batch.submit(false, () -> { order.add("low-2"); done.countDown(); });
+        smoke.submit(true, () -> { order.add("critical"); done.countDown(); });
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals("critical", order.get(0));
+    }
+
+    @Test
+    void testSmallFlowIsNotStarvedByLargeFlow() throws Exception {
+        occupyWorker();
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(22);
+        FairCaseScheduler.Flow large = scheduler.openFlow("large", null, 1);
+        FairCaseScheduler.Flow small = scheduler.openFlow("small", null, 1);
+
+        for (int i = 0; i < 20; i++) {
+            large.submit(false, () -> { order.add("large"); done.countDown(); });
+        }
+        small.submit(false, () -> { order.add("small"); done.countDown(); });
+        small.submit(false, () -> { order.add("small"); done.countDown(); });
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(3, order.lastIndexOf("small"));
+    }
+
+    @Test
+    void testEnvironmentLimitHoldsBackSaturatedEnvironment() throws Exception {
+        scheduler.shutdown();
+        scheduler = new FairCaseScheduler();
+        ReflectionTestUtils.setField(scheduler, "executionThreads", new ExecutionThreads());
+        ReflectionTestUtils.setField(scheduler, "workerThreads", 4);
+        ReflectionTestUtils.setField(scheduler, "environmentMaxConcurrency", 1);
+        scheduler.init();
+
+        CountDownLatch started = new CountDownLatch(1);
+        FairCaseScheduler.Flow staging = scheduler.openFlow("staging-run", "staging", 1);
+        staging.submit(false, () -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CountDownLatch otherDone = new CountDownLatch(1);
+        CountDownLatch sameDone = new CountDownLatch(1);
+        staging.submit(true, sameDone::countDown);
+        scheduler.openFlow("prod-run", "prod", 1).submit(false, otherDone::countDown);
+
+        assertTrue(otherDone.await(5, TimeUnit.SECONDS));
+        assertFalse(sameDone.await(200, TimeUnit.MILLISECONDS));
+        release.countDown();
+        assertTrue(sameDone.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,108 @@
+package com.testplatform.testing.engine;
+
+import com.testplatform.model.TestCase;
+import com.testplatform.repository.TestCaseExecutionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ShardPlannerTest {
+
+    @Test
+    void testPlanBalancesShardsByEstimatedDuration() {
+        List<TestCase> testCases = new ArrayList<>();
+        Map<String, Long> estimates = new HashMap<>();
+        long[] durations = {70, 60, 50, 40, 30, 20, 10, 10};
+        for (int i = 0; i < durations.length; i++) {
+            testCases.add(new TestCase("case-" + i, "用例" + i, null, TestCase.Priority.MEDIUM, "{}"));
+            estimates.put("case-" + i, durations[i]);
+        }
+
+        ShardPlanner.ShardPlan plan = ShardPlanner.plan(testCases, Collections.emptyMap(), estimates, 3);
+
+        assertEquals(3, plan.getShardCount());
+        assertEquals(290, plan.getTotalEstimatedMs());
+        // LPT: [70,20,10] [60,30] [50,40,10]
+        assertEquals(100, plan.getEstimatedMakespanMs());
+        int assigned = 0;
+        for (ShardPlanner.Shard shard : plan.getShards()) {
+            assertTrue(shard.getEstimatedDurationMs() >= 90 && shard.getEstimatedDurationMs() <= 100);
+            assigned += shard.getTestCaseIds().size();
+        }
+        assertEquals(testCases.size(), assigned);
+    }
+
+    @Test
+    void testPlanKeepsDependentCasesInOneShardInTopologicalOrder() {
+        List<TestCase> testCases = Arrays.asList(
+            new TestCase("pay", "支付", null, TestCase.Priority.MEDIUM, "{}"),
+            new TestCase("login", "登录", null, TestCase.Priority.MEDIUM, "{}"),
+            new TestCase("query", "查询", null, TestCase.Priority.MEDIUM, "{}"),
+            new TestCase("report", "报表", null, TestCase.Priority.MEDIUM, "{}"));
+        Map<String, List<String>> dependencies = new HashMap<>();
+        dependencies.put("pay", Collections.singletonList("login"));
+        Map<String, Long> estimates = Map.of("pay", 30L, "login", 10L, "query", 25L, "report", 20L);
+
+        ShardPlanner.ShardPlan plan = ShardPlanner.plan(testCases, dependencies, estimates, 2);
+
+        ShardPlanner.Shard first = plan.getShards().get(0);
+        assertEquals(Arrays.asList("login", "pay"), first.getTestCaseIds());
+        assertEquals(40, first.getEstimatedDurationMs());
+        assertEquals(Arrays.asList("query", "report"), plan.getShards().get(1).getTestCaseIds());
+        assertThrows(IllegalArgumentException.class, () -> ShardPlanner.plan(testCases, dependencies, estimates, 0));
+        // 分片数超过用例数时拒绝，避免按请求参数分配任意多个分片
+        assertEquals(4, ShardPlanner.plan(testCases, dependencies, estimates, 4).getShardCount());
+        assertThrows(IllegalArgumentException.class, () -> ShardPlanner.plan(testCases, dependencies, estimates, 5));
+        assertThrows(IllegalArgumentException.class,
+            () -> ShardPlanner.plan(testCases, dependencies, estimates, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void testEstimatorUsesRollingWindowAndMedianFallback() {
+        List<Object[]> history = Arrays.asList(
+            new Object[]{"a", 300}, new Object[]{"a", 100}, new Object[]{"a", 9999},
+            new Object[]{"b", 50}, new Object[]{"c", 1000});
+
+        Map<String, Long> estimates = DurationEstimator.estimate(Arrays.asList("a", "b", "c", "new"), history, 2, 1000);
+
+        assertEquals(200L, estimates.get("a"));
+        assertEquals(50L, estimates.get("b"));
+        assertEquals(200L, estimates.get("new"));
+        assertEquals(500L, DurationEstimator.estimate(Collections.singletonList("x"), Collections.emptyList(), 2, 500).get("x"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testEstimatorLimitsHistoryPerCaseInQuery() {
+        TestCaseExecutionRepository repository = mock(TestCaseExecutionRepository.class);
+        when(repository.findRecentDurations(anyCollection(), anyCollection(), any(), anyInt()))
+            .thenReturn(Collections.singletonList(new Object[]{"case-0", 40}));
+        DurationEstimator estimator = new DurationEstimator();
+        ReflectionTestUtils.setField(estimator, "testCaseExecutionRepository", repository);
+        ReflectionTestUtils.setField(estimator, "window", 10);
+        ReflectionTestUtils.setField(estimator, "historyDays", 30);
+        ReflectionTestUtils.setField(estimator, "defaultDurationMs", 1000L);
+        List<TestCase> testCases = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            testCases.add(new TestCase("case-" + i, "用例" + i, null, TestCase.Priority.MEDIUM, "{}"));
+        }
+
+        Map<String, Long> estimates = estimator.estimate(testCases);
+
+        // 1200个用例分3批查询，每批都把window交给数据库截断
+        verify(repository, times(3)).findRecentDurations(anyCollection(),
+            eq(Arrays.asList("PASSED", "FAILED", "ERROR")), any(), eq(10));
+        assertEquals(1200, estimates.size());
+        assertEquals(40L, estimates.get("case-1199"));
+    }
+}
@@ -0,0 +1,418 @@
+package com.testplatform.testing.engine;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.testplatform.model.ExecutionWorkItem;
+import com.testplatform.model.TestCase;
+import com.testplatform.model.TestCaseExecution;
+import com.testplatform.model.TestEnvironment;
+import com.testplatform.model.TestExecution;
+import com.testplatform.model.TestSuite;
+import com.testplatform.repository.TestCaseExecutionRepository;
+import com.testplatform.repository.TestExecutionRepository;
+import com.testplatform.service.ExecutionWorkItemService;
+import com.testplatform.service.TestSuiteService;
+import com.testplatform.testing.TestExecutionResult;
+import com.testplatform.testing.TestExecutor;
+import com.testplatform.testing.TestExecutorFactory;
+import com.testplatform.testing.VariableManager;
+import com.testplatform.testing.VariableScope;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SuiteExecutionEngineTest {
+
+    @Mock
+    private TestSuiteService testSuiteService;
+
+    @Mock
+    private TestExecutorFactory testExecutorFactory;
+
+    @Mock
+    private TestExecutionRepository testExecutionRepository;
+
+    @Mock
+    private TestCaseExecutionRepository testCaseExecutionRepository;
+
+    @Mock
+    private ExecutionWorkItemService executionWorkItemService;
+
+    @Mock
+    private VariableManager variableManager;
+
+    @Mock
+    private DurationEstimator durationEstimator;
+
+    @InjectMocks
+    private SuiteExecutionEngine engine;
+
+    private FairCaseScheduler caseScheduler;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        caseScheduler = new FairCaseScheduler();
+        ReflectionTestUtils.setField(caseScheduler, "executionThreads", new ExecutionThreads());
+        ReflectionTestUtils.setField(caseScheduler, "workerThreads", 8);
+        caseScheduler.init();
+        ReflectionTestUtils.setField(engine, "caseScheduler", caseScheduler);
+        ReflectionTestUtils.setField(engine, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(engine, "progressFlushIntervalMs", 1000L);
+        ReflectionTestUtils.setField(engine, "manualWeight", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        caseScheduler.shutdown();
+    }
+
+    @Test
+    void testExecuteRunsCasesInParallelAndRollsUpCounts() throws Exception {
+        List<TestCase> testCases = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            testCases.add(new TestCase("case-" + i, "用例" + i, null, TestCase.Priority.MEDIUM, "{}"));
+        }
+        TestSuite suite = new TestSuite("suite-1", "套件", null, TestSuite.TestSuiteType.API);
+        suite.setParallelism(4);
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        TestExecutor executor = (testCase, environment) -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            return new TestExecutionResult(!"case-3".equals(testCase.getId()), "done", 0);
+        };
+
+        when(testSuiteService.getOrderedTestCases("suite-1")).thenReturn(testCases);
+        when(testExecutorFactory.getExecutor(suite)).thenReturn(executor);
+
+        TestExecution execution = new TestExecution("exec-1", "suite-1", TestExecution.ExecutionStatus.RUNNING);
+        SuiteRun run = engine.execute(execution, suite, new TestEnvironment(), new CancellationToken());
+
+        assertEquals(8, run.getTotalTests());
+        assertEquals(7, run.getPassedTests());
+        assertEquals(1, run.getFailedTests());
+        assertEquals(100, run.getProgress());
+        assertEquals(4, maxRunning.get());
+        verify(testCaseExecutionRepository, times(8)).save(any(TestCaseExecution.class));
+        verify(testExecutionRepository, atLeastOnce()).updateProgress(eq("exec-1"), eq(8), eq(7), eq(1), eq(0), eq(100), any());
+        assertTrue(engine.buildExecutionLog(run).contains("\"results\""));
+    }
+
+    @Test
+    void testExecutorExceptionIsRecordedAsError() throws Exception {
+        List<TestCase> testCases = new ArrayList<>();
+        testCases.add(new TestCase("case-err", "异常用例", null, TestCase.Priority.HIGH, "{}"));
+        TestSuite suite = new TestSuite("suite-2", "套件", null, TestSuite.TestSuiteType.API);
+
+        when(testSuiteService.getOrderedTestCases("suite-2")).thenReturn(testCases);
+        when(testExecutorFactory.getExecutor(suite)).thenReturn((testCase, environment) -> {
+            throw new IllegalStateException("boom");
+        });
+
+        TestExecution execution = new TestExecution("exec-2", "suite-2", TestExecution.ExecutionStatus.RUNNING);
+        SuiteRun run = engine.execute(execution, suite, new TestEnvironment(), new CancellationToken());
+
+        assertEquals(1, run.getFailedTests());
+        verify(testCaseExecutionRepository).save(argThat(ce -> ce.getStatus() == TestCaseExecution.ExecutionStatus.ERROR));
+    }
+
+    @Test
+    void testFailedCaseSkipsDependentsAndReportsCriticalPath() throws Exception {
+        List<TestCase> testCases = new ArrayList<>();
+        testCases.add(new TestCase("login", "登录", null, TestCase.Priority.HIGH, "{}"));
+        testCases.add(new TestCase("order", "下单", null, TestCase.Priority.MEDIUM, "{}"));
+        testCases.add(new TestCase("pay", "支付", null, TestCase.Priority.MEDIUM, "{}"));
+        testCases.add(new TestCase("query", "查询", null, TestCase.Priority.MEDIUM, "{}"));
+        TestSuite suite = new TestSuite("suite-3", "套件", null, TestSuite.TestSuiteType.API);
+
+        Map<String, List<String>> dependencies = new HashMap<>();
+        dependencies.put("order", Collections.singletonList("login"));
+        dependencies.put("pay", Collections.singletonList("order"));
+        dependencies.put("query", Collections.singletonList("login"));
+
+        List<String> executed = Collections.synchronizedList(new ArrayList<>());
+        when(testSuiteService.getOrderedTestCases("suite-3")).thenReturn(testCases);
+        when(testSuiteService.getCaseDependencies("suite-3")).thenReturn(dependencies);
+        when(testExecutorFactory.getExecutor(suite)).thenReturn((testCase, environment) -> {
+            executed.add(testCase.getId());
+            return new TestExecutionResult(!"order".equals(testCase.getId()), "done", 0);
+        });
+
+        TestExecution execution = new TestExecution("exec-3", "suite-3", TestExecution.ExecutionStatus.RUNNING);
+        SuiteRun run = engine.execute(execution, suite, new TestEnvironment(), new CancellationToken());
+
+        assertEquals("login", executed.get(0));
+        assertFalse(executed.contains("pay"));
+        assertEquals(2, run.getPassedTests());
+        assertEquals(1, run.getFailedTests());
+        assertEquals(1, run.getSkippedTests());
+        assertEquals(100, run.getProgress());
+        verify(testCaseExecutionRepository).save(argThat(ce -> ce != null && "pay".equals(ce.getTestCaseId())
+            && ce.getStatus() == TestCaseExecution.ExecutionStatus.SKIPPED));
+        assertNotNull(run.getCriticalPath());
+        assertEquals("login", run.getCriticalPath().getTestCaseIds().get(0));
+        assertTrue(engine.buildExecutionLog(run).contains("\"criticalPath\""));
+    }
+
+    @Test
+    void testCancelInterruptsRunningCasesAndDrainsQueuedOnes() throws Exception {
+        List<TestCase> testCases = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            testCases.add(new TestCase("slow-" + i, "慢用例" + i, null, TestCase.Priority.MEDIUM, "{}"));
+        }
+        TestSuite suite = new TestSuite("suite-4", "套件", null, TestSuite.TestSuiteType.API);
+        suite.setParallelism(2);
+
+        AtomicInteger startedCases = new AtomicInteger();
+        AtomicInteger boundContexts = new AtomicInteger();
+        when(testSuiteService.getOrderedTestCases("suite-4")).thenReturn(testCases);
+        when(testExecutorFactory.getExecutor(suite)).thenReturn((testCase, environment) -> {
+            startedCases.incrementAndGet();
+            if (ExecutionContext.current() != null && "exec-4".equals(ExecutionContext.current().getExecutionId())) {
+                boundContexts.incrementAndGet();
+            }
+            try {
+                Thread.sleep(30_000);
+                return new TestExecutionResult(true, "done", 0);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new TestExecutionResult(false, "interrupted", 0);
+            }
+        });
+
+        CancellationToken token = new CancellationToken();
+        TestExecution execution = new TestExecution("exec-4", "suite-4", TestExecution.ExecutionStatus.RUNNING);
+        new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException ignored) {
+            }
+            token.cancel();
+        }).start();
+
+        long start = System.nanoTime();
+        SuiteRun run = engine.execute(execution, suite, new TestEnvironment(), token);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMs < 5_000, "取消后应尽快返回: " + elapsedMs);
+        assertTrue(run.isCancelled());
+        assertEquals(2, startedCases.get());
+        assertEquals(2, boundContexts.get());
+        assertEquals(6, run.getSkippedTests());
+        assertEquals(0, run.getFailedTests());
+        verify(testCaseExecutionRepository, times(2)).save(argThat(ce -> ce != null
+            && ce.getStatus() == TestCaseExecution.ExecutionStatus.SKIPPED));
+        assertTrue(engine.buildSummary(run).contains("已取消"));
+    }
+
+    @Test
+    void testCancelCountsCasesStillQueuedInFlowAsSkipped() throws Exception {
+        List<TestCase> testCases = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            testCases.add(new TestCase("queued-" + i, "排队用例" + i, null, TestCase.Priority.MEDIUM, "{}"));
+        }
+        TestSuite suite = new TestSuite("suite-8", "套件", null, TestSuite.TestSuiteType.API);
+        suite.setParallelism(4);
+        // 环境只允许1个在途用例，其余已提交的用例排在调度流中
+        TestEnvironment environment = new TestEnvironment();
+        environment.setId("env-8");
+        environment.setMaxConcurrency(1);
+
+        AtomicInteger startedCases = new AtomicInteger();
+        when(testSuiteService.getOrderedTestCases("suite-8")).thenReturn(testCases);
+        when(testExecutorFactory.getExecutor(suite)).thenReturn((testCase, env) -> {
+            startedCases.incrementAndGet();
+            try {
+                Thread.sleep(30_000);
+                return new TestExecutionResult(true, "done", 0);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new TestExecutionResult(false, "interrupted", 0);
+            }
+        });
+
+        CancellationToken token = new CancellationToken();
+        TestExecution execution = new TestExecution("exec-8", "suite-8", TestExecution.ExecutionStatus.RUNNING);
+        new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException ignored) {
+            }
+            token.cancel();
+        }).start();
+
+        SuiteRun run = engine.execute(execution, suite, environment, token);
+
+        assertTrue(run.isCancelled());
+        assertEquals(1, startedCases.get());
+        assertEquals(6, run.getTotalTests());
+        assertEquals(run.getTotalTests(), run.getPassedTests() + run.getFailedTests() + run.getSkippedTests());
+        assertEquals(6, run.getSkippedTests());
+        // 取消前已出队的用例不再调用执行器，只写跳过记录
+        verify(testCaseExecutionRepository, never()).save(argThat(ce -> ce != null
+            && ce.getStatus() != TestCaseExecution.ExecutionStatus.SKIPPED));
+    }
+
+    @Test
+    void testEnqueueWritesWorkItemsWithDependencies() {
+        List<TestCase> testCases = new ArrayList<>();
+        testCases.add(new TestCase("login", "登录", null, TestCase.Priority.HIGH, "{}"));
+        testCases.add(new TestCase("query", "查询", null, TestCase.Priority.MEDIUM, "{}"));
+        testCases.add(new TestCase("order", "下单", null, TestCase.Priority.MEDIUM, "{}"));
+        TestSuite suite = new TestSuite("suite-5", "套件", null, TestSuite.TestSuiteType.API);
+        suite.setParallelism(2);
+        Map<String, List<String>> dependencies = new HashMap<>();
+        dependencies.put("query", Collections.singletonList("login"));
+        dependencies.put("order", Collections.singletonList("login"));
+        when(testSuiteService.getOrderedTestCases("suite-5")).thenReturn(testCases);
+        when(testSuiteService.getCaseDependencies("suite-5")).thenReturn(dependencies);
+
+        TestExecution execution = new TestExecution("exec-5", "suite-5", TestExecution.ExecutionStatus.RUNNING);
+        execution.setExecutionType("SCHEDULED");
+        TestEnvironment environment = new TestEnvironment();
+        environment.setId("env-1");
+
+        assertEquals(3, engine.enqueue(execution, suite, environment));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ExecutionWorkItem>> captor = ArgumentCaptor.forClass(List.class);
+        verify(executionWorkItemService).enqueue(eq("exec-5"), captor.capture());
+        List<ExecutionWorkItem> items = captor.getValue();
+        assertEquals(3, items.size());
+
+        ExecutionWorkItem login = items.get(0);
+        assertEquals("login", login.getTestCaseId());
+        assertEquals(0, login.getBlockedBy());
+        assertEquals(List.of("query", "order"), login.getDependents());
+        assertTrue(login.getUrgent());
+        assertEquals("env-1", login.getEnvironmentId());
+
+        ExecutionWorkItem query = items.get(1);
+        assertEquals(1, query.getBlockedBy());
+        assertTrue(query.getDependents().isEmpty());
+        assertFalse(query.getUrgent());
+        for (ExecutionWorkItem item : items) {
+            assertEquals(2, item.getMaxParallelism());
+            assertEquals(ExecutionWorkItem.WorkStatus.PENDING, item.getStatus());
+        }
+    }
+
+    @Test
+    void testResumeSkipsCompletedCasesAndReappliesDependencies() throws Exception {
+        List<TestCase> testCases = new ArrayList<>();
+        testCases.add(new TestCase("login", "登录", null, TestCase.Priority.HIGH, "{}"));
+        testCases.add(new TestCase("order", "下单", null, TestCase.Priority.MEDIUM, "{}"));
+        testCases.add(new TestCase("pay", "支付", null, TestCase.Priority.MEDIUM, "{}"));
+        testCases.add(new TestCase("query", "查询", null, TestCase.Priority.MEDIUM, "{}"));
+        TestSuite suite = new TestSuite("suite-6", "套件", null, TestSuite.TestSuiteType.API);
+
+        Map<String, List<String>> dependencies = new HashMap<>();
+        dependencies.put("order", Collections.singletonList("login"));
+        dependencies.put("pay", Collections.singletonList("order"));
+        dependencies.put("query", Collections.singletonList("login"));
+
+        List<String> executed = Collections.synchronizedList(new ArrayList<>());
+        when(testSuiteService.getOrderedTestCases("suite-6")).thenReturn(testCases);
+        when(testSuiteService.getCaseDependencies("suite-6")).thenReturn(dependencies);
+        when(testExecutorFactory.getExecutor(suite)).thenReturn((testCase, environment) -> {
+            executed.add(testCase.getId());
+            return new TestExecutionResult(true, "done", 0);
+        });
+        when(variableManager.getAllLocalVariables()).thenReturn(Map.of("orderId", "1001"));
+
+        Map<String, TestCaseExecution> completed = new HashMap<>();
+        TestCaseExecution login = new TestCaseExecution("ce-1", "exec-6", "login", TestCaseExecution.ExecutionStatus.PASSED);
+        login.setDurationMs(30);
+        completed.put("login", login);
+        TestCaseExecution order = new TestCaseExecution("ce-2", "exec-6", "order", TestCaseExecution.ExecutionStatus.FAILED);
+        order.setErrorMessage("库存不足");
+        completed.put("order", order);
+
+        TestExecution execution = new TestExecution("exec-6", "suite-6", TestExecution.ExecutionStatus.RUNNING);
+        SuiteRun run = engine.execute(execution, suite, new TestEnvironment(), new CancellationToken(), completed);
+
+        assertEquals(Collections.singletonList("query"), executed);
+        assertEquals(2, run.getPassedTests());
+        assertEquals(1, run.getFailedTests());
+        assertEquals(1, run.getSkippedTests());
+        verify(testExecutionRepository, atLeastOnce()).updateCheckpoint(eq("exec-6"), contains("orderId"), any());
+    }
+
+    @Test
+    void testCheckpointIsWrittenBeforePassedCaseThatSetVariables() throws Exception {
+        List<TestCase> testCases = new ArrayList<>();
+        testCases.add(new TestCase("login", "登录", null, TestCase.Priority.HIGH, "{}"));
+        testCases.add(new TestCase("query", "查询", null, TestCase.Priority.MEDIUM, "{}"));
+        TestSuite suite = new TestSuite("suite-7", "套件", null, TestSuite.TestSuiteType.API);
+        suite.setParallelism(1);
+
+        when(testSuiteService.getOrderedTestCases("suite-7")).thenReturn(testCases);
+        when(testExecutorFactory.getExecutor(suite)).thenReturn((testCase, environment) -> {
+            if ("login".equals(testCase.getId())) {
+                ExecutionContext.currentVariables().put("token", "jwt-1");
+            }
+            return new TestExecutionResult(true, "done", 0);
+        });
+        when(variableManager.getExecutionScope("exec-7")).thenReturn(VariableScope.root("env-1"));
+
+        TestExecution execution = new TestExecution("exec-7", "suite-7", TestExecution.ExecutionStatus.RUNNING);
+        engine.execute(execution, suite, new TestEnvironment(), new CancellationToken());
+
+        // 进程在登录用例的记录写入后退出时，恢复执行能从检查点取得token
+        InOrder inOrder = inOrder(testExecutionRepository, testCaseExecutionRepository);
+        inOrder.verify(testExecutionRepository).updateCheckpoint(eq("exec-7"), contains("jwt-1"), any());
+        inOrder.verify(testCaseExecutionRepository).save(argThat(ce -> "login".equals(ce.getTestCaseId())));
+    }
+
+    @Test
+    void testDurationAwareSchedulingRunsLongestCasesFirst() throws Exception {
+        List<TestCase> testCases = new ArrayList<>();
+        testCases.add(new TestCase("short", "短", null, TestCase.Priority.MEDIUM, "{}"));
+        testCases.add(new TestCase("long", "长", null, TestCase.Priority.MEDIUM, "{}"));
+        testCases.add(new TestCase("medium", "中", null, TestCase.Priority.MEDIUM, "{}"));
+        testCases.add(new TestCase("tail", "尾", null, TestCase.Priority.MEDIUM, "{}"));
+        TestSuite suite = new TestSuite("suite-7", "套件", null, TestSuite.TestSuiteType.API);
+        suite.setParallelism(1);
+
+        // short -> tail 的依赖链（10 + 100）比 long（80）更长，应最先执行
+        Map<String, List<String>> dependencies = new HashMap<>();
+        dependencies.put("tail", Collections.singletonList("short"));
+        List<String> executed = Collections.synchronizedList(new ArrayList<>());
+        when(testSuiteService.getOrderedTestCases("suite-7")).thenReturn(testCases);
+        when(testSuiteService.getCaseDependencies("suite-7")).thenReturn(dependencies);
+        when(testExecutorFactory.getExecutor(suite)).thenReturn((testCase, environment) -> {
+            executed.add(testCase.getId());
+            return new TestExecutionResult(true, "done", 0);
+        });
+        when(durationEstimator.estimate(testCases)).thenReturn(Map.of("short", 10L, "long", 80L, "medium", 50L, "tail", 100L));
+        ReflectionTestUtils.setField(engine, "durationAwareScheduling", true);
+
+        TestExecution execution = new TestExecution("exec-7", "suite-7", TestExecution.ExecutionStatus.RUNNING);
+        engine.execute(execution, suite, new TestEnvironment(), new CancellationToken());
+
+        assertEquals(List.of("short", "tail", "long", "medium"), executed);
+    }
+}
@@ -0,0 +1,46 @@
+package com.testplatform.testing.load;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testPercentilesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram(3_600_000_000L);
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.recordValue(value * 10);
+        }
+
+        assertEquals(100_000, histogram.getTotalCount());
+        assertEquals(10, histogram.getMinValue());
+        assertEquals(1_000_000, histogram.getMaxValue());
+        assertEquals(500_005, histogram.getMean(), 0.5);
+        assertEquals(500_000, histogram.getValueAtPercentile(50), 500_000 * 0.001);
+        assertEquals(990_000, histogram.getValueAtPercentile(99), 990_000 * 0.001);
+        assertEquals(999_000, histogram.getValueAtPercentile(99.9), 999_000 * 0.001);
+        assertEquals(1_000_000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    void testBucketBoundaries() {
+        for (long value : new long[]{0, 1, 2047, 2048, 2049, 4095, 4096, 123_456_789L}) {
+            long highest = LatencyHistogram.highestEquivalentValue(LatencyHistogram.indexOf(value));
+            assertTrue(highest >= value, "桶上界不能小于值: " + value);
+            assertTrue(highest - value <= Math.max(1, value / 1024), "桶宽度超过精度: " + value);
+        }
+    }
+
+    @Test
+    void testDistributionScalesToMillis() {
+        LatencyHistogram histogram = new LatencyHistogram(3_600_000_000L);
+        histogram.recordValue(1_500);
+        Map<String, Object> distribution = histogram.getDistribution(1000.0);
+        assertEquals(1L, distribution.get("count"));
+        assertEquals(1.5, (Double) distribution.get("p99.9"), 0.01);
+        assertEquals(1.5, (Double) distribution.get("max"), 0.01);
+    }
+}
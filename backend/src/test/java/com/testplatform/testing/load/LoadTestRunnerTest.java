@@ -0,0 +1,107 @@
+package com.testplatform.testing.load;
+
+import com.sun.net.httpserver.HttpServer;
+import com.testplatform.testing.engine.CancellationToken;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadTestRunnerTest {
+
+    private HttpServer server;
+    private final AtomicInteger received = new AtomicInteger();
+    private volatile long delayMillis;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/ok", exchange -> {
+            int count = received.incrementAndGet();
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // 每10个请求返回一次500
+            int status = count % 10 == 0 ? 500 : 200;
+            byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private LoadTestRunner runner() {
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/ok"))
+            .timeout(Duration.ofSeconds(5))
+            .GET()
+            .build();
+        return new LoadTestRunner(HttpClient.newHttpClient(), request, response -> response.statusCode() == 200, 1000);
+    }
+
+    @Test
+    void testOpenLoopSendsAtTargetRate() throws InterruptedException {
+        LoadTestResult result = runner().runAtRate(100, Duration.ofSeconds(1), new CancellationToken());
+
+        assertEquals(100, result.getTotalRequests());
+        assertEquals(100, received.get());
+        assertEquals(10, result.getErrorCount());
+        assertEquals(0.1, result.getErrorRate(), 0.0001);
+        assertEquals(10L, result.getErrors().get("HTTP 500"));
+        assertEquals(100, result.getLatency().getTotalCount());
+        assertTrue(result.getThroughputRps() > 50 && result.getThroughputRps() <= 110, "吞吐量: " + result.getThroughputRps());
+        assertFalse(result.isCancelled());
+    }
+
+    @Test
+    void testClosedLoopLatencyIncludesBacklog() throws InterruptedException {
+        // 单个并发、每20ms一个请求，但服务每次需要50ms：请求越来越晚发出，延迟应明显大于服务时间
+        delayMillis = 50;
+        LoadTestResult result = runner().runWithConcurrency(1, 50.0, Duration.ofSeconds(1), new CancellationToken());
+
+        assertTrue(result.getTotalRequests() >= 5 && result.getTotalRequests() <= 50, "请求数: " + result.getTotalRequests());
+        long serviceP99 = result.getServiceTime().getValueAtPercentile(99);
+        long latencyMax = result.getLatency().getMaxValue();
+        assertTrue(serviceP99 >= 50_000, "服务时间: " + serviceP99);
+        assertTrue(latencyMax > serviceP99 * 2, "延迟应包含积压等待: " + latencyMax + " vs " + serviceP99);
+    }
+
+    @Test
+    void testCancelStopsSending() throws InterruptedException {
+        CancellationToken token = new CancellationToken();
+        ScheduledExecutorService canceller = Executors.newSingleThreadScheduledExecutor();
+        canceller.schedule(token::cancel, 200, TimeUnit.MILLISECONDS);
+
+        long start = System.nanoTime();
+        LoadTestResult result = runner().runAtRate(50, Duration.ofSeconds(10), token);
+        canceller.shutdown();
+
+        assertTrue(System.nanoTime() - start < 3_000_000_000L, "取消后应立即结束");
+        assertTrue(result.isCancelled());
+        assertTrue(received.get() < 50, "取消后不应继续发送: " + received.get());
+    }
+}
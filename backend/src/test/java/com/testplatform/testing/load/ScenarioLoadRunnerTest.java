@@ -0,0 +1,129 @@
+package com.testplatform.testing.load;
+
+import com.testplatform.service.GlobalVariableService;
+import com.testplatform.testing.VariableManager;
+import com.testplatform.testing.business.BusinessTestExecutor;
+import com.testplatform.testing.engine.CancellationToken;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ScenarioLoadRunnerTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final VariableManager variableManager = new VariableManager();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(variableManager, "globalVariableService", mock(GlobalVariableService.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testVirtualUsersHaveIsolatedVariables() throws InterruptedException {
+        AtomicInteger mismatches = new AtomicInteger();
+        ScenarioLoadRunner runner = new ScenarioLoadRunner(listener -> {
+            // 登录步骤提取的令牌只对当前虚拟用户可见，后续流程继续使用
+            Object vuId = variableManager.getVariable("vuId");
+            if (!variableManager.hasVariable("token")) {
+                variableManager.setLocalVariable("token", "token-" + vuId);
+            }
+            listener.onStepCompleted("login", true, 2, 0);
+            Thread.sleep(5);
+            if (!("token-" + vuId).equals(variableManager.getVariable("token"))) {
+                mismatches.incrementAndGet();
+            }
+            listener.onStepCompleted("checkout", true, 3, 0);
+            return true;
+        }, executor);
+
+        LoadTestResult result = runner.run("run-1", new ScenarioLoadRunner.VirtualUserProfile(20,
+            Duration.ofMillis(200), Duration.ofMillis(300), Duration.ofMillis(200), 0), new CancellationToken());
+
+        assertEquals(0, mismatches.get());
+        assertEquals(20, result.getPeakVirtualUsers());
+        assertTrue(result.getSuccessCount() > 20, "流程次数: " + result.getSuccessCount());
+        assertEquals(0, result.getErrorCount());
+        assertEquals(result.getSuccessCount(), ((Number) result.getSteps().get("checkout").get("count")).longValue());
+        assertEquals(2.0, (Double) result.getSteps().get("login").get("p99"), 0.01);
+        assertTrue(variableManager.getAllLocalVariables().isEmpty(), "虚拟用户变量不应写入共享变量");
+    }
+
+    @Test
+    void testThinkTimeExcludedFromIterationLatency() throws InterruptedException {
+        ScenarioLoadRunner runner = new ScenarioLoadRunner(listener -> {
+            listener.onStepCompleted("browse", true, 1, 0);
+            listener.onStepCompleted("pay", false, 1, 0);
+            return false;
+        }, executor);
+
+        long start = System.nanoTime();
+        LoadTestResult result = runner.run("run-2", new ScenarioLoadRunner.VirtualUserProfile(2,
+            Duration.ZERO, Duration.ofMillis(400), Duration.ZERO, 50), new CancellationToken());
+
+        assertTrue(System.nanoTime() - start >= 400_000_000L);
+        assertTrue(result.getLatency().getMaxValue() < 40_000, "流程耗时不应包含思考时间: " + result.getLatency().getMaxValue());
+        assertEquals(0, result.getSuccessCount());
+        assertEquals(result.getErrorCount(), result.getErrors().get("流程失败"));
+        Map<String, Object> pay = result.getSteps().get("pay");
+        assertEquals(pay.get("count"), pay.get("errors"));
+    }
+
+    @Test
+    void testInvalidScenarioFailsRunBeforeRampUp() {
+        AtomicInteger iterations = new AtomicInteger();
+        ScenarioLoadRunner runner = new ScenarioLoadRunner(new ScenarioLoadRunner.Scenario() {
+            @Override
+            public boolean runOnce(BusinessTestExecutor.StepListener listener) {
+                iterations.incrementAndGet();
+                return true;
+            }
+
+            @Override
+            public void validate() {
+                throw new IllegalArgumentException("业务流程没有步骤");
+            }
+        }, executor);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> runner.run("run-3",
+            new ScenarioLoadRunner.VirtualUserProfile(5, Duration.ZERO, Duration.ofSeconds(10), Duration.ZERO, 0),
+            new CancellationToken()));
+        assertEquals("业务流程没有步骤", e.getMessage());
+        assertEquals(0, iterations.get());
+    }
+
+    @Test
+    void testIterationIllegalArgumentCountsAsError() throws InterruptedException {
+        AtomicInteger iterations = new AtomicInteger();
+        ScenarioLoadRunner runner = new ScenarioLoadRunner(listener -> {
+            // 单次流程中的参数错误（如某次响应缺少字段）不终止压测
+            if (iterations.incrementAndGet() % 2 == 0) {
+                throw new IllegalArgumentException("响应缺少字段");
+            }
+            Thread.sleep(5);
+            return true;
+        }, executor);
+
+        LoadTestResult result = runner.run("run-4", new ScenarioLoadRunner.VirtualUserProfile(2,
+            Duration.ZERO, Duration.ofMillis(300), Duration.ZERO, 0), new CancellationToken());
+
+        assertFalse(result.isCancelled());
+        assertTrue(result.getSuccessCount() > 0);
+        assertTrue(result.getErrorCount() > 0);
+        assertEquals(result.getErrorCount(), result.getErrors().get("IllegalArgumentException"));
+    }
+}
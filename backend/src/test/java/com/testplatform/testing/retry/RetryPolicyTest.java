@@ -0,0 +1,125 @@
+package com.testplatform.testing.retry;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.testplatform.testing.engine.CancellationToken;
+import com.testplatform.testing.engine.ExecutionContext;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpTimeoutException;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryPolicyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testBackoffWithJitterStaysWithinBounds() {
+        RetryPolicy policy = new RetryPolicy(5, 1000, 5000, 2, 0.5, Set.of(RetryPolicy.CONNECT));
+
+        for (int i = 0; i < 100; i++) {
+            long first = policy.delayMillis(1);
+            assertTrue(first >= 500 && first <= 1000, "第1次重试: " + first);
+            long third = policy.delayMillis(3);
+            assertTrue(third >= 2000 && third <= 4000, "第3次重试: " + third);
+            long capped = policy.delayMillis(10);
+            assertTrue(capped >= 2500 && capped <= 5000, "超过上限: " + capped);
+        }
+    }
+
+    @Test
+    void testCaseOverridesMergeOverBase() throws IOException {
+        RetryPolicy base = new RetryPolicy(3, 1000, 10000, 2, 0.5, Set.of(RetryPolicy.CONNECT));
+
+        RetryPolicy count = RetryPolicy.parse(RetryPolicy.caseOverrides(objectMapper.readTree("{\"retries\":1}")), base);
+        assertEquals(1, count.getMaxRetries());
+        assertEquals(Set.of(RetryPolicy.CONNECT), count.getRetryOn());
+
+        RetryPolicy policy = RetryPolicy.parse(RetryPolicy.caseOverrides(objectMapper.readTree(
+            "{\"retry\":{\"maxRetries\":4,\"retryOn\":[\"5xx\",\"assertion\"]}}")), base);
+        assertEquals(4, policy.getMaxRetries());
+        assertEquals(1000, policy.getInitialDelayMs());
+        assertTrue(policy.retriesOn(RetryPolicy.ASSERTION));
+        assertFalse(policy.retriesOn(RetryPolicy.CONNECT));
+
+        assertThrows(IllegalArgumentException.class, () -> RetryPolicy.parse(
+            objectMapper.readTree("{\"retryOn\":[\"sometimes\"]}"), base));
+    }
+
+    @Test
+    void testClassifyByTypeWithoutMessage() {
+        assertEquals(RetryPolicy.CONNECT, RetryPolicy.classify(new CompletionException(new ConnectException())));
+        assertEquals(RetryPolicy.TIMEOUT, RetryPolicy.classify(new HttpTimeoutException(null)));
+        assertEquals(RetryPolicy.IO, RetryPolicy.classify(new IOException()));
+        assertNull(RetryPolicy.classify(new IllegalStateException()));
+        assertNull(RetryPolicy.classify(new JsonParseException(null, "Unexpected character")));
+        assertEquals(RetryPolicy.SERVER_ERROR, RetryPolicy.classifyStatus(503));
+        assertEquals(RetryPolicy.TOO_MANY_REQUESTS, RetryPolicy.classifyStatus(429));
+        assertEquals(RetryPolicy.ASSERTION, RetryPolicy.classifyStatus(404));
+    }
+
+    @Test
+    void testBudgetLimitsRetriesPerExecution() {
+        RetryBudget budget = new RetryBudget(0.5, 1);
+        budget.recordAttempt();
+        budget.recordAttempt();
+
+        // 1 + 0.5 * 2 = 2次
+        assertTrue(budget.tryAcquire());
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+
+        budget.recordAttempt();
+        budget.recordAttempt();
+        assertTrue(budget.tryAcquire());
+        assertEquals(1L, budget.getStats().get("rejected"));
+    }
+
+    @Test
+    void testLoadRunsNeitherRetryNorAllocateBudget() throws IOException {
+        RetryRegistry registry = new RetryRegistry();
+        RetryPolicy defaults = new RetryPolicy(3, 1000, 10000, 2, 0.5, Set.of(RetryPolicy.CONNECT));
+        ExecutionContext suite = new ExecutionContext("exec-1", CancellationToken.NONE, null);
+        ExecutionContext load = new ExecutionContext("run-1", CancellationToken.NONE, null).withoutRetries();
+
+        assertEquals(2, registry.resolvePolicy(suite, objectMapper.readTree("2"), defaults).getMaxRetries());
+        assertNotNull(registry.getBudget(suite));
+
+        assertSame(RetryPolicy.NONE, registry.resolvePolicy(load, objectMapper.readTree("2"), defaults));
+        assertNull(registry.getBudget(load));
+        // 并行步骤沿用不重试的设置
+        assertNull(registry.getBudget(load.withVariables(null)));
+    }
+
+    @Test
+    void testCircuitBreakerOpensAndProbes() {
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker("api:80", 2, 1000, now::get);
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        assertTrue(breaker.isOpen());
+        assertFalse(breaker.tryAcquire());
+
+        // 打开时间到后只放行一个探测请求，探测失败重新打开
+        now.set(1000);
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        now.set(2000);
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+}
@@ -0,0 +1,75 @@
+package com.testplatform.testing.schema;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * JSON Schema校验的性能基准，默认不运行（mvn test -Pbenchmark）
+ */
+@Tag("benchmark")
+class JsonSchemaBenchmarkTest {
+    private static final Logger logger = LoggerFactory.getLogger(JsonSchemaBenchmarkTest.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * 大响应的校验开销：流式校验与先构建文档树再校验的每MB耗时
+     */
+    @Test
+    void benchmarkValidationCostPerMegabyte() throws Exception {
+        StringBuilder json = new StringBuilder("{\"total\":20000,\"items\":[");
+        for (int i = 0; i < 20000; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(i + 1).append(",\"name\":\"user-").append(i)
+                .append("\",\"email\":\"user").append(i).append("@example.com\",\"score\":").append(i % 100).append(".5")
+                .append(",\"tags\":[\"a\",\"b\",\"c\"],\"profile\":{\"city\":\"city-").append(i % 50)
+                .append("\",\"bio\":\"").append("x".repeat(120)).append("\"}}");
+        }
+        json.append("]}");
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        double megabytes = body.length / (1024.0 * 1024.0);
+
+        JsonSchema schema = JsonSchema.compile(objectMapper.readTree("{\"type\":\"object\",\"required\":[\"total\",\"items\"],"
+            + "\"properties\":{\"total\":{\"type\":\"integer\"},\"items\":{\"type\":\"array\",\"items\":{\"type\":\"object\","
+            + "\"required\":[\"id\",\"name\",\"email\"],\"properties\":{\"id\":{\"type\":\"integer\",\"minimum\":1},"
+            + "\"name\":{\"type\":\"string\",\"maxLength\":64},\"email\":{\"type\":\"string\",\"pattern\":\"@\"},"
+            + "\"score\":{\"type\":\"number\",\"maximum\":100},\"tags\":{\"type\":\"array\",\"items\":{\"type\":\"string\"}},"
+            + "\"profile\":{\"type\":\"object\",\"properties\":{\"city\":{\"type\":\"string\"}}}}}}}}"));
+
+        // 预热
+        for (int i = 0; i < 3; i++) {
+            try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+                assertTrue(schema.validate(parser).isEmpty());
+            }
+            assertTrue(schema.validate(objectMapper.readTree(body)).isEmpty());
+        }
+
+        int rounds = 5;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+                assertTrue(schema.validate(parser).isEmpty());
+            }
+        }
+        double streamingMs = (System.nanoTime() - start) / 1_000_000.0 / rounds;
+
+        start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            assertTrue(schema.validate(objectMapper.readTree(body)).isEmpty());
+        }
+        double treeMs = (System.nanoTime() - start) / 1_000_000.0 / rounds;
+
+        logger.info("JSON Schema校验 {} MB: 流式 {} ms/MB, 构建树后校验 {} ms/MB", String.format("%.2f", megabytes),
+            String.format("%.1f", streamingMs / megabytes), String.format("%.1f", treeMs / megabytes));
+    }
+}
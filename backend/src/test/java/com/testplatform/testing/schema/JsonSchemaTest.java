@@ -0,0 +1,89 @@
+package com.testplatform.testing.schema;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonSchemaTest {
+
+    private static final String STORED = "{"
+        + "\"user\":{\"type\":\"object\",\"required\":[\"id\",\"name\"],"
+        + "\"properties\":{\"id\":{\"type\":\"integer\",\"minimum\":1},\"name\":{\"type\":\"string\",\"minLength\":1},"
+        + "\"role\":{\"enum\":[\"admin\",\"member\"]},\"manager\":{\"$ref\":\"user\"},"
+        + "\"address\":{\"$ref\":\"#/definitions/address\"}},"
+        + "\"definitions\":{\"address\":{\"type\":\"object\",\"required\":[\"city\"]}}}}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private List<String> streamValidate(JsonSchema schema, String json) throws Exception {
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            return schema.validate(parser);
+        }
+    }
+
+    @Test
+    void testReferencesAndStreaming() throws Exception {
+        SchemaSource source = SchemaSource.parse(null, STORED);
+        JsonNode schema = objectMapper.readTree("{\"type\":\"array\",\"items\":{\"$ref\":\"user\"},\"minItems\":1}");
+        JsonSchema compiled = JsonSchema.compile(schema, source::getDocument);
+
+        String valid = "[{\"id\":1,\"name\":\"a\",\"role\":\"admin\",\"manager\":{\"id\":2,\"name\":\"b\"},"
+            + "\"address\":{\"city\":\"x\"}}]";
+        assertTrue(streamValidate(compiled, valid).isEmpty());
+        assertTrue(compiled.validate(objectMapper.readTree(valid)).isEmpty());
+
+        String invalid = "[{\"id\":0,\"role\":\"guest\",\"manager\":{\"id\":\"2\",\"name\":\"b\"},\"address\":{}}]";
+        List<String> errors = streamValidate(compiled, invalid);
+        assertEquals(compiled.validate(objectMapper.readTree(invalid)).size(), errors.size());
+        assertTrue(errors.contains("$[0]: 缺少必填字段 name"), errors.toString());
+        assertTrue(errors.contains("$[0].manager.id: 类型应为integer, 实际为string"), errors.toString());
+        assertTrue(errors.contains("$[0].address: 缺少必填字段 city"), errors.toString());
+        assertEquals(5, errors.size(), errors.toString());
+    }
+
+    @Test
+    void testCompiledSchemaCache() throws Exception {
+        JsonNode schema = objectMapper.readTree("{\"$ref\":\"user\"}");
+        String hash = CompiledSchemaCache.hash(schema);
+        SchemaSource source = SchemaSource.parse(STORED);
+
+        JsonSchema first = CompiledSchemaCache.get(hash, schema, source);
+        assertSame(first, CompiledSchemaCache.get(hash, objectMapper.readTree("{\"$ref\":\"user\"}"), SchemaSource.parse(STORED)));
+        // 存储的schema修改后重新编译
+        SchemaSource changed = SchemaSource.parse(STORED, "{\"user\":{\"type\":\"string\"}}");
+        JsonSchema second = CompiledSchemaCache.get(hash, schema, changed);
+        assertNotSame(first, second);
+        assertTrue(second.validate(objectMapper.readTree("\"x\"")).isEmpty());
+
+        assertThrows(IllegalArgumentException.class, () -> CompiledSchemaCache.get(hash, schema, SchemaSource.EMPTY));
+        assertThrows(IllegalArgumentException.class,
+            () -> JsonSchema.compile(objectMapper.readTree("{\"$ref\":\"#/definitions/a\",\"definitions\":{\"a\":{\"$ref\":\"#\"}}}")));
+    }
+
+    @Test
+    void testStreamingAndTreeValidationAgreeOnLargeDocument() throws Exception {
+        JsonSchema schema = JsonSchema.compile(objectMapper.readTree("{\"type\":\"object\",\"required\":[\"items\"],"
+            + "\"properties\":{\"items\":{\"type\":\"array\",\"items\":{\"type\":\"object\",\"required\":[\"id\"],"
+            + "\"properties\":{\"id\":{\"type\":\"integer\",\"minimum\":1},\"name\":{\"type\":\"string\",\"maxLength\":64}}}}}}"));
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < 2000; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            // 第1500个元素的id违反minimum
+            json.append("{\"id\":").append(i == 1500 ? 0 : i + 1).append(",\"name\":\"user-").append(i).append("\"}");
+        }
+        json.append("]}");
+
+        List<String> streamed = streamValidate(schema, json.toString());
+        List<String> tree = schema.validate(objectMapper.readTree(json.toString()));
+        assertEquals(1, streamed.size());
+        assertEquals(tree, streamed);
+        assertTrue(streamed.get(0).contains("1500"), streamed.get(0));
+    }
+}
@@ -37,8 +37,8 @@ import {
   Legend,
   ResponsiveContainer,
 } from 'recharts';
-import { monitoringAPI } from '../../services/api';
-import { RealTimeData, StatisticsReport, TrendReport, PerformanceReport } from '../../types';
+import { monitoringAPI, loadTestAPI } from '../../services/api';
+import { RealTimeData, StatisticsReport, TrendReport, PerformanceReport, LoadTestRun } from '../../types';
 import './MonitoringDashboard.css';
 
 const { Title, Text } = Typography;
@@ -49,6 +49,7 @@ const MonitoringDashboard: React.FC = () => {
   const [statistics, setStatistics] = useState<StatisticsReport | null>(null);
   const [trendData, setTrendData] = useState<TrendReport | null>(null);
   const [performanceData, setPerformanceData] = useState<PerformanceReport | null>(null);
+  const [loadTests, setLoadTests] = useState<LoadTestRun[]>([]);
   const [loading, setLoading] = useState(true);
   const [refreshing, setRefreshing] = useState(false);
 
@@ -92,6 +93,16 @@ const MonitoringDashboard: React.FC = () => {
     }
   };
 
+  // 获取最近的压测结果
+  const fetchLoadTests = async () => {
+    try {
+      const response = await loadTestAPI.getAll();
+      setLoadTests((response.data || []).slice(0, 20));
+    } catch (error) {
+      console.error('获取压测结果失败:', error);
+    }
+  };
+
   // 刷新所有数据
   const refreshAll = async () => {
     setRefreshing(true);
@@ -101,6 +112,7 @@ const MonitoringDashboard: React.FC = () => {
         fetchStatistics(),
         fetchTrendData(),
         fetchPerformanceData(),
+        fetchLoadTests(),
       ]);
     } finally {
       setRefreshing(false);
@@ -370,6 +382,56 @@ const MonitoringDashboard: React.FC = () => {
           </Row>
         </TabPane>
 
+        <TabPane tab="压测结果" key="load-tests">
+          <Card title="最近压测" className="load-test-card">
+            <Table
+              dataSource={loadTests}
+              rowKey="id"
+              columns={[
+                {
+                  title: '用例',
+                  dataIndex: 'testCaseName',
+                  key: 'testCaseName',
+                  render: (text: any, record: LoadTestRun) => text || <Text code>{record.testCaseId}</Text>,
+                },
+                { title: '模式', dataIndex: 'mode', key: 'mode' },
+                {
+                  title: '状态',
+                  dataIndex: 'status',
+                  key: 'status',
+                  render: (status: LoadTestRun['status']) => (
+                    <Text type={status === 'FAILED' ? 'danger' : status === 'COMPLETED' ? 'success' : undefined}>{status}</Text>
+                  ),
+                },
+                { title: '请求数', dataIndex: 'totalRequests', key: 'totalRequests' },
+                {
+                  title: '吞吐量',
+                  dataIndex: 'throughputRps',
+                  key: 'throughputRps',
+                  render: (value?: number) => (value != null ? `${value.toFixed(1)} RPS` : '-'),
+                },
+                {
+                  title: '错误率',
+                  dataIndex: 'errorRate',
+                  key: 'errorRate',
+                  render: (value?: number) => (value != null ? `${(value * 100).toFixed(2)}%` : '-'),
+                },
+                {
+                  title: 'P50 / P95 / P99',
+                  key: 'latency',
+                  render: (_: any, record: LoadTestRun) =>
+                    record.latencyP50Ms != null
+                      ? `${record.latencyP50Ms.toFixed(1)} / ${record.latencyP95Ms?.toFixed(1)} / ${record.latencyP99Ms?.toFixed(1)} ms`
+                      : '-',
+                },
+                { title: '开始时间', dataIndex: 'startTime', key: 'startTime' },
+              ]}
+              pagination={false}
+              size="small"
+            />
+          </Card>
+        </TabPane>
+
         <TabPane tab="统计报告" key="statistics">
           <Row gutter={[16, 16]}>
             {/* 今日统计 */}
@@ -399,7 +399,10 @@ const TestCaseConfigForm: React.FC<TestCaseConfigFormProps> = ({
                           <Option value="statusCode">状态码</Option>
                           <Option value="contains">包含文本</Option>
                           <Option value="jsonPath">JSON路径</Option>
+                          <Option value="header">响应头</Option>
                           <Option value="responseTime">响应时间</Option>
+                          <Option value="bodySize">响应体大小</Option>
+                          <Option value="jsonSchema">JSON Schema</Option>
                         </Select>
                       </Col>
                       <Col span={6}>
@@ -414,6 +417,9 @@ const TestCaseConfigForm: React.FC<TestCaseConfigFormProps> = ({
                           <Option value="NOT_CONTAINS">不包含</Option>
                           <Option value="GREATER_THAN">大于</Option>
                           <Option value="LESS_THAN">小于</Option>
+                          <Option value="REGEX">正则匹配</Option>
+                          <Option value="EXISTS">存在</Option>
+                          <Option value="NOT_EXISTS">不存在</Option>
                         </Select>
                       </Col>
                       <Col span={8}>
@@ -333,6 +333,18 @@ const TestCaseConfigTemplates: React.FC<TestCaseConfigTemplatesProps> = ({
                   <Tag color="green">responseTime</Tag>
                   <Text>响应时间断言</Text>
                 </div>
+                <div className="assertion-item">
+                  <Tag color="green">header</Tag>
+                  <Text>响应头断言</Text>
+                </div>
+                <div className="assertion-item">
+                  <Tag color="green">bodySize</Tag>
+                  <Text>响应体大小断言</Text>
+                </div>
+                <div className="assertion-item">
+                  <Tag color="green">jsonSchema</Tag>
+                  <Text>JSON Schema断言</Text>
+                </div>
               </div>
             </div>
           </Panel>
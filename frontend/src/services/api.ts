@@ -86,6 +86,7 @@ export const testSuiteAPI = {
   update: (id: string, data: any) => api.put(`/test-suites/${id}`, data),
   delete: (id: string) => api.delete(`/test-suites/${id}`),
   getTestCaseCount: (id: string) => api.get(`/test-suites/${id}/test-case-count`),
+  getShards: (id: string, count: number) => api.get(`/test-suites/${id}/shards`, { params: { count } }),
 };
 
 
@@ -98,6 +99,25 @@ export const testReportAPI = {
   exportCsv: (id: string) => api.get(`/test-reports/${id}/export/csv`),
 };
 
+// 压测相关API（API用例请求压测、业务流程虚拟用户压测）
+export const loadTestAPI = {
+  start: (data: {
+    testCaseId: string;
+    environmentId: string;
+    mode: 'RATE' | 'CONCURRENCY' | 'SCENARIO';
+    targetRps?: number;
+    concurrency?: number;
+    durationSeconds: number;
+    virtualUsers?: number;
+    rampUpSeconds?: number;
+    rampDownSeconds?: number;
+    thinkTimeMs?: number;
+  }) => api.post('/load-tests', data),
+  getAll: (testCaseId?: string) => api.get('/load-tests', { params: { testCaseId } }),
+  getById: (id: string) => api.get(`/load-tests/${id}`),
+  stop: (id: string) => api.post(`/load-tests/${id}/stop`),
+};
+
 // 环境管理相关API
 export const environmentAPI = {
   getAll: () => api.get('/environments'),
@@ -191,6 +211,7 @@ export const testExecutionAPI = {
   getLogs: (id: string) => api.get(`/test-executions/${id}/logs`),
   streamLogs: (id: string) => new EventSource(`${process.env.REACT_APP_API_URL || 'http://localhost:8180/api'}/test-executions/${id}/logs/stream`),
   stop: (id: string) => api.post(`/test-executions/${id}/stop`),
+  resume: (id: string) => api.post(`/test-executions/${id}/resume`),
 };
 
 export default api;
@@ -26,13 +26,30 @@ export interface TestCaseConfig {
   extract?: Record<string, string>;
   timeout?: number;
   retries?: number;
+  retry?: RetryPolicy; // 覆盖套件的重试策略，retries为maxRetries的简写
+}
+
+export interface RetryPolicy {
+  maxRetries?: number;
+  initialDelayMs?: number;
+  maxDelayMs?: number;
+  multiplier?: number;
+  jitter?: number; // 0~1，随机减少等待时间的比例
+  retryOn?: Array<'connect' | 'timeout' | 'io' | '5xx' | '429' | 'element' | 'assertion'>;
 }
 
 export interface TestAssertion {
-  type: 'statusCode' | 'jsonPath' | 'responseTime' | 'contains' | 'equals';
+  type: 'statusCode' | 'header' | 'jsonPath' | 'responseTime' | 'bodySize' | 'jsonSchema' | 'contains' | 'equals';
   path?: string;
-  expected: any;
-  operator?: 'equals' | 'notEquals' | 'greaterThan' | 'lessThan' | 'contains' | 'notContains' | 'EQUALS' | 'NOT_EQUALS' | 'CONTAINS' | 'NOT_CONTAINS';
+  expression?: string;
+  name?: string; // header断言的响应头名称
+  expected?: any;
+  min?: number; // bodySize断言，字节
+  max?: number; // bodySize断言（字节）、responseTime断言（毫秒）
+  schema?: Record<string, any>; // jsonSchema断言，内联schema
+  schemaRef?: string; // jsonSchema断言，引用环境或套件中存储的schema
+  operator?: 'equals' | 'notEquals' | 'greaterThan' | 'lessThan' | 'contains' | 'notContains' | 'regex' | 'exists' | 'notExists'
+    | 'EQUALS' | 'NOT_EQUALS' | 'CONTAINS' | 'NOT_CONTAINS' | 'GREATER_THAN' | 'LESS_THAN' | 'REGEX' | 'EXISTS' | 'NOT_EXISTS';
 }
 
 // 测试用例相关类型
@@ -57,6 +74,7 @@ export interface TestSuiteCase extends BaseEntity {
   testCase?: TestCase; // 可选的测试用例详情，用于前端显示
   executionOrder: number;
   isEnabled: boolean;
+  dependsOn?: string[]; // 依赖的测试用例ID，依赖通过后才执行
   createdAt: string;
   updatedAt: string;
 }
@@ -66,6 +84,9 @@ export interface TestSuite extends BaseEntity {
   name: string;
   description?: string;
   type: 'API' | 'UI' | 'BUSINESS';
+  parallelism?: number; // 用例最大并行度
+  schemas?: string; // JSON字符串，存储的JSON Schema，同名时覆盖环境中的schema
+  retryPolicy?: string; // JSON字符串，重试策略：maxRetries、initialDelayMs、maxDelayMs、multiplier、jitter、retryOn
   testCases: string[]; // 向后兼容
   testSuiteCases?: TestSuiteCase[]; // 新的关联关系
 }
@@ -82,6 +103,7 @@ export interface TestExecution extends BaseEntity {
   errorMessage?: string;
   duration?: number;
   progress?: number;
+  queuePosition?: number; // 排队中的执行在队列中的位置
   environmentId?: string;
   executionLogs?: TestExecutionLog[];
 }
@@ -152,6 +174,41 @@ export interface ReportDetail {
   metadata?: string;
 }
 
+// 压测结果，延迟单位为毫秒；SCENARIO模式下一次请求对应一次完整的业务流程
+export interface LoadTestRun {
+  id: string;
+  testCaseId: string;
+  testCaseName?: string;
+  environmentId: string;
+  mode: 'RATE' | 'CONCURRENCY' | 'SCENARIO';
+  targetRps?: number;
+  concurrency?: number;
+  durationSeconds: number; // SCENARIO模式下为稳定阶段时长
+  virtualUsers?: number;
+  rampUpSeconds?: number;
+  rampDownSeconds?: number;
+  thinkTimeMs?: number;
+  peakVirtualUsers?: number;
+  status: 'PENDING' | 'RUNNING' | 'COMPLETED' | 'FAILED' | 'CANCELLED';
+  totalRequests?: number;
+  successCount?: number;
+  errorCount?: number;
+  errorRate?: number;
+  throughputRps?: number;
+  latencyMinMs?: number;
+  latencyMeanMs?: number;
+  latencyP50Ms?: number;
+  latencyP95Ms?: number;
+  latencyP99Ms?: number;
+  latencyP999Ms?: number;
+  latencyMaxMs?: number;
+  distribution?: string; // JSON字符串：{latency, serviceTime, errors, steps}
+  errorMessage?: string;
+  startTime?: string;
+  endTime?: string;
+  createdAt: string;
+}
+
 // 认证配置相关类型
 export interface AuthConfig {
   type: 'jwt' | 'basic' | 'oauth2' | 'apiKey' | 'none';
@@ -173,6 +230,12 @@ export interface AuthConfig {
   apiKey?: string;
   apiKeyHeader?: string;
   apiKeyValue?: string;
+  // OAuth2客户端凭据模式
+  tokenUrl?: string; // 相对地址时拼接apiBaseUrl
+  clientId?: string;
+  clientSecret?: string;
+  scope?: string;
+  clientAuthMethod?: 'basic' | 'post'; // 客户端凭据的发送方式，默认basic
 }
 
 // 环境管理相关类型
@@ -184,6 +247,11 @@ export interface TestEnvironment extends BaseEntity {
   uiBaseUrl?: string;
   databaseConfig?: string;
   authConfig?: string; // JSON字符串，存储AuthConfig
+  maxConcurrency?: number; // 在途用例数上限
+  rateLimitRps?: number; // 每秒请求数上限
+  rateLimitBurst?: number; // 令牌桶容量
+  httpConfig?: string; // JSON字符串，HTTP客户端配置
+  schemas?: string; // JSON字符串，存储的JSON Schema（名称 -> schema）
   isActive: boolean;
   createdBy: string;
 }
@@ -252,8 +320,14 @@ export interface PerformanceReport {
   maxExecutionTime: number;
   avgExecutionTime: number;
   totalExecutions: number;
+  // 套件用例在统计时间范围内的压测结果，最新的在前
+  loadTests?: LoadTestSummary[];
 }
 
+// 报告中的压测结果摘要，不含延迟分布
+export type LoadTestSummary = Pick<LoadTestRun, 'id' | 'testCaseId' | 'testCaseName' | 'mode' | 'status' | 'totalRequests'
+  | 'errorRate' | 'throughputRps' | 'latencyP50Ms' | 'latencyP95Ms' | 'latencyP99Ms' | 'startTime' | 'endTime'>;
+
 // 告警相关类型
 export interface AlertRule {
   name: string;